@@ -0,0 +1,122 @@
+package com.mathtutor.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.model.ChatResponse;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 准入控制的 Servlet 过滤器
+ * 排队期间占用容器线程，队列容量应小于 Tomcat 线程数；异步响应（SSE）在异步处理结束时才归还名额
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final AdmissionQueue queue;
+    private final ObjectMapper objectMapper;
+
+    public AdmissionFilter(AdmissionQueue queue, ObjectMapper objectMapper) {
+        this.queue = queue;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        AdmissionPriority priority = "OPTIONS".equals(request.getMethod())
+            ? null : queue.classify(request.getRequestURI().substring(request.getContextPath().length()));
+        if (priority == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdmissionTicket ticket = queue.acquire(priority);
+        if (!awaitDecision(ticket)) {
+            ticket.release();
+            reject(response, ticket);
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseListener(ticket));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                ticket.release();
+            }
+        }
+    }
+
+    private boolean awaitDecision(AdmissionTicket ticket) {
+        try {
+            // 队列自身会在排队时限到达时拒绝，这里的超时只是兜底
+            return ticket.decision().get(10, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("等待准入结果失败", e);
+            return false;
+        }
+    }
+
+    private void reject(HttpServletResponse response, AdmissionTicket ticket) throws IOException {
+        long seconds = Math.max(1, ticket.getRetryAfter().toSeconds());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(),
+            ChatResponse.error("服务繁忙，请 " + seconds + " 秒后重试", null));
+    }
+
+    private static class ReleaseListener implements AsyncListener {
+
+        private final AdmissionTicket ticket;
+
+        ReleaseListener(AdmissionTicket ticket) {
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            ticket.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            ticket.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            ticket.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mathtutor.admission;
+
+/**
+ * 准入优先级，声明顺序即出队顺序：名额空出时先放行靠前的类别
+ */
+public enum AdmissionPriority {
+    /**
+     * 交互请求：对话、单步批改，学生在等着看结果
+     */
+    INTERACTIVE,
+
+    /**
+     * 流式对话：占用名额时间长，但首段要尽快出现
+     */
+    STREAMING,
+
+    /**
+     * 批量任务：全班批改、预生成等，可以等待，排队满时最先被挤出
+     */
+    BATCH
+}
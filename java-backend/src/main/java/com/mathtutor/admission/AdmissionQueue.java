@@ -0,0 +1,257 @@
+package com.mathtutor.admission;
+
+import com.mathtutor.config.AdmissionProperties;
+import com.mathtutor.model.AdmissionStats;
+import com.mathtutor.tutoring.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 准入队列：固定数量的处理名额加按优先级排队的有界等待队列
+ *
+ * 申请时按前面排队的人数和近期单个请求的平均处理时长估计等待时间，超过该优先级的排队时限就立即拒绝，
+ * 并把估计值作为 Retry-After；队列满时挤出最新进入的低优先级申请，没有可挤出的则拒绝新申请。
+ * 排队中的申请到时限仍未放行也会被拒绝。同一优先级内先到先得。
+ */
+@Slf4j
+@Component
+public class AdmissionQueue {
+
+    public static final String SHED_EXPECTED_WAIT = "expected_wait";
+    public static final String SHED_QUEUE_FULL = "queue_full";
+    public static final String SHED_TIMEOUT = "timeout";
+    public static final String SHED_EVICTED = "evicted";
+
+    /**
+     * 平均处理时长的平滑系数
+     */
+    private static final double SERVICE_TIME_WEIGHT = 0.1;
+
+    private final AdmissionProperties properties;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Map<AdmissionPriority, ArrayDeque<AdmissionTicket>> waiting = new EnumMap<>(AdmissionPriority.class);
+    private int waitingCount;
+    private int inUse;
+    private double serviceNanos;
+
+    private final LongAdder admitted = new LongAdder();
+    private final Map<String, LongAdder> shedByReason = new ConcurrentHashMap<>();
+    private final Map<AdmissionPriority, LongAdder> shedByPriority = new EnumMap<>(AdmissionPriority.class);
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    public AdmissionQueue(AdmissionProperties properties) {
+        this.properties = properties;
+        this.serviceNanos = properties.getInitialServiceTime().toNanos();
+        for (AdmissionPriority priority : AdmissionPriority.values()) {
+            waiting.put(priority, new ArrayDeque<>());
+            shedByPriority.put(priority, new LongAdder());
+        }
+    }
+
+    /**
+     * 请求路径对应的优先级
+     * @return 不受控的路径或准入控制关闭时返回 null
+     */
+    public AdmissionPriority classify(String path) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        for (AdmissionProperties.Route route : properties.getRoutes()) {
+            if (matcher.match(route.getPattern(), path)) {
+                return route.getPriority();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 申请处理名额，立即返回；结果见 {@link AdmissionTicket#decision()}
+     */
+    public AdmissionTicket acquire(AdmissionPriority priority) {
+        AdmissionTicket ticket = new AdmissionTicket(this, priority);
+        Duration timeout = properties.getQueueTimeout().getOrDefault(priority, Duration.ofSeconds(10));
+        AdmissionTicket evicted = null;
+        String shed = null;
+        boolean immediate = false;
+        long expected = 0;
+        synchronized (this) {
+            int ahead = aheadOf(priority);
+            if (inUse < properties.getMaxConcurrent() && ahead == 0) {
+                inUse++;
+                immediate = true;
+            } else {
+                expected = expectedWaitNanos(ahead);
+                if (expected > timeout.toNanos()) {
+                    shed = SHED_EXPECTED_WAIT;
+                } else if (waitingCount >= properties.getQueueCapacity()
+                    && (evicted = evictBelow(priority)) == null) {
+                    shed = SHED_QUEUE_FULL;
+                } else {
+                    waiting.get(priority).addLast(ticket);
+                    waitingCount++;
+                }
+            }
+        }
+
+        if (evicted != null) {
+            reject(evicted, SHED_EVICTED, expected);
+        }
+        if (shed != null) {
+            reject(ticket, shed, expected);
+        } else if (immediate) {
+            granted(ticket);
+        } else {
+            Schedulers.parallel().schedule(() -> expire(ticket), timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return ticket;
+    }
+
+    public AdmissionStats getStats() {
+        Map<String, Integer> queued = new LinkedHashMap<>();
+        int queuedTotal;
+        int busy;
+        double service;
+        synchronized (this) {
+            for (Map.Entry<AdmissionPriority, ArrayDeque<AdmissionTicket>> entry : waiting.entrySet()) {
+                queued.put(entry.getKey().name().toLowerCase(), entry.getValue().size());
+            }
+            queuedTotal = waitingCount;
+            busy = inUse;
+            service = serviceNanos;
+        }
+        Map<String, Long> byReason = new LinkedHashMap<>();
+        shedByReason.forEach((reason, count) -> byReason.put(reason, count.sum()));
+        Map<String, Long> byPriority = new LinkedHashMap<>();
+        shedByPriority.forEach((priority, count) -> byPriority.put(priority.name().toLowerCase(), count.sum()));
+        long shedTotal = byReason.values().stream().mapToLong(Long::longValue).sum();
+        return new AdmissionStats(properties.isEnabled(), properties.getMaxConcurrent(), busy, queuedTotal, queued,
+            admitted.sum(), shedTotal, byReason, byPriority, service / 1e6,
+            waitTimes.percentileNanos(50) / 1e6, waitTimes.percentileNanos(95) / 1e6);
+    }
+
+    /**
+     * 放行的请求处理结束，名额交给排在最前的申请
+     */
+    void release(AdmissionTicket ticket) {
+        long held = System.nanoTime() - ticket.getGrantedNanos();
+        synchronized (this) {
+            inUse--;
+            serviceNanos = serviceNanos * (1 - SERVICE_TIME_WEIGHT) + held * SERVICE_TIME_WEIGHT;
+        }
+        dispatch();
+    }
+
+    /**
+     * 未放行的申请放弃排队（客户端断开）
+     */
+    synchronized void abandon(AdmissionTicket ticket) {
+        if (waiting.get(ticket.getPriority()).remove(ticket)) {
+            waitingCount--;
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            AdmissionTicket next;
+            synchronized (this) {
+                if (inUse >= properties.getMaxConcurrent() || waitingCount == 0) {
+                    return;
+                }
+                next = pollHighest();
+                waitingCount--;
+                inUse++;
+            }
+            if (granted(next)) {
+                return;
+            }
+            // 申请已被放弃，名额继续交给下一个
+            synchronized (this) {
+                inUse--;
+            }
+        }
+    }
+
+    private boolean granted(AdmissionTicket ticket) {
+        if (!ticket.grant()) {
+            return false;
+        }
+        admitted.increment();
+        waitTimes.record(Math.max(1, System.nanoTime() - ticket.getCreatedNanos()));
+        return true;
+    }
+
+    private void expire(AdmissionTicket ticket) {
+        long expected;
+        synchronized (this) {
+            if (!waiting.get(ticket.getPriority()).remove(ticket)) {
+                return;
+            }
+            waitingCount--;
+            expected = expectedWaitNanos(aheadOf(ticket.getPriority()));
+        }
+        reject(ticket, SHED_TIMEOUT, expected);
+    }
+
+    /**
+     * 先计数再完成申请，请求方看到拒绝时统计里已经有它
+     */
+    private void reject(AdmissionTicket ticket, String reason, long expectedNanos) {
+        long seconds = Math.max(1, (long) Math.ceil(expectedNanos / 1e9));
+        if (!ticket.decision().isDone()) {
+            shedByReason.computeIfAbsent(reason, r -> new LongAdder()).increment();
+            shedByPriority.get(ticket.getPriority()).increment();
+            log.debug("准入拒绝 {} 请求: {}，建议 {} 秒后重试", ticket.getPriority(), reason, seconds);
+            ticket.reject(Duration.ofSeconds(seconds));
+        }
+    }
+
+    /**
+     * 会排在该优先级新申请之前的人数
+     */
+    private int aheadOf(AdmissionPriority priority) {
+        int ahead = 0;
+        for (AdmissionPriority p : AdmissionPriority.values()) {
+            if (p.ordinal() <= priority.ordinal()) {
+                ahead += waiting.get(p).size();
+            }
+        }
+        return ahead;
+    }
+
+    private long expectedWaitNanos(int ahead) {
+        return (long) ((ahead + 1) * serviceNanos / Math.max(1, properties.getMaxConcurrent()));
+    }
+
+    private AdmissionTicket evictBelow(AdmissionPriority priority) {
+        AdmissionPriority[] priorities = AdmissionPriority.values();
+        for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+            AdmissionTicket victim = waiting.get(priorities[i]).pollLast();
+            if (victim != null) {
+                waitingCount--;
+                return victim;
+            }
+        }
+        return null;
+    }
+
+    private AdmissionTicket pollHighest() {
+        for (AdmissionPriority priority : AdmissionPriority.values()) {
+            AdmissionTicket ticket = waiting.get(priority).pollFirst();
+            if (ticket != null) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+}
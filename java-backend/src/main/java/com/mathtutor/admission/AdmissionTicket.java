@@ -0,0 +1,76 @@
+package com.mathtutor.admission;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次准入申请
+ * {@link #decision()} 在放行时以 true 完成，被拒绝、排队超时或被挤出时以 false 完成；
+ * 放行后处理结束（含流式响应写完）必须调用 {@link #release()} 归还名额。
+ */
+public class AdmissionTicket {
+
+    private final AdmissionQueue queue;
+    private final AdmissionPriority priority;
+    private final long createdNanos = System.nanoTime();
+    private final CompletableFuture<Boolean> decision = new CompletableFuture<>();
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile long grantedNanos;
+    private volatile Duration retryAfter = Duration.ZERO;
+
+    AdmissionTicket(AdmissionQueue queue, AdmissionPriority priority) {
+        this.queue = queue;
+        this.priority = priority;
+    }
+
+    public AdmissionPriority getPriority() {
+        return priority;
+    }
+
+    public CompletableFuture<Boolean> decision() {
+        return decision;
+    }
+
+    /**
+     * 被拒绝时建议客户端等待多久再试
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * 归还名额，可重复调用；未放行的申请调用时放弃排队
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            if (decision.complete(false)) {
+                queue.abandon(this);
+            } else if (isGranted()) {
+                queue.release(this);
+            }
+        }
+    }
+
+    boolean isGranted() {
+        return decision.isDone() && !decision.isCompletedExceptionally() && decision.join();
+    }
+
+    boolean grant() {
+        grantedNanos = System.nanoTime();
+        return decision.complete(true);
+    }
+
+    boolean reject(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+        return decision.complete(false);
+    }
+
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    long getGrantedNanos() {
+        return grantedNanos;
+    }
+}
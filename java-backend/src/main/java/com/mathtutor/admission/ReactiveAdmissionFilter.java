@@ -0,0 +1,65 @@
+package com.mathtutor.admission;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.model.ChatResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * 准入控制的 WebFlux 过滤器，排队不占线程；响应写完、出错或客户端断开时归还名额
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAdmissionFilter implements WebFilter {
+
+    private final AdmissionQueue queue;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveAdmissionFilter(AdmissionQueue queue, ObjectMapper objectMapper) {
+        this.queue = queue;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        AdmissionPriority priority = HttpMethod.OPTIONS.equals(exchange.getRequest().getMethod())
+            ? null : queue.classify(exchange.getRequest().getPath().pathWithinApplication().value());
+        if (priority == null) {
+            return chain.filter(exchange);
+        }
+        return Mono.defer(() -> {
+            AdmissionTicket ticket = queue.acquire(priority);
+            return Mono.fromFuture(ticket.decision(), true)
+                .flatMap(granted -> granted
+                    ? chain.filter(exchange).doFinally(signal -> ticket.release())
+                    : reject(exchange.getResponse(), ticket))
+                .doOnCancel(ticket::release);
+        });
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, AdmissionTicket ticket) {
+        long seconds = Math.max(1, ticket.getRetryAfter().toSeconds());
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(ChatResponse.error("服务繁忙，请 " + seconds + " 秒后重试", null));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
@@ -0,0 +1,348 @@
+package com.mathtutor.channel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.ChannelProperties;
+import com.mathtutor.llm.StreamCoalescer;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.StepSubmission;
+import com.mathtutor.service.ReactiveChatService;
+import com.mathtutor.service.StepGradingService;
+import com.mathtutor.service.TutoringService;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一条辅导长连接的状态：进行中的请求、各类型的同时进行数、流式回答的额度
+ *
+ * 流量控制分两层：每类请求有独立的同时进行上限，批量作答检查占满名额时对话照常进行；
+ * 流式回答合并成段后按额度推送（额度按合并后的 delta 条数计），客户端读得慢就少发 credit，
+ * 上游随之停止读取，不在服务端堆积。
+ * 写出队列有上限，仍然积压（客户端不读取）时关闭连接。
+ */
+@Slf4j
+class ChannelConnection {
+
+    static final String BUSY = "busy";
+    static final String BAD_REQUEST = "bad_request";
+    static final String UNAVAILABLE = "unavailable";
+
+    private static final String DEFAULT_HINT = "给个提示";
+
+    private final ReactiveChatService chatService;
+    private final StepGradingService gradingService;
+    private final StreamCoalescer coalescer;
+    private final ChannelProperties properties;
+    private final ObjectMapper mapper;
+    private final String defaultSessionId = UUID.randomUUID().toString().replace("-", "");
+
+    private final Sinks.Many<ChannelFrame> outbound;
+    private final Sinks.Empty<Void> closed = Sinks.empty();
+    private final Map<FrameType, AtomicInteger> inFlight = new EnumMap<>(FrameType.class);
+    private final Map<Long, Disposable> pending = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    ChannelConnection(ReactiveChatService chatService, StepGradingService gradingService,
+                      StreamCoalescer coalescer, ChannelProperties properties, ObjectMapper mapper) {
+        this.chatService = chatService;
+        this.gradingService = gradingService;
+        this.coalescer = coalescer;
+        this.properties = properties;
+        this.mapper = mapper;
+        this.outbound = Sinks.many().unicast()
+            .onBackpressureBuffer(Queues.<ChannelFrame>get(properties.getOutboundBuffer()).get());
+        for (FrameType type : FrameType.values()) {
+            if (type.isRequest()) {
+                inFlight.put(type, new AtomicInteger());
+            }
+        }
+    }
+
+    Flux<String> run(Flux<String> inbound) {
+        ChannelFrame hello = new ChannelFrame(FrameType.HELLO, null);
+        hello.setS(defaultSessionId);
+        hello.setD(Map.of(
+            "heartbeat", properties.getHeartbeatInterval().toMillis(),
+            "window", properties.getStreamWindow(),
+            "maxInFlight", properties.getMaxInFlight()));
+        emit(hello);
+
+        Mono<Void> reader = inbound
+            .timeout(properties.getIdleTimeout())
+            .doOnNext(this::onText)
+            .then()
+            .onErrorResume(e -> {
+                if (e instanceof TimeoutException) {
+                    log.debug("心跳超时，关闭辅导连接");
+                } else {
+                    log.warn("辅导连接读取失败: {}", e.getMessage());
+                }
+                return Mono.empty();
+            })
+            .doFinally(signal -> close());
+        Flux<ChannelFrame> heartbeats = Flux.interval(properties.getHeartbeatInterval())
+            .map(i -> new ChannelFrame(FrameType.PING, null))
+            .takeUntilOther(closed.asMono());
+
+        return outbound.asFlux()
+            .mergeWith(heartbeats)
+            .mergeWith(reader.thenMany(Flux.empty()))
+            .map(this::encode)
+            .doFinally(signal -> close());
+    }
+
+    private void onText(String text) {
+        if (text.length() > properties.getMaxFrameLength()) {
+            emit(ChannelFrame.error(null, BAD_REQUEST, "消息过长"));
+            return;
+        }
+        ChannelFrame frame;
+        try {
+            frame = mapper.readValue(text, ChannelFrame.class);
+        } catch (JsonProcessingException e) {
+            emit(ChannelFrame.error(null, BAD_REQUEST, "无法解析的消息"));
+            return;
+        }
+        FrameType type = FrameType.of(frame.getT());
+        if (type == null) {
+            emit(ChannelFrame.error(frame.getId(), BAD_REQUEST, "未知的消息类型: " + frame.getT()));
+            return;
+        }
+        switch (type) {
+            case PING:
+                emit(new ChannelFrame(FrameType.PONG, frame.getId()));
+                break;
+            case PONG:
+                break;
+            case CREDIT:
+                credit(frame);
+                break;
+            case CANCEL:
+                cancel(frame.getId());
+                break;
+            case CHAT:
+            case STREAM:
+            case HINT:
+            case CHECK:
+                request(type, frame);
+                break;
+            default:
+                emit(ChannelFrame.error(frame.getId(), BAD_REQUEST, "客户端不能发送 " + type.getCode()));
+        }
+    }
+
+    private void request(FrameType type, ChannelFrame frame) {
+        Long id = frame.getId();
+        if (id == null) {
+            emit(ChannelFrame.error(null, BAD_REQUEST, "缺少请求编号 id"));
+            return;
+        }
+        String invalid = validate(type, frame);
+        if (invalid != null) {
+            emit(ChannelFrame.error(id, BAD_REQUEST, invalid));
+            return;
+        }
+        if (pending.containsKey(id)) {
+            emit(ChannelFrame.error(id, BAD_REQUEST, "请求编号 " + id + " 正在进行"));
+            return;
+        }
+        AtomicInteger counter = inFlight.get(type);
+        if (counter.incrementAndGet() > properties.getMaxInFlight().getOrDefault(type.getCode(), 1)) {
+            counter.decrementAndGet();
+            emit(ChannelFrame.error(id, BUSY, type.getCode() + " 同时进行的请求已达上限"));
+            return;
+        }
+
+        String sessionId = frame.getS() != null && !frame.getS().isEmpty() ? frame.getS() : defaultSessionId;
+        if (type == FrameType.STREAM) {
+            StreamSubscriber subscriber = new StreamSubscriber(id, sessionId, counter);
+            pending.put(id, subscriber);
+            coalescer.coalesce(chatService.chatStream(chatRequest(frame.getM(), sessionId, frame.getC())))
+                .subscribe(subscriber);
+            return;
+        }
+
+        Mono<?> work;
+        switch (type) {
+            case CHAT:
+                work = chatService.chat(chatRequest(frame.getM(), sessionId, frame.getC()));
+                break;
+            case HINT:
+                work = chatService.chat(chatRequest(
+                    frame.getM() != null ? frame.getM() : DEFAULT_HINT, sessionId,
+                    frame.getP() != null ? TutoringService.PROBLEM_CONTEXT_PREFIX + frame.getP() : frame.getC()));
+                break;
+            default:
+                StepSubmission submission = new StepSubmission(sessionId, frame.getP(), frame.getStep(), frame.getA());
+                work = Mono.fromCallable(() -> gradingService.grade(submission))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        // 先占位再订阅：同步完成时会在 subscribe 返回前移除占位
+        Disposable.Swap slot = Disposables.swap();
+        pending.put(id, slot);
+        // 先归还并发名额再发送回复，客户端收到回复后立即发起的请求不会被误判为超限；取消时由 doFinally 归还
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                counter.decrementAndGet();
+                pending.remove(id, slot);
+            }
+        };
+        slot.update(work
+            .doFinally(signal -> release.run())
+            .subscribe(
+                result -> {
+                    release.run();
+                    emit(ChannelFrame.reply(id, sessionId, result));
+                },
+                e -> {
+                    release.run();
+                    log.warn("辅导连接请求 {} 失败: {}", type.getCode(), e.getMessage());
+                    emit(ChannelFrame.error(id, UNAVAILABLE, "Service temporarily unavailable"));
+                }));
+    }
+
+    private static String validate(FrameType type, ChannelFrame frame) {
+        switch (type) {
+            case CHAT:
+            case STREAM:
+                return frame.getM() == null || frame.getM().isBlank() ? "用户消息不能为空" : null;
+            case HINT:
+                return frame.getP() == null && frame.getC() == null ? "缺少题目编号 p" : null;
+            case CHECK:
+                return frame.getP() == null || frame.getStep() == null ? "缺少题目编号 p 或步骤编号 step" : null;
+            default:
+                return null;
+        }
+    }
+
+    private static ChatRequest chatRequest(String message, String sessionId, String context) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(message);
+        request.setSessionId(sessionId);
+        request.setContext(context);
+        return request;
+    }
+
+    private void credit(ChannelFrame frame) {
+        Disposable target = frame.getId() != null ? pending.get(frame.getId()) : null;
+        if (target instanceof StreamSubscriber && frame.getN() != null && frame.getN() > 0) {
+            ((StreamSubscriber) target).request(frame.getN());
+        }
+    }
+
+    private void cancel(Long id) {
+        Disposable target = id != null ? pending.remove(id) : null;
+        if (target != null) {
+            target.dispose();
+        }
+    }
+
+    private void emit(ChannelFrame frame) {
+        synchronized (outbound) {
+            if (!open) {
+                return;
+            }
+            if (outbound.tryEmitNext(frame) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                log.warn("辅导连接写出积压超过 {} 条，关闭连接", properties.getOutboundBuffer());
+                close();
+            }
+        }
+    }
+
+    private void close() {
+        synchronized (outbound) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            outbound.tryEmitComplete();
+        }
+        closed.tryEmitEmpty();
+        pending.values().forEach(Disposable::dispose);
+        pending.clear();
+    }
+
+    private String encode(ChannelFrame frame) {
+        try {
+            return mapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            log.error("辅导连接消息序列化失败: {}", frame.getT(), e);
+            return "{\"t\":\"error\",\"code\":\"" + UNAVAILABLE + "\"}";
+        }
+    }
+
+    /**
+     * 按额度向上游请求增量：初始额度 streamWindow，之后每收到一次 credit 追加 n 条
+     */
+    private final class StreamSubscriber extends BaseSubscriber<String> {
+
+        private final Long id;
+        private final String sessionId;
+        private final AtomicInteger counter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        StreamSubscriber(Long id, String sessionId, AtomicInteger counter) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.counter = counter;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(properties.getStreamWindow());
+        }
+
+        @Override
+        protected void hookOnNext(String delta) {
+            emit(ChannelFrame.delta(id, delta));
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            ChannelFrame done = new ChannelFrame(FrameType.DONE, id);
+            done.setS(sessionId);
+            release();
+            emit(done);
+        }
+
+        @Override
+        protected void hookOnError(Throwable e) {
+            release();
+            log.warn("辅导连接流式回答失败: {}", e.getMessage());
+            emit(ChannelFrame.error(id, UNAVAILABLE, "Service temporarily unavailable"));
+        }
+
+        @Override
+        protected void hookFinally(SignalType type) {
+            release();
+        }
+
+        /**
+         * 归还并发名额，只生效一次；结束帧发出前调用
+         */
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                counter.decrementAndGet();
+                pending.remove(id, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.mathtutor.channel;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * 辅导长连接上的一条消息（JSON 文本帧），字段名尽量短，空字段不输出
+ *
+ * 客户端为每个请求分配连接内唯一的编号 id，服务端的 reply/delta/done/error 带回同一编号，
+ * 因此多个请求可以在同一连接上交错进行；s 指定辅导会话，省略时使用连接的默认会话，
+ * 同一连接上的不同组件（对话框、黑板、数轴实验）可以各用各的会话。
+ * 例：{"t":"check","id":7,"p":"P_MATH_2025_025","step":"1","a":"a=-5"}
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChannelFrame {
+
+    /**
+     * 消息类型代码，见 {@link FrameType}
+     */
+    private String t;
+
+    /**
+     * 请求编号
+     */
+    private Long id;
+
+    /**
+     * 会话ID
+     */
+    private String s;
+
+    /**
+     * 消息文本
+     */
+    private String m;
+
+    /**
+     * 对话上下文
+     */
+    private String c;
+
+    /**
+     * 题目编号
+     */
+    private String p;
+
+    /**
+     * 步骤编号
+     */
+    private String step;
+
+    /**
+     * 作答
+     */
+    private String a;
+
+    /**
+     * 追加的额度
+     */
+    private Integer n;
+
+    /**
+     * 错误代码
+     */
+    private String code;
+
+    /**
+     * 结果数据
+     */
+    private Object d;
+
+    public ChannelFrame() {
+    }
+
+    public ChannelFrame(FrameType type, Long id) {
+        this.t = type.getCode();
+        this.id = id;
+    }
+
+    public static ChannelFrame reply(Long id, String sessionId, Object data) {
+        ChannelFrame frame = new ChannelFrame(FrameType.REPLY, id);
+        frame.setS(sessionId);
+        frame.setD(data);
+        return frame;
+    }
+
+    public static ChannelFrame delta(Long id, String text) {
+        ChannelFrame frame = new ChannelFrame(FrameType.DELTA, id);
+        frame.setM(text);
+        return frame;
+    }
+
+    public static ChannelFrame error(Long id, String code, String message) {
+        ChannelFrame frame = new ChannelFrame(FrameType.ERROR, id);
+        frame.setCode(code);
+        frame.setM(message);
+        return frame;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mathtutor.channel;
+
+/**
+ * 辅导长连接的消息类型，线上以小写代码表示
+ */
+public enum FrameType {
+    /**
+     * 客户端：对话，m 为消息，c 为上下文
+     */
+    CHAT("chat", true),
+
+    /**
+     * 客户端：流式对话，按额度推送 delta，结束时推送 done
+     */
+    STREAM("stream", true),
+
+    /**
+     * 客户端：请求提示，p 为题目编号，m 可省略
+     */
+    HINT("hint", true),
+
+    /**
+     * 客户端：检查步骤作答，p 为题目编号，step 为步骤编号，a 为作答
+     */
+    CHECK("check", true),
+
+    /**
+     * 客户端：为编号 id 的流式回答追加 n 条额度
+     */
+    CREDIT("credit", false),
+
+    /**
+     * 客户端：取消编号 id 的请求
+     */
+    CANCEL("cancel", false),
+
+    /**
+     * 双向：心跳，对方回复 pong
+     */
+    PING("ping", false),
+
+    PONG("pong", false),
+
+    /**
+     * 服务端：连接建立，s 为连接的默认会话ID，d 为心跳间隔与额度等参数
+     */
+    HELLO("hello", false),
+
+    /**
+     * 服务端：请求结果，d 为 ChatResponse 或 StepGradeResult
+     */
+    REPLY("reply", false),
+
+    /**
+     * 服务端：流式回答的一段增量文本 m
+     */
+    DELTA("delta", false),
+
+    /**
+     * 服务端：流式回答结束
+     */
+    DONE("done", false),
+
+    /**
+     * 服务端：请求失败，code 为 busy、bad_request 或 unavailable
+     */
+    ERROR("error", false);
+
+    private final String code;
+    private final boolean request;
+
+    FrameType(String code, boolean request) {
+        this.code = code;
+        this.request = request;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 是否为占用同时进行名额的客户端请求
+     */
+    public boolean isRequest() {
+        return request;
+    }
+
+    /**
+     * @return 未知代码返回 null
+     */
+    public static FrameType of(String code) {
+        for (FrameType type : values()) {
+            if (type.code.equals(code)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.mathtutor.channel;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+
+/**
+ * 辅导长连接的响应式适配器，写出速度由连接的可写状态决定，不占用线程
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTutorWebSocketHandler implements WebSocketHandler {
+
+    private final TutorChannel channel;
+
+    public ReactiveTutorWebSocketHandler(TutorChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        return session.send(channel.connect(session.receive().map(WebSocketMessage::getPayloadAsText))
+            .map(session::textMessage));
+    }
+}
@@ -0,0 +1,58 @@
+package com.mathtutor.channel;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.ChannelProperties;
+import com.mathtutor.llm.StreamCoalescer;
+import com.mathtutor.service.ReactiveChatService;
+import com.mathtutor.service.StepGradingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 辅导长连接的协议处理，与传输方式无关
+ * Servlet 与响应式两种部署模式各有一个 WebSocket 适配器，把收到的文本帧交给 {@link #connect}，
+ * 再把返回的文本帧写回连接；返回的 Flux 结束即应关闭连接。
+ */
+@Slf4j
+@Component
+public class TutorChannel {
+
+    private final ReactiveChatService chatService;
+    private final StepGradingService gradingService;
+    private final StreamCoalescer coalescer;
+    private final ChannelProperties properties;
+    private final ObjectMapper mapper;
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    public TutorChannel(ReactiveChatService chatService, StepGradingService gradingService,
+                        StreamCoalescer coalescer, ChannelProperties properties) {
+        this.chatService = chatService;
+        this.gradingService = gradingService;
+        this.coalescer = coalescer;
+        this.properties = properties;
+        this.mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * 处理一条连接
+     * @param inbound 客户端发来的文本帧，结束表示连接已关闭
+     * @return 发往客户端的文本帧（先是 hello），客户端断开、心跳超时或写出积压时结束
+     */
+    public Flux<String> connect(Flux<String> inbound) {
+        return Flux.defer(() -> {
+            openConnections.incrementAndGet();
+            return new ChannelConnection(chatService, gradingService, coalescer, properties, mapper).run(inbound);
+        }).doFinally(signal -> openConnections.decrementAndGet());
+    }
+
+    /**
+     * 当前打开的连接数
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+}
@@ -0,0 +1,95 @@
+package com.mathtutor.channel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+
+/**
+ * 辅导长连接的 Servlet 适配器
+ * 写出可能来自多个线程（请求结果、心跳），经 ConcurrentWebSocketSessionDecorator 串行化；
+ * 客户端读得太慢导致发送超时或缓冲超限时关闭连接。
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TutorWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String INBOUND = "tutorChannel.inbound";
+    private static final String SUBSCRIPTION = "tutorChannel.subscription";
+    private static final int SEND_TIME_LIMIT_MILLIS = 10_000;
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+
+    private final TutorChannel channel;
+
+    public TutorWebSocketHandler(TutorChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        WebSocketSession out = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS,
+            SEND_BUFFER_LIMIT, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        Sinks.Many<String> inbound = Sinks.many().unicast().onBackpressureBuffer();
+        session.getAttributes().put(INBOUND, inbound);
+        Disposable subscription = channel.connect(inbound.asFlux()).subscribe(
+            text -> send(out, text),
+            e -> close(out),
+            () -> close(out));
+        session.getAttributes().put(SUBSCRIPTION, subscription);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Sinks.Many<String> inbound = (Sinks.Many<String>) session.getAttributes().get(INBOUND);
+        if (inbound != null) {
+            inbound.tryEmitNext(message.getPayload());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Sinks.Many<String> inbound = (Sinks.Many<String>) session.getAttributes().get(INBOUND);
+        if (inbound != null) {
+            inbound.tryEmitComplete();
+        }
+        Disposable subscription = (Disposable) session.getAttributes().get(SUBSCRIPTION);
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("辅导连接传输异常: {}", exception.getMessage());
+    }
+
+    private static void send(WebSocketSession session, String text) {
+        try {
+            session.sendMessage(new TextMessage(text));
+        } catch (IOException | RuntimeException e) {
+            log.debug("辅导连接写出失败: {}", e.getMessage());
+            close(session);
+        }
+    }
+
+    private static void close(WebSocketSession session) {
+        try {
+            if (session.isOpen()) {
+                session.close();
+            }
+        } catch (IOException e) {
+            log.debug("关闭辅导连接失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.mathtutor.config;
+
+import com.mathtutor.admission.AdmissionPriority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 准入控制配置
+ * 调用大模型的接口同时处理的请求数有上限，其余在有界队列中按优先级等待；
+ * 预计等待超过排队时限的请求立即返回 503 和 Retry-After，不在 Tomcat 或上游前面干等到超时
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.admission")
+public class AdmissionProperties {
+
+    /**
+     * 是否启用准入控制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时处理的请求数（流式对话占用到流结束）
+     */
+    private int maxConcurrent = 64;
+
+    /**
+     * 等待队列容量，满时挤出优先级更低的请求，没有可挤出的则拒绝
+     * Servlet 模式下排队的请求占着容器线程，容量应小于 Tomcat 线程数（默认 200）
+     */
+    private int queueCapacity = 128;
+
+    /**
+     * 各优先级的排队时限：预计等待超过它时立即拒绝，排队超过它时放弃
+     */
+    private Map<AdmissionPriority, Duration> queueTimeout = new EnumMap<>(Map.of(
+        AdmissionPriority.INTERACTIVE, Duration.ofSeconds(10),
+        AdmissionPriority.STREAMING, Duration.ofSeconds(10),
+        AdmissionPriority.BATCH, Duration.ofSeconds(60)
+    ));
+
+    /**
+     * 还没有处理完成的请求时用于估计等待时间的单个请求处理时长
+     */
+    private Duration initialServiceTime = Duration.ofSeconds(5);
+
+    /**
+     * 受控接口及其优先级，按顺序取第一个匹配的（Ant 风格路径），未列出的接口不受控
+     */
+    private List<Route> routes = new ArrayList<>(List.of(
+        new Route("/api/chat/stream", AdmissionPriority.STREAMING),
+        new Route("/api/chat", AdmissionPriority.INTERACTIVE),
+        new Route("/api/grading/step", AdmissionPriority.INTERACTIVE),
+        new Route("/api/grading/batch", AdmissionPriority.BATCH),
+        new Route("/api/pregeneration/start", AdmissionPriority.BATCH)
+    ));
+
+    @Data
+    public static class Route {
+
+        private String pattern;
+        private AdmissionPriority priority;
+
+        public Route() {
+        }
+
+        public Route(String pattern, AdmissionPriority priority) {
+            this.pattern = pattern;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mathtutor.config;
+
+import com.mathtutor.model.GradeEnum;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.analysis")
+public class AnalysisProperties {
+    private GradeEnum defaultGrade = GradeEnum.SEVENTH_GRADE;
+    private Grounding grounding = new Grounding();
+
+    /**
+     * 预生成分析的存放目录，每道题一个 JSON 文件；为空表示不持久化
+     */
+    private String storeDirectory;
+
+    /**
+     * 是否把在线生成的分析（无附加上下文时）也存入分析存储，供之后相同或近似重复的题目复用
+     */
+    private boolean storeLiveResults = true;
+
+    /**
+     * 保留的在线分析数上限，超出时先删除最早生成的
+     */
+    private int maxLiveResults = 1000;
+
+    /**
+     * 在线分析的保留时长，过期后删除，再遇到同一道题时重新生成
+     */
+    private Duration liveResultRetention = Duration.ofDays(30);
+
+    private NearDuplicate nearDuplicate = new NearDuplicate();
+
+    private Jobs jobs = new Jobs();
+
+    /**
+     * 本地知识检索增强配置
+     */
+    @Data
+    public static class Grounding {
+        private boolean enabled = true;
+        private Integer maxTokens = 600;
+        private Integer knowledgeTopK = 3;
+        private Integer methodTopK = 3;
+    }
+
+    /**
+     * 近似重复题目复用配置：规范化后相同（只是排版、出处抬头、数字写法或语气词不同）的题目复用已存分析
+     */
+    @Data
+    public static class NearDuplicate {
+        private boolean enabled = true;
+    }
+
+    /**
+     * 异步分析任务配置
+     */
+    @Data
+    public static class Jobs {
+
+        /**
+         * 同时执行的分析数
+         */
+        private int workers = 4;
+
+        /**
+         * 排队任务数上限，满时拒绝提交
+         */
+        private int queueCapacity = 200;
+
+        /**
+         * 单个任务的执行时限，到期断开上游并标记为超时
+         */
+        private Duration timeout = Duration.ofSeconds(120);
+
+        /**
+         * 排队超过该时长的任务不再执行，直接标记为超时
+         */
+        private Duration maxQueueWait = Duration.ofMinutes(10);
+
+        /**
+         * 结束的任务保留多久供查询
+         */
+        private Duration retention = Duration.ofMinutes(30);
+
+        /**
+         * 保留的已结束任务数上限，超出时先丢弃最早结束的
+         */
+        private int maxRetained = 2000;
+    }
+}
@@ -0,0 +1,64 @@
+package com.mathtutor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 辅导长连接（WebSocket）配置
+ * 一条连接上多路复用对话、流式回答、提示与作答检查，消息格式见 {@link com.mathtutor.channel.ChannelFrame}
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.channel")
+public class ChannelProperties {
+
+    /**
+     * 是否开放 WebSocket 接口
+     */
+    private boolean enabled = true;
+
+    /**
+     * 连接地址
+     */
+    private String path = "/ws/tutor";
+
+    /**
+     * 服务端发送心跳（ping）的间隔，客户端应回复 pong
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(25);
+
+    /**
+     * 超过该时长未收到客户端任何消息（含 pong）即关闭连接
+     */
+    private Duration idleTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 每路流式回答的初始额度（合并后的 delta 条数），用完后等待客户端发送 credit 追加
+     */
+    private int streamWindow = 32;
+
+    /**
+     * 每条连接上各类请求同时进行的上限，超出时立即返回 busy 错误，不影响其他类型
+     */
+    private Map<String, Integer> maxInFlight = new HashMap<>(Map.of(
+        "chat", 4,
+        "stream", 2,
+        "hint", 4,
+        "check", 16
+    ));
+
+    /**
+     * 等待写出的消息条数上限，客户端长期不读取导致积压超出时关闭连接
+     */
+    private int outboundBuffer = 256;
+
+    /**
+     * 单条客户端消息的最大长度（字符）
+     */
+    private int maxFrameLength = 16 * 1024;
+}
@@ -0,0 +1,28 @@
+package com.mathtutor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.grading")
+public class GradingProperties {
+
+    /**
+     * 本地无法判定的作答是否交给大模型复核
+     */
+    private boolean escalateAmbiguous = true;
+
+    /**
+     * 一批复核请求的总等待时间，超时的作答保持"无法判定"
+     */
+    private Duration escalationTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 缓存的题目匹配器数量上限
+     */
+    private int matcherCacheSize = 10_000;
+}
@@ -0,0 +1,42 @@
+package com.mathtutor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 幂等键配置
+ * 带 Idempotency-Key 的重试请求复用第一次请求的结果，不再重复调用大模型
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * 是否识别 Idempotency-Key 请求头
+     */
+    private boolean enabled = true;
+
+    /**
+     * 结果自第一次请求起保留多久，之后同一个键按新请求处理
+     */
+    private Duration retention = Duration.ofMinutes(10);
+
+    /**
+     * 保留的已完成结果数上限，超出时先丢弃最早的
+     */
+    private int maxEntries = 10_000;
+
+    /**
+     * 已完成结果的估算内存上限
+     */
+    private long maxBytes = 32L * 1024 * 1024;
+
+    /**
+     * 幂等键的最大长度，超长的键视为无效
+     */
+    private int maxKeyLength = 128;
+}
@@ -0,0 +1,76 @@
+package com.mathtutor.config;
+
+import com.mathtutor.model.GradeEnum;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.knowledge")
+public class KnowledgeProperties {
+
+    /**
+     * 内置知识点数据文件（Spring 资源路径，支持通配符）
+     */
+    private List<String> locations = new ArrayList<>(List.of("classpath:knowledge/*.json"));
+
+    /**
+     * 构建时由内置数据生成的二进制快照，存在时代替 locations 加载，内置解题方法也从中读取；置空表示不使用快照
+     */
+    private String snapshot = "classpath:knowledge/catalog.snapshot";
+
+    /**
+     * 外部知识点数据目录，目录下的 *.json 在内置数据之后加载，同编号知识点以外部数据为准
+     */
+    private String directory;
+
+    private Watch watch = new Watch();
+
+    private Grades grades = new Grades();
+
+    /**
+     * 外部目录热加载配置
+     */
+    @Data
+    public static class Watch {
+        private boolean enabled = true;
+
+        /**
+         * 文件变化后等待多久没有新的变化再重新加载，避免编辑器多次写入导致重复加载
+         */
+        private Duration debounce = Duration.ofMillis(500);
+    }
+
+    /**
+     * 分年级知识点目录配置
+     */
+    @Data
+    public static class Grades {
+
+        /**
+         * 各年级内置数据文件，{level} 替换为年级数字（6-9）
+         */
+        private String location = "classpath:knowledge/grade{level}_*.json";
+
+        /**
+         * 已加载年级的内存预算（估算值），超出时淘汰最久未访问的非常驻年级；为空表示不限制
+         */
+        private DataSize memoryBudget;
+
+        /**
+         * 年级超过该时长未被访问即可淘汰；为空表示不按空闲时间淘汰
+         */
+        private Duration idleTimeout;
+
+        /**
+         * 常驻年级，加载后不会被淘汰
+         */
+        private List<GradeEnum> pinned = new ArrayList<>(List.of(GradeEnum.SEVENTH_GRADE));
+    }
+}
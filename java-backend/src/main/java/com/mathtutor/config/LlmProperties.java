@@ -1,9 +1,14 @@
 package com.mathtutor.config;
 
+import com.mathtutor.llm.WorkloadClass;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import lombok.Data;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
 @Data
 @Component
 @ConfigurationProperties(prefix = "mathtutor.llm")
@@ -15,4 +20,60 @@ public class LlmProperties {
     private Integer maxTokens = 4096;
     private Double temperature = 0.7;
     private String timeout = "30s";
-}
\ No newline at end of file
+
+    /**
+     * 请求没有带 X-Request-Timeout 时的截止时长（含流式回答的全部时间）
+     */
+    private Duration defaultDeadline = Duration.ofMinutes(2);
+
+    /**
+     * 客户端可请求的最长截止时长
+     */
+    private Duration maxDeadline = Duration.ofMinutes(5);
+
+    /**
+     * 还没有完整回答时估计一次回答的 token 数，用于统计取消流式回答省下的 token
+     */
+    private int expectedCompletionTokens = 600;
+
+    private Scheduler scheduler = new Scheduler();
+
+    /**
+     * 大模型调用调度配置
+     * 同时进行的上游调用数有上限，其余按负载类别加权公平排队，类别内各租户（学生会话、教师等）平分；
+     * 空闲的类别不占份额，它的名额由正在排队的类别使用
+     */
+    @Data
+    public static class Scheduler {
+
+        private boolean enabled = true;
+
+        /**
+         * 同时进行的上游调用数（流式调用占用到流结束）
+         */
+        private int maxConcurrent = 32;
+
+        /**
+         * 排队的调用数上限，满时直接返回错误
+         */
+        private int queueCapacity = 512;
+
+        /**
+         * 各类别的权重：都在排队时按权重比例分配名额
+         */
+        private Map<WorkloadClass, Integer> weights = new EnumMap<>(Map.of(
+            WorkloadClass.INTERACTIVE, 8,
+            WorkloadClass.STREAMED_ANALYSIS, 4,
+            WorkloadClass.BATCH, 2,
+            WorkloadClass.PREGENERATION, 1
+        ));
+
+        /**
+         * 各类别的保留名额：类别没用满时其他类别不能借用，其余空闲名额谁排队借给谁
+         * 上游调用不可抢占，不保留的话交互请求空闲的片刻名额会全被十几秒的批量调用占去
+         */
+        private Map<WorkloadClass, Integer> reserved = new EnumMap<>(Map.of(
+            WorkloadClass.INTERACTIVE, 4
+        ));
+    }
+}
@@ -0,0 +1,63 @@
+package com.mathtutor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.pregeneration")
+public class PregenerationProperties {
+
+    /**
+     * 是否按计划自动运行；关闭时仍可通过接口手动启动
+     */
+    private boolean enabled = false;
+
+    /**
+     * 自动运行的时间（cron 表达式），通常设在运行时段开始时
+     */
+    private String cron = "0 0 1 * * *";
+
+    /**
+     * 运行时段（HH:mm），时段结束后不再发起新的分析；结束时间早于开始时间表示跨过午夜
+     */
+    private String windowStart = "01:00";
+    private String windowEnd = "06:00";
+
+    /**
+     * 初始并发数与并发上限；并发数按上游限流情况自动调整（加性增、乘性减）
+     */
+    private int initialConcurrency = 2;
+    private int maxConcurrency = 8;
+
+    /**
+     * 上游限流后暂停发起新请求的时长，连续限流时加倍，最长不超过 maxBackoff
+     */
+    private Duration rateLimitBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofMinutes(10);
+
+    /**
+     * 单道题最多尝试次数（限流不计入）
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 断点文件，记录运行进度，崩溃重启后从这里继续
+     */
+    private String checkpoint = "./data/pregeneration/checkpoint.json";
+
+    /**
+     * 每百万提示词 / 生成 token 的价格，用于估算花费
+     */
+    private BigDecimal promptTokenPrice = new BigDecimal("2");
+    private BigDecimal completionTokenPrice = new BigDecimal("8");
+
+    /**
+     * 一轮运行（含断点续跑）累计的花费上限，达到后停止；为空表示不限制
+     */
+    private BigDecimal budget;
+}
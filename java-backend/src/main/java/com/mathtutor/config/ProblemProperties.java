@@ -0,0 +1,24 @@
+package com.mathtutor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.problems")
+public class ProblemProperties {
+
+    /**
+     * 内置题目数据文件（Spring 资源路径，支持通配符），格式同 math_problem_data.json
+     */
+    private List<String> locations = new ArrayList<>(List.of("classpath:problems/*.json"));
+
+    /**
+     * 外部题目数据目录，目录下的 *.json 在内置数据之后加载，同编号题目以外部数据为准
+     */
+    private String directory;
+}
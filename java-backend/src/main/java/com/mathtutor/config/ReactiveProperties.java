@@ -0,0 +1,30 @@
+package com.mathtutor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 响应式部署模式配置
+ * 以 spring.profiles.active=reactive 启动时服务运行在 WebFlux/Netty 上，对话接口全程非阻塞
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.reactive")
+public class ReactiveProperties {
+
+    /**
+     * 响应式客户端到上游的最大连接数，每个进行中的请求或流占用一个连接，超出的请求排队等待
+     */
+    private int maxConnections = 1000;
+
+    /**
+     * 流式对话向上游预取的事件数，下游（浏览器连接）消费不及时时停止读取上游
+     */
+    private int streamPrefetch = 32;
+
+    /**
+     * 响应式模式下执行同步控制器方法（批改、目录等）的线程数，避免阻塞事件循环
+     */
+    private int blockingThreads = 32;
+}
@@ -0,0 +1,68 @@
+package com.mathtutor.config;
+
+import com.mathtutor.channel.ReactiveTutorWebSocketHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+
+import java.util.Map;
+
+/**
+ * 响应式模式的 WebFlux 配置
+ * 返回值不是 Mono/Flux 的控制器方法（批改、目录、辅导统计等沿用的同步接口）放到独立线程池执行，
+ * 事件循环线程只处理非阻塞的请求。
+ * 类路径上同时有 Tomcat（Servlet 模式需要），这里显式使用 Netty 作为响应式服务器。
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    private final ReactiveProperties properties;
+
+    public ReactiveWebConfig(ReactiveProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * 辅导长连接，优先于注解控制器匹配
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mathtutor.channel", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public HandlerMapping tutorWebSocketMapping(ReactiveTutorWebSocketHandler handler, ChannelProperties channel) {
+        return new SimpleUrlHandlerMapping(Map.of(channel.getPath(), handler), -1);
+    }
+
+    /**
+     * 同理显式使用 Netty 的 WebSocket 升级方式，否则会按类路径选中 Servlet 容器的实现
+     */
+    @Override
+    public WebSocketService getWebSocketService() {
+        return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+    }
+
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getBlockingThreads());
+        executor.setMaxPoolSize(properties.getBlockingThreads());
+        executor.setThreadNamePrefix("blocking-handler-");
+        executor.setDaemon(true);
+        executor.initialize();
+        configurer.setExecutor(executor);
+    }
+}
@@ -0,0 +1,13 @@
+package com.mathtutor.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置
+ * 目前用于在业务低谷时段预生成题目分析
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,38 @@
+package com.mathtutor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 流式回答合并配置
+ * 上游每段只有一两个字，逐段转发时浏览器每段都要重新渲染公式；合并后按时间窗口或字节数成批输出，
+ * 并且只在公式和 Markdown 结构闭合处切分
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.streaming")
+public class StreamingProperties {
+
+    /**
+     * 是否合并（关闭后逐段转发）
+     */
+    private boolean coalesce = true;
+
+    /**
+     * 时间窗口：缓冲中的第一段到达后最多等待这么久输出
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 可安全输出的部分达到该字节数（UTF-8）时立即输出，不等时间窗口
+     */
+    private int flushBytes = 1024;
+
+    /**
+     * 公式或代码块长时间不闭合、缓冲超过该字节数时不再等待，照原样输出
+     */
+    private int maxHoldBytes = 8192;
+}
@@ -0,0 +1,28 @@
+package com.mathtutor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mathtutor.tutoring")
+public class TutoringProperties {
+
+    /**
+     * 是否启用按题目脚本的本地辅导（关闭后全部对话交给大模型）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 会话空闲多久后丢弃辅导状态
+     */
+    private Duration sessionIdleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 同时保留的辅导会话数上限，超出时先丢弃最久未活动的
+     */
+    private int maxSessions = 100_000;
+}
@@ -0,0 +1,32 @@
+package com.mathtutor.config;
+
+import com.mathtutor.channel.TutorWebSocketHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Servlet 模式下注册辅导长连接，响应式模式的注册见 {@link ReactiveWebConfig}
+ */
+@Configuration
+@EnableWebSocket
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "mathtutor.channel", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final TutorWebSocketHandler handler;
+    private final ChannelProperties properties;
+
+    public WebSocketConfig(TutorWebSocketHandler handler, ChannelProperties properties) {
+        this.handler = handler;
+        this.properties = properties;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(handler, properties.getPath()).setAllowedOrigins("*");
+    }
+}
@@ -0,0 +1,24 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.admission.AdmissionQueue;
+import com.mathtutor.model.AdmissionStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 准入控制统计接口：排队深度、拒绝次数、排队等待分位数
+ */
+@RestController
+@RequestMapping("/api/admission")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AdmissionController {
+
+    private final AdmissionQueue admissionQueue;
+
+    @GetMapping("/stats")
+    public ResponseEntity<AdmissionStats> stats() {
+        return ResponseEntity.ok(admissionQueue.getStats());
+    }
+}
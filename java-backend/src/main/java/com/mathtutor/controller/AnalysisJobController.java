@@ -0,0 +1,135 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.idempotency.IdempotencyStore;
+import com.mathtutor.job.JobRejectedException;
+import com.mathtutor.llm.StreamCoalescer;
+import com.mathtutor.model.AnalysisJobStats;
+import com.mathtutor.model.AnalysisJobSubmission;
+import com.mathtutor.model.AnalysisJobView;
+import com.mathtutor.service.AnalysisJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 异步分析任务接口（Servlet 与响应式模式通用）
+ * 提交后立即返回任务ID，之后轮询任务状态，或订阅事件流随分析生成接收文本
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/analysis/jobs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AnalysisJobController {
+
+    private final AnalysisJobService jobService;
+    private final StreamCoalescer coalescer;
+    private final IdempotencyStore idempotencyStore;
+
+    /**
+     * 提交任务，返回 202 和任务状态；排队已满时返回 503 和 Retry-After
+     * 带 Idempotency-Key 的重试不会重复提交，返回原任务的当前状态
+     */
+    @PostMapping
+    public ResponseEntity<AnalysisJobView> submit(@Valid @RequestBody AnalysisJobSubmission submission,
+                                                  @RequestHeader(value = IdempotencyStore.HEADER, required = false) String key) {
+        try {
+            if (!idempotencyStore.accepts(key)) {
+                return accepted(jobService.submit(submission.getQuestion(), submission.getContext(),
+                    submission.getPriority(), submission.getTenant()), false);
+            }
+            IdempotencyStore.Attempt<AnalysisJobView> attempt = idempotencyStore.execute("analysis-job", key,
+                IdempotencyStore.fingerprint(submission.getQuestion(), submission.getContext(),
+                    String.valueOf(submission.getPriority()), submission.getTenant()),
+                () -> CompletableFuture.completedFuture(jobService.submit(submission.getQuestion(),
+                    submission.getContext(), submission.getPriority(), submission.getTenant())),
+                view -> true, view -> 256);
+            if (attempt.getStatus() == IdempotencyStore.Status.CONFLICT) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+            }
+            AnalysisJobView view = attempt.getResult().join();
+            if (attempt.isDuplicate()) {
+                // 保存的是提交时的状态，重放时返回任务现在的状态；任务已过期时仍返回提交时的状态
+                view = jobService.find(view.getId()).orElse(view);
+            }
+            return accepted(view, attempt.isDuplicate());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JobRejectedException) {
+                return rejected((JobRejectedException) e.getCause());
+            }
+            throw e;
+        } catch (JobRejectedException e) {
+            return rejected(e);
+        }
+    }
+
+    /**
+     * 任务状态；执行中时带已生成的分析文本，结束后带分析结果
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AnalysisJobView> get(@PathVariable String jobId) {
+        Optional<AnalysisJobView> view = jobService.find(jobId);
+        return view.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 任务进度事件流：先补发已生成的文本，之后每段新文本一个 delta 事件，结束时发送 result 事件（数据为任务状态）
+     * 订阅的是任务的进度，客户端断开不影响任务执行
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> events(@PathVariable String jobId) {
+        Flux<String> progress = jobService.progress(jobId);
+        if (progress == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Flux<ServerSentEvent<Object>> events = coalescer.coalesce(progress)
+            .map(delta -> ServerSentEvent.<Object>builder(delta).event("delta").build())
+            .concatWith(Mono.defer(() -> Mono.justOrEmpty(jobService.find(jobId)))
+                .map(view -> ServerSentEvent.<Object>builder(view).event("result").build()));
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(events);
+    }
+
+    /**
+     * 取消任务；任务不存在或已结束时返回 409
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<AnalysisJobView> cancel(@PathVariable String jobId) {
+        if (jobService.find(jobId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        HttpStatus status = jobService.cancel(jobId) ? HttpStatus.OK : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(jobService.find(jobId).orElse(null));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<AnalysisJobStats> stats() {
+        return ResponseEntity.ok(jobService.getStats());
+    }
+
+    private static ResponseEntity<AnalysisJobView> accepted(AnalysisJobView view, boolean replayed) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .location(URI.create("/api/analysis/jobs/" + view.getId()))
+            .header(IdempotencyStore.REPLAYED_HEADER, String.valueOf(replayed))
+            .body(view);
+    }
+
+    private static ResponseEntity<AnalysisJobView> rejected(JobRejectedException e) {
+        log.debug("拒绝提交分析任务: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+            .build();
+    }
+}
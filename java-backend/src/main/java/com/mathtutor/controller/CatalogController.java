@@ -0,0 +1,147 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.PrecomputedJson;
+import com.mathtutor.service.CatalogResourceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 知识点 / 解题方法 / 题目只读接口
+ *
+ * 响应体是预先序列化好的字节（见 {@link PrecomputedJson}）：
+ * - 带强 ETag，If-None-Match 命中时返回 304，不传输响应体
+ * - 客户端接受 gzip 时直接返回预压缩字节
+ * - Cache-Control: no-cache，浏览器每次用 ETag 重新验证，轮询基本没有开销
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
+public class CatalogController {
+
+    private static final MediaType JSON_UTF8 = new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8);
+
+    private final CatalogResourceService resourceService;
+
+    @GetMapping("/knowledge")
+    public ResponseEntity<byte[]> knowledgeList(@RequestParam(required = false) GradeEnum grade,
+                                                @RequestHeader HttpHeaders headers) {
+        return respond(resourceService.getKnowledgeList(grade), headers);
+    }
+
+    @GetMapping("/knowledge/{code}")
+    public ResponseEntity<byte[]> knowledge(@PathVariable String code, @RequestHeader HttpHeaders headers) {
+        return respond(resourceService.getKnowledge(code), headers);
+    }
+
+    @GetMapping("/methods")
+    public ResponseEntity<byte[]> methodList(@RequestHeader HttpHeaders headers) {
+        return respond(resourceService.getMethodList(), headers);
+    }
+
+    @GetMapping("/methods/{code}")
+    public ResponseEntity<byte[]> method(@PathVariable String code, @RequestHeader HttpHeaders headers) {
+        return respond(resourceService.getMethod(code), headers);
+    }
+
+    @GetMapping("/problems")
+    public ResponseEntity<byte[]> problemList(@RequestHeader HttpHeaders headers) {
+        return respond(resourceService.getProblemList(), headers);
+    }
+
+    @GetMapping("/problems/{problemId}")
+    public ResponseEntity<byte[]> problem(@PathVariable String problemId, @RequestHeader HttpHeaders headers) {
+        return respond(resourceService.getProblem(problemId), headers);
+    }
+
+    /**
+     * 按条件请求头返回 304 或预先生成的响应体
+     */
+    static ResponseEntity<byte[]> respond(PrecomputedJson resource, HttpHeaders request) {
+        if (resource == null) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean gzip = resource.hasGzip() && acceptsGzip(request.getFirst(HttpHeaders.ACCEPT_ENCODING));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(gzip ? resource.getGzipEtag() : resource.getEtag());
+        headers.setCacheControl(CacheControl.noCache());
+        if (resource.hasGzip()) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+        if (matchesAny(request.getFirst(HttpHeaders.IF_NONE_MATCH), resource)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        byte[] body = gzip ? resource.getGzip() : resource.getJson();
+        headers.setContentType(JSON_UTF8);
+        headers.setContentLength(body.length);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * If-None-Match 按弱比较匹配（忽略 W/ 前缀），两种编码的 ETag 都视为同一内容
+     */
+    static boolean matchesAny(String ifNoneMatch, PrecomputedJson resource) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(resource.getEtag()) || tag.equals(resource.getGzipEtag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accept-Encoding 是否接受 gzip：显式的 gzip 优先于通配符 *，q=0 表示不接受
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            double quality = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip")) {
+                gzip = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : any > 0;
+    }
+}
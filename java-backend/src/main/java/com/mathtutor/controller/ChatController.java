@@ -1,24 +1,53 @@
 package com.mathtutor.controller;
 
+import com.mathtutor.config.LlmProperties;
+import com.mathtutor.idempotency.IdempotencyStore;
+import com.mathtutor.llm.Deadline;
+import com.mathtutor.llm.LlmClient;
+import com.mathtutor.llm.StreamCoalescer;
 import com.mathtutor.model.ChatRequest;
 import com.mathtutor.model.ChatResponse;
 import com.mathtutor.service.ChatService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * 对话接口（Servlet 模式）；响应式模式下由 {@link ReactiveChatController} 提供同样的接口
+ */
 @Slf4j
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ChatController {
 
+    /**
+     * 截止时间之后再等上游结束信号的余量
+     */
+    private static final long STREAM_TIMEOUT_GRACE_MILLIS = 5000L;
+
     private final ChatService chatService;
+    private final StreamCoalescer coalescer;
+    private final LlmProperties llmProperties;
+    private final IdempotencyStore idempotencyStore;
 
     @GetMapping
     public ResponseEntity<Map<String, String>> health() {
@@ -29,9 +58,95 @@ public class ChatController {
         ));
     }
 
+    /**
+     * 带 Idempotency-Key 的重试不再调用大模型：原请求处理中则等待其结果，已完成则重放
+     */
     @PostMapping("/chat")
-    public ResponseEntity<ChatResponse> chat(@Valid @RequestBody ChatRequest request) {
+    public ResponseEntity<ChatResponse> chat(@Valid @RequestBody ChatRequest request,
+                                             @RequestHeader(value = Deadline.HEADER, required = false) String timeout,
+                                             @RequestHeader(value = IdempotencyStore.HEADER, required = false) String key) {
         log.debug("Chat request: {}", request.getMessage());
-        return ResponseEntity.ok(chatService.chat(request));
+        Deadline deadline = deadline(timeout);
+        request.setDeadline(deadline);
+        if (!idempotencyStore.accepts(key)) {
+            return ResponseEntity.ok(chatService.chat(request));
+        }
+        IdempotencyStore.Attempt<ChatResponse> attempt = idempotencyStore.chat(key, request,
+            () -> CompletableFuture.completedFuture(chatService.chat(request)));
+        if (attempt.getStatus() == IdempotencyStore.Status.CONFLICT) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ChatResponse.error("幂等键已用于不同的请求", request.getSessionId()));
+        }
+        ChatResponse response;
+        try {
+            response = attempt.getResult().get(deadline.remaining().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = ChatResponse.error("Service temporarily unavailable", request.getSessionId());
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("等待同键请求的结果失败: {}", e.getMessage());
+            response = ChatResponse.error("Service temporarily unavailable", request.getSessionId());
+        }
+        return ResponseEntity.ok()
+            .header(IdempotencyStore.REPLAYED_HEADER, String.valueOf(attempt.isDuplicate()))
+            .body(response);
+    }
+
+    /**
+     * 流式对话：每段增量文本一个 delta 事件，结束时发送 done 事件（数据为会话ID），上游失败时发送 error 事件
+     * 客户端断开后下一次写出失败即取消上游调用，合并窗口保证至多几百毫秒就会写一次
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@Valid @RequestBody ChatRequest request,
+                                 @RequestHeader(value = Deadline.HEADER, required = false) String timeout) {
+        log.debug("Chat stream request: {}", request.getMessage());
+        Deadline deadline = deadline(timeout);
+        request.setDeadline(deadline);
+        SseEmitter emitter = new SseEmitter(deadline.remaining().toMillis() + STREAM_TIMEOUT_GRACE_MILLIS);
+        Flux<String> deltas = Flux.create(sink -> {
+            LlmClient.StreamHandle handle = chatService.chatStream(request, sink::next, sink::complete, sink::error);
+            sink.onCancel(handle::cancel);
+        });
+        // onNext 中写出失败抛出的异常会取消订阅，再以错误结束
+        Disposable subscription = coalescer.coalesce(deltas).subscribe(
+            delta -> send(emitter, SseEmitter.event().name("delta").data(delta)),
+            e -> {
+                if (e instanceof UncheckedIOException) {
+                    emitter.completeWithError(e);
+                    return;
+                }
+                log.warn("流式对话失败: {}", e.getMessage());
+                finish(emitter, SseEmitter.event().name("error").data("Service temporarily unavailable"));
+            },
+            () -> finish(emitter, SseEmitter.event().name("done").data(request.getSessionId())));
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        emitter.onCompletion(subscription::dispose);
+        return emitter;
+    }
+
+    private Deadline deadline(String timeout) {
+        return Deadline.resolve(timeout, llmProperties.getDefaultDeadline(), llmProperties.getMaxDeadline());
+    }
+
+    /**
+     * 发送最后一个事件并结束响应
+     */
+    private static void finish(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            send(emitter, event);
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("客户端已断开流式连接: {}", e.getMessage());
+            throw new UncheckedIOException(e instanceof IOException ? (IOException) e : new IOException(e));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.model.StepGradeResult;
+import com.mathtutor.model.StepSubmission;
+import com.mathtutor.service.StepGradingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+/**
+ * 解题步骤批改接口
+ */
+@RestController
+@RequestMapping("/api/grading")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class GradingController {
+
+    private final StepGradingService gradingService;
+
+    @PostMapping("/step")
+    public ResponseEntity<StepGradeResult> gradeStep(@Valid @RequestBody StepSubmission submission) {
+        return ResponseEntity.ok(gradingService.grade(submission));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<StepGradeResult>> gradeBatch(@RequestBody List<@Valid StepSubmission> submissions) {
+        return ResponseEntity.ok(gradingService.gradeBatch(submissions));
+    }
+}
@@ -0,0 +1,24 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.idempotency.IdempotencyStore;
+import com.mathtutor.model.IdempotencyStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 幂等键统计接口：重复请求占比与结果缓存占用
+ */
+@RestController
+@RequestMapping("/api/idempotency")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class IdempotencyController {
+
+    private final IdempotencyStore idempotencyStore;
+
+    @GetMapping("/stats")
+    public ResponseEntity<IdempotencyStats> stats() {
+        return ResponseEntity.ok(idempotencyStore.getStats());
+    }
+}
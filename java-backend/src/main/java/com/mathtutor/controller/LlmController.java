@@ -0,0 +1,40 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.llm.LlmScheduler;
+import com.mathtutor.llm.StreamUsageStats;
+import com.mathtutor.model.GroundingUsage;
+import com.mathtutor.model.LlmSchedulerStats;
+import com.mathtutor.model.StreamUsage;
+import com.mathtutor.service.MathAnalysisAgent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 大模型调用统计接口：流式回答的结束方式与取消省下的 token、各负载类别的排队情况、题目分析检索增强前后的 token 用量
+ */
+@RestController
+@RequestMapping("/api/llm")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class LlmController {
+
+    private final StreamUsageStats streamUsageStats;
+    private final LlmScheduler scheduler;
+    private final MathAnalysisAgent analysisAgent;
+
+    @GetMapping("/stream-stats")
+    public ResponseEntity<StreamUsage> streamStats() {
+        return ResponseEntity.ok(streamUsageStats.getStats());
+    }
+
+    @GetMapping("/scheduler-stats")
+    public ResponseEntity<LlmSchedulerStats> schedulerStats() {
+        return ResponseEntity.ok(scheduler.getStats());
+    }
+
+    @GetMapping("/grounding-stats")
+    public ResponseEntity<GroundingUsage> groundingStats() {
+        return ResponseEntity.ok(analysisAgent.getGroundingUsage());
+    }
+}
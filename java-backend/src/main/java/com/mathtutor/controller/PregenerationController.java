@@ -0,0 +1,41 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.model.PregenerationProgress;
+import com.mathtutor.service.AnalysisPregenerationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 题目分析预生成接口
+ * 定时任务在配置的运行时段内自动运行，这里提供进度查询与手动启停
+ */
+@RestController
+@RequestMapping("/api/pregeneration")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class PregenerationController {
+
+    private final AnalysisPregenerationService pregenerationService;
+
+    @GetMapping("/progress")
+    public ResponseEntity<PregenerationProgress> progress() {
+        return ResponseEntity.ok(pregenerationService.getProgress());
+    }
+
+    /**
+     * 手动启动；已在运行或不在运行时段内（且未指定 ignoreWindow）时返回 409
+     */
+    @PostMapping("/start")
+    public ResponseEntity<PregenerationProgress> start(@RequestParam(defaultValue = "false") boolean ignoreWindow) {
+        HttpStatus status = pregenerationService.start(ignoreWindow) ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(pregenerationService.getProgress());
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<PregenerationProgress> stop() {
+        pregenerationService.stop();
+        return ResponseEntity.ok(pregenerationService.getProgress());
+    }
+}
@@ -0,0 +1,102 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.config.LlmProperties;
+import com.mathtutor.idempotency.IdempotencyStore;
+import com.mathtutor.llm.Deadline;
+import com.mathtutor.llm.StreamCoalescer;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.service.ReactiveChatService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.util.Map;
+
+/**
+ * 对话接口（响应式模式），与 {@link ChatController} 路径和报文一致
+ * 流式对话直接返回 Flux，浏览器连接的写入速度决定向上游读取的速度
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatController {
+
+    private final ReactiveChatService chatService;
+    private final StreamCoalescer coalescer;
+    private final LlmProperties llmProperties;
+    private final IdempotencyStore idempotencyStore;
+
+    @GetMapping
+    public Mono<ResponseEntity<Map<String, String>>> health() {
+        return Mono.just(ResponseEntity.ok(Map.of(
+            "status", "ok",
+            "service", "MathTutor Chat API",
+            "version", "2.0.0",
+            "mode", "reactive"
+        )));
+    }
+
+    /**
+     * 带 Idempotency-Key 的重试不再调用大模型：原请求处理中则等待其结果，已完成则重放
+     * 重复请求断开不影响原请求，原请求的结果仍会保存
+     */
+    @PostMapping("/chat")
+    public Mono<ResponseEntity<ChatResponse>> chat(@Valid @RequestBody ChatRequest request,
+                                                   @RequestHeader(value = Deadline.HEADER, required = false) String timeout,
+                                                   @RequestHeader(value = IdempotencyStore.HEADER, required = false) String key) {
+        log.debug("Chat request: {}", request.getMessage());
+        request.setDeadline(deadline(timeout));
+        if (!idempotencyStore.accepts(key)) {
+            return chatService.chat(request).map(ResponseEntity::ok);
+        }
+        IdempotencyStore.Attempt<ChatResponse> attempt = idempotencyStore.chat(key, request,
+            () -> chatService.chat(request).toFuture());
+        if (attempt.getStatus() == IdempotencyStore.Status.CONFLICT) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ChatResponse.error("幂等键已用于不同的请求", request.getSessionId())));
+        }
+        return Mono.fromFuture(attempt.getResult(), true)
+            .timeout(request.getDeadline().remaining())
+            .onErrorResume(e -> {
+                log.warn("等待同键请求的结果失败: {}", e.getMessage());
+                return Mono.just(ChatResponse.error("Service temporarily unavailable", request.getSessionId()));
+            })
+            .map(response -> ResponseEntity.ok()
+                .header(IdempotencyStore.REPLAYED_HEADER, String.valueOf(attempt.isDuplicate()))
+                .body(response));
+    }
+
+    /**
+     * 流式对话：每段增量文本一个 delta 事件，结束时发送 done 事件（数据为会话ID），上游失败时发送 error 事件
+     * 客户端断开时 WebFlux 取消订阅，取消沿 Flux 传到 WebClient 并关闭上游连接
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> chatStream(@Valid @RequestBody ChatRequest request,
+                                                    @RequestHeader(value = Deadline.HEADER, required = false) String timeout) {
+        log.debug("Chat stream request: {}", request.getMessage());
+        request.setDeadline(deadline(timeout));
+        return coalescer.coalesce(chatService.chatStream(request))
+            .map(delta -> ServerSentEvent.builder(delta).event("delta").build())
+            .concatWith(Mono.fromSupplier(() -> ServerSentEvent.builder(request.getSessionId()).event("done").build()))
+            .onErrorResume(e -> {
+                log.warn("流式对话失败: {}", e.getMessage());
+                return Mono.just(ServerSentEvent.builder("Service temporarily unavailable").event("error").build());
+            });
+    }
+
+    private Deadline deadline(String timeout) {
+        return Deadline.resolve(timeout, llmProperties.getDefaultDeadline(), llmProperties.getMaxDeadline());
+    }
+}
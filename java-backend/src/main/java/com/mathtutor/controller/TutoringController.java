@@ -0,0 +1,25 @@
+package com.mathtutor.controller;
+
+import com.mathtutor.model.TutoringStats;
+import com.mathtutor.service.TutoringService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 分步辅导统计接口
+ * 辅导对话本身经由 /api/chat，ChatRequest.context 设为 "problem:题目编号" 开始
+ */
+@RestController
+@RequestMapping("/api/tutoring")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class TutoringController {
+
+    private final TutoringService tutoringService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<TutoringStats> stats() {
+        return ResponseEntity.ok(tutoringService.getStats());
+    }
+}
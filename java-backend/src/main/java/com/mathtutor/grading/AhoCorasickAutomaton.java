@@ -0,0 +1,205 @@
+package com.mathtutor.grading;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick 多模式串匹配自动机（不可变，线程安全）
+ *
+ * 构建时把全部模式串的字符压缩为一个小字母表（不在任何模式串中出现的字符统一归为第 0 类），
+ * 并把失败链接展开为完整的状态转移表：匹配时每个字符只需一次查表，与模式串数量无关，
+ * 一次扫描即可报告文本中所有模式串的全部出现位置。
+ */
+public final class AhoCorasickAutomaton {
+
+    private static final int[] NO_OUTPUT = new int[0];
+    private static final int ASCII = 128;
+
+    private final String[] patterns;
+
+    /**
+     * 字母表（升序），第 i 个字符的类别为 i + 1
+     */
+    private final char[] alphabet;
+
+    /**
+     * ASCII 字符的类别，直接查表
+     */
+    private final int[] asciiClass = new int[ASCII];
+
+    private final int classes;
+
+    /**
+     * 状态转移表，下标为 状态 * classes + 字符类别
+     */
+    private final int[] delta;
+
+    /**
+     * 每个状态结束的模式串下标（已合并失败链接上的输出）
+     */
+    private final int[][] outputs;
+
+    public AhoCorasickAutomaton(List<String> patterns) {
+        this.patterns = patterns.toArray(new String[0]);
+
+        TreeSet<Character> chars = new TreeSet<>();
+        for (String pattern : this.patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                chars.add(pattern.charAt(i));
+            }
+        }
+        this.alphabet = new char[chars.size()];
+        int k = 0;
+        for (char c : chars) {
+            alphabet[k] = c;
+            if (c < ASCII) {
+                asciiClass[c] = k + 1;
+            }
+            k++;
+        }
+        this.classes = alphabet.length + 1;
+
+        // 1. 构建字典树
+        List<int[]> gotoTable = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        gotoTable.add(newRow());
+        ends.add(new ArrayList<>());
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pattern = this.patterns[p];
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int c = classOf(pattern.charAt(i));
+                int next = gotoTable.get(state)[c];
+                if (next < 0) {
+                    next = gotoTable.size();
+                    gotoTable.get(state)[c] = next;
+                    gotoTable.add(newRow());
+                    ends.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            ends.get(state).add(p);
+        }
+
+        // 2. 按层次遍历计算失败链接，同时展开为完整转移表
+        int states = gotoTable.size();
+        this.delta = new int[states * classes];
+        this.outputs = new int[states][];
+        int[] fail = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        outputs[0] = NO_OUTPUT;
+        for (int c = 0; c < classes; c++) {
+            int next = gotoTable.get(0)[c];
+            if (next > 0) {
+                fail[next] = 0;
+                delta[c] = next;
+                queue.add(next);
+            } else {
+                delta[c] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = mergeOutputs(ends.get(state), outputs[fail[state]]);
+            for (int c = 0; c < classes; c++) {
+                int next = gotoTable.get(state)[c];
+                if (next > 0) {
+                    fail[next] = delta[fail[state] * classes + c];
+                    delta[state * classes + c] = next;
+                    queue.add(next);
+                } else {
+                    delta[state * classes + c] = delta[fail[state] * classes + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * 扫描文本，按结束位置顺序报告每一次模式串出现
+     */
+    public void match(CharSequence text, MatchHandler handler) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = delta[state * classes + classOf(text.charAt(i))];
+            for (int p : outputs[state]) {
+                handler.onMatch(p, i + 1 - patterns[p].length(), i + 1);
+            }
+        }
+    }
+
+    /**
+     * 文本中是否出现任一模式串
+     */
+    public boolean containsAny(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = delta[state * classes + classOf(text.charAt(i))];
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getPattern(int index) {
+        return patterns[index];
+    }
+
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    /**
+     * 状态数（含根状态）
+     */
+    public int stateCount() {
+        return outputs.length;
+    }
+
+    private int classOf(char c) {
+        if (c < ASCII) {
+            return asciiClass[c];
+        }
+        int index = Arrays.binarySearch(alphabet, c);
+        return index >= 0 ? index + 1 : 0;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[classes];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] mergeOutputs(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] result = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            result[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, result, own.size(), inherited.length);
+        return result;
+    }
+
+    /**
+     * 匹配回调
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+        /**
+         * @param pattern 模式串下标
+         * @param start 出现位置（含）
+         * @param end 结束位置（不含）
+         */
+        void onMatch(int pattern, int start, int end);
+    }
+}
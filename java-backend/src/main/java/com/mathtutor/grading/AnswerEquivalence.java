@@ -0,0 +1,216 @@
+package com.mathtutor.grading;
+
+import com.mathtutor.grading.MathExpression.LinearForm;
+import com.mathtutor.grading.MathExpression.Node;
+
+/**
+ * 作答与检查点的数学等价判定
+ *
+ * 按检查点的形式分别比较：
+ * - 检查点是常数或赋值（13、t=2.5）：作答须给出取值（常数或同一变量的赋值），按有理数精确比较，
+ *   t=5/2、t=2.50、5/2 都与 t=2.5 等价；没有给出取值的作答（如列出方程）不可比较
+ * - 检查点是方程（6t=15、xM=10-2t）：作答须是变量相同的方程，两边移项后的函数成比例即等价
+ *   （4t+2(t-1)=13、12t=30、t=2.5 都与 6t=15 等价）
+ * - 检查点是代数式（10-2t）：作答须是变量相同的代数式（或 xM=... 形式的定义），两者恒等即等价
+ * 两边都是一次式时直接比较系数（规范形式），结果精确；含绝对值、变量乘积等非一次式时在一组固定的
+ * 伪随机有理数点上精确求值比较，不相等即可断定不等价，全部相等视为等价。
+ * 非一次方程不成比例时不能断定解集不同，判为不可比较而不是不等价。
+ */
+public final class AnswerEquivalence {
+
+    /**
+     * 随机求值的点数
+     */
+    private static final int SAMPLES = 8;
+
+    private static final long[] DENOMINATORS = {1, 2, 3, 7, 11};
+
+    /**
+     * 判定结果
+     */
+    public enum Result {
+        /** 数学上等价 */
+        EQUIVALENT,
+        /** 形式可比，且确定不等价 */
+        DIFFERENT,
+        /** 形式不同，无法在本地判定 */
+        INCOMPARABLE
+    }
+
+    private AnswerEquivalence() {
+    }
+
+    public static Result compare(MathExpression expected, MathExpression answer) {
+        if (expected.getValue() != null) {
+            return compareValues(expected, answer);
+        }
+        if (answer.isConstant()) {
+            return Result.INCOMPARABLE;
+        }
+        if (expected.isEquation() != answer.isEquation()) {
+            // 检查点 10-2t，作答 xM=10-2t
+            MathExpression definition = answer.definition();
+            if (expected.isEquation() || definition == null || definition.isEquation()
+                || indexOf(expected.variables(), answer.definedVariable()) >= 0) {
+                return Result.INCOMPARABLE;
+            }
+            answer = definition;
+        }
+        if (!sameVariables(expected.variables(), answer.variables())) {
+            return Result.INCOMPARABLE;
+        }
+        if (expected.isLinear() && answer.isLinear()) {
+            boolean equivalent = expected.isEquation()
+                ? proportional(expected, answer)
+                : identical(expected, answer);
+            return equivalent ? Result.EQUIVALENT : Result.DIFFERENT;
+        }
+        return compareBySampling(expected, answer);
+    }
+
+    private static Result compareValues(MathExpression expected, MathExpression answer) {
+        if (answer.getValue() == null) {
+            return Result.INCOMPARABLE;
+        }
+        if (expected.isAssignment() && answer.isAssignment()
+            && !expected.getAssignedVariable().equals(answer.getAssignedVariable())) {
+            return Result.INCOMPARABLE;
+        }
+        return expected.getValue().equals(answer.getValue()) ? Result.EQUIVALENT : Result.DIFFERENT;
+    }
+
+    /**
+     * 两个一次式完全相同
+     */
+    private static boolean identical(MathExpression a, MathExpression b) {
+        LinearForm fa = a.linear();
+        LinearForm fb = b.linear();
+        if (!fa.constant.equals(fb.constant)) {
+            return false;
+        }
+        String[] names = a.variables();
+        for (int i = 0; i < names.length; i++) {
+            if (!fa.coefficients[i].equals(fb.coefficients[indexOf(b.variables(), names[i])])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 两个一次式成比例（比例系数不为 0），即两个一次方程同解
+     */
+    private static boolean proportional(MathExpression a, MathExpression b) {
+        LinearForm fa = a.linear();
+        LinearForm fb = b.linear();
+        String[] names = a.variables();
+        int[] map = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            map[i] = indexOf(b.variables(), names[i]);
+        }
+        // 找一个非零分量作为比例基准
+        Rational pivotA = fa.constant;
+        Rational pivotB = fb.constant;
+        for (int i = 0; i < names.length && pivotB.isZero(); i++) {
+            pivotA = fa.coefficients[i];
+            pivotB = fb.coefficients[map[i]];
+        }
+        if (pivotB.isZero() || pivotA.isZero()) {
+            return pivotA.isZero() && pivotB.isZero() && fa.isConstant() && fa.constant.isZero();
+        }
+        // fa[j] * pivotB == fb[j] * pivotA 对每个分量成立
+        if (!fa.constant.multiply(pivotB).equals(fb.constant.multiply(pivotA))) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!fa.coefficients[i].multiply(pivotB).equals(fb.coefficients[map[i]].multiply(pivotA))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Result compareBySampling(MathExpression expected, MathExpression answer) {
+        Node fe = expected.difference();
+        Node fa = answer.difference();
+        boolean equation = expected.isEquation();
+        Rational refE = null;
+        Rational refA = null;
+        int defined = 0;
+        for (int k = 0; k < SAMPLES; k++) {
+            Rational ve;
+            Rational va;
+            try {
+                ve = fe.evaluate(samplePoint(expected.variables(), k));
+                va = ve == null ? null : fa.evaluate(samplePoint(answer.variables(), k));
+            } catch (ArithmeticException tooLarge) {
+                // 含变量的嵌套乘方在采样点上超出大小上限
+                return Result.INCOMPARABLE;
+            }
+            if (va == null) {
+                continue;
+            }
+            defined++;
+            if (!equation) {
+                if (!ve.equals(va)) {
+                    return Result.DIFFERENT;
+                }
+            } else if (refA == null) {
+                if (ve.isZero() != va.isZero()) {
+                    return Result.INCOMPARABLE;
+                }
+                if (!va.isZero()) {
+                    refE = ve;
+                    refA = va;
+                }
+            } else if (!ve.multiply(refA).equals(va.multiply(refE))) {
+                return Result.INCOMPARABLE;
+            }
+        }
+        if (defined < SAMPLES / 2 || (equation && refA == null)) {
+            return Result.INCOMPARABLE;
+        }
+        return Result.EQUIVALENT;
+    }
+
+    /**
+     * 第 k 个采样点上各变量的取值；同名变量在不同表达式中取值相同
+     */
+    static Rational[] samplePoint(String[] variables, int k) {
+        Rational[] values = new Rational[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            long h = mix(variables[i].hashCode() * 0x9E3779B97F4A7C15L + k);
+            long numerator = Math.floorMod(h, 81) - 40;
+            long denominator = DENOMINATORS[(int) Math.floorMod(h >>> 17, (long) DENOMINATORS.length)];
+            values[i] = Rational.of(numerator, denominator);
+        }
+        return values;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static boolean sameVariables(String[] a, String[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        for (String name : a) {
+            if (indexOf(b, name) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,91 @@
+package com.mathtutor.grading;
+
+import java.text.Normalizer;
+
+/**
+ * 作答与检查点的规范化
+ *
+ * 学生输入与题目数据中的检查点经过同样的处理后再比较：
+ * - 全角字母、数字、符号转为半角（NFKC），上标 ² ³ 先转为 ^2 ^3
+ * - 去掉全部空白
+ * - 乘号 × · ⋅ 统一为 *，减号 − – — 统一为 -，除号 ÷ 统一为 /
+ * - 省略乘号：只去掉可以省略的 *，即前面是数值、变量或右括号且后面是变量或左括号
+ *   （2*t 与 2t、2*(t-1) 与 2(t-1) 视为相同；2*3、t*2、2*-3 保持不变）
+ * 不改变字母大小写，a 与 A 视为不同的量。
+ */
+public final class AnswerNormalizer {
+
+    private AnswerNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String folded = Normalizer.normalize(expandSuperscripts(text), Normalizer.Form.NFKC);
+
+        StringBuilder out = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                continue;
+            }
+            switch (c) {
+                case '×':
+                case '✕':
+                case '·':
+                case '⋅':
+                case '∙':
+                    out.append('*');
+                    break;
+                case '−':
+                case '–':
+                case '—':
+                case '‒':
+                    out.append('-');
+                    break;
+                case '÷':
+                    out.append('/');
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+
+        // 省略乘号：只去掉按惯例可以不写的 *，后面是正负号时不能去掉（2*-3 不是 2-3）
+        for (int i = out.length() - 2; i > 0; i--) {
+            if (out.charAt(i) == '*') {
+                char before = out.charAt(i - 1);
+                char after = out.charAt(i + 1);
+                boolean factorBefore = isOperandChar(before) || before == ')';
+                boolean factorAfter = isLetter(after) || after == '(';
+                if (factorBefore && factorAfter) {
+                    out.deleteCharAt(i);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 是否为数值或变量的组成字符（ASCII 字母、数字、小数点）
+     */
+    static boolean isOperandChar(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '.';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static String expandSuperscripts(String text) {
+        if (text.indexOf('²') < 0 && text.indexOf('³') < 0) {
+            return text;
+        }
+        return text.replace("²", "^2").replace("³", "^3");
+    }
+}
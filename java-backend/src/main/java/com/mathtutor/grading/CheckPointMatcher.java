@@ -0,0 +1,332 @@
+package com.mathtutor.grading;
+
+import com.mathtutor.model.GradeVerdict;
+import com.mathtutor.model.LogicStep;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.ProblemQuestion;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单道题目的检查点匹配器（构建后不可变，线程安全）
+ *
+ * 把题目全部步骤的检查点规范化后编译成一个 {@link AhoCorasickAutomaton}，批改时对作答扫描一次，
+ * 只采纳属于目标步骤、且覆盖一个完整结论或方程一边的命中（检查点 "8" 不会命中 "18"，"5" 不会命中 "a=-5"，
+ * "13" 不会命中 "13+2"）。没有直接命中时把作答拆成若干结论逐个解析为 {@link MathExpression}，与该步骤
+ * 预先解析好的检查点做数学等价判定（{@link AnswerEquivalence}）：t=5/2、-2t+15、12t=30 分别与
+ * t=2.5、15-2t、6t=15 等价。
+ * 有等价的检查点判为正确；只有可比且不等价的判为错误；都不可比（中文作答、形式不同）时判为
+ * {@link GradeVerdict#AMBIGUOUS}，由调用方决定是否交给大模型复核。检查点夹在说明文字中
+ * （"不是2.5"、"AB的距离是13"）时无法在本地判断语义，同样判为 {@link GradeVerdict#AMBIGUOUS}。作答列出多个结论时，
+ * 若其中不对应任何检查点的结论与对应检查点的结论互相矛盾（"t=1,t=2,t=2.5,t=3"），判为错误。
+ */
+public final class CheckPointMatcher {
+
+    private final ProblemDomain problem;
+    private final AhoCorasickAutomaton automaton;
+
+    /**
+     * 每个模式串所属的步骤下标与检查点原文
+     */
+    private final int[] patternStep;
+    private final String[] patternCheckPoint;
+
+    private final Map<String, Integer> stepIndex = new HashMap<>();
+    private final StepValues[] stepValues;
+
+    public CheckPointMatcher(ProblemDomain problem) {
+        this.problem = problem;
+        List<String> patterns = new ArrayList<>();
+        List<Integer> steps = new ArrayList<>();
+        List<String> originals = new ArrayList<>();
+        List<StepValues> values = new ArrayList<>();
+
+        for (ProblemQuestion question : problem.getQuestions()) {
+            for (LogicStep step : question.getLogicSteps()) {
+                int index = values.size();
+                stepIndex.putIfAbsent(step.getStepId(), index);
+                StepValues stepValue = new StepValues();
+                for (String checkPoint : step.getCheckPoints()) {
+                    String normalized = AnswerNormalizer.normalize(checkPoint);
+                    if (normalized.isEmpty()) {
+                        continue;
+                    }
+                    patterns.add(normalized);
+                    steps.add(index);
+                    originals.add(checkPoint);
+                    stepValue.add(normalized, checkPoint);
+                }
+                values.add(stepValue);
+            }
+        }
+
+        this.automaton = new AhoCorasickAutomaton(patterns);
+        this.patternStep = steps.stream().mapToInt(Integer::intValue).toArray();
+        this.patternCheckPoint = originals.toArray(new String[0]);
+        this.stepValues = values.toArray(new StepValues[0]);
+    }
+
+    public ProblemDomain getProblem() {
+        return problem;
+    }
+
+    /**
+     * 判定某一步骤的作答
+     * @param stepId 步骤编号
+     * @param normalizedAnswer 经 {@link AnswerNormalizer#normalize} 处理后的作答
+     */
+    public Match match(String stepId, String normalizedAnswer) {
+        Integer step = stepIndex.get(stepId);
+        if (step == null) {
+            return new Match(GradeVerdict.UNKNOWN_STEP, List.of());
+        }
+        if (normalizedAnswer.isEmpty()) {
+            return new Match(GradeVerdict.INCORRECT, List.of());
+        }
+
+        Set<String> matched = new LinkedHashSet<>();
+        Set<String> matchedText = new HashSet<>();
+        boolean[] inProse = new boolean[1];
+        automaton.match(normalizedAnswer, (pattern, start, end) -> {
+            if (patternStep[pattern] == step && onBoundary(normalizedAnswer, start, end)) {
+                if (inFormula(normalizedAnswer, start, end)) {
+                    matched.add(patternCheckPoint[pattern]);
+                    matchedText.add(automaton.getPattern(pattern));
+                } else {
+                    inProse[0] = true;
+                }
+            }
+        });
+        List<String> parts = splitParts(normalizedAnswer);
+        if (!matched.isEmpty() && parts.size() == 1) {
+            return new Match(GradeVerdict.CORRECT, List.copyOf(matched));
+        }
+        return compareValues(stepValues[step], parts, matched, matchedText, inProse[0]);
+    }
+
+    /**
+     * 检查点总数
+     */
+    public int size() {
+        return automaton.patternCount();
+    }
+
+    /**
+     * 逐个结论与检查点做等价判定
+     * @param matched 直接命中的检查点；有命中时只检查其余结论是否与之矛盾
+     * @param matchedText 直接命中的检查点的规范化文本；整个结论就是检查点（"2.5秒"）时不算说明文字
+     * @param proseHit 是否有检查点命中在说明文字中
+     */
+    private static Match compareValues(StepValues values, List<String> parts, Set<String> matched,
+                                       Set<String> matchedText, boolean proseHit) {
+        if (values.expressions.isEmpty() && matched.isEmpty()) {
+            return new Match(GradeVerdict.AMBIGUOUS, List.of());
+        }
+        boolean prose = proseHit;
+        Set<String> equivalent = new LinkedHashSet<>(matched);
+        List<MathExpression> agreeing = new ArrayList<>(parts.size());
+        List<MathExpression> unmatched = new ArrayList<>(parts.size());
+        boolean different = false;
+        for (String part : parts) {
+            MathExpression parsed = MathExpression.parse(part);
+            if (parsed == null) {
+                continue;
+            }
+            // 作答给步骤中已有赋值检查点的变量赋值时（t=5），不拿它去比其他量的裸数值检查点（坐标5）
+            boolean assignsKnown = parsed.isAssignment() && values.assigned.contains(parsed.getAssignedVariable());
+            String checkPoint = null;
+            for (int i = 0; i < values.expressions.size() && checkPoint == null; i++) {
+                if (assignsKnown && values.expressions.get(i).isConstant()) {
+                    continue;
+                }
+                switch (AnswerEquivalence.compare(values.expressions.get(i), parsed)) {
+                    case EQUIVALENT:
+                        checkPoint = values.checkPoints.get(i);
+                        break;
+                    case DIFFERENT:
+                        different = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (checkPoint != null && !isFormula(part) && !matchedText.contains(part)) {
+                prose = true;
+            } else if (checkPoint != null) {
+                equivalent.add(checkPoint);
+                agreeing.add(parsed);
+            } else {
+                unmatched.add(parsed);
+            }
+        }
+        if (equivalent.isEmpty()) {
+            return new Match(different ? GradeVerdict.INCORRECT : GradeVerdict.AMBIGUOUS, List.of());
+        }
+        // 同一个量给出了多个不同的值：对的那个只是猜中之一
+        for (MathExpression other : unmatched) {
+            for (MathExpression answer : agreeing) {
+                if (AnswerEquivalence.compare(answer, other) == AnswerEquivalence.Result.DIFFERENT) {
+                    return new Match(GradeVerdict.INCORRECT, List.of());
+                }
+            }
+        }
+        // 说明文字中的检查点（"不是2.5"、"我觉得是2.5"）无法在本地判断语义，交给调用方复核
+        if (prose) {
+            return new Match(GradeVerdict.AMBIGUOUS, List.of());
+        }
+        return new Match(GradeVerdict.CORRECT, List.copyOf(equivalent));
+    }
+
+    /**
+     * 按括号外的 , ; 或 且 拆分作答中的多个结论（a=-5,b=8；t=3.25或t=8.25）
+     */
+    static List<String> splitParts(String answer) {
+        List<String> parts = null;
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < answer.length(); i++) {
+            char c = answer.charAt(i);
+            if (c == '(' || c == '[') {
+                depth++;
+            } else if ((c == ')' || c == ']') && depth > 0) {
+                depth--;
+            } else if (depth == 0 && isPartSeparator(c)) {
+                if (parts == null) {
+                    parts = new ArrayList<>(4);
+                }
+                parts.add(answer.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (parts == null) {
+            return List.of(answer);
+        }
+        parts.add(answer.substring(start));
+        return parts;
+    }
+
+    /**
+     * 命中是否覆盖一个完整的结论或方程的一边：两端紧挨作答首尾、结论分隔符、等号或说明文字，
+     * 不与数值、变量或运算符相连（"13+2"、"t=2.5*2"、"6t=15-3" 都不算命中）
+     */
+    static boolean onBoundary(String text, int start, int end) {
+        if (start > 0 && !isUnitDelimiter(text.charAt(start - 1))) {
+            return false;
+        }
+        if (end < text.length()) {
+            char after = text.charAt(end);
+            if (after == '.') {
+                // 句末的点号不算小数点
+                return end + 1 >= text.length() || !isExpressionChar(text.charAt(end + 1));
+            }
+            return isUnitDelimiter(after);
+        }
+        return true;
+    }
+
+    /**
+     * 命中所在结论的其余部分是否都是算式（见 {@link #isFormula}）；夹在说明文字里的命中
+     * （"AB的距离是13"）不算，检查点本身带的文字（"2.5秒"）不影响
+     */
+    static boolean inFormula(String text, int start, int end) {
+        int from = start;
+        while (from > 0 && !isPartSeparator(text.charAt(from - 1))) {
+            from--;
+        }
+        int to = end;
+        while (to < text.length() && !isPartSeparator(text.charAt(to))) {
+            to++;
+        }
+        return isFormula(text.substring(from, start)) && isFormula(text.substring(end, to));
+    }
+
+    /**
+     * 结论只由算式字符和等号组成，末尾的句号除外
+     */
+    static boolean isFormula(String part) {
+        int length = part.endsWith("。") ? part.length() - 1 : part.length();
+        for (int i = 0; i < length; i++) {
+            if (!isFormulaChar(part.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPartSeparator(char c) {
+        return c == ',' || c == ';' || c == '或' || c == '且';
+    }
+
+    private static boolean isFormulaChar(char c) {
+        return c == '=' || isExpressionChar(c);
+    }
+
+    private static boolean isUnitDelimiter(char c) {
+        return c == '=' || !isExpressionChar(c);
+    }
+
+    /**
+     * 算式的组成字符：数值、变量、运算符与括号
+     */
+    private static boolean isExpressionChar(char c) {
+        if (AnswerNormalizer.isOperandChar(c)) {
+            return true;
+        }
+        switch (c) {
+            case '+':
+            case '-':
+            case '*':
+            case '/':
+            case '^':
+            case '(':
+            case ')':
+            case '[':
+            case ']':
+            case '|':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 一次判定的结果
+     */
+    @Value
+    public static class Match {
+        GradeVerdict verdict;
+        List<String> matchedCheckPoints;
+    }
+
+    /**
+     * 某一步骤中能解析为数学表达式的检查点，构建匹配器时解析一次
+     */
+    private static final class StepValues {
+
+        private final List<MathExpression> expressions = new ArrayList<>();
+        private final List<String> checkPoints = new ArrayList<>();
+
+        /**
+         * 赋值形式的检查点（t=2.5）涉及的变量
+         */
+        private final Set<String> assigned = new HashSet<>();
+
+        private void add(String normalized, String checkPoint) {
+            MathExpression expression = MathExpression.parse(normalized);
+            if (expression != null) {
+                expressions.add(expression);
+                checkPoints.add(checkPoint);
+                if (expression.isAssignment()) {
+                    assigned.add(expression.getAssignedVariable());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.mathtutor.grading;
+
+import com.mathtutor.grading.MathExpression.Abs;
+import com.mathtutor.grading.MathExpression.Binary;
+import com.mathtutor.grading.MathExpression.Constant;
+import com.mathtutor.grading.MathExpression.Negate;
+import com.mathtutor.grading.MathExpression.Node;
+import com.mathtutor.grading.MathExpression.Power;
+import com.mathtutor.grading.MathExpression.Variable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 作答表达式的递归下降解析器
+ *
+ * 文法（输入已经过 {@link AnswerNormalizer} 规范化，没有空白）：
+ * <pre>
+ * relation := sum ('=' sum)?
+ * sum      := term (('+' | '-') term)*
+ * term     := unary (('*' | '/') unary | power)*      // 相邻的因子之间省略乘号
+ * unary    := ('-' | '+') unary | power
+ * power    := primary (('^' | '**') exponent)?        // 指数须为常数整数，结果大小见 Rational#MAX_POW_BITS
+ * primary  := number | variable | '(' sum ')' | '[' sum ']' | '|' sum '|'
+ * </pre>
+ * 变量：小写字母后可跟大写字母或数字作下标（xM、x1），大写字母可连写（AB、P）；
+ * 连续三个及以上小写字母视为单词或函数名，不予解析。
+ */
+final class ExpressionParser {
+
+    private static final int MAX_LENGTH = 256;
+    private static final int MAX_VARIABLES = 8;
+    private static final int MAX_EXPONENT = 16;
+
+    private static final String[] LETTERS = new String[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            LETTERS[c] = String.valueOf(c).intern();
+            LETTERS[Character.toUpperCase(c)] = String.valueOf(Character.toUpperCase(c)).intern();
+        }
+    }
+
+    private final String text;
+    private int pos;
+    private int absDepth;
+    private int equalsIndex = -1;
+    private final List<String> variables = new ArrayList<>(4);
+
+    private ExpressionParser(String text) {
+        this.text = text;
+    }
+
+    static MathExpression parse(String normalized) {
+        if (normalized == null) {
+            return null;
+        }
+        String text = trim(normalized);
+        if (text.isEmpty() || text.length() > MAX_LENGTH) {
+            return null;
+        }
+        ExpressionParser parser = new ExpressionParser(text);
+        try {
+            return parser.relation();
+        } catch (SyntaxError e) {
+            return null;
+        } catch (ArithmeticException e) {
+            // 常数部分算不出（乘方结果过大）时同样视为无法解析
+            return null;
+        }
+    }
+
+    /**
+     * 去掉首尾不属于表达式的说明文字、单位和标点；遇到运算符即停止（"t=三" 不会被截成 "t"）
+     */
+    static String trim(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && !canStart(text.charAt(start)) && !isOperator(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && !canEnd(text.charAt(end - 1)) && !isOperator(text.charAt(end - 1))) {
+            end--;
+        }
+        return start == 0 && end == text.length() ? text : text.substring(start, end);
+    }
+
+    private MathExpression relation() {
+        Node lhs = sum();
+        Node rhs = null;
+        if (peek() == '=') {
+            equalsIndex = pos;
+            pos++;
+            rhs = sum();
+        }
+        if (pos != text.length()) {
+            throw SyntaxError.INSTANCE;
+        }
+        return new MathExpression(text, lhs, rhs, equalsIndex, variables.toArray(new String[0]));
+    }
+
+    private Node sum() {
+        Node node = term();
+        while (true) {
+            char c = peek();
+            if (c != '+' && c != '-') {
+                return node;
+            }
+            pos++;
+            node = new Binary(c, node, term());
+        }
+    }
+
+    private Node term() {
+        Node node = unary();
+        while (true) {
+            char c = peek();
+            if ((c == '*' && peekAt(pos + 1) != '*') || c == '/') {
+                pos++;
+                node = new Binary(c, node, unary());
+            } else if (startsFactor(c)) {
+                node = new Binary('*', node, power());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node unary() {
+        char c = peek();
+        if (c == '-') {
+            pos++;
+            return new Negate(unary());
+        }
+        if (c == '+') {
+            pos++;
+            return unary();
+        }
+        return power();
+    }
+
+    private Node power() {
+        Node base = primary();
+        if (peek() == '^') {
+            pos++;
+        } else if (peek() == '*' && peekAt(pos + 1) == '*') {
+            pos += 2;
+        } else {
+            return base;
+        }
+        return new Power(base, exponent());
+    }
+
+    private int exponent() {
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+        Rational value = power().evaluate(new Rational[variables.size()]);
+        if (value == null || !value.isSmallInteger() || Math.abs(value.intValue()) > MAX_EXPONENT) {
+            throw SyntaxError.INSTANCE;
+        }
+        return negative ? -value.intValue() : value.intValue();
+    }
+
+    private Node primary() {
+        char c = peek();
+        if (isDigit(c) || c == '.') {
+            return number();
+        }
+        if (isLetter(c)) {
+            return variable();
+        }
+        if (c == '(' || c == '[') {
+            pos++;
+            Node inner = sum();
+            expect(c == '(' ? ')' : ']');
+            return inner;
+        }
+        if (c == '|') {
+            pos++;
+            absDepth++;
+            Node inner = sum();
+            expect('|');
+            absDepth--;
+            return new Abs(inner);
+        }
+        throw SyntaxError.INSTANCE;
+    }
+
+    private Node number() {
+        int start = pos;
+        long unscaled = 0;
+        long scale = 1;
+        boolean point = false;
+        boolean overflow = false;
+        int digits = 0;
+        for (; pos < text.length(); pos++) {
+            char c = text.charAt(pos);
+            if (isDigit(c)) {
+                digits++;
+                if (digits > 18) {
+                    overflow = true;
+                } else {
+                    unscaled = unscaled * 10 + (c - '0');
+                    if (point) {
+                        scale *= 10;
+                    }
+                }
+            } else if (c == '.' && !point && pos + 1 < text.length() && isDigit(text.charAt(pos + 1))) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            throw SyntaxError.INSTANCE;
+        }
+        if (overflow) {
+            BigDecimal value = new BigDecimal(text.substring(start, pos));
+            return new Constant(Rational.of(value.unscaledValue(),
+                BigInteger.TEN.pow(Math.max(value.scale(), 0))));
+        }
+        return new Constant(Rational.of(unscaled, scale));
+    }
+
+    private Node variable() {
+        int start = pos;
+        char first = text.charAt(pos++);
+        if (isLower(first)) {
+            // 连续三个小写字母视为单词或函数名
+            if (isLower(peek()) && isLower(peekAt(pos + 1))) {
+                throw SyntaxError.INSTANCE;
+            }
+            while (isUpper(peek()) || isDigit(peek())) {
+                pos++;
+            }
+        } else {
+            while (isUpper(peek())) {
+                pos++;
+            }
+            while (isDigit(peek())) {
+                pos++;
+            }
+        }
+        String name = pos - start == 1 ? LETTERS[first] : text.substring(start, pos);
+        int index = variables.indexOf(name);
+        if (index < 0) {
+            if (variables.size() == MAX_VARIABLES) {
+                throw SyntaxError.INSTANCE;
+            }
+            index = variables.size();
+            variables.add(name);
+        }
+        return new Variable(index);
+    }
+
+    /**
+     * 省略乘号时下一个因子的起始字符；绝对值内部的 '|' 是右边界
+     */
+    private boolean startsFactor(char c) {
+        return isDigit(c) || isLetter(c) || c == '(' || c == '[' || (c == '|' && absDepth == 0);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw SyntaxError.INSTANCE;
+        }
+        pos++;
+    }
+
+    private char peek() {
+        return peekAt(pos);
+    }
+
+    private char peekAt(int index) {
+        return index < text.length() ? text.charAt(index) : '\0';
+    }
+
+    private static boolean canStart(char c) {
+        return isDigit(c) || isLetter(c) || c == '(' || c == '[' || c == '|' || c == '-' || c == '.';
+    }
+
+    private static boolean canEnd(char c) {
+        return isDigit(c) || isLetter(c) || c == ')' || c == ']' || c == '|';
+    }
+
+    private static boolean isOperator(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '*' || c == '/' || c == '^' || c == '(' || c == '[';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return isLower(c) || isUpper(c);
+    }
+
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * 语法错误；不记录堆栈，解析失败的作答很常见
+     */
+    private static final class SyntaxError extends RuntimeException {
+
+        private static final SyntaxError INSTANCE = new SyntaxError();
+
+        private SyntaxError() {
+            super("语法错误", null, false, false);
+        }
+    }
+}
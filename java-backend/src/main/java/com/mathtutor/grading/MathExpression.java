@@ -0,0 +1,404 @@
+package com.mathtutor.grading;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 解析后的作答或检查点（不可变，线程安全）
+ *
+ * 支持题库中出现的作答形式：一元 / 多元一次方程、代数式、绝对值、分数、小数、整数次幂和省略乘号，
+ * 例如 "t=5/2"、"4t+2(t-1)=13"、"|15-2t|+|2t-8|=10"、"xM=10-2t"。
+ * 首尾的中文说明与单位会被去掉（"2.5秒" 解析为 2.5，"坐标5" 解析为 5），中间夹杂中文的无法解析。
+ * 解析时即算出 左边 - 右边 的一次式规范形式（非一次式为 null），等价判定见 {@link AnswerEquivalence}。
+ */
+public final class MathExpression {
+
+    private final String source;
+    private final Node lhs;
+    private final Node rhs;
+    private final int equalsIndex;
+
+    /**
+     * 变量名，按首次出现的顺序；{@link Node} 中的变量下标指向这里
+     */
+    private final String[] variables;
+
+    /**
+     * 左边 - 右边（不是方程时为表达式本身）的一次式规范形式，非一次式时为 null
+     */
+    private final LinearForm linear;
+
+    /**
+     * 形如 t=2.5 时被赋值的变量，否则为 null
+     */
+    private final String assignedVariable;
+
+    /**
+     * 常数表达式的值或赋值方程右边的值，否则为 null
+     */
+    private final Rational value;
+
+    /**
+     * 形如 xM=10-2t 时右边的表达式，首次使用时解析
+     */
+    private MathExpression definition;
+
+    MathExpression(String source, Node lhs, Node rhs, int equalsIndex, String[] variables) {
+        this.source = source;
+        this.lhs = lhs;
+        this.rhs = rhs;
+        this.equalsIndex = equalsIndex;
+        this.variables = variables;
+        this.linear = difference().linear(variables.length);
+
+        String assigned = null;
+        Rational constant = null;
+        if (rhs == null) {
+            if (variables.length == 0) {
+                constant = lhs.evaluate(new Rational[0]);
+            }
+        } else if (variables.length == 1) {
+            Node variableSide = lhs instanceof Variable ? lhs : rhs instanceof Variable ? rhs : null;
+            if (variableSide != null) {
+                LinearForm other = (variableSide == lhs ? rhs : lhs).linear(1);
+                if (other != null && other.isConstant()) {
+                    assigned = variables[0];
+                    constant = other.constant;
+                }
+            }
+        }
+        this.assignedVariable = assigned;
+        this.value = constant;
+    }
+
+    /**
+     * 解析规范化后的作答（见 {@link AnswerNormalizer#normalize}）
+     * @return 无法解析时返回 null
+     */
+    public static MathExpression parse(String normalized) {
+        return ExpressionParser.parse(normalized);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isEquation() {
+        return rhs != null;
+    }
+
+    /**
+     * 不含变量的表达式（如 5/2、|-5|+8）
+     */
+    public boolean isConstant() {
+        return rhs == null && value != null;
+    }
+
+    /**
+     * 变量 = 常数 形式的方程（如 t=5/2、2.5=t）
+     */
+    public boolean isAssignment() {
+        return assignedVariable != null;
+    }
+
+    public String getAssignedVariable() {
+        return assignedVariable;
+    }
+
+    /**
+     * 常数表达式的值或赋值方程的取值，其他情况为 null
+     */
+    public Rational getValue() {
+        return value;
+    }
+
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * 是否为一次式（一次方程），此时可按系数精确比较
+     */
+    public boolean isLinear() {
+        return linear != null;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    String[] variables() {
+        return variables;
+    }
+
+    LinearForm linear() {
+        return linear;
+    }
+
+    /**
+     * 左边 - 右边；不是方程时为表达式本身
+     */
+    Node difference() {
+        return rhs == null ? lhs : new Binary('-', lhs, rhs);
+    }
+
+    /**
+     * 左边是单个变量的方程（如 xM=10-2t）的右边，其他情况为 null
+     */
+    MathExpression definition() {
+        if (rhs == null || !(lhs instanceof Variable)) {
+            return null;
+        }
+        MathExpression result = definition;
+        if (result == null) {
+            result = parse(source.substring(equalsIndex + 1));
+            definition = result;
+        }
+        return result;
+    }
+
+    String definedVariable() {
+        return lhs instanceof Variable ? variables[((Variable) lhs).index] : null;
+    }
+
+    /**
+     * 一次式 c0 + c1*x1 + ... + cn*xn，系数下标与所属表达式的变量下标一致
+     */
+    static final class LinearForm {
+
+        final Rational constant;
+        final Rational[] coefficients;
+
+        LinearForm(Rational constant, Rational[] coefficients) {
+            this.constant = constant;
+            this.coefficients = coefficients;
+        }
+
+        static LinearForm constant(Rational value, int variableCount) {
+            Rational[] coefficients = new Rational[variableCount];
+            Arrays.fill(coefficients, Rational.ZERO);
+            return new LinearForm(value, coefficients);
+        }
+
+        boolean isConstant() {
+            for (Rational coefficient : coefficients) {
+                if (!coefficient.isZero()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        LinearForm add(LinearForm other, boolean subtract) {
+            Rational[] result = new Rational[coefficients.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = subtract ? coefficients[i].subtract(other.coefficients[i])
+                    : coefficients[i].add(other.coefficients[i]);
+            }
+            return new LinearForm(subtract ? constant.subtract(other.constant) : constant.add(other.constant), result);
+        }
+
+        LinearForm scale(Rational factor) {
+            Rational[] result = new Rational[coefficients.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = coefficients[i].multiply(factor);
+            }
+            return new LinearForm(constant.multiply(factor), result);
+        }
+    }
+
+    /**
+     * 语法树节点
+     */
+    abstract static class Node {
+
+        /**
+         * 按变量取值求值，无定义（除以 0）时返回 null
+         */
+        abstract Rational evaluate(Rational[] values);
+
+        /**
+         * 一次式规范形式，非一次式或无定义时返回 null
+         */
+        abstract LinearForm linear(int variableCount);
+    }
+
+    static final class Constant extends Node {
+
+        private final Rational value;
+
+        Constant(Rational value) {
+            this.value = value;
+        }
+
+        @Override
+        Rational evaluate(Rational[] values) {
+            return value;
+        }
+
+        @Override
+        LinearForm linear(int variableCount) {
+            return LinearForm.constant(value, variableCount);
+        }
+    }
+
+    static final class Variable extends Node {
+
+        private final int index;
+
+        Variable(int index) {
+            this.index = index;
+        }
+
+        @Override
+        Rational evaluate(Rational[] values) {
+            return values[index];
+        }
+
+        @Override
+        LinearForm linear(int variableCount) {
+            LinearForm form = LinearForm.constant(Rational.ZERO, variableCount);
+            form.coefficients[index] = Rational.ONE;
+            return form;
+        }
+    }
+
+    static final class Negate extends Node {
+
+        private final Node operand;
+
+        Negate(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Rational evaluate(Rational[] values) {
+            Rational v = operand.evaluate(values);
+            return v == null ? null : v.negate();
+        }
+
+        @Override
+        LinearForm linear(int variableCount) {
+            LinearForm form = operand.linear(variableCount);
+            return form == null ? null : form.scale(Rational.ONE.negate());
+        }
+    }
+
+    static final class Abs extends Node {
+
+        private final Node operand;
+
+        Abs(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Rational evaluate(Rational[] values) {
+            Rational v = operand.evaluate(values);
+            return v == null ? null : v.abs();
+        }
+
+        @Override
+        LinearForm linear(int variableCount) {
+            LinearForm form = operand.linear(variableCount);
+            if (form == null || !form.isConstant()) {
+                return null;
+            }
+            return LinearForm.constant(form.constant.abs(), variableCount);
+        }
+    }
+
+    static final class Power extends Node {
+
+        private final Node base;
+        private final int exponent;
+
+        Power(Node base, int exponent) {
+            this.base = base;
+            this.exponent = exponent;
+        }
+
+        @Override
+        Rational evaluate(Rational[] values) {
+            Rational v = base.evaluate(values);
+            if (v == null || (exponent < 0 && v.isZero())) {
+                return null;
+            }
+            return v.pow(exponent);
+        }
+
+        @Override
+        LinearForm linear(int variableCount) {
+            if (exponent == 0) {
+                return LinearForm.constant(Rational.ONE, variableCount);
+            }
+            LinearForm form = base.linear(variableCount);
+            if (form == null || exponent == 1) {
+                return form;
+            }
+            if (!form.isConstant() || (exponent < 0 && form.constant.isZero())) {
+                return null;
+            }
+            return LinearForm.constant(form.constant.pow(exponent), variableCount);
+        }
+    }
+
+    static final class Binary extends Node {
+
+        private final char operator;
+        private final Node left;
+        private final Node right;
+
+        Binary(char operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Rational evaluate(Rational[] values) {
+            Rational a = left.evaluate(values);
+            Rational b = a == null ? null : right.evaluate(values);
+            if (b == null) {
+                return null;
+            }
+            switch (operator) {
+                case '+':
+                    return a.add(b);
+                case '-':
+                    return a.subtract(b);
+                case '*':
+                    return a.multiply(b);
+                default:
+                    return b.isZero() ? null : a.divide(b);
+            }
+        }
+
+        @Override
+        LinearForm linear(int variableCount) {
+            LinearForm a = left.linear(variableCount);
+            LinearForm b = a == null ? null : right.linear(variableCount);
+            if (b == null) {
+                return null;
+            }
+            switch (operator) {
+                case '+':
+                    return a.add(b, false);
+                case '-':
+                    return a.add(b, true);
+                case '*':
+                    if (a.isConstant()) {
+                        return b.scale(a.constant);
+                    }
+                    return b.isConstant() ? a.scale(b.constant) : null;
+                default:
+                    if (!b.isConstant() || b.constant.isZero()) {
+                        return null;
+                    }
+                    return a.scale(Rational.ONE.divide(b.constant));
+            }
+        }
+    }
+}
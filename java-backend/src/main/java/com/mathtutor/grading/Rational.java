@@ -0,0 +1,324 @@
+package com.mathtutor.grading;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * 精确有理数（不可变）
+ *
+ * 分子分母能用 long 表示时直接做 long 运算（Math.*Exact 检查溢出），溢出时改用 BigInteger 计算，
+ * 结果能放回 long 时再降回 long 表示。始终保持最简形式且分母为正，因此同一个数只有一种表示，
+ * equals / hashCode 可以直接比较。
+ */
+public final class Rational implements Comparable<Rational> {
+
+    public static final Rational ZERO = new Rational(0, 1);
+    public static final Rational ONE = new Rational(1, 1);
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    /**
+     * 乘方结果分子分母位数之和的上限；嵌套乘方（如 ((2^16)^16)^16）会按指数之积增长，超过时拒绝计算
+     */
+    static final int MAX_POW_BITS = 4096;
+
+    private final long num;
+    private final long den;
+
+    /**
+     * 超出 long 范围时的表示，能用 long 表示时为 null
+     */
+    private final BigInteger bigNum;
+    private final BigInteger bigDen;
+
+    private Rational(long num, long den) {
+        this.num = num;
+        this.den = den;
+        this.bigNum = null;
+        this.bigDen = null;
+    }
+
+    private Rational(BigInteger num, BigInteger den) {
+        this.num = 0;
+        this.den = 1;
+        this.bigNum = num;
+        this.bigDen = den;
+    }
+
+    public static Rational valueOf(long value) {
+        if (value == 0) {
+            return ZERO;
+        }
+        return value == 1 ? ONE : new Rational(value, 1);
+    }
+
+    /**
+     * 构造 num / den 并化简
+     * @throws ArithmeticException 分母为 0
+     */
+    public static Rational of(long num, long den) {
+        if (den == 0) {
+            throw new ArithmeticException("分母为零");
+        }
+        if (num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+            return of(BigInteger.valueOf(num), BigInteger.valueOf(den));
+        }
+        if (den < 0) {
+            num = -num;
+            den = -den;
+        }
+        long g = gcd(Math.abs(num), den);
+        if (g > 1) {
+            num /= g;
+            den /= g;
+        }
+        return num == 0 ? ZERO : new Rational(num, den);
+    }
+
+    public static Rational of(BigInteger num, BigInteger den) {
+        if (den.signum() == 0) {
+            throw new ArithmeticException("分母为零");
+        }
+        if (den.signum() < 0) {
+            num = num.negate();
+            den = den.negate();
+        }
+        BigInteger g = num.gcd(den);
+        if (!g.equals(BigInteger.ONE) && g.signum() != 0) {
+            num = num.divide(g);
+            den = den.divide(g);
+        }
+        if (fitsLong(num) && fitsLong(den)) {
+            return num.signum() == 0 ? ZERO : new Rational(num.longValue(), den.longValue());
+        }
+        return new Rational(num, den);
+    }
+
+    /**
+     * 解析十进制小数，如 "13"、"-2.50"、".5"
+     * @throws NumberFormatException 格式不正确
+     */
+    public static Rational parse(String decimal) {
+        int point = decimal.indexOf('.');
+        int digits = decimal.length() - (point >= 0 ? 1 : 0) - (decimal.startsWith("-") ? 1 : 0);
+        if (digits > 18) {
+            BigDecimal value = new BigDecimal(decimal);
+            return value.scale() > 0
+                ? of(value.unscaledValue(), BigInteger.TEN.pow(value.scale()))
+                : of(value.toBigIntegerExact(), BigInteger.ONE);
+        }
+        if (point < 0) {
+            return valueOf(Long.parseLong(decimal));
+        }
+        String fraction = decimal.substring(point + 1);
+        String whole = decimal.substring(0, point);
+        if (fraction.isEmpty() || fraction.charAt(0) == '-' || fraction.charAt(0) == '+') {
+            throw new NumberFormatException(decimal);
+        }
+        long scale = 1;
+        for (int i = 0; i < fraction.length(); i++) {
+            scale *= 10;
+        }
+        boolean negative = whole.startsWith("-");
+        long integer = whole.isEmpty() || "-".equals(whole) ? 0 : Math.abs(Long.parseLong(whole));
+        long unscaled = integer * scale + Long.parseLong(fraction);
+        return of(negative ? -unscaled : unscaled, scale);
+    }
+
+    public Rational add(Rational other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                if (den == other.den) {
+                    return of(Math.addExact(num, other.num), den);
+                }
+                return of(Math.addExact(Math.multiplyExact(num, other.den), Math.multiplyExact(other.num, den)),
+                    Math.multiplyExact(den, other.den));
+            } catch (ArithmeticException overflow) {
+                // 溢出时按 BigInteger 计算
+            }
+        }
+        return of(bigNum().multiply(other.bigDen()).add(other.bigNum().multiply(bigDen())),
+            bigDen().multiply(other.bigDen()));
+    }
+
+    public Rational subtract(Rational other) {
+        return add(other.negate());
+    }
+
+    public Rational multiply(Rational other) {
+        if (isSmall() && other.isSmall()) {
+            if (num == 0 || other.num == 0) {
+                return ZERO;
+            }
+            // 先交叉约分，结果已是最简形式
+            long g1 = gcd(Math.abs(num), other.den);
+            long g2 = gcd(Math.abs(other.num), den);
+            try {
+                long n = Math.multiplyExact(num / g1, other.num / g2);
+                long d = Math.multiplyExact(den / g2, other.den / g1);
+                if (n != Long.MIN_VALUE) {
+                    return new Rational(n, d);
+                }
+            } catch (ArithmeticException overflow) {
+                // 溢出时按 BigInteger 计算
+            }
+        }
+        return of(bigNum().multiply(other.bigNum()), bigDen().multiply(other.bigDen()));
+    }
+
+    /**
+     * @throws ArithmeticException 除数为 0
+     */
+    public Rational divide(Rational other) {
+        if (other.isZero()) {
+            throw new ArithmeticException("除数为零");
+        }
+        return multiply(other.reciprocal());
+    }
+
+    public Rational negate() {
+        if (isSmall()) {
+            return num == 0 ? ZERO : new Rational(-num, den);
+        }
+        return of(bigNum.negate(), bigDen);
+    }
+
+    public Rational abs() {
+        return signum() < 0 ? negate() : this;
+    }
+
+    /**
+     * 整数次幂，指数可以为负
+     * @throws ArithmeticException 0 的负数次幂，或结果超过 {@link #MAX_POW_BITS} 位
+     */
+    public Rational pow(int exponent) {
+        if (exponent < 0) {
+            if (isZero()) {
+                throw new ArithmeticException("除数为零");
+            }
+            return reciprocal().pow(-exponent);
+        }
+        if (exponent > 1 && (long) bitLength() * exponent > MAX_POW_BITS) {
+            throw new ArithmeticException("乘方结果过大");
+        }
+        Rational result = ONE;
+        Rational base = this;
+        for (int e = exponent; e > 0; e >>= 1) {
+            if ((e & 1) != 0) {
+                result = result.multiply(base);
+            }
+            if (e > 1) {
+                base = base.multiply(base);
+            }
+        }
+        return result;
+    }
+
+    public int signum() {
+        return isSmall() ? Long.signum(num) : bigNum.signum();
+    }
+
+    public boolean isZero() {
+        return isSmall() && num == 0;
+    }
+
+    public boolean isInteger() {
+        return isSmall() ? den == 1 : bigDen.equals(BigInteger.ONE);
+    }
+
+    /**
+     * 是否为 int 范围内的整数
+     */
+    public boolean isSmallInteger() {
+        return isSmall() && den == 1 && num >= Integer.MIN_VALUE && num <= Integer.MAX_VALUE;
+    }
+
+    public int intValue() {
+        return isSmall() ? (int) (num / den) : bigNum.divide(bigDen).intValue();
+    }
+
+    @Override
+    public int compareTo(Rational other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                return Long.compare(Math.multiplyExact(num, other.den), Math.multiplyExact(other.num, den));
+            } catch (ArithmeticException overflow) {
+                // 溢出时按 BigInteger 比较
+            }
+        }
+        return bigNum().multiply(other.bigDen()).compareTo(other.bigNum().multiply(bigDen()));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Rational)) {
+            return false;
+        }
+        Rational other = (Rational) o;
+        if (isSmall() != other.isSmall()) {
+            return false;
+        }
+        return isSmall()
+            ? num == other.num && den == other.den
+            : bigNum.equals(other.bigNum) && bigDen.equals(other.bigDen);
+    }
+
+    @Override
+    public int hashCode() {
+        return isSmall() ? Long.hashCode(num) * 31 + Long.hashCode(den) : bigNum.hashCode() * 31 + bigDen.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (isSmall()) {
+            return den == 1 ? Long.toString(num) : num + "/" + den;
+        }
+        return bigDen.equals(BigInteger.ONE) ? bigNum.toString() : bigNum + "/" + bigDen;
+    }
+
+    /**
+     * 分子与分母的位数之和
+     */
+    int bitLength() {
+        if (isSmall()) {
+            return (64 - Long.numberOfLeadingZeros(Math.abs(num))) + (64 - Long.numberOfLeadingZeros(den));
+        }
+        return bigNum.bitLength() + bigDen.bitLength();
+    }
+
+    private Rational reciprocal() {
+        if (isSmall()) {
+            return num < 0 ? new Rational(-den, -num) : new Rational(den, num);
+        }
+        return of(bigDen, bigNum);
+    }
+
+    private boolean isSmall() {
+        return bigNum == null;
+    }
+
+    private BigInteger bigNum() {
+        return isSmall() ? BigInteger.valueOf(num) : bigNum;
+    }
+
+    private BigInteger bigDen() {
+        return isSmall() ? BigInteger.valueOf(den) : bigDen;
+    }
+
+    private static boolean fitsLong(BigInteger value) {
+        // 排除 Long.MIN_VALUE，保证取负不会溢出
+        return value.bitLength() < 64 && !value.equals(LONG_MIN);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+}
@@ -0,0 +1,281 @@
+package com.mathtutor.idempotency;
+
+import com.mathtutor.config.IdempotencyProperties;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.IdempotencyStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 幂等键结果存储
+ *
+ * 同一作用域内第一次出现的键执行调用，原请求处理中到达的重复请求等待并共用同一个结果，
+ * 完成后到达的重复请求直接重放已保存的结果。结果自第一次请求起保留 retention，
+ * 总数或估算内存超过上限时先丢弃最早的已完成结果；失败的结果不保存，重试会重新执行。
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    /**
+     * 响应头：结果来自之前的同键请求
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * 每条结果除内容外的估算开销（键、指纹、对象头）
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    public enum Status {
+        /**
+         * 第一次出现，已执行
+         */
+        EXECUTED,
+        /**
+         * 原请求仍在处理，共用其结果
+         */
+        ATTACHED,
+        /**
+         * 原请求已完成，重放结果
+         */
+        REPLAYED,
+        /**
+         * 同一个键对应不同的请求内容
+         */
+        CONFLICT
+    }
+
+    /**
+     * 一次带键请求的处理方式与结果
+     */
+    public static final class Attempt<T> {
+
+        private final Status status;
+        private final CompletableFuture<T> result;
+
+        Attempt(Status status, CompletableFuture<T> result) {
+            this.status = status;
+            this.result = result;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * 调用结果；CONFLICT 时为 null
+         */
+        public CompletableFuture<T> getResult() {
+            return result;
+        }
+
+        public boolean isDuplicate() {
+            return status == Status.ATTACHED || status == Status.REPLAYED;
+        }
+    }
+
+    private static final class Entry {
+
+        final String fingerprint;
+        final long createdNanos;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        long bytes;
+
+        Entry(String fingerprint, long createdNanos) {
+            this.fingerprint = fingerprint;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    private final IdempotencyProperties properties;
+
+    /**
+     * 按第一次请求的先后排列，过期与超限都从头部丢弃
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private long bytes;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder attached = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public IdempotencyStore(IdempotencyProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 是否按幂等键处理：功能开启且键非空、不超长
+     */
+    public boolean accepts(String key) {
+        return properties.isEnabled() && key != null && !key.isBlank()
+            && key.length() <= properties.getMaxKeyLength();
+    }
+
+    /**
+     * 对话请求按消息、会话与上下文识别内容，只保存成功的回答
+     */
+    public Attempt<ChatResponse> chat(String key, ChatRequest request,
+                                      Supplier<CompletableFuture<ChatResponse>> call) {
+        return execute("chat", key, fingerprint(request.getMessage(), request.getSessionId(), request.getContext()),
+            call, response -> "success".equals(response.getStatus()), IdempotencyStore::sizeOf);
+    }
+
+    /**
+     * 按幂等键执行调用
+     * @param scope 作用域，不同接口的同名键互不影响
+     * @param fingerprint 请求内容指纹，同键不同内容时返回 CONFLICT
+     * @param call 第一次出现时执行的调用
+     * @param cacheable 结果是否保存供重放；不保存的结果仍交给处理期间到达的重复请求
+     * @param sizer 结果的估算字节数
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Attempt<T> execute(String scope, String key, String fingerprint, Supplier<CompletableFuture<T>> call,
+                                  Predicate<T> cacheable, ToIntFunction<T> sizer) {
+        requests.increment();
+        String id = scope + ':' + key;
+        Entry existing;
+        Entry created = null;
+        synchronized (this) {
+            expire(System.nanoTime());
+            existing = entries.get(id);
+            if (existing == null) {
+                created = new Entry(fingerprint, System.nanoTime());
+                entries.put(id, created);
+            }
+        }
+
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                conflicts.increment();
+                log.debug("幂等键 {} 已用于不同的请求内容", id);
+                return new Attempt<>(Status.CONFLICT, null);
+            }
+            Status status = existing.result.isDone() ? Status.REPLAYED : Status.ATTACHED;
+            (status == Status.REPLAYED ? replayed : attached).increment();
+            return new Attempt<>(status, (CompletableFuture<T>) (CompletableFuture<?>) existing.result);
+        }
+
+        executed.increment();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        Entry entry = created;
+        result.whenComplete((value, error) -> complete(id, entry, value, error, cacheable, sizer));
+        return new Attempt<>(Status.EXECUTED, (CompletableFuture<T>) (CompletableFuture<?>) entry.result);
+    }
+
+    public IdempotencyStats getStats() {
+        int size;
+        long used;
+        synchronized (this) {
+            expire(System.nanoTime());
+            size = entries.size();
+            used = bytes;
+        }
+        long total = requests.sum();
+        long duplicates = attached.sum() + replayed.sum();
+        return new IdempotencyStats(total, executed.sum(), attached.sum(), replayed.sum(), conflicts.sum(),
+            total == 0 ? 0 : (double) duplicates / total, size, used, evicted.sum());
+    }
+
+    /**
+     * 请求内容指纹
+     */
+    public static String fingerprint(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                if (part != null) {
+                    digest.update(part.getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> void complete(String id, Entry entry, T value, Throwable error,
+                              Predicate<T> cacheable, ToIntFunction<T> sizer) {
+        boolean keep = error == null && value != null && cacheable.test(value);
+        synchronized (this) {
+            if (!keep) {
+                entries.remove(id, entry);
+            } else if (entries.get(id) == entry) {
+                entry.bytes = ENTRY_OVERHEAD_BYTES + 2L * id.length() + sizer.applyAsInt(value);
+                bytes += entry.bytes;
+                evictOverflow();
+            }
+        }
+        if (error != null) {
+            entry.result.completeExceptionally(error);
+        } else {
+            entry.result.complete(value);
+        }
+    }
+
+    /**
+     * 丢弃超过保留时间的已完成结果；处理中的请求不丢弃，由它完成时决定去留
+     */
+    private void expire(long now) {
+        long retention = properties.getRetention().toNanos();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (now - entry.createdNanos <= retention) {
+                return;
+            }
+            if (entry.bytes > 0) {
+                iterator.remove();
+                bytes -= entry.bytes;
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > properties.getMaxEntries() || bytes > properties.getMaxBytes())
+            && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.bytes > 0) {
+                iterator.remove();
+                bytes -= entry.bytes;
+                evicted.increment();
+            }
+        }
+    }
+
+    private static int sizeOf(ChatResponse response) {
+        int size = 64;
+        if (response.getResponse() != null) {
+            size += 2 * response.getResponse().length();
+        }
+        if (response.getSessionId() != null) {
+            size += 2 * response.getSessionId().length();
+        }
+        return size;
+    }
+}
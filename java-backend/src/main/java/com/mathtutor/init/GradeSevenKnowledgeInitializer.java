@@ -7,6 +7,9 @@ import com.mathtutor.model.KnowledgeSystemEnum;
 /**
  * 七年级知识点数据初始化器
  * 根据提供的七年级数学核心内容初始化知识点数据
+ *
+ * 运行时的知识点数据以 resources/knowledge/*.json 为准（见 {@link com.mathtutor.repository.KnowledgeJsonLoader}），
+ * 本类作为数据文件缺失或损坏时的内置兜底，内容需与 grade7_knowledge.json 保持一致。
  */
 public class GradeSevenKnowledgeInitializer {
 
@@ -223,6 +226,7 @@ public class GradeSevenKnowledgeInitializer {
 
     /**
      * 根据模块名称获取知识点
+     * 每次调用都会重新构建知识点，运行时查询请使用 {@link com.mathtutor.repository.KnowledgeRepository}
      */
     public static java.util.List<KnowledgeDomain> getKnowledgeByModule(String moduleName) {
         switch (moduleName) {
@@ -239,6 +243,7 @@ public class GradeSevenKnowledgeInitializer {
 
     /**
      * 根据专题名称获取知识点
+     * 每次调用都会重新构建知识点，运行时查询请使用 {@link com.mathtutor.repository.KnowledgeRepository}
      */
     public static java.util.List<KnowledgeDomain> getKnowledgeByTopic(String topicName) {
         java.util.List<KnowledgeDomain> allKnowledge = initializeGradeSevenKnowledge();
@@ -0,0 +1,156 @@
+package com.mathtutor.init;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.SolutionMethodCategory;
+import com.mathtutor.model.SolutionMethodDomain;
+
+/**
+ * 解题方法数据初始化器
+ * 整理初中阶段压轴题常用的解题方法，与七年级知识点配套使用
+ */
+public class SolutionMethodInitializer {
+
+    /**
+     * 初始化所有解题方法
+     * @return 解题方法列表
+     */
+    public static java.util.List<SolutionMethodDomain> initializeSolutionMethods() {
+        java.util.List<SolutionMethodDomain> methods = new java.util.ArrayList<>();
+
+        // 零点分段法
+        SolutionMethodDomain zeroPoint = new SolutionMethodDomain(
+            "SM001", "零点分段法",
+            "求出各绝对值内式子为零的点，按零点把数轴分段，在每一段内去掉绝对值符号分别求解",
+            SolutionMethodCategory.CLASSIFICATION, GradeEnum.SEVENTH_GRADE, GradeEnum.NINTH_GRADE
+        );
+        zeroPoint.addApplicableKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA);
+        zeroPoint.addApplicableKnowledgeSystem(KnowledgeSystemEnum.NUMBER_THEORY);
+        zeroPoint.addStep("令每个绝对值内的式子等于0，求出零点");
+        zeroPoint.addStep("按零点从小到大把数轴分成若干区间");
+        zeroPoint.addStep("在每个区间内确定符号，去掉绝对值后求解");
+        zeroPoint.addStep("检验解是否落在对应区间内，合并结果");
+        zeroPoint.addKeyPoint("零点是分段的依据，区间端点归属要统一");
+        zeroPoint.addPrecaution("求出的解必须回到所在区间检验");
+        zeroPoint.setApplicableProblemTypes("多个绝对值相加、绝对值方程、绝对值最值问题");
+        zeroPoint.setDifficultyLevel(3);
+        methods.add(zeroPoint);
+
+        // 整体代入法
+        SolutionMethodDomain wholeSubstitution = new SolutionMethodDomain(
+            "SM002", "整体代入法",
+            "不单独求出每个字母的值，而是把已知的代数式作为整体代入待求式",
+            SolutionMethodCategory.SUBSTITUTION, GradeEnum.SEVENTH_GRADE, GradeEnum.NINTH_GRADE
+        );
+        wholeSubstitution.addApplicableKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA);
+        wholeSubstitution.addStep("观察已知条件与待求式之间的结构联系");
+        wholeSubstitution.addStep("把待求式变形，凑出已知的整体");
+        wholeSubstitution.addStep("将整体的值代入计算");
+        wholeSubstitution.addKeyPoint("变形时注意系数与符号，整体要完整出现");
+        wholeSubstitution.setApplicableProblemTypes("代数式化简求值、降幂求值");
+        wholeSubstitution.setDifficultyLevel(2);
+        methods.add(wholeSubstitution);
+
+        // 系数为零法
+        SolutionMethodDomain zeroCoefficient = new SolutionMethodDomain(
+            "SM003", "系数为零法",
+            "代数式的值与某字母无关时，合并同类项后令含该字母的各项系数为0，列方程求参数",
+            SolutionMethodCategory.PARAMETER_METHOD, GradeEnum.SEVENTH_GRADE, GradeEnum.EIGHTH_GRADE
+        );
+        zeroCoefficient.addApplicableKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA);
+        zeroCoefficient.addStep("去括号、合并同类项，按指定字母整理");
+        zeroCoefficient.addStep("令含该字母的各项系数为0");
+        zeroCoefficient.addStep("解方程求出参数");
+        zeroCoefficient.addPrecaution("合并同类项时不要漏项，注意符号");
+        zeroCoefficient.setApplicableProblemTypes("整式无关型问题、恒等式求参数");
+        zeroCoefficient.setDifficultyLevel(2);
+        methods.add(zeroCoefficient);
+
+        // 方程思想
+        SolutionMethodDomain equationThinking = new SolutionMethodDomain(
+            "SM004", "方程思想",
+            "设出未知量，根据题目中的等量关系列方程求解",
+            SolutionMethodCategory.MATHEMATICAL_MODELING, GradeEnum.SIXTH_GRADE, GradeEnum.NINTH_GRADE
+        );
+        equationThinking.addApplicableKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA);
+        equationThinking.addApplicableKnowledgeSystem(KnowledgeSystemEnum.GEOMETRY);
+        equationThinking.addApplicableKnowledgeSystem(KnowledgeSystemEnum.NUMBER_THEORY);
+        equationThinking.addStep("审题，找出题目中的等量关系");
+        equationThinking.addStep("设未知数，用含未知数的式子表示相关的量");
+        equationThinking.addStep("根据等量关系列方程并求解");
+        equationThinking.addStep("检验解是否符合实际意义");
+        equationThinking.addKeyPoint("行程问题中路程=速度×时间，相遇时路程和等于初始距离");
+        equationThinking.setApplicableProblemTypes("行程问题、方案选择、销售利润、线段长度计算");
+        equationThinking.setDifficultyLevel(2);
+        methods.add(equationThinking);
+
+        // 数轴动点坐标表示法
+        SolutionMethodDomain movingPoint = new SolutionMethodDomain(
+            "SM005", "动点坐标表示法",
+            "用起点坐标加减速度与时间的乘积表示动点位置，把动点问题转化为含t的方程",
+            SolutionMethodCategory.NUMBER_SHAPE_COMBINATION, GradeEnum.SEVENTH_GRADE, GradeEnum.NINTH_GRADE
+        );
+        movingPoint.addApplicableKnowledgeSystem(KnowledgeSystemEnum.NUMBER_THEORY);
+        movingPoint.addApplicableKnowledgeSystem(KnowledgeSystemEnum.GEOMETRY);
+        movingPoint.addStep("确定动点起点坐标、速度大小与运动方向");
+        movingPoint.addStep("写出动点坐标：起点 ± 速度 × 运动时间");
+        movingPoint.addStep("运动状态改变时，以改变时刻为新起点分段表示");
+        movingPoint.addStep("用两点间距离 |x1 - x2| 建立方程");
+        movingPoint.addKeyPoint("晚出发或折返时，运动时间要减去对应的时刻");
+        movingPoint.addPrecaution("距离带绝对值，需要分类讨论点的相对位置");
+        movingPoint.setApplicableProblemTypes("数轴动点、相遇追及、折返运动");
+        movingPoint.setDifficultyLevel(3);
+        methods.add(movingPoint);
+
+        // 分类讨论
+        SolutionMethodDomain classification = new SolutionMethodDomain(
+            "SM006", "分类讨论",
+            "当问题的结论随位置、符号或情形不同而变化时，按统一标准分情况逐一求解",
+            SolutionMethodCategory.CLASSIFICATION, GradeEnum.SIXTH_GRADE, GradeEnum.NINTH_GRADE
+        );
+        classification.addApplicableKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA);
+        classification.addApplicableKnowledgeSystem(KnowledgeSystemEnum.GEOMETRY);
+        classification.addApplicableKnowledgeSystem(KnowledgeSystemEnum.NUMBER_THEORY);
+        classification.addStep("明确需要讨论的对象和分类标准");
+        classification.addStep("按标准不重不漏地划分情况");
+        classification.addStep("逐一求解并检验");
+        classification.addStep("汇总各情况的结论");
+        classification.addKeyPoint("动点在定点左侧还是右侧、相遇前还是相遇后、射线在角内还是角外");
+        classification.setApplicableProblemTypes("动点问题、动角问题、绝对值问题");
+        classification.setDifficultyLevel(3);
+        methods.add(classification);
+
+        // 双中点模型
+        SolutionMethodDomain doubleMidpoint = new SolutionMethodDomain(
+            "SM007", "双中点模型",
+            "两条相邻线段的中点之间的距离等于两线段之和的一半，与分点位置无关",
+            SolutionMethodCategory.GEOMETRY_METHOD, GradeEnum.SEVENTH_GRADE, GradeEnum.EIGHTH_GRADE
+        );
+        doubleMidpoint.addApplicableKnowledgeSystem(KnowledgeSystemEnum.GEOMETRY);
+        doubleMidpoint.addStep("找出两条相邻线段及其中点");
+        doubleMidpoint.addStep("用中点性质表示两个半段");
+        doubleMidpoint.addStep("相加得到中点距离为总长的一半");
+        doubleMidpoint.addKeyPoint("同样适用于双角平分线：夹角等于总角的一半");
+        doubleMidpoint.setApplicableProblemTypes("线段动点、角平分线夹角定值");
+        doubleMidpoint.setDifficultyLevel(2);
+        methods.add(doubleMidpoint);
+
+        // 归纳猜想
+        SolutionMethodDomain induction = new SolutionMethodDomain(
+            "SM008", "归纳猜想",
+            "从前几项的具体情况出发，观察变化规律，归纳出一般表达式并验证",
+            SolutionMethodCategory.INDUCTION, GradeEnum.SIXTH_GRADE, GradeEnum.NINTH_GRADE
+        );
+        induction.addApplicableKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA);
+        induction.addApplicableKnowledgeSystem(KnowledgeSystemEnum.NUMBER_THEORY);
+        induction.addStep("列出前几项，记录序号与结果");
+        induction.addStep("比较相邻项的差或比，寻找周期或递推关系");
+        induction.addStep("写出第n项的表达式");
+        induction.addStep("代入已知项验证");
+        induction.setApplicableProblemTypes("数式规律、图形规律、周期问题");
+        induction.setDifficultyLevel(2);
+        methods.add(induction);
+
+        return methods;
+    }
+}
@@ -0,0 +1,181 @@
+package com.mathtutor.job;
+
+import com.mathtutor.model.AnalysisJobView;
+import com.mathtutor.model.ProblemAnalysisDomain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个异步分析任务
+ *
+ * 状态变化与已生成文本的追加都在任务锁内进行；执行中生成的文本同时发给进度流，
+ * 进度流重放全部已生成文本，任意时刻订阅都能拿到完整内容。
+ */
+public class AnalysisJob {
+
+    /**
+     * 出队顺序：优先级高的先执行，同一优先级先提交的先执行
+     */
+    public static final Comparator<AnalysisJob> QUEUE_ORDER =
+        Comparator.comparing(AnalysisJob::getPriority).thenComparingLong(job -> job.sequence);
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final String id;
+    private final String question;
+    private final String context;
+    private final JobPriority priority;
+    private final String tenant;
+    private final long sequence = SEQUENCE.incrementAndGet();
+    private final long submittedNanos = System.nanoTime();
+    private final long submittedAt = System.currentTimeMillis();
+
+    private JobStatus status = JobStatus.QUEUED;
+    private long startedNanos;
+    private long finishedNanos;
+    private Long startedAt;
+    private Long finishedAt;
+    private final StringBuilder partial = new StringBuilder();
+    private ProblemAnalysisDomain result;
+    private String error;
+    private Thread worker;
+    private final Sinks.Many<String> progress = Sinks.many().replay().all();
+
+    public AnalysisJob(String id, String question, String context, JobPriority priority, String tenant) {
+        this.id = id;
+        this.question = question;
+        this.context = context;
+        this.priority = priority;
+        this.tenant = tenant;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public long getSubmittedNanos() {
+        return submittedNanos;
+    }
+
+    public synchronized JobStatus getStatus() {
+        return status;
+    }
+
+    public synchronized long getStartedNanos() {
+        return startedNanos;
+    }
+
+    public synchronized long getFinishedNanos() {
+        return finishedNanos;
+    }
+
+    /**
+     * 已生成的分析文本，订阅时先重放已有内容；任务结束时完成
+     */
+    public Flux<String> progress() {
+        return progress.asFlux();
+    }
+
+    /**
+     * 由工作线程开始执行
+     * @return 任务已被取消时返回 false
+     */
+    public synchronized boolean start(Thread worker) {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        status = JobStatus.RUNNING;
+        startedNanos = System.nanoTime();
+        startedAt = System.currentTimeMillis();
+        this.worker = worker;
+        return true;
+    }
+
+    public synchronized void append(String delta) {
+        if (status == JobStatus.RUNNING) {
+            partial.append(delta);
+            progress.tryEmitNext(delta);
+        }
+    }
+
+    /**
+     * 结束任务，只有第一次生效
+     */
+    public synchronized boolean finish(JobStatus outcome, ProblemAnalysisDomain result, String error) {
+        if (status.isFinished()) {
+            return false;
+        }
+        if (startedNanos == 0) {
+            startedNanos = System.nanoTime();
+        }
+        status = outcome;
+        finishedNanos = System.nanoTime();
+        finishedAt = System.currentTimeMillis();
+        this.result = result;
+        this.error = error;
+        worker = null;
+        // 结果里已有全文，不再保留执行中的片段
+        partial.setLength(0);
+        partial.trimToSize();
+        progress.tryEmitComplete();
+        return true;
+    }
+
+    /**
+     * 在工作线程之外结束任务（取消或执行超时），正在执行时中断工作线程以断开上游
+     * 中断在任务锁内发出，工作线程结束本任务后清除中断标记，不会误伤它的下一个任务
+     */
+    public synchronized boolean abort(JobStatus outcome, String error) {
+        Thread running = worker;
+        if (!finish(outcome, null, error)) {
+            return false;
+        }
+        if (running != null) {
+            running.interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * @param queuePosition 排队中的任务前面还有几个任务，其他状态传 -1
+     */
+    public synchronized AnalysisJobView toView(int queuePosition) {
+        long now = System.nanoTime();
+        Long queueMillis = null;
+        Long runMillis = null;
+        if (status == JobStatus.RUNNING) {
+            queueMillis = toMillis(startedNanos - submittedNanos);
+            runMillis = toMillis(now - startedNanos);
+        } else if (status != JobStatus.QUEUED) {
+            queueMillis = toMillis(startedNanos - submittedNanos);
+            // 排队中被取消或排队超时的任务没有执行时长
+            runMillis = startedAt != null ? toMillis(finishedNanos - startedNanos) : null;
+        }
+        return new AnalysisJobView(id, status, priority, queuePosition >= 0 ? queuePosition : null,
+            submittedAt, startedAt, finishedAt, queueMillis, runMillis,
+            status == JobStatus.RUNNING ? partial.toString() : null, result, error);
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
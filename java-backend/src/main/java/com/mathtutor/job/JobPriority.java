@@ -0,0 +1,15 @@
+package com.mathtutor.job;
+
+/**
+ * 异步分析任务优先级，声明顺序即出队顺序，同一优先级先提交先执行
+ */
+public enum JobPriority {
+
+    /** 学生正在等待的分析 */
+    HIGH,
+
+    NORMAL,
+
+    /** 教师批量提交等可以延后的分析 */
+    LOW
+}
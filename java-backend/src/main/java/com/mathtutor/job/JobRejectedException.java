@@ -0,0 +1,23 @@
+package com.mathtutor.job;
+
+import java.time.Duration;
+
+/**
+ * 排队任务已满，拒绝提交
+ */
+public class JobRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public JobRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * 建议客户端等待多久再提交
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,25 @@
+package com.mathtutor.job;
+
+/**
+ * 异步分析任务状态
+ */
+public enum JobStatus {
+
+    QUEUED,
+
+    RUNNING,
+
+    SUCCEEDED,
+
+    /** 分析出错，错误信息见任务结果 */
+    FAILED,
+
+    /** 执行超过时限或排队过久 */
+    TIMED_OUT,
+
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
@@ -0,0 +1,68 @@
+package com.mathtutor.llm;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * 请求截止时间
+ *
+ * 由客户端在 {@link #HEADER} 中给出剩余时长（如 "20s"、"1500ms"，纯数字按毫秒），
+ * 缺省或无法解析时使用服务端默认值，并且不超过服务端上限。调用大模型时的超时取其剩余时间，
+ * 截止时间一到就断开上游，不再为没人等的回答付费。
+ */
+public final class Deadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * 按请求头解析截止时间
+     * @param header 请求头的值，可为 null
+     * @param defaultTimeout 没有或无法解析请求头时的时长
+     * @param maxTimeout 允许的最长时长
+     */
+    public static Deadline resolve(String header, Duration defaultTimeout, Duration maxTimeout) {
+        Duration timeout = defaultTimeout;
+        if (header != null && !header.isBlank()) {
+            try {
+                Duration requested = DurationStyle.detectAndParse(header.trim());
+                if (!requested.isNegative() && !requested.isZero()) {
+                    timeout = requested;
+                }
+            } catch (IllegalArgumentException ignored) {
+                // 保持默认值
+            }
+        }
+        return after(timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout);
+    }
+
+    /**
+     * 剩余时间，已过期时为 0
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 不超过剩余时间的超时，至少 1 毫秒
+     */
+    public Duration cap(Duration timeout) {
+        Duration remaining = remaining();
+        Duration capped = timeout.compareTo(remaining) > 0 ? remaining : timeout;
+        return capped.compareTo(Duration.ofMillis(1)) < 0 ? Duration.ofMillis(1) : capped;
+    }
+}
@@ -6,6 +6,7 @@ import com.mathtutor.model.ChatRequest;
 import com.mathtutor.model.ChatResponse;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
@@ -13,6 +14,8 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Component
@@ -21,9 +24,16 @@ public class DeepSeekClient implements LlmClient {
     private final OkHttpClient client;
     private final ObjectMapper mapper;
     private final LlmProperties config;
+    private final StreamUsageStats streamStats;
 
     public DeepSeekClient(LlmProperties config) {
+        this(config, new StreamUsageStats(config));
+    }
+
+    @Autowired
+    public DeepSeekClient(LlmProperties config, StreamUsageStats streamStats) {
         this.config = config;
+        this.streamStats = streamStats;
         this.mapper = new ObjectMapper();
         this.client = new OkHttpClient.Builder()
             .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
@@ -42,7 +52,11 @@ public class DeepSeekClient implements LlmClient {
                 .post(body)
                 .build();
 
-            try (Response response = client.newCall(httpRequest).execute()) {
+            Deadline deadline = deadlineOf(request);
+            if (deadline.isExpired()) {
+                return ChatResponse.error("请求已超过截止时间", request.getSessionId());
+            }
+            try (Response response = newCall(httpRequest, deadline).execute()) {
                 if (!response.isSuccessful()) {
                     String errorBody = response.body() != null ? response.body().string() : "No response body";
                     String errorMsg = String.format("同步API调用失败 - HTTP %d: %s", response.code(), errorBody);
@@ -50,14 +64,7 @@ public class DeepSeekClient implements LlmClient {
                     throw new RuntimeException(errorMsg);
                 }
 
-                Map<String, Object> responseBody = mapper.readValue(response.body().string(), Map.class);
-                Map<String, Object> choices = (Map<String, Object>) ((java.util.List<?>) responseBody.get("choices")).get(0);
-                Map<String, Object> message = (Map<String, Object>) choices.get("message");
-
-                String content = (String) message.get("content");
-                String sessionId = request.getSessionId() != null ? request.getSessionId() : UUID.randomUUID().toString();
-
-                return ChatResponse.success(content, sessionId);
+                return parseResponse(mapper, response.body().string(), request);
             }
         } catch (IOException e) {
             log.error("同步API调用IO异常 - URL: {}, Key: {}, Message: {}",
@@ -78,8 +85,12 @@ public class DeepSeekClient implements LlmClient {
         return CompletableFuture.supplyAsync(() -> chat(request));
     }
 
+    /**
+     * 整个调用（含读完流式响应）受截止时间约束；取消时断开上游连接，读取线程随即结束。
+     * 读取结束后总在 finally 中发出恰好一次结束信号，只有收到 [DONE] 才算正常结束
+     */
     @Override
-    public void chatStream(ChatRequest request, StreamHandler handler) {
+    public StreamHandle chatStream(ChatRequest request, StreamHandler handler) {
         try {
             RequestBody body = buildRequestBody(request, true);
             Request httpRequest = new Request.Builder()
@@ -89,81 +100,94 @@ public class DeepSeekClient implements LlmClient {
                 .post(body)
                 .build();
 
+            Deadline deadline = deadlineOf(request);
+            CallHandle handle = new CallHandle(newCall(httpRequest, deadline), streamStats.track());
             log.info("开始流式请求 - URL: {}, Model: {}", config.getBaseUrl(), config.getModel());
             CompletableFuture.runAsync(() -> {
-                try (Response response = client.newCall(httpRequest).execute()) {
-                    if (!response.isSuccessful()) {
-                        String errorBody = response.body() != null ? response.body().string() : "No response body";
-                        String errorMsg = String.format("流式API请求失败 - HTTP %d: %s", response.code(), errorBody);
-                        log.error("Stream API Error: {}", errorMsg);
-                        // 通知处理器请求失败
-                        handler.onContent("", null);
-                        return;
-                    }
-
-                    log.info("流式响应建立成功，开始读取数据");
-                    BufferedReader reader = new BufferedReader(response.body().charStream());
-                    String line;
-                    int lineCount = 0;
-                    int dataChunkCount = 0;
-
-                    while ((line = reader.readLine()) != null) {
-                        lineCount++;
-                        if (line.startsWith("data: ")) {
-                            String data = line.substring(6);
-                            log.debug("收到流式数据第{}行: {}", lineCount, data);
-
-                            if (data.equals("[DONE]")) {
-                                log.info("流式数据传输完成，共接收{}个数据块", dataChunkCount);
-                                handler.onContent("", null);
-                                break;
-                            }
-
-                            try {
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> json = mapper.readValue(data, Map.class);
-                                java.util.List<Map<String, Object>> choices =
-                                    (java.util.List<Map<String, Object>>) json.get("choices");
-                                if (choices != null && !choices.isEmpty()) {
-                                    Map<String, Object> delta =
-                                        (Map<String, Object>) choices.get(0).get("delta");
-                                    if (delta != null && delta.containsKey("content")) {
-                                        String content = (String) delta.get("content");
-                                        if (content != null && !content.isEmpty()) {
-                                            dataChunkCount++;
-                                            log.debug("发送第{}个内容块: '{}'", dataChunkCount, content);
-                                            handler.onContent(content, null);
-                                        }
-                                    }
-                                } else {
-                                    log.debug("收到数据但不包含choices字段: {}", data);
-                                }
-                            } catch (Exception e) {
-                                log.error("解析流式数据失败 - 第{}行: {}", lineCount, data, e);
-                            }
-                        } else if (!line.trim().isEmpty()) {
-                            log.debug("非数据行: {}", line);
-                        }
+                Throwable failure = null;
+                try {
+                    if (!handle.isCancelled()) {
+                        failure = readStream(handle, handler, deadline);
                     }
-                    log.debug("流式数据读取结束，共处理{}行，其中{}个数据块", lineCount, dataChunkCount);
-                } catch (IOException e) {
-                    log.error("流式请求IO异常 - URL: {}, Key: {}, Message: {}",
-                        config.getBaseUrl(),
-                        config.getApiKey() != null ? config.getApiKey().substring(0, Math.min(10, config.getApiKey().length())) + "..." : "null",
-                        e.getMessage(), e);
-                    handler.onContent("", null);
                 } catch (Exception e) {
                     log.error("流式请求处理异常 - URL: {}", config.getBaseUrl(), e);
-                    handler.onContent("", null);
+                    failure = e;
+                } finally {
+                    handle.finish(handler, failure);
                 }
             });
+            return handle;
 
         } catch (Exception e) {
             log.error("启动流式请求失败 - URL: {}, Key: {}, Message: {}",
                 config.getBaseUrl(),
                 config.getApiKey() != null ? config.getApiKey().substring(0, Math.min(10, config.getApiKey().length())) + "..." : "null",
                 e.getMessage(), e);
-            handler.onContent("", null);
+            handler.onError(e);
+            return StreamHandle.NONE;
+        }
+    }
+
+    /**
+     * 读取流式响应并回调增量文本
+     * @return 收到 [DONE] 时返回 null，否则返回结束原因
+     */
+    private Throwable readStream(CallHandle handle, StreamHandler handler, Deadline deadline) {
+        try (Response response = handle.call.execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No response body";
+                String errorMsg = String.format("流式API请求失败 - HTTP %d: %s", response.code(), errorBody);
+                log.error("Stream API Error: {}", errorMsg);
+                return new IOException(errorMsg);
+            }
+
+            log.info("流式响应建立成功，开始读取数据");
+            BufferedReader reader = new BufferedReader(response.body().charStream());
+            String line;
+            int lineCount = 0;
+            int dataChunkCount = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                if (line.startsWith("data: ")) {
+                    String data = line.substring(6);
+                    log.debug("收到流式数据第{}行: {}", lineCount, data);
+
+                    if (data.equals("[DONE]")) {
+                        log.info("流式数据传输完成，共接收{}个数据块", dataChunkCount);
+                        return null;
+                    }
+
+                    try {
+                        String content = parseDelta(mapper, data);
+                        if (content != null && !content.isEmpty()) {
+                            dataChunkCount++;
+                            log.debug("发送第{}个内容块: '{}'", dataChunkCount, content);
+                            handle.tracker.onDelta(content);
+                            handler.onContent(content, null);
+                        }
+                    } catch (IOException e) {
+                        log.error("解析流式数据失败 - 第{}行: {}", lineCount, data, e);
+                    }
+                } else if (!line.trim().isEmpty()) {
+                    log.debug("非数据行: {}", line);
+                }
+            }
+            log.warn("流式响应没有收到 [DONE] 就结束，共处理{}行，其中{}个数据块", lineCount, dataChunkCount);
+            return new IOException("流式响应在 [DONE] 之前结束");
+        } catch (IOException e) {
+            if (handle.isCancelled()) {
+                log.debug("流式请求已取消，已接收约 {} token", handle.tracker.getTokens());
+            } else if (deadline.isExpired()) {
+                log.warn("流式请求超过截止时间，已接收约 {} token", handle.tracker.getTokens());
+                handle.tracker.expire();
+            } else {
+                log.error("流式请求IO异常 - URL: {}, Key: {}, Message: {}",
+                    config.getBaseUrl(),
+                    config.getApiKey() != null ? config.getApiKey().substring(0, Math.min(10, config.getApiKey().length())) + "..." : "null",
+                    e.getMessage(), e);
+            }
+            return e;
         }
     }
 
@@ -188,8 +212,86 @@ public class DeepSeekClient implements LlmClient {
         }
     }
 
+    public StreamUsageStats getStreamStats() {
+        return streamStats;
+    }
+
+    private Deadline deadlineOf(ChatRequest request) {
+        return request.getDeadline() != null ? request.getDeadline() : Deadline.after(config.getDefaultDeadline());
+    }
+
+    /**
+     * 调用总时长不超过截止时间的剩余部分
+     */
+    private Call newCall(Request httpRequest, Deadline deadline) {
+        Call call = client.newCall(httpRequest);
+        call.timeout().timeout(deadline.cap(config.getMaxDeadline()).toMillis(), TimeUnit.MILLISECONDS);
+        return call;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    /**
+     * 流式调用的取消句柄
+     */
+    private static class CallHandle implements StreamHandle {
+
+        private final Call call;
+        private final StreamUsageStats.Tracker tracker;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        CallHandle(Call call, StreamUsageStats.Tracker tracker) {
+            this.call = call;
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void cancel() {
+            if (!tracker.isFinished() && cancelled.compareAndSet(false, true)) {
+                tracker.cancel();
+                call.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * 读取线程退出时调用一次：记录结束方式并发出结束信号，已取消的调用不再回调
+         */
+        void finish(StreamHandler handler, Throwable failure) {
+            if (failure == null) {
+                tracker.complete();
+            } else {
+                tracker.fail();
+            }
+            if (isCancelled()) {
+                return;
+            }
+            if (failure == null) {
+                handler.onContent("", null);
+            } else {
+                handler.onError(failure);
+            }
+        }
+    }
+
     private RequestBody buildRequestBody(ChatRequest request, boolean stream) throws IOException {
-        Map<String, Object> body = Map.of(
+        return RequestBody.create(
+            mapper.writeValueAsString(requestPayload(config, request, stream)),
+            MediaType.parse("application/json")
+        );
+    }
+
+    /**
+     * chat/completions 请求体，阻塞与响应式客户端共用
+     */
+    static Map<String, Object> requestPayload(LlmProperties config, ChatRequest request, boolean stream) {
+        return Map.of(
             "model", config.getModel(),
             "messages", new Object[]{
                 Map.of("role", "system", "content", "你是一个专业的数学老师，请用简洁明了的语言回答问题"),
@@ -199,10 +301,42 @@ public class DeepSeekClient implements LlmClient {
             "temperature", config.getTemperature(),
             "stream", stream
         );
+    }
 
-        return RequestBody.create(
-            mapper.writeValueAsString(body),
-            MediaType.parse("application/json")
-        );
+    /**
+     * 解析非流式响应：第一个候选的内容与 token 用量
+     */
+    @SuppressWarnings("unchecked")
+    static ChatResponse parseResponse(ObjectMapper mapper, String body, ChatRequest request) throws IOException {
+        Map<String, Object> responseBody = mapper.readValue(body, Map.class);
+        Map<String, Object> choices = (Map<String, Object>) ((java.util.List<?>) responseBody.get("choices")).get(0);
+        Map<String, Object> message = (Map<String, Object>) choices.get("message");
+
+        String content = (String) message.get("content");
+        String sessionId = request.getSessionId() != null ? request.getSessionId() : UUID.randomUUID().toString();
+
+        ChatResponse chatResponse = ChatResponse.success(content, sessionId);
+        Map<String, Object> usage = (Map<String, Object>) responseBody.get("usage");
+        if (usage != null) {
+            chatResponse.setPromptTokens(toInteger(usage.get("prompt_tokens")));
+            chatResponse.setCompletionTokens(toInteger(usage.get("completion_tokens")));
+        }
+        return chatResponse;
+    }
+
+    /**
+     * 解析一条流式数据中的增量内容
+     * @return 不含内容时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    static String parseDelta(ObjectMapper mapper, String data) throws IOException {
+        Map<String, Object> json = mapper.readValue(data, Map.class);
+        java.util.List<Map<String, Object>> choices = (java.util.List<Map<String, Object>>) json.get("choices");
+        if (choices == null || choices.isEmpty()) {
+            log.debug("收到数据但不包含choices字段: {}", data);
+            return null;
+        }
+        Map<String, Object> delta = (Map<String, Object>) choices.get(0).get("delta");
+        return delta != null ? (String) delta.get("content") : null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,316 @@
+package com.mathtutor.llm;
+
+/**
+ * 流式增量文本的合并缓冲区，记录最后一个可以安全切分的位置
+ *
+ * 安全位置指此前的 LaTeX 公式（$...$、$$...$$、\(...\)、\[...\]、\begin{}...\end{}）
+ * 与 Markdown 结构（代码块、行内代码、**加粗**）都已闭合，且不在一个可能继续延长的记号中间
+ * （如末尾单个 $ 可能是 $$ 的前半，末尾的 \ 可能是命令的开头）。只输出安全位置之前的部分，
+ * 浏览器就不会渲染出半截公式。
+ *
+ * 增量识别：每次追加只扫描新内容，状态跨越已取出的部分保留。非线程安全。
+ */
+public class DeltaCoalescer {
+
+    private static final int NONE = 0;
+    private static final int INLINE = 1;
+    private static final int DISPLAY = 2;
+    private static final int PAREN = 3;
+    private static final int BRACKET = 4;
+
+    /**
+     * \begin{...} 的环境名最长识别长度，超出按普通文本处理
+     */
+    private static final int MAX_COMMAND_LENGTH = 32;
+
+    private final StringBuilder pending = new StringBuilder();
+    private int scanned;
+    private int safe;
+    private int pendingBytes;
+    private int scannedBytes;
+    private int safeBytes;
+
+    private int math = NONE;
+    private int environmentDepth;
+    private boolean fence;
+    private boolean code;
+    private boolean bold;
+
+    public void append(String delta) {
+        pending.append(delta);
+        pendingBytes += utf8Length(delta, 0, delta.length());
+        scan();
+    }
+
+    /**
+     * 缓冲中的字符数
+     */
+    public int pendingLength() {
+        return pending.length();
+    }
+
+    /**
+     * 可以安全输出的字符数
+     */
+    public int safeLength() {
+        return safe;
+    }
+
+    /**
+     * 缓冲中的字节数（UTF-8）
+     */
+    public int pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * 可以安全输出的字节数（UTF-8）
+     */
+    public int safeBytes() {
+        return safeBytes;
+    }
+
+    /**
+     * 当前是否所有结构都已闭合
+     */
+    public boolean isBalanced() {
+        return math == NONE && environmentDepth == 0 && !fence && !code && !bold;
+    }
+
+    /**
+     * 取出安全位置之前的部分
+     */
+    public String takeSafe() {
+        return take(safe);
+    }
+
+    /**
+     * 取出已识别的部分，即使结构尚未闭合（公式过长、长时间不闭合时使用），识别状态保留
+     */
+    public String takeScanned() {
+        return take(scanned);
+    }
+
+    /**
+     * 取出全部内容（流结束时）
+     */
+    public String takeAll() {
+        String all = pending.toString();
+        pending.setLength(0);
+        scanned = 0;
+        safe = 0;
+        pendingBytes = 0;
+        scannedBytes = 0;
+        safeBytes = 0;
+        return all;
+    }
+
+    private String take(int length) {
+        String out = pending.substring(0, length);
+        int bytes = utf8Length(out, 0, out.length());
+        pending.delete(0, length);
+        scanned -= length;
+        scannedBytes -= bytes;
+        pendingBytes -= bytes;
+        if (safe > length) {
+            safe -= length;
+            safeBytes -= bytes;
+        } else {
+            safe = 0;
+            safeBytes = 0;
+        }
+        return out;
+    }
+
+    private void scan() {
+        int length = pending.length();
+        while (scanned < length) {
+            int next = consume(scanned, length);
+            if (next < 0) {
+                // 末尾的记号可能被下一段延长，等更多内容再识别
+                return;
+            }
+            scannedBytes += utf8Length(pending, scanned, next);
+            scanned = next;
+            if (isBalanced() && !Character.isHighSurrogate(pending.charAt(scanned - 1))) {
+                safe = scanned;
+                safeBytes = scannedBytes;
+            }
+        }
+    }
+
+    /**
+     * 识别从 i 开始的一个记号
+     * @return 记号之后的位置；记号到达缓冲末尾、尚不能判断时返回 -1
+     */
+    private int consume(int i, int length) {
+        char ch = pending.charAt(i);
+        if (fence) {
+            if (ch != '`') {
+                return i + 1;
+            }
+            int run = run(i, length, '`');
+            if (i + run == length && run < 3) {
+                return -1;
+            }
+            if (run >= 3) {
+                fence = false;
+            }
+            return i + run;
+        }
+        if (code) {
+            if (ch == '`') {
+                code = false;
+            }
+            return i + 1;
+        }
+        switch (ch) {
+            case '`': {
+                int run = run(i, length, '`');
+                if (i + run == length) {
+                    return -1;
+                }
+                if (math == NONE) {
+                    if (run >= 3) {
+                        fence = true;
+                    } else if (run == 1) {
+                        code = true;
+                    }
+                }
+                return i + run;
+            }
+            case '\\':
+                return command(i, length);
+            case '$':
+                return dollar(i, length);
+            case '*': {
+                int run = run(i, length, '*');
+                if (i + run == length) {
+                    return -1;
+                }
+                if (math == NONE && run >= 2) {
+                    bold = !bold;
+                }
+                return i + run;
+            }
+            default:
+                return i + 1;
+        }
+    }
+
+    private int command(int i, int length) {
+        if (i + 1 == length) {
+            return -1;
+        }
+        char next = pending.charAt(i + 1);
+        switch (next) {
+            case '(':
+                if (math == NONE) {
+                    math = PAREN;
+                }
+                return i + 2;
+            case ')':
+                if (math == PAREN) {
+                    math = NONE;
+                }
+                return i + 2;
+            case '[':
+                if (math == NONE) {
+                    math = BRACKET;
+                }
+                return i + 2;
+            case ']':
+                if (math == BRACKET) {
+                    math = NONE;
+                }
+                return i + 2;
+            default:
+                break;
+        }
+        if (!Character.isLetter(next)) {
+            // \\、\{、\$ 等转义
+            return i + 2;
+        }
+        int end = i + 1;
+        while (end < length && Character.isLetter(pending.charAt(end))) {
+            end++;
+        }
+        if (end == length) {
+            return -1;
+        }
+        String name = pending.substring(i + 1, end);
+        if (!name.equals("begin") && !name.equals("end")) {
+            return end;
+        }
+        if (pending.charAt(end) != '{') {
+            return end;
+        }
+        int close = end + 1;
+        while (close < length && pending.charAt(close) != '}' && close - end <= MAX_COMMAND_LENGTH) {
+            close++;
+        }
+        if (close == length) {
+            return -1;
+        }
+        if (pending.charAt(close) != '}') {
+            return end;
+        }
+        if (name.equals("begin")) {
+            environmentDepth++;
+        } else if (environmentDepth > 0) {
+            environmentDepth--;
+        }
+        return close + 1;
+    }
+
+    private int dollar(int i, int length) {
+        boolean atEnd = i + 1 == length;
+        boolean doubled = !atEnd && pending.charAt(i + 1) == '$';
+        switch (math) {
+            case NONE:
+                if (atEnd) {
+                    return -1;
+                }
+                math = doubled ? DISPLAY : INLINE;
+                return i + (doubled ? 2 : 1);
+            case INLINE:
+                math = NONE;
+                return i + 1;
+            case DISPLAY:
+                if (atEnd) {
+                    return -1;
+                }
+                if (doubled) {
+                    math = NONE;
+                    return i + 2;
+                }
+                return i + 1;
+            default:
+                return i + 1;
+        }
+    }
+
+    private static int utf8Length(CharSequence text, int from, int to) {
+        int bytes = 0;
+        for (int i = from; i < to; i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) {
+                bytes += 1;
+            } else if (ch < 0x800 || Character.isSurrogate(ch)) {
+                // 代理对的两个字符合计 4 字节
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private int run(int i, int length, char ch) {
+        int end = i;
+        while (end < length && pending.charAt(end) == ch) {
+            end++;
+        }
+        return end - i;
+    }
+}
@@ -7,11 +7,50 @@ import java.util.concurrent.CompletableFuture;
 public interface LlmClient {
     ChatResponse chat(ChatRequest request);
     CompletableFuture<ChatResponse> chatAsync(ChatRequest request);
-    void chatStream(ChatRequest request, StreamHandler handler);
+
+    /**
+     * 流式对话，增量文本在后台线程回调；之后恰好有一个结束信号：
+     * 收到上游的 [DONE] 时回调一次空内容，其他结束方式（HTTP 错误、连接中断、没有 [DONE] 就读到末尾、
+     * 排队被拒绝）回调 {@link StreamHandler#onError}
+     * @return 取消句柄：调用方不再需要结果时取消，断开上游连接且之后不再回调
+     */
+    StreamHandle chatStream(ChatRequest request, StreamHandler handler);
+
     boolean healthCheck();
 
     @FunctionalInterface
     interface StreamHandler {
         void onContent(String content, Runnable onComplete);
+
+        /**
+         * 流没有正常结束，已收到的文本不完整；默认与正常结束一样回调空内容
+         */
+        default void onError(Throwable error) {
+            onContent("", null);
+        }
+    }
+
+    interface StreamHandle {
+
+        /**
+         * 没有上游调用可取消时使用
+         */
+        StreamHandle NONE = new StreamHandle() {
+            @Override
+            public void cancel() {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+
+        /**
+         * 取消流式调用，可重复调用；已正常结束的调用不受影响
+         */
+        void cancel();
+
+        boolean isCancelled();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,357 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.config.LlmProperties;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.LlmSchedulerStats;
+import com.mathtutor.tutoring.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 大模型调用调度：固定数量的上游调用名额，按负载类别和租户两级加权公平排队
+ *
+ * 两级都用开始时间公平排队（SFQ）：每个类别（租户）带开始标签，名额空出时交给开始标签最小的类别，
+ * 类别内再交给开始标签最小的租户。类别间按名额占用时长分享：分出名额时类别的标签按该类别近期平均占用时长/权重前进，
+ * 归还时按实际占用修正，否则一次十几秒的批量分析与一次一秒的提示占同样份额，批量仍会挤占交互；
+ * 类别内各租户的调用长短相近，按调用次数平分。
+ * 从空闲变为排队时开始标签取当前虚拟时间与自身上次结束标签的较大者，空闲期间不积攒份额，
+ * 所以只有一个类别在排队时它可以用满全部名额，其他类别一来就按权重分享。
+ * 名额不可抢占，长调用一旦拿到名额要占十几秒；交互请求恰好空闲时把名额全借出去，下一波提示就要等批量调用结束。
+ * 因此可以给类别配置少量保留名额：其他类别只借用保留之外的空闲名额。等到请求截止时间仍未分到名额的调用被拒绝。
+ */
+@Slf4j
+@Component
+public class LlmScheduler {
+
+    public static final String REJECT_QUEUE_FULL = "queue_full";
+    public static final String REJECT_DEADLINE = "deadline";
+
+    /**
+     * 平均占用时长的平滑系数
+     */
+    private static final double HOLD_TIME_WEIGHT = 0.2;
+
+    /**
+     * 还没有调用结束时假定的占用时长（秒）
+     */
+    private static final double INITIAL_HOLD_SECONDS = 1.0;
+
+    private final LlmProperties llmProperties;
+    private final LlmProperties.Scheduler properties;
+    private final LongSupplier nanoTime;
+    private final Map<WorkloadClass, ClassQueue> classes = new EnumMap<>(WorkloadClass.class);
+    private int inUse;
+    private int waitingCount;
+
+    /**
+     * 类别间的虚拟时间：最近一次分出名额的类别开始标签
+     */
+    private double virtualTime;
+
+    @Autowired
+    public LlmScheduler(LlmProperties llmProperties) {
+        this(llmProperties, System::nanoTime);
+    }
+
+    LlmScheduler(LlmProperties llmProperties, LongSupplier nanoTime) {
+        this.llmProperties = llmProperties;
+        this.nanoTime = nanoTime;
+        this.properties = llmProperties.getScheduler();
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            classes.put(workloadClass, new ClassQueue());
+        }
+    }
+
+    /**
+     * 为对话请求申请名额：请求未标明负载时按交互对话、以会话为租户；未带截止时间时按默认截止时长补上
+     */
+    public SchedulerTicket acquire(ChatRequest request) {
+        if (request.getDeadline() == null) {
+            request.setDeadline(Deadline.after(llmProperties.getDefaultDeadline()));
+        }
+        Workload workload = request.getWorkload() != null ? request.getWorkload()
+            : Workload.of(WorkloadClass.INTERACTIVE, request.getSessionId());
+        return acquire(workload, request.getDeadline());
+    }
+
+    /**
+     * 申请名额，立即返回；结果见 {@link SchedulerTicket#decision()}
+     * @param deadline 到期仍未分到名额时拒绝
+     */
+    public SchedulerTicket acquire(Workload workload, Deadline deadline) {
+        SchedulerTicket ticket = new SchedulerTicket(this, workload, nanoTime.getAsLong());
+        ClassQueue queue = classes.get(workload.getWorkloadClass());
+        boolean bypass = false;
+        boolean full = false;
+        synchronized (this) {
+            if (!properties.isEnabled()) {
+                bypass = true;
+                inUse++;
+                queue.inUse++;
+            } else if (waitingCount >= properties.getQueueCapacity()) {
+                full = true;
+            } else {
+                enqueue(queue, ticket);
+            }
+        }
+
+        if (bypass) {
+            granted(ticket);
+        } else if (full) {
+            reject(ticket, REJECT_QUEUE_FULL);
+        } else {
+            // 有空闲名额时随即在 dispatch 中分到，定时器也随之取消
+            ticket.setExpiry(Schedulers.parallel().schedule(() -> expire(ticket),
+                deadline.remaining().toMillis(), TimeUnit.MILLISECONDS));
+            dispatch();
+        }
+        return ticket;
+    }
+
+    public LlmSchedulerStats getStats() {
+        Map<String, LlmSchedulerStats.WorkloadStats> workloads = new LinkedHashMap<>();
+        int busy;
+        int queued;
+        synchronized (this) {
+            busy = inUse;
+            queued = waitingCount;
+            for (Map.Entry<WorkloadClass, ClassQueue> entry : classes.entrySet()) {
+                ClassQueue queue = entry.getValue();
+                workloads.put(entry.getKey().name().toLowerCase(), new LlmSchedulerStats.WorkloadStats(
+                    weight(entry.getKey()), queue.inUse, queue.size, queue.tenants.size(), queue.holdSeconds * 1000,
+                    queue.dispatched.sum(), queue.rejected.sum(),
+                    queue.waitTimes.percentileNanos(50) / 1e6, queue.waitTimes.percentileNanos(95) / 1e6));
+            }
+        }
+        return new LlmSchedulerStats(properties.isEnabled(), properties.getMaxConcurrent(), busy, queued, workloads);
+    }
+
+    /**
+     * 调用结束，名额交给下一个
+     */
+    void release(SchedulerTicket ticket) {
+        double held = (nanoTime.getAsLong() - ticket.getGrantedNanos()) / 1e9;
+        WorkloadClass workloadClass = ticket.getWorkload().getWorkloadClass();
+        synchronized (this) {
+            inUse--;
+            ClassQueue queue = classes.get(workloadClass);
+            queue.inUse--;
+            // 按实际占用修正分出名额时的预估；排队中的类别只补记超出部分，不退还
+            queue.finish += (held - ticket.getCharge()) / weight(workloadClass);
+            if (queue.size > 0) {
+                queue.start = Math.max(queue.start, queue.finish);
+            }
+            queue.holdSeconds = queue.holdSeconds * (1 - HOLD_TIME_WEIGHT) + held * HOLD_TIME_WEIGHT;
+        }
+        dispatch();
+    }
+
+    /**
+     * 未分到名额的申请放弃排队（调用方取消）
+     */
+    synchronized void abandon(SchedulerTicket ticket) {
+        remove(ticket);
+    }
+
+    private void dispatch() {
+        while (true) {
+            SchedulerTicket next;
+            synchronized (this) {
+                next = pollNext();
+                if (next == null) {
+                    return;
+                }
+                inUse++;
+                classes.get(next.getWorkload().getWorkloadClass()).inUse++;
+            }
+            if (granted(next)) {
+                continue;
+            }
+            // 申请已被放弃，名额继续交给下一个
+            synchronized (this) {
+                inUse--;
+                classes.get(next.getWorkload().getWorkloadClass()).inUse--;
+            }
+        }
+    }
+
+    private boolean granted(SchedulerTicket ticket) {
+        long now = nanoTime.getAsLong();
+        if (!ticket.grant(now)) {
+            return false;
+        }
+        ClassQueue queue = classes.get(ticket.getWorkload().getWorkloadClass());
+        queue.dispatched.increment();
+        queue.waitTimes.record(Math.max(1, now - ticket.getCreatedNanos()));
+        return true;
+    }
+
+    private void expire(SchedulerTicket ticket) {
+        synchronized (this) {
+            if (!remove(ticket)) {
+                return;
+            }
+        }
+        reject(ticket, REJECT_DEADLINE);
+    }
+
+    /**
+     * 先计数再完成申请，调用方看到拒绝时统计里已经有它
+     */
+    private void reject(SchedulerTicket ticket, String reason) {
+        if (!ticket.decision().isDone()) {
+            classes.get(ticket.getWorkload().getWorkloadClass()).rejected.increment();
+            log.debug("大模型调用 {} 未分到名额: {}", ticket.getWorkload(), reason);
+            ticket.reject(reason);
+        }
+    }
+
+    private void enqueue(ClassQueue queue, SchedulerTicket ticket) {
+        if (queue.size == 0) {
+            queue.start = Math.max(virtualTime, queue.finish);
+        }
+        TenantQueue tenant = queue.tenants.computeIfAbsent(ticket.getWorkload().getTenant(), t -> new TenantQueue());
+        if (tenant.waiting.isEmpty()) {
+            tenant.start = Math.max(queue.virtualTime, tenant.finish);
+        }
+        tenant.waiting.addLast(ticket);
+        queue.size++;
+        waitingCount++;
+    }
+
+    /**
+     * 取出可分名额的类别中开始标签最小的，再取其中开始标签最小的租户的第一个申请；
+     * 标签相同时按类别声明顺序、租户到达顺序
+     * @return 没有空闲名额或排队的类别都不能再分时返回 null
+     */
+    private SchedulerTicket pollNext() {
+        WorkloadClass chosen = null;
+        ClassQueue queue = null;
+        for (Map.Entry<WorkloadClass, ClassQueue> entry : classes.entrySet()) {
+            ClassQueue candidate = entry.getValue();
+            if (candidate.size > 0 && (queue == null || candidate.start < queue.start) && mayGrant(entry.getKey())) {
+                chosen = entry.getKey();
+                queue = candidate;
+            }
+        }
+        if (queue == null) {
+            return null;
+        }
+        double charge = charge(chosen, queue);
+
+        String tenantKey = null;
+        TenantQueue tenant = null;
+        for (Map.Entry<String, TenantQueue> entry : queue.tenants.entrySet()) {
+            if (tenant == null || entry.getValue().start < tenant.start) {
+                tenantKey = entry.getKey();
+                tenant = entry.getValue();
+            }
+        }
+        queue.virtualTime = tenant.start;
+        tenant.finish = tenant.start + 1;
+        SchedulerTicket ticket = tenant.waiting.pollFirst();
+        ticket.setCharge(charge);
+        if (tenant.waiting.isEmpty()) {
+            // 没有排队的租户不保留状态，会话数再多也不占内存
+            queue.tenants.remove(tenantKey);
+        } else {
+            tenant.start = tenant.finish;
+        }
+        queue.size--;
+        waitingCount--;
+        if (queue.size > 0) {
+            queue.start = queue.finish;
+        }
+        return ticket;
+    }
+
+    /**
+     * 类别分出一个名额：虚拟时间推进到它的开始标签，结束标签前进预估占用时长/权重
+     * @return 预估占用时长
+     */
+    private double charge(WorkloadClass workloadClass, ClassQueue queue) {
+        virtualTime = queue.start;
+        queue.finish = queue.start + queue.holdSeconds / weight(workloadClass);
+        return queue.holdSeconds;
+    }
+
+    private boolean remove(SchedulerTicket ticket) {
+        ClassQueue queue = classes.get(ticket.getWorkload().getWorkloadClass());
+        TenantQueue tenant = queue.tenants.get(ticket.getWorkload().getTenant());
+        if (tenant == null || !tenant.waiting.remove(ticket)) {
+            return false;
+        }
+        if (tenant.waiting.isEmpty()) {
+            queue.tenants.remove(ticket.getWorkload().getTenant());
+        }
+        queue.size--;
+        waitingCount--;
+        return true;
+    }
+
+    /**
+     * 分出这个名额后，剩下的空闲名额仍够其他类别未用完的保留名额
+     * 保留名额合计最多为总数减一，任何类别至少能用一个名额
+     */
+    private boolean mayGrant(WorkloadClass workloadClass) {
+        int free = properties.getMaxConcurrent() - inUse;
+        if (free <= 0) {
+            return false;
+        }
+        int reservedByOthers = 0;
+        for (Map.Entry<WorkloadClass, ClassQueue> entry : classes.entrySet()) {
+            if (entry.getKey() != workloadClass) {
+                int reserved = properties.getReserved().getOrDefault(entry.getKey(), 0);
+                reservedByOthers += Math.max(0, reserved - entry.getValue().inUse);
+            }
+        }
+        return free - 1 >= Math.min(reservedByOthers, properties.getMaxConcurrent() - 1);
+    }
+
+    private int weight(WorkloadClass workloadClass) {
+        return Math.max(1, properties.getWeights().getOrDefault(workloadClass, 1));
+    }
+
+    /**
+     * 一个负载类别：按租户分开排队
+     */
+    private static final class ClassQueue {
+
+        final LinkedHashMap<String, TenantQueue> tenants = new LinkedHashMap<>();
+        int size;
+        int inUse;
+        double start;
+        double finish;
+
+        /**
+         * 近期平均占用时长（秒）
+         */
+        double holdSeconds = INITIAL_HOLD_SECONDS;
+
+        /**
+         * 类别内租户间的虚拟时间
+         */
+        double virtualTime;
+
+        final LongAdder dispatched = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LatencyHistogram waitTimes = new LatencyHistogram();
+    }
+
+    private static final class TenantQueue {
+
+        final ArrayDeque<SchedulerTicket> waiting = new ArrayDeque<>();
+        double start;
+        double finish;
+    }
+}
@@ -0,0 +1,169 @@
+package com.mathtutor.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.LlmProperties;
+import com.mathtutor.config.ReactiveProperties;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于 WebClient（Reactor Netty）的 DeepSeek 客户端
+ *
+ * 请求体与响应解析与 {@link DeepSeekClient} 相同。流式响应按 SSE 解码后只在下游有需求时继续读取：
+ * 浏览器连接写不动时，Netty 停止从上游连接读数据，TCP 窗口随之收紧，背压一直传到上游。
+ * 下游取消订阅（客户端断开）或到达请求的截止时间时关闭上游连接。
+ */
+@Slf4j
+@Component
+public class ReactiveDeepSeekClient implements ReactiveLlmClient {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+        new ParameterizedTypeReference<>() {
+        };
+
+    private static final String DONE = "[DONE]";
+
+    private final WebClient webClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LlmProperties config;
+    private final Duration timeout;
+    private final int streamPrefetch;
+    private final StreamUsageStats streamStats;
+
+    public ReactiveDeepSeekClient(LlmProperties config, ReactiveProperties reactiveProperties) {
+        this(config, reactiveProperties, new StreamUsageStats(config));
+    }
+
+    @Autowired
+    public ReactiveDeepSeekClient(LlmProperties config, ReactiveProperties reactiveProperties,
+                                  StreamUsageStats streamStats) {
+        this.config = config;
+        this.streamStats = streamStats;
+        this.timeout = DurationStyle.detectAndParse(config.getTimeout() != null ? config.getTimeout() : "30s");
+        this.streamPrefetch = Math.max(1, reactiveProperties.getStreamPrefetch());
+        ConnectionProvider connections = ConnectionProvider.builder("deepseek")
+            .maxConnections(reactiveProperties.getMaxConnections())
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(timeout)
+            .build();
+        this.webClient = WebClient.builder()
+            .baseUrl(config.getBaseUrl())
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+            .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + config.getApiKey())
+            .build();
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(ChatRequest request) {
+        return Mono.defer(() -> chat(request, deadlineOf(request)));
+    }
+
+    private Mono<ChatResponse> chat(ChatRequest request, Deadline deadline) {
+        return webClient.post()
+            .uri("/chat/completions")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(DeepSeekClient.requestPayload(config, request, false))
+            .retrieve()
+            .onStatus(HttpStatusCode::isError, response -> failure("响应式API调用失败", response))
+            .bodyToMono(String.class)
+            .timeout(deadline.cap(timeout))
+            .map(body -> parse(body, request))
+            .onErrorResume(e -> {
+                log.error("响应式API调用异常 - URL: {}, Message: {}", config.getBaseUrl(), e.getMessage());
+                return Mono.just(ChatResponse.error("API调用异常: " + e.getMessage(), request.getSessionId()));
+            });
+    }
+
+    /**
+     * 超时按相邻两个事件的间隔计算，长回答不会因总时长超时；总时长受请求截止时间约束。
+     * 与 {@link DeepSeekClient} 一致，只有收到 [DONE] 才算正常结束，上游提前关闭时以错误结束
+     */
+    @Override
+    public Flux<String> chatStream(ChatRequest request) {
+        return Flux.defer(() -> {
+            Deadline deadline = deadlineOf(request);
+            StreamUsageStats.Tracker tracker = streamStats.track();
+            AtomicBoolean done = new AtomicBoolean();
+            return webClient.post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(DeepSeekClient.requestPayload(config, request, true))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> failure("流式API请求失败", response))
+                .bodyToFlux(SSE_TYPE)
+                .timeout(Mono.defer(() -> Mono.delay(deadline.cap(timeout))),
+                    event -> Mono.delay(deadline.cap(timeout)))
+                .mapNotNull(ServerSentEvent::data)
+                .takeWhile(data -> !(DONE.equals(data) && done.compareAndSet(false, true)))
+                .concatWith(Mono.defer(() -> done.get() ? Mono.empty()
+                    : Mono.error(new IOException("流式响应在 [DONE] 之前结束"))))
+                .<String>handle((data, sink) -> {
+                    try {
+                        String content = DeepSeekClient.parseDelta(mapper, data);
+                        if (content != null && !content.isEmpty()) {
+                            sink.next(content);
+                        }
+                    } catch (IOException e) {
+                        log.error("解析流式数据失败: {}", data, e);
+                    }
+                })
+                .doOnNext(tracker::onDelta)
+                .doOnComplete(tracker::complete)
+                .doOnError(TimeoutException.class, e -> {
+                    if (deadline.isExpired()) {
+                        log.warn("流式请求超过截止时间，已接收约 {} token", tracker.getTokens());
+                        tracker.expire();
+                    }
+                })
+                .doOnError(e -> tracker.fail())
+                .doOnCancel(tracker::cancel)
+                .limitRate(streamPrefetch);
+        });
+    }
+
+    public StreamUsageStats getStreamStats() {
+        return streamStats;
+    }
+
+    private Deadline deadlineOf(ChatRequest request) {
+        return request.getDeadline() != null ? request.getDeadline() : Deadline.after(config.getDefaultDeadline());
+    }
+
+    private ChatResponse parse(String body, ChatRequest request) {
+        try {
+            return DeepSeekClient.parseResponse(mapper, body, request);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Mono<Throwable> failure(String prefix, ClientResponse response) {
+        return response.bodyToMono(String.class)
+            .defaultIfEmpty("No response body")
+            .map(body -> new IllegalStateException(
+                String.format("%s - HTTP %d: %s", prefix, response.statusCode().value(), body)));
+    }
+}
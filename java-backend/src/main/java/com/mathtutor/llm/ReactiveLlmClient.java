@@ -0,0 +1,23 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 非阻塞 LLM 客户端
+ * 等待上游期间不占用线程，流式结果按下游需求逐步读取
+ */
+public interface ReactiveLlmClient {
+
+    /**
+     * 单轮对话；上游错误以 status 为 error 的响应返回，不以错误信号结束
+     */
+    Mono<ChatResponse> chat(ChatRequest request);
+
+    /**
+     * 流式对话，逐个发出增量文本；上游错误以错误信号结束
+     */
+    Flux<String> chatStream(ChatRequest request);
+}
@@ -0,0 +1,148 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 经 {@link LlmScheduler} 排队的 LLM 客户端，业务代码注入的 {@link LlmClient} 即为它
+ * 分到名额后才调用 {@link DeepSeekClient}，调用结束（流式回答读完或取消）时归还名额
+ */
+@Primary
+@Component
+public class ScheduledLlmClient implements LlmClient {
+
+    private final LlmClient delegate;
+    private final LlmScheduler scheduler;
+
+    @Autowired
+    public ScheduledLlmClient(DeepSeekClient delegate, LlmScheduler scheduler) {
+        this((LlmClient) delegate, scheduler);
+    }
+
+    ScheduledLlmClient(LlmClient delegate, LlmScheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        SchedulerTicket ticket = scheduler.acquire(request);
+        try {
+            boolean granted = ticket.decision()
+                .get(request.getDeadline().remaining().toMillis(), TimeUnit.MILLISECONDS);
+            return granted ? delegate.chat(request) : rejected(ticket, request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ChatResponse.error("等待大模型调用名额时被中断", request.getSessionId());
+        } catch (ExecutionException | TimeoutException e) {
+            return ChatResponse.error("大模型调用排队超过截止时间", request.getSessionId());
+        } finally {
+            ticket.release();
+        }
+    }
+
+    @Override
+    public CompletableFuture<ChatResponse> chatAsync(ChatRequest request) {
+        SchedulerTicket ticket = scheduler.acquire(request);
+        return ticket.decision()
+            .thenCompose(granted -> granted ? delegate.chatAsync(request)
+                : CompletableFuture.completedFuture(rejected(ticket, request)))
+            .whenComplete((response, error) -> ticket.release());
+    }
+
+    /**
+     * 分到名额前取消只放弃排队；名额在流的结束信号（正常结束或出错）或取消时归还，先归还再转交结束信号
+     */
+    @Override
+    public StreamHandle chatStream(ChatRequest request, StreamHandler handler) {
+        SchedulerTicket ticket = scheduler.acquire(request);
+        ScheduledStream stream = new ScheduledStream(ticket);
+        ticket.decision().thenAccept(granted -> {
+            if (!granted) {
+                if (!stream.isCancelled()) {
+                    handler.onError(new IllegalStateException(ticket.getRejectMessage()));
+                }
+                return;
+            }
+            StreamHandle upstream;
+            try {
+                upstream = delegate.chatStream(request, new StreamHandler() {
+                    @Override
+                    public void onContent(String content, Runnable onComplete) {
+                        if (content == null || content.isEmpty()) {
+                            ticket.release();
+                        }
+                        handler.onContent(content, onComplete);
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        ticket.release();
+                        handler.onError(error);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 在回调里抛出的异常只会留在 decision 上，没人处理：名额不归还，调用方也收不到结束信号
+                ticket.release();
+                handler.onError(e);
+                return;
+            }
+            stream.attach(upstream);
+        });
+        return stream;
+    }
+
+    @Override
+    public boolean healthCheck() {
+        return delegate.healthCheck();
+    }
+
+    private static ChatResponse rejected(SchedulerTicket ticket, ChatRequest request) {
+        return ChatResponse.error(ticket.getRejectMessage(), request.getSessionId());
+    }
+
+    /**
+     * 排队中或已开始的流式调用
+     */
+    private static class ScheduledStream implements StreamHandle {
+
+        private final SchedulerTicket ticket;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile StreamHandle upstream = StreamHandle.NONE;
+
+        ScheduledStream(SchedulerTicket ticket) {
+            this.ticket = ticket;
+        }
+
+        void attach(StreamHandle handle) {
+            upstream = handle;
+            // 开始调用的同时被取消
+            if (cancelled.get()) {
+                handle.cancel();
+                ticket.release();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                upstream.cancel();
+                ticket.release();
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+    }
+}
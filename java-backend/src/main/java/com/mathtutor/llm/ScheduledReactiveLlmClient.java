@@ -0,0 +1,53 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 经 {@link LlmScheduler} 排队的非阻塞 LLM 客户端，与阻塞客户端共用同一组上游调用名额
+ * 排队期间不占线程；下游取消订阅时放弃排队或归还名额
+ */
+@Primary
+@Component
+public class ScheduledReactiveLlmClient implements ReactiveLlmClient {
+
+    private final ReactiveLlmClient delegate;
+    private final LlmScheduler scheduler;
+
+    @Autowired
+    public ScheduledReactiveLlmClient(ReactiveDeepSeekClient delegate, LlmScheduler scheduler) {
+        this((ReactiveLlmClient) delegate, scheduler);
+    }
+
+    ScheduledReactiveLlmClient(ReactiveLlmClient delegate, LlmScheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(ChatRequest request) {
+        return Mono.defer(() -> {
+            SchedulerTicket ticket = scheduler.acquire(request);
+            return Mono.fromFuture(ticket.decision(), true)
+                .flatMap(granted -> granted ? delegate.chat(request)
+                    : Mono.just(ChatResponse.error(ticket.getRejectMessage(), request.getSessionId())))
+                .doFinally(signal -> ticket.release());
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(ChatRequest request) {
+        return Flux.defer(() -> {
+            SchedulerTicket ticket = scheduler.acquire(request);
+            return Mono.fromFuture(ticket.decision(), true)
+                .flatMapMany(granted -> granted ? delegate.chatStream(request)
+                    : Flux.<String>error(new IllegalStateException(ticket.getRejectMessage())))
+                .doFinally(signal -> ticket.release());
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.mathtutor.llm;
+
+import reactor.core.Disposable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次上游调用的排队申请
+ * {@link #decision()} 在分到名额时以 true 完成，排队已满或等到截止时间仍未分到时以 false 完成；
+ * 调用结束（含流式回答读完或取消）必须调用 {@link #release()} 归还名额。
+ */
+public class SchedulerTicket {
+
+    private final LlmScheduler scheduler;
+    private final Workload workload;
+    private final long createdNanos;
+    private final CompletableFuture<Boolean> decision = new CompletableFuture<>();
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile String rejectReason;
+    private volatile Disposable expiry;
+    private volatile long grantedNanos;
+
+    /**
+     * 分到名额时给类别记的预估占用（虚拟时间），归还时按实际占用修正
+     */
+    private volatile double charge;
+
+    SchedulerTicket(LlmScheduler scheduler, Workload workload, long createdNanos) {
+        this.scheduler = scheduler;
+        this.workload = workload;
+        this.createdNanos = createdNanos;
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    public CompletableFuture<Boolean> decision() {
+        return decision;
+    }
+
+    /**
+     * 未分到名额的原因，见 {@link LlmScheduler} 的 REJECT_ 常量
+     */
+    public String getRejectReason() {
+        return rejectReason;
+    }
+
+    /**
+     * 未分到名额时返回给调用方的错误信息
+     */
+    public String getRejectMessage() {
+        return LlmScheduler.REJECT_QUEUE_FULL.equals(rejectReason)
+            ? "大模型调用排队已满，请稍后重试" : "大模型调用排队超过截止时间";
+    }
+
+    /**
+     * 归还名额，可重复调用；未分到名额时调用则放弃排队
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            if (decision.complete(false)) {
+                cancelExpiry();
+                scheduler.abandon(this);
+            } else if (isGranted()) {
+                scheduler.release(this);
+            }
+        }
+    }
+
+    boolean isGranted() {
+        return decision.isDone() && !decision.isCompletedExceptionally() && decision.join();
+    }
+
+    boolean grant(long nowNanos) {
+        cancelExpiry();
+        grantedNanos = nowNanos;
+        return decision.complete(true);
+    }
+
+    boolean reject(String reason) {
+        cancelExpiry();
+        rejectReason = reason;
+        return decision.complete(false);
+    }
+
+    void setExpiry(Disposable expiry) {
+        this.expiry = expiry;
+    }
+
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    long getGrantedNanos() {
+        return grantedNanos;
+    }
+
+    double getCharge() {
+        return charge;
+    }
+
+    void setCharge(double charge) {
+        this.charge = charge;
+    }
+
+    private void cancelExpiry() {
+        Disposable scheduled = expiry;
+        if (scheduled != null) {
+            scheduled.dispose();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.config.StreamingProperties;
+import org.reactivestreams.Subscription;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把上游的细碎增量合并成较大的段再交给客户端（SSE 事件或 WebSocket 消息）
+ *
+ * 缓冲中的第一段到达后开始计时，时间窗口到或可输出部分达到字节阈值时输出；
+ * 只在 {@link DeltaCoalescer} 判定的安全位置切分，半截公式留到闭合后随下一批输出。
+ * 向上游的请求跟随下游需求：下游不取时最多预读一个字节阈值（有需求但公式未闭合时最多 maxHoldBytes），
+ * 背压照常传到上游。
+ */
+@Component
+public class StreamCoalescer {
+
+    private final StreamingProperties properties;
+
+    public StreamCoalescer(StreamingProperties properties) {
+        this.properties = properties;
+    }
+
+    public Flux<String> coalesce(Flux<String> deltas) {
+        if (!properties.isCoalesce()) {
+            return deltas;
+        }
+        return Flux.create(sink -> deltas.subscribe(new CoalescingSubscriber(sink, Schedulers.parallel())));
+    }
+
+    private final class CoalescingSubscriber extends BaseSubscriber<String> {
+
+        private final FluxSink<String> sink;
+        private final Scheduler scheduler;
+        private final DeltaCoalescer buffer = new DeltaCoalescer();
+        private Disposable timer;
+        private boolean due;
+        private boolean requested;
+        private boolean done;
+
+        CoalescingSubscriber(FluxSink<String> sink, Scheduler scheduler) {
+            this.sink = sink;
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        protected synchronized void hookOnSubscribe(Subscription subscription) {
+            sink.onDispose(this::dispose);
+            sink.onRequest(n -> onDownstreamRequest());
+            requestMore();
+        }
+
+        @Override
+        protected synchronized void hookOnNext(String delta) {
+            requested = false;
+            buffer.append(delta);
+            if (due || buffer.safeBytes() >= properties.getFlushBytes()
+                || buffer.pendingBytes() >= properties.getMaxHoldBytes()) {
+                flush();
+            }
+            if (buffer.pendingLength() > 0 && timer == null && !due) {
+                startTimer();
+            }
+            requestMore();
+        }
+
+        @Override
+        protected synchronized void hookOnComplete() {
+            finish();
+            sink.complete();
+        }
+
+        @Override
+        protected synchronized void hookOnError(Throwable e) {
+            finish();
+            sink.error(e);
+        }
+
+        @Override
+        protected synchronized void hookOnCancel() {
+            cancelTimer();
+        }
+
+        private synchronized void onTimer() {
+            timer = null;
+            due = true;
+            flush();
+        }
+
+        private synchronized void onDownstreamRequest() {
+            if (due || buffer.safeBytes() >= properties.getFlushBytes()
+                || buffer.pendingBytes() >= properties.getMaxHoldBytes()) {
+                flush();
+            }
+            requestMore();
+        }
+
+        /**
+         * 有下游需求时输出安全部分，缓冲超过上限时不再等待闭合；
+         * 公式未闭合时保持 due，闭合后的下一段到达时输出
+         */
+        private void flush() {
+            if (done || sink.requestedFromDownstream() <= 0) {
+                return;
+            }
+            String out;
+            if (buffer.safeLength() > 0) {
+                out = buffer.takeSafe();
+            } else if (buffer.pendingBytes() >= properties.getMaxHoldBytes()) {
+                out = buffer.takeScanned();
+            } else {
+                return;
+            }
+            due = false;
+            cancelTimer();
+            if (!out.isEmpty()) {
+                sink.next(out);
+            }
+            if (buffer.pendingLength() > 0) {
+                startTimer();
+            }
+        }
+
+        /**
+         * 一次只向上游请求一段；缓冲不到字节阈值，或下游有需求且未超过上限时继续
+         */
+        private void requestMore() {
+            if (requested || done || isDisposed()) {
+                return;
+            }
+            int pending = buffer.pendingBytes();
+            if (pending < properties.getFlushBytes()
+                || (sink.requestedFromDownstream() > 0 && pending < properties.getMaxHoldBytes())) {
+                requested = true;
+                request(1);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            cancelTimer();
+            if (buffer.pendingLength() > 0) {
+                sink.next(buffer.takeAll());
+            }
+        }
+
+        private void startTimer() {
+            timer = scheduler.schedule(this::onTimer, properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void cancelTimer() {
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+        }
+    }
+}
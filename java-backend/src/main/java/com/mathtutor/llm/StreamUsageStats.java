@@ -0,0 +1,118 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.config.LlmProperties;
+import com.mathtutor.model.StreamUsage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流式回答的结束方式统计，阻塞与响应式客户端共用
+ *
+ * 每路流式回答对应一个 {@link Tracker}，按增量文本本地估算已生成的 token，结束时恰好记录一种结束方式；
+ * 取消或超时时以完整回答的平均长度减去已生成部分作为省下的 token。
+ */
+@Component
+public class StreamUsageStats {
+
+    /**
+     * 完整回答平均长度的平滑系数
+     */
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder tokensBeforeCancel = new LongAdder();
+    private final LongAdder tokensSaved = new LongAdder();
+    private final AtomicReference<Double> averageCompletionTokens;
+
+    public StreamUsageStats() {
+        this(new LlmProperties());
+    }
+
+    @Autowired
+    public StreamUsageStats(LlmProperties config) {
+        this.averageCompletionTokens = new AtomicReference<>((double) config.getExpectedCompletionTokens());
+    }
+
+    public Tracker track() {
+        started.increment();
+        return new Tracker();
+    }
+
+    public StreamUsage getStats() {
+        return new StreamUsage(started.sum(), completed.sum(), cancelled.sum(), deadlineExceeded.sum(), failed.sum(),
+            tokensBeforeCancel.sum(), tokensSaved.sum(), averageCompletionTokens.get());
+    }
+
+    /**
+     * 一路流式回答，结束方式只记录第一次
+     */
+    public class Tracker {
+
+        private final AtomicInteger tokens = new AtomicInteger();
+        private final AtomicInteger state = new AtomicInteger();
+
+        public void onDelta(String content) {
+            tokens.addAndGet(TokenEstimator.estimate(content));
+        }
+
+        public int getTokens() {
+            return tokens.get();
+        }
+
+        public void complete() {
+            if (state.compareAndSet(0, 1)) {
+                completed.increment();
+                int length = tokens.get();
+                averageCompletionTokens.accumulateAndGet((double) length,
+                    (average, sample) -> average * (1 - AVERAGE_WEIGHT) + sample * AVERAGE_WEIGHT);
+            }
+        }
+
+        /**
+         * 客户端断开或放弃
+         */
+        public void cancel() {
+            if (state.compareAndSet(0, 2)) {
+                cancelled.increment();
+                recordSaving();
+            }
+        }
+
+        /**
+         * 超过截止时间
+         */
+        public void expire() {
+            if (state.compareAndSet(0, 3)) {
+                deadlineExceeded.increment();
+                recordSaving();
+            }
+        }
+
+        /**
+         * 上游出错或没有正常结束就断开
+         */
+        public void fail() {
+            if (state.compareAndSet(0, 4)) {
+                failed.increment();
+            }
+        }
+
+        public boolean isFinished() {
+            return state.get() != 0;
+        }
+
+        private void recordSaving() {
+            int received = tokens.get();
+            tokensBeforeCancel.add(received);
+            tokensSaved.add(Math.max(0, Math.round(averageCompletionTokens.get()) - received));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.mathtutor.llm;
+
+/**
+ * 本地token数估算
+ *
+ * 不依赖分词模型，按字符类别粗略估算：
+ * 汉字及全角符号约 1 token/字，ASCII 字符约 4 字符/token。
+ * 结果偏保守，用于提示词预算控制。
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的token数
+     */
+    public static int estimate(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        int wide = 0;
+        int ascii = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) {
+                ascii++;
+            } else {
+                wide++;
+            }
+        }
+        return wide + (ascii + 3) / 4;
+    }
+}
@@ -0,0 +1,61 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.model.TokenUsage;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LLM调用token用量统计
+ * 上游没有返回usage字段的调用由调用方估算后记录，单独计数
+ */
+public class TokenUsageStats {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder completionTokens = new LongAdder();
+    private final LongAdder estimatedCalls = new LongAdder();
+
+    /**
+     * 记录一次调用的用量
+     */
+    public void record(Integer prompt, Integer completion) {
+        if (prompt == null || completion == null) {
+            return;
+        }
+        calls.increment();
+        promptTokens.add(prompt);
+        completionTokens.add(completion);
+    }
+
+    /**
+     * 记录一次按文本长度估算的用量
+     */
+    public void recordEstimated(int prompt, int completion) {
+        record(prompt, completion);
+        estimatedCalls.increment();
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * 平均提示词token数
+     */
+    public double getAveragePromptTokens() {
+        long n = calls.sum();
+        return n == 0 ? 0 : (double) promptTokens.sum() / n;
+    }
+
+    /**
+     * 平均生成token数
+     */
+    public double getAverageCompletionTokens() {
+        long n = calls.sum();
+        return n == 0 ? 0 : (double) completionTokens.sum() / n;
+    }
+
+    public TokenUsage getUsage() {
+        return new TokenUsage(getCalls(), estimatedCalls.sum(), getAveragePromptTokens(), getAverageCompletionTokens());
+    }
+}
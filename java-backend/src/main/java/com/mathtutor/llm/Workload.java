@@ -0,0 +1,41 @@
+package com.mathtutor.llm;
+
+/**
+ * 一次大模型调用所属的负载类别与租户
+ * 租户是类别内公平分配的单位：对话按会话，批量任务按提交人
+ */
+public final class Workload {
+
+    /**
+     * 没有标明租户的调用共用的租户
+     */
+    public static final String ANONYMOUS = "anonymous";
+
+    private final WorkloadClass workloadClass;
+    private final String tenant;
+
+    private Workload(WorkloadClass workloadClass, String tenant) {
+        this.workloadClass = workloadClass;
+        this.tenant = tenant;
+    }
+
+    /**
+     * @param tenant 为空时归入 {@link #ANONYMOUS}
+     */
+    public static Workload of(WorkloadClass workloadClass, String tenant) {
+        return new Workload(workloadClass, tenant == null || tenant.isBlank() ? ANONYMOUS : tenant);
+    }
+
+    public WorkloadClass getWorkloadClass() {
+        return workloadClass;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    @Override
+    public String toString() {
+        return workloadClass + "/" + tenant;
+    }
+}
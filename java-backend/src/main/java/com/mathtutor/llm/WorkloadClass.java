@@ -0,0 +1,19 @@
+package com.mathtutor.llm;
+
+/**
+ * 大模型调用的负载类别，各类别按配置的权重分享上游调用名额
+ */
+public enum WorkloadClass {
+
+    /** 学生对话、提示与单步批改，有人在等 */
+    INTERACTIVE,
+
+    /** 流式返回的题目分析 */
+    STREAMED_ANALYSIS,
+
+    /** 批量批改、低优先级分析任务等批量提交 */
+    BATCH,
+
+    /** 低谷时段的分析预生成 */
+    PREGENERATION
+}
@@ -0,0 +1,40 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * 准入控制统计：名额占用、排队深度、拒绝次数和排队等待分位数
+ */
+@Value
+public class AdmissionStats {
+
+    boolean enabled;
+    int maxConcurrent;
+    int inUse;
+    int queued;
+
+    /**
+     * 各优先级排队数
+     */
+    Map<String, Integer> queuedByPriority;
+
+    long admitted;
+    long shed;
+
+    /**
+     * 按原因统计的拒绝次数：expected_wait、queue_full、timeout、evicted
+     */
+    Map<String, Long> shedByReason;
+
+    Map<String, Long> shedByPriority;
+
+    /**
+     * 近期单个请求平均占用名额的时长
+     */
+    double serviceMillis;
+
+    double waitP50Millis;
+    double waitP95Millis;
+}
@@ -0,0 +1,37 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * 异步分析任务统计：排队与执行情况、各结束状态的数量和排队、执行时长分位数
+ */
+@Value
+public class AnalysisJobStats {
+
+    int workers;
+    int queueCapacity;
+    int queued;
+    int running;
+
+    /**
+     * 保留供查询的任务数（含排队与执行中）
+     */
+    int retained;
+
+    long submitted;
+    long rejected;
+
+    /**
+     * 各结束状态的任务数
+     */
+    Map<String, Long> finished;
+
+    long expired;
+
+    double queueP50Millis;
+    double queueP95Millis;
+    double runP50Millis;
+    double runP95Millis;
+}
@@ -0,0 +1,27 @@
+package com.mathtutor.model;
+
+import com.mathtutor.job.JobPriority;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * 提交异步分析任务的请求
+ */
+@Data
+public class AnalysisJobSubmission {
+
+    @NotBlank(message = "题目不能为空")
+    private String question;
+
+    /**
+     * 上下文信息（如考点、难度等）
+     */
+    private String context;
+
+    private JobPriority priority = JobPriority.NORMAL;
+
+    /**
+     * 提交人（如教师ID），同一负载类别内按提交人平分大模型调用名额
+     */
+    private String tenant;
+}
@@ -0,0 +1,47 @@
+package com.mathtutor.model;
+
+import com.mathtutor.job.JobPriority;
+import com.mathtutor.job.JobStatus;
+import lombok.Value;
+
+/**
+ * 异步分析任务的对外视图
+ */
+@Value
+public class AnalysisJobView {
+
+    String id;
+    JobStatus status;
+    JobPriority priority;
+
+    /**
+     * 排队中时前面还有几个任务
+     */
+    Integer queuePosition;
+
+    long submittedAt;
+    Long startedAt;
+    Long finishedAt;
+
+    /**
+     * 排队等待时长
+     */
+    Long queueMillis;
+
+    /**
+     * 执行时长，执行中为已执行的时长
+     */
+    Long runMillis;
+
+    /**
+     * 执行中已生成的分析文本
+     */
+    String partialAnalysis;
+
+    /**
+     * 结束后的分析结果，出错时其中带有错误信息
+     */
+    ProblemAnalysisDomain result;
+
+    String error;
+}
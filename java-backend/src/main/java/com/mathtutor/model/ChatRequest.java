@@ -1,5 +1,8 @@
 package com.mathtutor.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.mathtutor.llm.Deadline;
+import com.mathtutor.llm.Workload;
 import lombok.Data;
 import jakarta.validation.constraints.NotBlank;
 
@@ -14,4 +17,16 @@ public class ChatRequest {
 
     private String sessionId;
     private String context;
-}
\ No newline at end of file
+
+    /**
+     * 截止时间，由接口层按请求头设置；为 null 时 LLM 客户端从调用时起按服务端默认值计算
+     */
+    @JsonIgnore
+    private Deadline deadline;
+
+    /**
+     * 所属负载类别与租户，决定排队时的份额；为 null 时按交互对话、以会话为租户
+     */
+    @JsonIgnore
+    private Workload workload;
+}
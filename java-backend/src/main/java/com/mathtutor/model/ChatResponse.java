@@ -13,6 +13,16 @@ public class ChatResponse {
     private String status;
     private long timestamp;
 
+    /**
+     * 本次调用的提示词token数（上游未返回时为空）
+     */
+    private Integer promptTokens;
+
+    /**
+     * 本次调用的生成token数（上游未返回时为空）
+     */
+    private Integer completionTokens;
+
     public ChatResponse(String response, String sessionId) {
         this.response = response;
         this.sessionId = sessionId;
@@ -0,0 +1,26 @@
+package com.mathtutor.model;
+
+/**
+ * 步骤作答判定结果
+ */
+public enum GradeVerdict {
+    /**
+     * 正确：命中检查点，或与检查点给出的取值相等
+     */
+    CORRECT,
+
+    /**
+     * 错误：空作答，或给出的取值与检查点矛盾
+     */
+    INCORRECT,
+
+    /**
+     * 无法在本地判定（如写成了等价的其他形式），需要大模型复核
+     */
+    AMBIGUOUS,
+
+    /**
+     * 题目或步骤不存在
+     */
+    UNKNOWN_STEP
+}
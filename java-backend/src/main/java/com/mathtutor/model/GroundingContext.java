@@ -0,0 +1,40 @@
+package com.mathtutor.model;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 检索增强上下文模型
+ * 记录从本地知识库检索出的知识点、解题方法以及渲染后的提示词片段
+ */
+@Data
+public class GroundingContext {
+
+    /**
+     * 渲染后的提示词片段
+     */
+    private String prompt = "";
+
+    /**
+     * 命中的知识点编号
+     */
+    private List<String> knowledgeCodes = new ArrayList<>();
+
+    /**
+     * 命中的解题方法编号
+     */
+    private List<String> methodCodes = new ArrayList<>();
+
+    /**
+     * 片段的估算token数
+     */
+    private int estimatedTokens;
+
+    /**
+     * 是否检索到任何内容
+     */
+    public boolean isEmpty() {
+        return knowledgeCodes.isEmpty() && methodCodes.isEmpty();
+    }
+}
@@ -0,0 +1,13 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+/**
+ * 题目分析的token用量：带本地知识检索的提示词与未检索的提示词对比
+ */
+@Value
+public class GroundingUsage {
+
+    TokenUsage grounded;
+    TokenUsage plain;
+}
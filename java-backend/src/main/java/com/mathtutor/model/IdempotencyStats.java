@@ -0,0 +1,44 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+/**
+ * 幂等键统计：带键请求中重复请求的占比与结果缓存占用
+ */
+@Value
+public class IdempotencyStats {
+
+    /**
+     * 带有效幂等键的请求数
+     */
+    long requests;
+
+    /**
+     * 第一次出现、实际执行的请求数
+     */
+    long executed;
+
+    /**
+     * 原请求仍在处理中、等待并共用其结果的重复请求数
+     */
+    long attached;
+
+    /**
+     * 原请求已完成、直接重放结果的重复请求数
+     */
+    long replayed;
+
+    /**
+     * 同一个键对应不同请求内容、被拒绝的请求数
+     */
+    long conflicts;
+
+    /**
+     * 重复请求占比（0-1）
+     */
+    double duplicateFraction;
+
+    int entries;
+    long bytes;
+    long evicted;
+}
@@ -1,6 +1,11 @@
 package com.mathtutor.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import java.util.List;
 
 /**
@@ -30,6 +35,11 @@ import java.util.List;
 @Data
 public class KnowledgeDomain {
 
+    /**
+     * 完整路径中父子知识点之间的分隔符
+     */
+    public static final String PATH_SEPARATOR = " > ";
+
     /**
      * 知识点编号
      */
@@ -92,6 +102,37 @@ public class KnowledgeDomain {
      */
     private Integer difficultyLevel;
 
+    /**
+     * 派生字符串缓存：完整路径、完整标识符、专题标识符
+     * 首次访问时生成，相关字段被修改时失效；不参与 equals / hashCode / toString
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient String cachedFullPath;
+
+    /**
+     * 生成 cachedFullPath 时父知识点的完整路径，父路径实例变化说明祖先被修改过
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient String cachedParentPath;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient String cachedFullIdentifier;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient String cachedTopicIdentifier;
+
     /**
      * 默认构造函数
      */
@@ -112,7 +153,7 @@ public class KnowledgeDomain {
         this.module = module;
         this.topic = topic;
         this.assessmentCore = assessmentCore;
-        this.detailedPoints = new java.util.ArrayList<>();
+        this.detailedPoints = List.of();
         this.depthLevel = 2; // 默认为核心知识点
         this.difficultyLevel = 2; // 默认为中等难度
     }
@@ -134,7 +175,7 @@ public class KnowledgeDomain {
                           KnowledgeSystemEnum knowledgeSystem, String module, String topic,
                           String assessmentCore, List<String> detailedPoints) {
         this(code, name, grade, description, knowledgeSystem, module, topic, assessmentCore);
-        this.detailedPoints = detailedPoints != null ? detailedPoints : new java.util.ArrayList<>();
+        this.detailedPoints = detailedPoints != null ? detailedPoints : List.of();
     }
 
     /**
@@ -142,16 +183,47 @@ public class KnowledgeDomain {
      */
     public void setParentKnowledge(KnowledgeDomain parentKnowledge) {
         this.parentKnowledge = parentKnowledge;
+        this.cachedFullPath = null;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+        invalidateIdentifiers();
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        this.cachedFullPath = null;
+    }
+
+    public void setKnowledgeSystem(KnowledgeSystemEnum knowledgeSystem) {
+        this.knowledgeSystem = knowledgeSystem;
+        invalidateIdentifiers();
+    }
+
+    public void setModule(String module) {
+        this.module = module;
+        invalidateIdentifiers();
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+        invalidateIdentifiers();
     }
 
     /**
      * 获取完整知识点路径（包含父知识点）
+     * 结果会被缓存；父知识点路径变化时重新生成
      */
     public String getFullPath() {
-        if (parentKnowledge == null) {
-            return name;
+        String parentPath = parentKnowledge != null ? parentKnowledge.getFullPath() : null;
+        String path = cachedFullPath;
+        if (path == null || parentPath != cachedParentPath) {
+            path = parentPath == null ? name : parentPath + PATH_SEPARATOR + name;
+            cachedParentPath = parentPath;
+            cachedFullPath = path;
         }
-        return parentKnowledge.getFullPath() + " > " + name;
+        return path;
     }
 
     /**
@@ -172,15 +244,22 @@ public class KnowledgeDomain {
      * 获取知识点的完整标识符
      */
     public String getFullIdentifier() {
-        return knowledgeSystem.getDisplayName() + "-" + code;
+        String identifier = cachedFullIdentifier;
+        if (identifier == null) {
+            identifier = knowledgeSystem.getDisplayName() + "-" + code;
+            cachedFullIdentifier = identifier;
+        }
+        return identifier;
     }
 
     /**
      * 添加详细考点
      */
     public void addDetailedPoint(String detailedPoint) {
-        if (this.detailedPoints == null) {
-            this.detailedPoints = new java.util.ArrayList<>();
+        if (!(this.detailedPoints instanceof java.util.ArrayList)) {
+            // 空列表与紧凑目录中的列表是共享的只读列表，首次添加时复制
+            this.detailedPoints = this.detailedPoints == null
+                ? new java.util.ArrayList<>() : new java.util.ArrayList<>(this.detailedPoints);
         }
         this.detailedPoints.add(detailedPoint);
     }
@@ -203,7 +282,12 @@ public class KnowledgeDomain {
      * 获取专题完整标识符
      */
     public String getTopicIdentifier() {
-        return module + "-" + topic + "-" + code;
+        String identifier = cachedTopicIdentifier;
+        if (identifier == null) {
+            identifier = module + "-" + topic + "-" + code;
+            cachedTopicIdentifier = identifier;
+        }
+        return identifier;
     }
 
     /**
@@ -239,4 +323,9 @@ public class KnowledgeDomain {
             && topic != null && !topic.trim().isEmpty()
             && assessmentCore != null && !assessmentCore.trim().isEmpty();
     }
+
+    private void invalidateIdentifiers() {
+        this.cachedFullIdentifier = null;
+        this.cachedTopicIdentifier = null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * 大模型调用调度统计：名额占用与各负载类别的排队情况
+ */
+@Value
+public class LlmSchedulerStats {
+
+    boolean enabled;
+    int maxConcurrent;
+    int inUse;
+    int queued;
+
+    /**
+     * 按负载类别（小写名称）
+     */
+    Map<String, WorkloadStats> workloads;
+
+    @Value
+    public static class WorkloadStats {
+
+        int weight;
+        int inUse;
+        int queued;
+
+        /**
+         * 正在排队的租户数
+         */
+        int queuedTenants;
+
+        /**
+         * 近期平均每次调用占用名额的时长
+         */
+        double averageHoldMillis;
+
+        long dispatched;
+        long rejected;
+        double waitP50Millis;
+        double waitP95Millis;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 小题的一个解题逻辑步骤（不可变）
+ * 对应题目数据文件中 questions[].logic_steps[] 的一项
+ */
+@Value
+public class LogicStep {
+
+    /**
+     * 步骤编号，如 "1.2"
+     */
+    String stepId;
+
+    /**
+     * 本步考查的知识点编号
+     */
+    String targetKpId;
+
+    /**
+     * 本步目标
+     */
+    String goal;
+
+    /**
+     * 判定本步完成的关键结果（只读）
+     */
+    List<String> checkPoints;
+
+    /**
+     * 分级提示，下标 0 对应 level_1，依次加深（只读）
+     */
+    List<String> scaffolding;
+
+    /**
+     * 获取指定级别的提示
+     * @param level 提示级别，从 1 开始
+     * @return 提示内容，超出范围时返回 null
+     */
+    public String getHint(int level) {
+        return level >= 1 && level <= scaffolding.size() ? scaffolding.get(level - 1) : null;
+    }
+
+    /**
+     * 提示级别数
+     */
+    public int getHintLevels() {
+        return scaffolding.size();
+    }
+}
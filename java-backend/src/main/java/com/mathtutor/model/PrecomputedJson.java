@@ -0,0 +1,72 @@
+package com.mathtutor.model;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 预先序列化好的 JSON 响应
+ *
+ * 每个资源在每个数据版本只序列化、压缩一次，之后直接返回字节：
+ * - json / gzip：原始字节与预压缩字节（体积太小或压缩无收益时不生成 gzip）
+ * - etag：按内容计算的强 ETag，数据重新加载但内容不变时保持不变；gzip 表示另带 "-gz" 后缀
+ * - sourceVersion：生成时的数据版本，用于判断缓存是否过期
+ */
+@Getter
+public class PrecomputedJson {
+
+    /**
+     * 小于该字节数的响应不压缩
+     */
+    public static final int MIN_COMPRESS_SIZE = 256;
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+    private final long sourceVersion;
+
+    public PrecomputedJson(byte[] json, long sourceVersion) {
+        this.json = json;
+        this.sourceVersion = sourceVersion;
+        String hash = hash(json);
+        this.etag = "\"" + hash + "\"";
+        this.gzipEtag = "\"" + hash + "-gz\"";
+        byte[] compressed = json.length >= MIN_COMPRESS_SIZE ? gzip(json) : null;
+        this.gzip = compressed != null && compressed.length < json.length ? compressed : null;
+    }
+
+    public boolean hasGzip() {
+        return gzip != null;
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
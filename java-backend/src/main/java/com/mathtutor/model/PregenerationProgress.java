@@ -0,0 +1,68 @@
+package com.mathtutor.model;
+
+import com.mathtutor.pregeneration.PregenerationStatus;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * 分析预生成任务进度
+ */
+@Value
+public class PregenerationProgress {
+
+    PregenerationStatus status;
+
+    String runId;
+
+    String promptVersion;
+
+    /**
+     * 题库题目总数
+     */
+    int total;
+
+    /**
+     * 已有当前版本分析而跳过的题目数
+     */
+    int skipped;
+
+    /**
+     * 本轮生成的分析数
+     */
+    int completed;
+
+    /**
+     * 多次尝试后放弃的题目数
+     */
+    int failed;
+
+    /**
+     * 尚未处理的题目数
+     */
+    int remaining;
+
+    /**
+     * 遇到上游限流的次数
+     */
+    int rateLimited;
+
+    /**
+     * 当前并发限额与进行中的分析数
+     */
+    int concurrency;
+    int inFlight;
+
+    /**
+     * 每分钟生成的分析数
+     */
+    double throughputPerMinute;
+
+    long promptTokens;
+    long completionTokens;
+
+    /**
+     * 按配置的 token 单价估算的花费
+     */
+    BigDecimal spend;
+}
@@ -71,6 +71,36 @@ public class ProblemAnalysisDomain {
      */
     private String sessionId;
 
+    /**
+     * 提示词中引用的本地知识点编号
+     */
+    private List<String> groundingKnowledgeCodes;
+
+    /**
+     * 提示词中引用的本地解题方法编号
+     */
+    private List<String> groundingMethodCodes;
+
+    /**
+     * 提示词token数（上游未返回时为空）
+     */
+    private Integer promptTokens;
+
+    /**
+     * 生成token数（上游未返回时为空）
+     */
+    private Integer completionTokens;
+
+    /**
+     * 分析失败时的错误信息（成功时为空）
+     */
+    private String errorMessage;
+
+    /**
+     * 复用已存分析（全文一致或规范化后一致）时为 1；新生成的分析为空
+     */
+    private Double matchConfidence;
+
     /**
      * 获取小问数量
      */
@@ -0,0 +1,59 @@
+package com.mathtutor.model;
+
+/**
+ * 题目难度
+ * 取值与题目数据文件中 problem_metadata.difficulty 的写法对应
+ */
+public enum ProblemDifficulty {
+    /**
+     * 基础题
+     */
+    EASY("Easy", "基础"),
+
+    /**
+     * 中档题
+     */
+    MEDIUM("Medium", "中档"),
+
+    /**
+     * 压轴题
+     */
+    HARD("Hard", "压轴");
+
+    private final String value;
+    private final String displayName;
+
+    ProblemDifficulty(String value, String displayName) {
+        this.value = value;
+        this.displayName = displayName;
+    }
+
+    /**
+     * 数据文件中的写法
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 根据数据文件中的写法查找难度，兼容枚举名和中文名称
+     * @return 难度，无法识别时返回 null
+     */
+    public static ProblemDifficulty fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        for (ProblemDifficulty difficulty : values()) {
+            if (difficulty.value.equalsIgnoreCase(trimmed) || difficulty.name().equalsIgnoreCase(trimmed)
+                || difficulty.displayName.equals(trimmed)) {
+                return difficulty;
+            }
+        }
+        return null;
+    }
+}
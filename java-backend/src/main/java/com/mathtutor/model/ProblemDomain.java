@@ -0,0 +1,76 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 题库题目（不可变）
+ * 对应一份 math_problem_data.json 格式的题目文档，由题库加载器创建后只读共享
+ */
+@Value
+public class ProblemDomain {
+
+    String problemId;
+
+    String title;
+
+    /**
+     * 所属模块编号，如 "M03"
+     */
+    String moduleId;
+
+    /**
+     * 所属专题编号，如 "T02"
+     */
+    String topicId;
+
+    /**
+     * 难度，数据文件未给出或无法识别时为 null
+     */
+    ProblemDifficulty difficulty;
+
+    /**
+     * 小题列表（只读）
+     */
+    List<ProblemQuestion> questions;
+
+    /**
+     * 根据步骤编号查找解题步骤
+     * @return 步骤，不存在时返回 null
+     */
+    public LogicStep findStep(String stepId) {
+        for (ProblemQuestion question : questions) {
+            for (LogicStep step : question.getLogicSteps()) {
+                if (step.getStepId().equals(stepId)) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 全部解题步骤数
+     */
+    public int getStepCount() {
+        int count = 0;
+        for (ProblemQuestion question : questions) {
+            count += question.getLogicSteps().size();
+        }
+        return count;
+    }
+
+    /**
+     * 用于语义检索的文本：标题与各小题题干
+     */
+    public String getSearchText() {
+        StringBuilder text = new StringBuilder(title != null ? title : "");
+        for (ProblemQuestion question : questions) {
+            if (question.getQuestionText() != null) {
+                text.append(' ').append(question.getQuestionText());
+            }
+        }
+        return text.toString();
+    }
+}
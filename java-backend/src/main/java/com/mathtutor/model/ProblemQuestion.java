@@ -0,0 +1,24 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 题目中的一道小题（不可变）
+ */
+@Value
+public class ProblemQuestion {
+
+    /**
+     * 小题序号，从 1 开始
+     */
+    int questionIndex;
+
+    String questionText;
+
+    /**
+     * 解题逻辑步骤（只读）
+     */
+    List<LogicStep> logicSteps;
+}
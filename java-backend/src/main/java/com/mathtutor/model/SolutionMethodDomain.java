@@ -1,6 +1,8 @@
 package com.mathtutor.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * 解题方法领域模型
@@ -88,7 +90,10 @@ public class SolutionMethodDomain {
 
     /**
      * 相关方法列表
+     * 相关方法常常互相引用，equals / hashCode / toString 只比较和输出其编号，不递归进入对方
      */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private java.util.List<SolutionMethodDomain> relatedMethods;
 
     /**
@@ -107,11 +112,11 @@ public class SolutionMethodDomain {
         this.description = description;
         this.methodCategory = methodCategory;
         this.difficultyLevel = 2; // 默认为常用方法
-        this.steps = new java.util.ArrayList<>();
-        this.keyPoints = new java.util.ArrayList<>();
-        this.precautions = new java.util.ArrayList<>();
-        this.applicableKnowledgeSystems = new java.util.ArrayList<>();
-        this.relatedMethods = new java.util.ArrayList<>();
+        this.steps = java.util.List.of();
+        this.keyPoints = java.util.List.of();
+        this.precautions = java.util.List.of();
+        this.applicableKnowledgeSystems = java.util.List.of();
+        this.relatedMethods = java.util.List.of();
     }
 
     /**
@@ -128,9 +133,7 @@ public class SolutionMethodDomain {
      * 添加解题步骤
      */
     public void addStep(String step) {
-        if (this.steps == null) {
-            this.steps = new java.util.ArrayList<>();
-        }
+        this.steps = mutable(this.steps);
         this.steps.add(step);
     }
 
@@ -138,9 +141,7 @@ public class SolutionMethodDomain {
      * 添加关键要点
      */
     public void addKeyPoint(String keyPoint) {
-        if (this.keyPoints == null) {
-            this.keyPoints = new java.util.ArrayList<>();
-        }
+        this.keyPoints = mutable(this.keyPoints);
         this.keyPoints.add(keyPoint);
     }
 
@@ -148,9 +149,7 @@ public class SolutionMethodDomain {
      * 添加注意事项
      */
     public void addPrecaution(String precaution) {
-        if (this.precautions == null) {
-            this.precautions = new java.util.ArrayList<>();
-        }
+        this.precautions = mutable(this.precautions);
         this.precautions.add(precaution);
     }
 
@@ -158,9 +157,7 @@ public class SolutionMethodDomain {
      * 添加适用知识体系
      */
     public void addApplicableKnowledgeSystem(KnowledgeSystemEnum knowledgeSystem) {
-        if (this.applicableKnowledgeSystems == null) {
-            this.applicableKnowledgeSystems = new java.util.ArrayList<>();
-        }
+        this.applicableKnowledgeSystems = mutable(this.applicableKnowledgeSystems);
         this.applicableKnowledgeSystems.add(knowledgeSystem);
     }
 
@@ -168,12 +165,36 @@ public class SolutionMethodDomain {
      * 添加相关方法
      */
     public void addRelatedMethod(SolutionMethodDomain relatedMethod) {
-        if (this.relatedMethods == null) {
-            this.relatedMethods = new java.util.ArrayList<>();
-        }
+        this.relatedMethods = mutable(this.relatedMethods);
         this.relatedMethods.add(relatedMethod);
     }
 
+    /**
+     * 相关方法的编号，代替相关方法本身参与 equals / hashCode / toString
+     */
+    @EqualsAndHashCode.Include
+    @ToString.Include(name = "relatedMethods")
+    private java.util.List<String> relatedMethodCodes() {
+        if (relatedMethods == null) {
+            return null;
+        }
+        java.util.List<String> codes = new java.util.ArrayList<>(relatedMethods.size());
+        for (SolutionMethodDomain method : relatedMethods) {
+            codes.add(method != null ? method.getCode() : null);
+        }
+        return codes;
+    }
+
+    /**
+     * 空列表与紧凑目录中的列表是共享的只读列表，首次添加时复制为可变列表
+     */
+    private static <T> java.util.List<T> mutable(java.util.List<T> list) {
+        if (list instanceof java.util.ArrayList) {
+            return list;
+        }
+        return list == null ? new java.util.ArrayList<>() : new java.util.ArrayList<>(list);
+    }
+
     /**
      * 检查方法是否适用于指定年级
      */
@@ -0,0 +1,42 @@
+package com.mathtutor.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 步骤作答批改结果
+ */
+@Data
+public class StepGradeResult {
+
+    private String studentId;
+    private String problemId;
+    private String stepId;
+    private GradeVerdict verdict;
+
+    /**
+     * 命中的检查点（题目数据中的原文）
+     */
+    private List<String> matchedCheckPoints = List.of();
+
+    /**
+     * 规范化后的作答
+     */
+    private String normalizedAnswer;
+
+    /**
+     * 是否经过大模型复核
+     */
+    private boolean escalated;
+
+    public StepGradeResult() {
+    }
+
+    public StepGradeResult(StepSubmission submission, GradeVerdict verdict) {
+        this.studentId = submission.getStudentId();
+        this.problemId = submission.getProblemId();
+        this.stepId = submission.getStepId();
+        this.verdict = verdict;
+    }
+}
@@ -0,0 +1,34 @@
+package com.mathtutor.model;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * 学生对某道题某个解题步骤的作答
+ */
+@Data
+public class StepSubmission {
+
+    /**
+     * 学生标识，批量批改时用于对应结果，可为空
+     */
+    private String studentId;
+
+    @NotBlank(message = "题目编号不能为空")
+    private String problemId;
+
+    @NotBlank(message = "步骤编号不能为空")
+    private String stepId;
+
+    private String answer;
+
+    public StepSubmission() {
+    }
+
+    public StepSubmission(String studentId, String problemId, String stepId, String answer) {
+        this.studentId = studentId;
+        this.problemId = problemId;
+        this.stepId = stepId;
+        this.answer = answer;
+    }
+}
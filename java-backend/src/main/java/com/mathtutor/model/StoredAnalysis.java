@@ -0,0 +1,46 @@
+package com.mathtutor.model;
+
+import lombok.Data;
+
+/**
+ * 预先生成并持久化的题目分析
+ * 只有提示词版本与当前版本一致时才有效，提示词模板变化后需要重新生成
+ */
+@Data
+public class StoredAnalysis {
+
+    private String problemId;
+
+    /**
+     * 生成时的提示词版本，见 MathAnalysisAgent#getPromptVersion
+     */
+    private String promptVersion;
+
+    /**
+     * 题目全文的摘要，在线分析同一题目时据此直接返回已生成的结果
+     */
+    private String questionKey;
+
+    /**
+     * 题目全文，用于近似重复检测；旧版本文件中可能为空
+     */
+    private String questionText;
+
+    /**
+     * 生成时间（毫秒时间戳）
+     */
+    private long generatedAt;
+
+    private ProblemAnalysisDomain analysis;
+
+    public StoredAnalysis() {
+    }
+
+    public StoredAnalysis(String problemId, String promptVersion, String questionKey, ProblemAnalysisDomain analysis) {
+        this.problemId = problemId;
+        this.promptVersion = promptVersion;
+        this.questionKey = questionKey;
+        this.analysis = analysis;
+        this.generatedAt = System.currentTimeMillis();
+    }
+}
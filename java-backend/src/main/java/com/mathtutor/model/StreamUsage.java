@@ -0,0 +1,32 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+/**
+ * 流式回答统计：正常结束、客户端取消、超过截止时间与上游出错的次数，以及提前断开上游省下的 token 估计
+ */
+@Value
+public class StreamUsage {
+
+    long started;
+    long completed;
+    long cancelled;
+    long deadlineExceeded;
+
+    /**
+     * 上游报错、连接中断或没有收到 [DONE] 就结束的次数
+     */
+    long failed;
+
+    /**
+     * 被取消或超时的回答在断开前已生成的 token 数
+     */
+    long tokensBeforeCancel;
+
+    /**
+     * 按完整回答的平均长度估计、断开上游后不再生成的 token 数
+     */
+    long tokensSaved;
+
+    double averageCompletionTokens;
+}
@@ -0,0 +1,20 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+/**
+ * 一类大模型调用的token用量
+ */
+@Value
+public class TokenUsage {
+
+    long calls;
+
+    /**
+     * 其中上游没有返回usage字段（如流式响应）、按文本长度估算用量的次数
+     */
+    long estimatedCalls;
+
+    double averagePromptTokens;
+    double averageCompletionTokens;
+}
@@ -0,0 +1,29 @@
+package com.mathtutor.model;
+
+import lombok.Value;
+
+/**
+ * 辅导对话统计：本地脚本应答与大模型应答的占比和延迟分位数
+ */
+@Value
+public class TutoringStats {
+
+    long turns;
+    long localTurns;
+    long llmTurns;
+
+    /**
+     * 本地应答占比（0-1）
+     */
+    double localFraction;
+
+    double localP50Micros;
+    double localP95Micros;
+    double localP99Micros;
+
+    double llmP50Millis;
+    double llmP95Millis;
+    double llmP99Millis;
+
+    int activeSessions;
+}
@@ -0,0 +1,104 @@
+package com.mathtutor.pregeneration;
+
+import java.time.Duration;
+
+/**
+ * 自适应并发限制（加性增、乘性减）
+ *
+ * 每成功一次，并发限额增加 1/限额（一轮请求全部成功后约增加 1），不超过上限；
+ * 上游限流时限额减半（不低于 1），并在退避时长内暂停发放许可，连续限流时退避时长加倍。
+ * 同一退避期内陆续返回的限流（同一批请求）只减半一次。
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int maxLimit;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private double limit;
+    private int inFlight;
+    private long pausedUntil;
+    private int consecutiveRateLimits;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit, Duration baseBackoff, Duration maxBackoff) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.max(1, Math.min(initialLimit, this.maxLimit));
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = Math.max(maxBackoff.toNanos(), baseBackoffNanos);
+        this.pausedUntil = System.nanoTime();
+    }
+
+    /**
+     * 等待一个许可
+     * @param maxWait 最长等待时间
+     * @return 超时未获得许可时返回 false
+     */
+    public synchronized boolean tryAcquire(Duration maxWait) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            long now = System.nanoTime();
+            long paused = pausedUntil - now;
+            if (paused <= 0 && inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+                return false;
+            }
+            long waitNanos = paused > 0 ? Math.min(paused, remaining) : remaining;
+            wait(Math.max(1, waitNanos / 1_000_000));
+        }
+    }
+
+    /**
+     * 请求成功完成
+     */
+    public synchronized void onSuccess() {
+        inFlight--;
+        consecutiveRateLimits = 0;
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+        notifyAll();
+    }
+
+    /**
+     * 上游限流
+     */
+    public synchronized void onRateLimited() {
+        inFlight--;
+        long now = System.nanoTime();
+        if (now - pausedUntil >= 0) {
+            limit = Math.max(1, limit / 2);
+            long backoff = baseBackoffNanos << Math.min(consecutiveRateLimits, 20);
+            pausedUntil = now + Math.min(backoff, maxBackoffNanos);
+            consecutiveRateLimits++;
+        }
+        notifyAll();
+    }
+
+    /**
+     * 请求因其他原因失败，不调整限额
+     */
+    public synchronized void onFailure() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * 当前并发限额
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 是否处于限流退避期
+     */
+    public synchronized boolean isBackingOff() {
+        return pausedUntil - System.nanoTime() > 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mathtutor.pregeneration;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预生成任务断点
+ *
+ * 已生成的分析本身逐份持久化，重启后扫描题库即可得知哪些题目已完成（生成时间不早于本轮开始时间），
+ * 断点只需记录本轮的身份、累计运行时长与 token 用量，以及已放弃的题目；每完成一道题写一次。
+ * 状态仍为 RUNNING 的断点说明上次运行异常退出。
+ */
+@Data
+public class PregenerationCheckpoint {
+
+    private String runId;
+
+    private String promptVersion;
+
+    private PregenerationStatus status;
+
+    /**
+     * 首次开始时间（毫秒时间戳），此后生成的分析视为本轮结果
+     */
+    private long startedAt;
+
+    /**
+     * 累计实际运行时长（毫秒），用于计算吞吐量
+     */
+    private long activeMillis;
+
+    private int total;
+    private int skipped;
+    private int completed;
+    private int failed;
+    private int rateLimited;
+
+    private long promptTokens;
+    private long completionTokens;
+
+    /**
+     * 达到最大尝试次数后放弃的题目，本轮不再尝试
+     */
+    private List<String> failedProblemIds = new ArrayList<>();
+
+    public PregenerationCheckpoint() {
+    }
+
+    public PregenerationCheckpoint(String runId, String promptVersion, long startedAt) {
+        this.runId = runId;
+        this.promptVersion = promptVersion;
+        this.startedAt = startedAt;
+        this.status = PregenerationStatus.RUNNING;
+    }
+}
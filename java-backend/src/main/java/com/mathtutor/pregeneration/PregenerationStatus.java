@@ -0,0 +1,27 @@
+package com.mathtutor.pregeneration;
+
+/**
+ * 预生成任务状态
+ */
+public enum PregenerationStatus {
+
+    /** 本进程尚未运行过 */
+    IDLE,
+
+    RUNNING,
+
+    /** 已请求停止，等待进行中的分析完成 */
+    STOPPING,
+
+    /** 全部题目已有当前版本的分析 */
+    COMPLETED,
+
+    /** 手动停止，下次从断点继续 */
+    STOPPED,
+
+    /** 运行时段结束，下次从断点继续 */
+    OUT_OF_WINDOW,
+
+    /** 本轮累计花费达到上限而结束，下次开始新一轮，已生成的分析不再重复生成 */
+    BUDGET_EXHAUSTED
+}
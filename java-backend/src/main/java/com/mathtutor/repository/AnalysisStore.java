@@ -0,0 +1,257 @@
+package com.mathtutor.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.model.StoredAnalysis;
+import com.mathtutor.search.dedup.NearDuplicateIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 预生成分析存储
+ *
+ * 每道题一个 JSON 文件（先写临时文件再原子替换，进程崩溃不会留下半个文件），
+ * 启动时全部读入内存，按题目编号和题目全文摘要两种方式查找；
+ * 记录了题目全文的分析同时收入近似重复索引，格式略有不同的同一道题也能找到。
+ * 在线生成的分析（编号以 {@value #LIVE_PREFIX} 开头）数量有上限并会过期，按生成先后淘汰，
+ * 连同文件一起删除；预生成的分析不受影响。
+ * 未配置目录时只保存在内存中。
+ */
+@Slf4j
+@Component
+public class AnalysisStore {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * 在线生成的分析的编号前缀
+     */
+    public static final String LIVE_PREFIX = "live-";
+
+    private final Path directory;
+    private final int maxLive;
+    private final Duration liveRetention;
+    private final Map<String, StoredAnalysis> byProblem = new ConcurrentHashMap<>();
+    private final Map<String, StoredAnalysis> byQuestion = new ConcurrentHashMap<>();
+    private final NearDuplicateIndex nearDuplicates = new NearDuplicateIndex();
+
+    /**
+     * 在线分析的编号与生成时间，按生成先后排列；在 synchronized (live) 下访问
+     */
+    private final Map<String, Long> live = new LinkedHashMap<>();
+
+    @Autowired
+    public AnalysisStore(AnalysisProperties properties) {
+        this(properties.getStoreDirectory() == null || properties.getStoreDirectory().isBlank()
+            ? null : Path.of(properties.getStoreDirectory()),
+            properties.getMaxLiveResults(), properties.getLiveResultRetention());
+    }
+
+    public AnalysisStore(Path directory) {
+        this(directory, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maxLive 保留的在线分析数上限
+     * @param liveRetention 在线分析的保留时长，为空表示不过期
+     */
+    public AnalysisStore(Path directory, int maxLive, Duration liveRetention) {
+        this.directory = directory;
+        this.maxLive = Math.max(0, maxLive);
+        this.liveRetention = liveRetention;
+        if (directory != null && Files.isDirectory(directory)) {
+            load();
+        }
+    }
+
+    /**
+     * 查找某道题在指定提示词版本下的分析
+     * @return 不存在或版本不一致时返回 null
+     */
+    public StoredAnalysis find(String problemId, String promptVersion) {
+        return valid(byProblem.get(problemId), promptVersion);
+    }
+
+    /**
+     * 按题目全文摘要（见 {@link #questionKey}）查找分析
+     * @return 不存在或版本不一致时返回 null
+     */
+    public StoredAnalysis findByQuestion(String questionKey, String promptVersion) {
+        return valid(byQuestion.get(questionKey), promptVersion);
+    }
+
+    /**
+     * 查找与题目相同、只是格式不同的已存分析（见 {@link NearDuplicateIndex}）
+     * @return 题目编号，没有时返回 null
+     */
+    public String findNearDuplicate(String questionText) {
+        return nearDuplicates.find(questionText);
+    }
+
+    /**
+     * 保存分析，同一道题的旧分析被替换
+     */
+    public void save(StoredAnalysis analysis) throws IOException {
+        if (directory != null) {
+            Files.createDirectories(directory);
+            Path target = directory.resolve(fileName(analysis.getProblemId()));
+            Path temp = directory.resolve(target.getFileName() + ".tmp");
+            Files.write(temp, MAPPER.writeValueAsBytes(analysis));
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        index(analysis);
+        if (isLive(analysis.getProblemId())) {
+            evictLive();
+        }
+    }
+
+    public int size() {
+        return byProblem.size();
+    }
+
+    /**
+     * 在线分析数
+     */
+    public int liveSize() {
+        synchronized (live) {
+            return live.size();
+        }
+    }
+
+    /**
+     * 题目全文的摘要：合并空白后取 SHA-256
+     */
+    public static String questionKey(String questionText) {
+        String normalized = questionText == null ? "" : questionText.trim().replaceAll("\\s+", " ");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void load() {
+        List<StoredAnalysis> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json")).forEach(file -> {
+                try {
+                    loaded.add(MAPPER.readValue(file.toFile(), StoredAnalysis.class));
+                } catch (IOException e) {
+                    log.warn("跳过无法读取的预生成分析文件 {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("读取预生成分析目录失败: {}", directory, e);
+        }
+        // 按生成先后收录，在线分析的淘汰顺序与生成顺序一致
+        loaded.sort(Comparator.comparingLong(StoredAnalysis::getGeneratedAt));
+        loaded.forEach(this::index);
+        evictLive();
+        log.info("已加载预生成分析{}份（其中在线分析{}份）: {}", byProblem.size(), liveSize(), directory);
+    }
+
+    /**
+     * 删除超出数量上限或已过期的在线分析，先删最早生成的
+     */
+    private void evictLive() {
+        long cutoff = liveRetention == null ? Long.MIN_VALUE : System.currentTimeMillis() - liveRetention.toMillis();
+        List<String> evicted = new ArrayList<>();
+        synchronized (live) {
+            Iterator<Map.Entry<String, Long>> entries = live.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Long> oldest = entries.next();
+                if (live.size() <= maxLive && oldest.getValue() >= cutoff) {
+                    break;
+                }
+                entries.remove();
+                evicted.add(oldest.getKey());
+            }
+        }
+        for (String problemId : evicted) {
+            StoredAnalysis removed = byProblem.remove(problemId);
+            if (removed != null && removed.getQuestionKey() != null) {
+                byQuestion.remove(removed.getQuestionKey(), removed);
+            }
+            nearDuplicates.remove(problemId);
+            if (directory != null) {
+                try {
+                    Files.deleteIfExists(directory.resolve(fileName(problemId)));
+                } catch (IOException e) {
+                    log.warn("删除过期的在线分析文件失败: {}", problemId, e);
+                }
+            }
+        }
+        if (!evicted.isEmpty()) {
+            log.debug("淘汰在线分析{}份", evicted.size());
+        }
+    }
+
+    private void index(StoredAnalysis analysis) {
+        if (analysis.getProblemId() == null) {
+            return;
+        }
+        StoredAnalysis previous = byProblem.put(analysis.getProblemId(), analysis);
+        if (previous != null && previous.getQuestionKey() != null) {
+            byQuestion.remove(previous.getQuestionKey(), previous);
+        }
+        if (analysis.getQuestionKey() != null) {
+            byQuestion.put(analysis.getQuestionKey(), analysis);
+        }
+        if (analysis.getQuestionText() != null) {
+            nearDuplicates.put(analysis.getProblemId(), analysis.getQuestionText());
+        } else if (previous != null) {
+            nearDuplicates.remove(analysis.getProblemId());
+        }
+        if (isLive(analysis.getProblemId())) {
+            synchronized (live) {
+                live.remove(analysis.getProblemId());
+                live.put(analysis.getProblemId(), analysis.getGeneratedAt());
+            }
+        }
+    }
+
+    private static boolean isLive(String problemId) {
+        return problemId != null && problemId.startsWith(LIVE_PREFIX);
+    }
+
+    private static StoredAnalysis valid(StoredAnalysis analysis, String promptVersion) {
+        return analysis != null && analysis.getPromptVersion() != null
+            && analysis.getPromptVersion().equals(promptVersion) ? analysis : null;
+    }
+
+    private static String fileName(String problemId) {
+        return problemId.replaceAll("[^A-Za-z0-9_.-]", "_") + ".json";
+    }
+}
@@ -0,0 +1,119 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.SolutionMethodDomain;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 知识点 / 解题方法的紧凑化处理
+ *
+ * 对象进入目录（{@link KnowledgeRepository}、{@link SolutionMethodCatalog}）时原地处理：
+ * - 字符串字段驻留（String.intern），各年级、各份定制目录中相同的模块、专题、考查要点等只保留一份；
+ *   驻留字符串不再被引用后可被回收，重新加载、淘汰年级不会造成累积
+ * - 列表替换为按实际长度分配的只读列表，空列表统一为共享的 List.of()
+ *
+ * 处理前后字段值相等（equals 不变），可重复处理。
+ * 领域对象的 add 方法遇到只读列表时会先复制，目录外的代码仍可照常修改对象。
+ */
+public final class CatalogCompactor {
+
+    /**
+     * List.of 创建的只读列表类型（1-2 个元素 / 其他长度），已是紧凑形式的列表不再复制
+     */
+    private static final Class<?> LIST_12 = List.of(1).getClass();
+    private static final Class<?> LIST_N = List.of().getClass();
+
+    private CatalogCompactor() {
+    }
+
+    /**
+     * 原地紧凑化一组知识点
+     */
+    public static void compactKnowledge(Collection<KnowledgeDomain> knowledge) {
+        for (KnowledgeDomain k : knowledge) {
+            compact(k);
+        }
+    }
+
+    /**
+     * 原地紧凑化一组解题方法
+     */
+    public static void compactMethods(Collection<SolutionMethodDomain> methods) {
+        for (SolutionMethodDomain m : methods) {
+            compact(m);
+        }
+    }
+
+    public static KnowledgeDomain compact(KnowledgeDomain k) {
+        k.setCode(intern(k.getCode()));
+        k.setName(intern(k.getName()));
+        k.setDescription(intern(k.getDescription()));
+        k.setModule(intern(k.getModule()));
+        k.setTopic(intern(k.getTopic()));
+        k.setAssessmentCore(intern(k.getAssessmentCore()));
+        k.setDetailedPoints(compactStrings(k.getDetailedPoints()));
+        return k;
+    }
+
+    public static SolutionMethodDomain compact(SolutionMethodDomain m) {
+        m.setCode(intern(m.getCode()));
+        m.setName(intern(m.getName()));
+        m.setDescription(intern(m.getDescription()));
+        m.setApplicableProblemTypes(intern(m.getApplicableProblemTypes()));
+        m.setApplicableKnowledgeSystems(compactList(m.getApplicableKnowledgeSystems()));
+        m.setSteps(compactStrings(m.getSteps()));
+        m.setKeyPoints(compactStrings(m.getKeyPoints()));
+        m.setPrecautions(compactStrings(m.getPrecautions()));
+        m.setRelatedMethods(compactList(m.getRelatedMethods()));
+        return m;
+    }
+
+    static String intern(String value) {
+        return value != null ? value.intern() : null;
+    }
+
+    /**
+     * 元素驻留后的只读紧凑列表；null 保持 null
+     */
+    static List<String> compactStrings(List<String> values) {
+        if (values == null || isCompact(values)) {
+            return values;
+        }
+        String[] interned = new String[values.size()];
+        for (int i = 0; i < interned.length; i++) {
+            interned[i] = intern(values.get(i));
+        }
+        return toList(interned);
+    }
+
+    /**
+     * 按实际长度分配的只读列表；null 保持 null
+     */
+    static <T> List<T> compactList(List<T> values) {
+        if (values == null || isCompact(values)) {
+            return values;
+        }
+        @SuppressWarnings("unchecked")
+        T[] array = (T[]) values.toArray();
+        return toList(array);
+    }
+
+    static boolean isCompact(List<?> values) {
+        return values.getClass() == LIST_N || values.getClass() == LIST_12;
+    }
+
+    @SafeVarargs
+    private static <T> List<T> toList(T... values) {
+        for (T value : values) {
+            if (value == null) {
+                // List.of 不允许 null 元素
+                return Collections.unmodifiableList(Arrays.asList(values));
+            }
+        }
+        return List.of(values);
+    }
+}
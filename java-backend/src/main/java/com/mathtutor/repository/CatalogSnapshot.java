@@ -0,0 +1,482 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.SolutionMethodCategory;
+import com.mathtutor.model.SolutionMethodDomain;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 知识点 / 解题方法二进制快照（只读）
+ *
+ * 文件布局（大端序，所有位置均为相对文件开头的字节偏移）：
+ * <pre>
+ * 头部 64 字节：魔数 "MTCK"、格式版本、生成时间、
+ *              字符串数 / 偏移表位置 / 数据位置、
+ *              知识点数 / 记录位置 / 编号索引位置、
+ *              方法数 / 记录位置 / 编号索引位置、
+ *              列表池位置 / 长度
+ * 字符串表：int[字符串数+1] 偏移 + UTF-8 数据，全文件去重
+ * 知识点记录：定长 40 字节，下标即稠密编号（字符串字段存字符串编号，父知识点存稠密编号）
+ * 知识点编号索引：int[]，按 code 排序的稠密编号，用于二分查找
+ * 方法记录：定长 44 字节；方法编号索引同上
+ * 列表池：int[]，每个列表为 [长度, 元素...]，记录中存列表在池中的下标
+ * </pre>
+ * 不存在的字符串、列表、编号、枚举取值统一记为 -1。
+ *
+ * 文件通过内存映射打开，访问时才解码对应字段，字符串解码后缓存；
+ * {@link KnowledgeView} / {@link MethodView} 是轻量访问器，只有调用 toDomain 时才创建完整对象。
+ */
+public class CatalogSnapshot {
+
+    static final int MAGIC = 0x4D54434B;
+    static final short FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int KNOWLEDGE_RECORD_SIZE = 40;
+    static final int METHOD_RECORD_SIZE = 44;
+    static final byte NONE = -1;
+
+    private static final GradeEnum[] GRADES = GradeEnum.values();
+    private static final KnowledgeSystemEnum[] SYSTEMS = KnowledgeSystemEnum.values();
+    private static final SolutionMethodCategory[] CATEGORIES = SolutionMethodCategory.values();
+
+    private final ByteBuffer buffer;
+    private final long createdAt;
+    private final int stringCount;
+    private final int stringOffsetsPos;
+    private final int stringDataPos;
+    private final int knowledgeCount;
+    private final int knowledgePos;
+    private final int knowledgeIndexPos;
+    private final int methodCount;
+    private final int methodPos;
+    private final int methodIndexPos;
+    private final int listPos;
+    private final int listSize;
+
+    /**
+     * 已解码的字符串，按需填充（并发下可能重复解码，结果相同，无需加锁）
+     */
+    private final String[] strings;
+
+    private CatalogSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是知识点快照文件");
+        }
+        short version = buffer.getShort(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("不支持的快照格式版本: " + version + "，当前版本: " + FORMAT_VERSION);
+        }
+        this.createdAt = buffer.getLong(8);
+        this.stringCount = buffer.getInt(16);
+        this.stringOffsetsPos = buffer.getInt(20);
+        this.stringDataPos = buffer.getInt(24);
+        this.knowledgeCount = buffer.getInt(28);
+        this.knowledgePos = buffer.getInt(32);
+        this.knowledgeIndexPos = buffer.getInt(36);
+        this.methodCount = buffer.getInt(40);
+        this.methodPos = buffer.getInt(44);
+        this.methodIndexPos = buffer.getInt(48);
+        this.listPos = buffer.getInt(52);
+        this.listSize = buffer.getInt(56);
+        checkSection(stringOffsetsPos, stringCount < 0 ? -1 : stringCount + 1L, Integer.BYTES);
+        checkSection(stringDataPos, buffer.getInt(stringOffsetsPos + stringCount * Integer.BYTES), 1);
+        checkSection(knowledgePos, knowledgeCount, KNOWLEDGE_RECORD_SIZE);
+        checkSection(knowledgeIndexPos, knowledgeCount, Integer.BYTES);
+        checkSection(methodPos, methodCount, METHOD_RECORD_SIZE);
+        checkSection(methodIndexPos, methodCount, Integer.BYTES);
+        checkSection(listPos, listSize, Integer.BYTES);
+        this.strings = new String[stringCount];
+    }
+
+    /**
+     * 校验头部记录的一段数据（起始位置、条数）完整落在文件内，避免截断或损坏的文件在读取时越界
+     */
+    private void checkSection(int position, long count, int recordSize) throws IOException {
+        if (position < HEADER_SIZE || count < 0 || position + count * recordSize > buffer.capacity()) {
+            throw new IOException("快照文件不完整或已损坏");
+        }
+    }
+
+    /**
+     * 内存映射打开快照文件
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 打开 Spring 资源：文件系统中的资源内存映射，其余（如 jar 内资源）读入堆内存
+     */
+    public static CatalogSnapshot open(Resource resource) throws IOException {
+        if (resource.isFile()) {
+            return open(resource.getFile().toPath());
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return wrap(in.readAllBytes());
+        }
+    }
+
+    /**
+     * 基于内存中的快照字节创建
+     */
+    public static CatalogSnapshot wrap(byte[] bytes) throws IOException {
+        return new CatalogSnapshot(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 快照生成时间（毫秒时间戳）
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int knowledgeCount() {
+        return knowledgeCount;
+    }
+
+    public int methodCount() {
+        return methodCount;
+    }
+
+    /**
+     * 按稠密编号访问知识点
+     */
+    public KnowledgeView knowledge(int id) {
+        if (id < 0 || id >= knowledgeCount) {
+            throw new IndexOutOfBoundsException("知识点编号越界: " + id);
+        }
+        return new KnowledgeView(knowledgePos + id * KNOWLEDGE_RECORD_SIZE, id);
+    }
+
+    /**
+     * 按编号二分查找知识点
+     * @return 访问器，不存在时返回 null
+     */
+    public KnowledgeView findKnowledge(String code) {
+        int id = binarySearch(knowledgeIndexPos, knowledgeCount, knowledgePos, KNOWLEDGE_RECORD_SIZE, code);
+        return id != NONE ? knowledge(id) : null;
+    }
+
+    /**
+     * 按稠密编号访问解题方法
+     */
+    public MethodView method(int id) {
+        if (id < 0 || id >= methodCount) {
+            throw new IndexOutOfBoundsException("解题方法编号越界: " + id);
+        }
+        return new MethodView(methodPos + id * METHOD_RECORD_SIZE, id);
+    }
+
+    /**
+     * 按编号二分查找解题方法
+     * @return 访问器，不存在时返回 null
+     */
+    public MethodView findMethod(String code) {
+        int id = binarySearch(methodIndexPos, methodCount, methodPos, METHOD_RECORD_SIZE, code);
+        return id != NONE ? method(id) : null;
+    }
+
+    /**
+     * 创建全部知识点对象（父知识点已关联）
+     */
+    public List<KnowledgeDomain> toKnowledgeList() {
+        List<KnowledgeDomain> result = new ArrayList<>(knowledgeCount);
+        for (int id = 0; id < knowledgeCount; id++) {
+            result.add(knowledge(id).toDomain());
+        }
+        for (int id = 0; id < knowledgeCount; id++) {
+            int parent = knowledge(id).parentId();
+            if (parent != NONE) {
+                result.get(id).setParentKnowledge(result.get(parent));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 只为某一年级的知识点创建对象，其他年级的记录不解码
+     * @param parentCodes 输出：知识点编号 -> 父知识点编号，由调用方与其他来源的数据一起关联
+     */
+    public List<KnowledgeDomain> toKnowledgeList(GradeEnum grade, Map<String, String> parentCodes) {
+        List<KnowledgeDomain> result = new ArrayList<>();
+        byte ordinal = (byte) grade.ordinal();
+        for (int id = 0; id < knowledgeCount; id++) {
+            int base = knowledgePos + id * KNOWLEDGE_RECORD_SIZE;
+            if (buffer.get(base + 32) != ordinal) {
+                continue;
+            }
+            KnowledgeView view = new KnowledgeView(base, id);
+            KnowledgeDomain k = view.toDomain();
+            int parent = view.parentId();
+            if (parent != NONE) {
+                parentCodes.put(k.getCode(), knowledge(parent).code());
+            }
+            result.add(k);
+        }
+        return result;
+    }
+
+    /**
+     * 创建全部解题方法对象（相关方法已关联）
+     */
+    public List<SolutionMethodDomain> toMethodList() {
+        List<SolutionMethodDomain> result = new ArrayList<>(methodCount);
+        for (int id = 0; id < methodCount; id++) {
+            result.add(method(id).toDomain());
+        }
+        for (int id = 0; id < methodCount; id++) {
+            int related = buffer.getInt(methodPos + id * METHOD_RECORD_SIZE + 32);
+            if (related != NONE) {
+                List<SolutionMethodDomain> relatedMethods = new ArrayList<>();
+                int count = listValue(related);
+                for (int i = 1; i <= count; i++) {
+                    relatedMethods.add(result.get(listValue(related + i)));
+                }
+                result.get(id).setRelatedMethods(relatedMethods);
+            }
+        }
+        return result;
+    }
+
+    String string(int id) {
+        if (id == NONE) {
+            return null;
+        }
+        String value = strings[id];
+        if (value == null) {
+            int start = buffer.getInt(stringOffsetsPos + id * Integer.BYTES);
+            int end = buffer.getInt(stringOffsetsPos + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringDataPos + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    private int listValue(int index) {
+        return buffer.getInt(listPos + index * Integer.BYTES);
+    }
+
+    private List<String> stringList(int list) {
+        if (list == NONE) {
+            return null;
+        }
+        int count = listValue(list);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            values.add(string(listValue(list + i)));
+        }
+        return values;
+    }
+
+    private int binarySearch(int indexPos, int count, int recordPos, int recordSize, String code) {
+        if (code == null) {
+            return NONE;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = buffer.getInt(indexPos + mid * Integer.BYTES);
+            int cmp = String.valueOf(string(buffer.getInt(recordPos + id * recordSize))).compareTo(code);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return id;
+            }
+        }
+        return NONE;
+    }
+
+    private static <E> E enumValue(E[] values, byte ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
+    private static Integer smallInt(byte value) {
+        return value != NONE ? (int) value : null;
+    }
+
+    /**
+     * 知识点访问器：按需从快照中读取字段
+     */
+    public final class KnowledgeView {
+        private final int base;
+        private final int id;
+
+        private KnowledgeView(int base, int id) {
+            this.base = base;
+            this.id = id;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public String code() {
+            return string(buffer.getInt(base));
+        }
+
+        public String name() {
+            return string(buffer.getInt(base + 4));
+        }
+
+        public String description() {
+            return string(buffer.getInt(base + 8));
+        }
+
+        public String module() {
+            return string(buffer.getInt(base + 12));
+        }
+
+        public String topic() {
+            return string(buffer.getInt(base + 16));
+        }
+
+        public String assessmentCore() {
+            return string(buffer.getInt(base + 20));
+        }
+
+        /**
+         * 父知识点的稠密编号，没有时返回 -1
+         */
+        public int parentId() {
+            return buffer.getInt(base + 24);
+        }
+
+        public List<String> detailedPoints() {
+            List<String> points = stringList(buffer.getInt(base + 28));
+            return points != null ? Collections.unmodifiableList(points) : null;
+        }
+
+        public GradeEnum grade() {
+            return enumValue(GRADES, buffer.get(base + 32));
+        }
+
+        public KnowledgeSystemEnum knowledgeSystem() {
+            return enumValue(SYSTEMS, buffer.get(base + 33));
+        }
+
+        public Integer depthLevel() {
+            return smallInt(buffer.get(base + 34));
+        }
+
+        public Integer difficultyLevel() {
+            return smallInt(buffer.get(base + 35));
+        }
+
+        /**
+         * 创建完整的知识点对象（不关联父知识点）
+         */
+        public KnowledgeDomain toDomain() {
+            KnowledgeDomain k = new KnowledgeDomain(code(), name(), grade(), description(),
+                knowledgeSystem(), module(), topic(), assessmentCore());
+            k.setDetailedPoints(stringList(buffer.getInt(base + 28)));
+            k.setDepthLevel(depthLevel());
+            k.setDifficultyLevel(difficultyLevel());
+            return k;
+        }
+    }
+
+    /**
+     * 解题方法访问器：按需从快照中读取字段
+     */
+    public final class MethodView {
+        private final int base;
+        private final int id;
+
+        private MethodView(int base, int id) {
+            this.base = base;
+            this.id = id;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public String code() {
+            return string(buffer.getInt(base));
+        }
+
+        public String name() {
+            return string(buffer.getInt(base + 4));
+        }
+
+        public String description() {
+            return string(buffer.getInt(base + 8));
+        }
+
+        public String applicableProblemTypes() {
+            return string(buffer.getInt(base + 12));
+        }
+
+        public List<KnowledgeSystemEnum> applicableKnowledgeSystems() {
+            int list = buffer.getInt(base + 16);
+            if (list == NONE) {
+                return null;
+            }
+            int count = listValue(list);
+            List<KnowledgeSystemEnum> systems = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                systems.add(enumValue(SYSTEMS, (byte) listValue(list + i)));
+            }
+            return systems;
+        }
+
+        public SolutionMethodCategory methodCategory() {
+            return enumValue(CATEGORIES, buffer.get(base + 36));
+        }
+
+        public GradeEnum applicableGradeFrom() {
+            return enumValue(GRADES, buffer.get(base + 37));
+        }
+
+        public GradeEnum applicableGradeTo() {
+            return enumValue(GRADES, buffer.get(base + 38));
+        }
+
+        public Integer difficultyLevel() {
+            return smallInt(buffer.get(base + 39));
+        }
+
+        /**
+         * 创建完整的解题方法对象（不关联相关方法）
+         */
+        public SolutionMethodDomain toDomain() {
+            SolutionMethodDomain m = new SolutionMethodDomain();
+            m.setCode(code());
+            m.setName(name());
+            m.setDescription(description());
+            m.setApplicableProblemTypes(applicableProblemTypes());
+            m.setApplicableKnowledgeSystems(applicableKnowledgeSystems());
+            m.setSteps(stringList(buffer.getInt(base + 20)));
+            m.setKeyPoints(stringList(buffer.getInt(base + 24)));
+            m.setPrecautions(stringList(buffer.getInt(base + 28)));
+            m.setRelatedMethods(buffer.getInt(base + 32) != NONE ? new ArrayList<>() : null);
+            m.setMethodCategory(methodCategory());
+            m.setApplicableGradeFrom(applicableGradeFrom());
+            m.setApplicableGradeTo(applicableGradeTo());
+            m.setDifficultyLevel(difficultyLevel());
+            return m;
+        }
+    }
+}
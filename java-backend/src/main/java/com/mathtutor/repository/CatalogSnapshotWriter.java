@@ -0,0 +1,278 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.init.SolutionMethodInitializer;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.SolutionMethodDomain;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.mathtutor.repository.CatalogSnapshot.*;
+
+/**
+ * 知识点 / 解题方法二进制快照写入器
+ *
+ * 在构建（process-classes 阶段）或发布数据时运行，格式见 {@link CatalogSnapshot}。
+ * 命令行用法：CatalogSnapshotWriter &lt;输出文件&gt; [外部知识点目录]
+ */
+@Slf4j
+public class CatalogSnapshotWriter {
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private final IntBuffer lists = new IntBuffer();
+
+    /**
+     * 把知识点与解题方法写成快照
+     */
+    public static void write(List<KnowledgeDomain> knowledge, List<SolutionMethodDomain> methods,
+                             OutputStream out) throws IOException {
+        out.write(toBytes(knowledge, methods));
+    }
+
+    /**
+     * 把知识点与解题方法编码为快照字节
+     */
+    public static byte[] toBytes(List<KnowledgeDomain> knowledge, List<SolutionMethodDomain> methods) {
+        return new CatalogSnapshotWriter().encode(knowledge, methods);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: CatalogSnapshotWriter <输出文件> [外部知识点目录]");
+            System.exit(1);
+        }
+        KnowledgeProperties properties = new KnowledgeProperties();
+        properties.setSnapshot(null);
+        properties.setDirectory(args.length > 1 ? args[1] : null);
+        List<KnowledgeDomain> knowledge = new KnowledgeJsonLoader().load(properties);
+        List<SolutionMethodDomain> methods = SolutionMethodInitializer.initializeSolutionMethods();
+
+        Path output = Path.of(args[0]);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        byte[] bytes = toBytes(knowledge, methods);
+        Files.write(output, bytes);
+        log.info("知识点快照已生成: {}（知识点{}个，解题方法{}个，{}字节）",
+            output, knowledge.size(), methods.size(), bytes.length);
+    }
+
+    private byte[] encode(List<KnowledgeDomain> knowledge, List<SolutionMethodDomain> methods) {
+        Map<KnowledgeDomain, Integer> knowledgeIds = new IdentityHashMap<>();
+        Map<String, Integer> knowledgeIdByCode = new HashMap<>();
+        for (int i = 0; i < knowledge.size(); i++) {
+            knowledgeIds.put(knowledge.get(i), i);
+            knowledgeIdByCode.putIfAbsent(knowledge.get(i).getCode(), i);
+        }
+        Map<SolutionMethodDomain, Integer> methodIds = new IdentityHashMap<>();
+        for (int i = 0; i < methods.size(); i++) {
+            methodIds.put(methods.get(i), i);
+        }
+
+        ByteBuffer knowledgeRecords = ByteBuffer.allocate(knowledge.size() * KNOWLEDGE_RECORD_SIZE);
+        for (KnowledgeDomain k : knowledge) {
+            KnowledgeDomain parent = k.getParentKnowledge();
+            Integer parentId = parent == null ? null
+                : knowledgeIds.getOrDefault(parent, knowledgeIdByCode.get(parent.getCode()));
+            knowledgeRecords.putInt(string(k.getCode()))
+                .putInt(string(k.getName()))
+                .putInt(string(k.getDescription()))
+                .putInt(string(k.getModule()))
+                .putInt(string(k.getTopic()))
+                .putInt(string(k.getAssessmentCore()))
+                .putInt(parentId != null ? parentId : NONE)
+                .putInt(stringList(k.getDetailedPoints()))
+                .put(ordinal(k.getGrade()))
+                .put(ordinal(k.getKnowledgeSystem()))
+                .put(smallInt(k.getDepthLevel()))
+                .put(smallInt(k.getDifficultyLevel()))
+                .putInt(0);
+        }
+
+        ByteBuffer methodRecords = ByteBuffer.allocate(methods.size() * METHOD_RECORD_SIZE);
+        for (SolutionMethodDomain m : methods) {
+            int systems = NONE;
+            if (m.getApplicableKnowledgeSystems() != null) {
+                systems = lists.size();
+                lists.add(m.getApplicableKnowledgeSystems().size());
+                m.getApplicableKnowledgeSystems().forEach(s -> lists.add(s != null ? s.ordinal() : NONE));
+            }
+            int related = NONE;
+            if (m.getRelatedMethods() != null) {
+                List<Integer> ids = new ArrayList<>();
+                for (SolutionMethodDomain r : m.getRelatedMethods()) {
+                    Integer id = methodIds.get(r);
+                    if (id != null) {
+                        ids.add(id);
+                    }
+                }
+                related = lists.size();
+                lists.add(ids.size());
+                ids.forEach(lists::add);
+            }
+            methodRecords.putInt(string(m.getCode()))
+                .putInt(string(m.getName()))
+                .putInt(string(m.getDescription()))
+                .putInt(string(m.getApplicableProblemTypes()))
+                .putInt(systems)
+                .putInt(stringList(m.getSteps()))
+                .putInt(stringList(m.getKeyPoints()))
+                .putInt(stringList(m.getPrecautions()))
+                .putInt(related)
+                .put(ordinal(m.getMethodCategory()))
+                .put(ordinal(m.getApplicableGradeFrom()))
+                .put(ordinal(m.getApplicableGradeTo()))
+                .put(smallInt(m.getDifficultyLevel()))
+                .putInt(0);
+        }
+
+        int[] knowledgeIndex = sortedByCode(knowledge.size(), i -> knowledge.get(i).getCode());
+        int[] methodIndex = sortedByCode(methods.size(), i -> methods.get(i).getCode());
+
+        int stringDataSize = 0;
+        for (byte[] s : strings) {
+            stringDataSize += s.length;
+        }
+
+        int stringOffsetsPos = HEADER_SIZE;
+        int stringDataPos = stringOffsetsPos + (strings.size() + 1) * Integer.BYTES;
+        int knowledgePos = align(stringDataPos + stringDataSize);
+        int knowledgeIndexPos = knowledgePos + knowledgeRecords.capacity();
+        int methodPos = knowledgeIndexPos + knowledgeIndex.length * Integer.BYTES;
+        int methodIndexPos = methodPos + methodRecords.capacity();
+        int listPos = methodIndexPos + methodIndex.length * Integer.BYTES;
+        int total = listPos + lists.size() * Integer.BYTES;
+
+        ByteBuffer out = ByteBuffer.allocate(total);
+        out.putInt(MAGIC)
+            .putShort(FORMAT_VERSION)
+            .putShort((short) 0)
+            .putLong(System.currentTimeMillis())
+            .putInt(strings.size())
+            .putInt(stringOffsetsPos)
+            .putInt(stringDataPos)
+            .putInt(knowledge.size())
+            .putInt(knowledgePos)
+            .putInt(knowledgeIndexPos)
+            .putInt(methods.size())
+            .putInt(methodPos)
+            .putInt(methodIndexPos)
+            .putInt(listPos)
+            .putInt(lists.size())
+            .putInt(0);
+
+        out.position(stringOffsetsPos);
+        int offset = 0;
+        for (byte[] s : strings) {
+            out.putInt(offset);
+            offset += s.length;
+        }
+        out.putInt(offset);
+        for (byte[] s : strings) {
+            out.put(s);
+        }
+
+        out.position(knowledgePos);
+        out.put(knowledgeRecords.flip());
+        for (int id : knowledgeIndex) {
+            out.putInt(id);
+        }
+        out.put(methodRecords.flip());
+        for (int id : methodIndex) {
+            out.putInt(id);
+        }
+        for (int i = 0; i < lists.size(); i++) {
+            out.putInt(lists.get(i));
+        }
+        return out.array();
+    }
+
+    private int string(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        return stringIds.computeIfAbsent(value, v -> {
+            strings.add(v.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+    private int stringList(List<String> values) {
+        if (values == null) {
+            return NONE;
+        }
+        int[] ids = new int[values.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = string(values.get(i));
+        }
+        int position = lists.size();
+        lists.add(ids.length);
+        for (int id : ids) {
+            lists.add(id);
+        }
+        return position;
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value != null ? (byte) value.ordinal() : NONE;
+    }
+
+    private static byte smallInt(Integer value) {
+        return value != null ? value.byteValue() : NONE;
+    }
+
+    private static int align(int position) {
+        return (position + 3) & ~3;
+    }
+
+    private static int[] sortedByCode(int count, java.util.function.IntFunction<String> code) {
+        Integer[] ids = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, Comparator.comparing(i -> String.valueOf(code.apply(i))));
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = ids[i];
+        }
+        return result;
+    }
+
+    /**
+     * 可增长的 int 数组
+     */
+    private static final class IntBuffer {
+        private int[] values = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
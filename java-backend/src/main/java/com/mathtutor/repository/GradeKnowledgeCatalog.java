@@ -0,0 +1,338 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 分年级知识点目录
+ *
+ * 每个年级由一个 {@link KnowledgeProvider} 提供数据，首次访问时才加载并建立独立的 {@link KnowledgeRepository}。
+ * 不同年级可以并发加载，同一年级的并发访问只会触发一次加载（按年级加锁的双重检查）。
+ * 每个已加载年级按 {@link KnowledgeFootprint} 估算内存占用；超出预算或长时间未访问的非常驻年级会被淘汰，
+ * 再次访问时重新加载。
+ * 全局 {@link KnowledgeRepository} 只包含常驻年级（与这里的年级仓库共享同一批对象），其他年级只在被请求时加载。
+ */
+@Slf4j
+@Component
+public class GradeKnowledgeCatalog {
+
+    private static final KnowledgeRepository EMPTY = new KnowledgeRepository(List.of());
+
+    private final Map<GradeEnum, GradeSlot> slots = new EnumMap<>(GradeEnum.class);
+    private final Long memoryBudget;
+    private final Long idleTimeoutNanos;
+    private final Object evictionLock = new Object();
+    private final AtomicLong lastIdleCheck = new AtomicLong(System.nanoTime());
+
+    @Autowired
+    public GradeKnowledgeCatalog(KnowledgeProperties properties, ObjectProvider<KnowledgeProvider> providers) {
+        this(properties, providers.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * @param providers 自定义提供者，覆盖对应年级的默认 JSON 提供者
+     */
+    public GradeKnowledgeCatalog(KnowledgeProperties properties, Collection<KnowledgeProvider> providers) {
+        KnowledgeProperties.Grades config = properties.getGrades();
+        this.memoryBudget = config.getMemoryBudget() != null ? config.getMemoryBudget().toBytes() : null;
+        Duration idleTimeout = config.getIdleTimeout();
+        this.idleTimeoutNanos = idleTimeout != null ? idleTimeout.toNanos() : null;
+
+        KnowledgeJsonLoader loader = new KnowledgeJsonLoader();
+        for (GradeEnum grade : GradeEnum.values()) {
+            Supplier<List<KnowledgeDomain>> fallback = grade == GradeEnum.SEVENTH_GRADE
+                ? GradeSevenKnowledgeInitializer::initializeGradeSevenKnowledge : List::of;
+            KnowledgeProvider provider = new JsonKnowledgeProvider(grade, properties, loader, fallback);
+            slots.put(grade, new GradeSlot(provider, config.getPinned().contains(grade)));
+        }
+        for (KnowledgeProvider provider : providers) {
+            GradeSlot previous = slots.get(provider.getGrade());
+            slots.put(provider.getGrade(), new GradeSlot(provider, previous.pinned));
+        }
+    }
+
+    /**
+     * 获取年级的知识点仓库，未加载时同步加载；加载失败返回空仓库，下次访问重试
+     */
+    public KnowledgeRepository get(GradeEnum grade) {
+        GradeSlot slot = slots.get(grade);
+        slot.touch();
+        KnowledgeRepository repository = slot.repository;
+        if (repository == null) {
+            synchronized (slot) {
+                repository = slot.repository;
+                if (repository == null) {
+                    repository = slot.load();
+                }
+            }
+            if (repository == null) {
+                return EMPTY;
+            }
+            enforceBudget(grade);
+        }
+        evictIdleIfDue();
+        return repository;
+    }
+
+    /**
+     * 常驻年级的全部知识点，未加载的先加载
+     */
+    public List<KnowledgeDomain> residentKnowledge() {
+        List<KnowledgeDomain> knowledge = new ArrayList<>();
+        for (GradeSlot slot : slots.values()) {
+            if (slot.pinned) {
+                knowledge.addAll(get(slot.grade()).findAll());
+            }
+        }
+        return knowledge;
+    }
+
+    /**
+     * 按编号在各年级中查找知识点：先查已加载的年级，找不到时按年级顺序逐个加载其余年级，找到即停止
+     * @return 知识点，各年级都没有时返回 null
+     */
+    public KnowledgeDomain findByCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        for (GradeSlot slot : slots.values()) {
+            KnowledgeRepository repository = slot.repository;
+            KnowledgeDomain k = repository != null ? repository.findByCode(code) : null;
+            if (k != null) {
+                slot.touch();
+                return k;
+            }
+        }
+        for (GradeSlot slot : slots.values()) {
+            if (slot.repository == null) {
+                KnowledgeDomain k = get(slot.grade()).findByCode(code);
+                if (k != null) {
+                    return k;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 年级是否已加载
+     */
+    public boolean isLoaded(GradeEnum grade) {
+        return slots.get(grade).repository != null;
+    }
+
+    /**
+     * 淘汰年级（常驻年级也可显式淘汰），下次访问重新加载
+     * @return 淘汰前是否已加载
+     */
+    public boolean evict(GradeEnum grade) {
+        return slots.get(grade).unload();
+    }
+
+    /**
+     * 淘汰超过空闲时长未访问的非常驻年级
+     * @return 淘汰的年级数
+     */
+    public int evictIdle() {
+        if (idleTimeoutNanos == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (GradeSlot slot : slots.values()) {
+            if (!slot.pinned && slot.repository != null && now - slot.lastAccessNanos > idleTimeoutNanos && slot.unload()) {
+                log.info("{}知识点空闲超过{}，已淘汰", slot.grade().getDisplayName(), Duration.ofNanos(idleTimeoutNanos));
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 已加载年级的估算内存占用总和（字节）
+     */
+    public long getEstimatedBytes() {
+        long total = 0;
+        for (GradeSlot slot : slots.values()) {
+            total += slot.estimatedBytes;
+        }
+        return total;
+    }
+
+    /**
+     * 各年级的加载与内存统计
+     */
+    public List<GradeStats> getStats() {
+        List<GradeStats> stats = new ArrayList<>(slots.size());
+        for (GradeSlot slot : slots.values()) {
+            KnowledgeRepository repository = slot.repository;
+            stats.add(new GradeStats(slot.grade(), repository != null, repository != null ? repository.size() : 0,
+                slot.estimatedBytes, slot.loads.get(), slot.accesses.sum(), slot.pinned));
+        }
+        return stats;
+    }
+
+    /**
+     * 外部数据变化后重新加载：先加载全部常驻年级，任一年级失败时抛出异常并保留现有数据；
+     * 成功后替换常驻年级、淘汰其他已加载年级，其他年级下次访问时按新数据重新加载
+     * @return 常驻年级的全部知识点
+     */
+    public List<KnowledgeDomain> reload() throws IOException {
+        Map<GradeEnum, List<KnowledgeDomain>> fresh = new EnumMap<>(GradeEnum.class);
+        for (GradeSlot slot : slots.values()) {
+            if (slot.pinned) {
+                fresh.put(slot.grade(), slot.provider.load());
+            }
+        }
+        List<KnowledgeDomain> resident = new ArrayList<>();
+        for (GradeSlot slot : slots.values()) {
+            synchronized (slot) {
+                slot.unload();
+                List<KnowledgeDomain> knowledge = fresh.get(slot.grade());
+                if (knowledge != null) {
+                    resident.addAll(slot.install(knowledge, System.nanoTime()).findAll());
+                }
+            }
+        }
+        return resident;
+    }
+
+    private void enforceBudget(GradeEnum justLoaded) {
+        if (memoryBudget == null) {
+            return;
+        }
+        synchronized (evictionLock) {
+            long total = getEstimatedBytes();
+            while (total > memoryBudget) {
+                GradeSlot victim = null;
+                for (GradeSlot slot : slots.values()) {
+                    if (slot.pinned || slot.grade() == justLoaded || slot.repository == null) {
+                        continue;
+                    }
+                    if (victim == null || slot.lastAccessNanos < victim.lastAccessNanos) {
+                        victim = slot;
+                    }
+                }
+                if (victim == null) {
+                    log.warn("知识点内存估算{}字节超出预算{}字节，但没有可淘汰的年级", total, memoryBudget);
+                    return;
+                }
+                long bytes = victim.estimatedBytes;
+                if (victim.unload()) {
+                    log.info("知识点内存超出预算，淘汰最久未访问的{}（约{}KB）", victim.grade().getDisplayName(), bytes / 1024);
+                }
+                total = getEstimatedBytes();
+            }
+        }
+    }
+
+    private void evictIdleIfDue() {
+        if (idleTimeoutNanos == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastIdleCheck.get();
+        // 最多每半个空闲时长检查一次，避免每次访问都遍历
+        if (now - last > idleTimeoutNanos / 2 && lastIdleCheck.compareAndSet(last, now)) {
+            evictIdle();
+        }
+    }
+
+    /**
+     * 单个年级的加载状态
+     */
+    private static final class GradeSlot {
+        private final KnowledgeProvider provider;
+        private final boolean pinned;
+        private final LongAdder accesses = new LongAdder();
+        private final AtomicInteger loads = new AtomicInteger();
+        private volatile KnowledgeRepository repository;
+        private volatile long estimatedBytes;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        GradeSlot(KnowledgeProvider provider, boolean pinned) {
+            this.provider = provider;
+            this.pinned = pinned;
+        }
+
+        GradeEnum grade() {
+            return provider.getGrade();
+        }
+
+        void touch() {
+            accesses.increment();
+            lastAccessNanos = System.nanoTime();
+        }
+
+        /**
+         * 调用方持有本对象的锁
+         */
+        KnowledgeRepository load() {
+            long start = System.nanoTime();
+            List<KnowledgeDomain> knowledge;
+            try {
+                knowledge = provider.load();
+            } catch (Exception e) {
+                log.error("加载{}知识点失败", grade().getDisplayName(), e);
+                return null;
+            }
+            return install(knowledge, start);
+        }
+
+        /**
+         * 调用方持有本对象的锁
+         */
+        KnowledgeRepository install(List<KnowledgeDomain> knowledge, long start) {
+            KnowledgeRepository loaded = new KnowledgeRepository(knowledge);
+            estimatedBytes = KnowledgeFootprint.estimate(loaded.findAll());
+            loads.incrementAndGet();
+            repository = loaded;
+            log.info("{}知识点已加载: {}个，约{}KB，耗时{}ms", grade().getDisplayName(), loaded.size(),
+                estimatedBytes / 1024, (System.nanoTime() - start) / 1_000_000);
+            return loaded;
+        }
+
+        synchronized boolean unload() {
+            if (repository == null) {
+                return false;
+            }
+            repository = null;
+            estimatedBytes = 0;
+            return true;
+        }
+    }
+
+    /**
+     * 年级统计
+     */
+    @Value
+    public static class GradeStats {
+        GradeEnum grade;
+        boolean loaded;
+        int size;
+        long estimatedBytes;
+        int loadCount;
+        long accessCount;
+        boolean pinned;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 基于 JSON 文件的分年级知识点提供者
+ *
+ * 内置数据有二进制快照时只解码快照中本年级的记录，否则按文件名约定读取 knowledge/grade{级别}_*.json；
+ * 外部目录只读取以 grade{级别}_ 开头的文件。其他年级的文件不会被解析。
+ * 没有找到数据文件时使用内置兜底数据（如有）。
+ */
+@Slf4j
+public class JsonKnowledgeProvider implements KnowledgeProvider {
+
+    private final GradeEnum grade;
+    private final KnowledgeProperties properties;
+    private final KnowledgeJsonLoader loader;
+    private final Supplier<List<KnowledgeDomain>> fallback;
+
+    public JsonKnowledgeProvider(GradeEnum grade, KnowledgeProperties properties) {
+        this(grade, properties, new KnowledgeJsonLoader(), List::of);
+    }
+
+    public JsonKnowledgeProvider(GradeEnum grade, KnowledgeProperties properties, KnowledgeJsonLoader loader,
+                                 Supplier<List<KnowledgeDomain>> fallback) {
+        this.grade = grade;
+        this.properties = properties;
+        this.loader = loader;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public GradeEnum getGrade() {
+        return grade;
+    }
+
+    @Override
+    public List<KnowledgeDomain> load() throws IOException {
+        List<KnowledgeDomain> loaded = loader.load(properties, grade);
+
+        List<KnowledgeDomain> knowledge = new ArrayList<>(loaded.size());
+        for (KnowledgeDomain k : loaded) {
+            if (k.getGrade() == grade) {
+                knowledge.add(k);
+            } else {
+                log.warn("知识点{}的年级为{}，不属于{}数据文件，已忽略", k.getCode(), k.getGrade(), grade.getDisplayName());
+            }
+        }
+        if (knowledge.isEmpty()) {
+            knowledge = fallback.get();
+        }
+        return knowledge;
+    }
+}
@@ -0,0 +1,168 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.model.KnowledgeDomain;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识点数据文件监听器
+ *
+ * 监听 mathtutor.knowledge.directory 目录下 *.json 的新增、修改和删除，
+ * 变化平息（debounce）后在后台线程重新加载：
+ * 1. {@link GradeKnowledgeCatalog#reload} 重新加载常驻年级并淘汰其他年级，任一文件出错则放弃本次加载，继续使用原有数据
+ * 2. {@link KnowledgeRepository#reload} 以新的常驻年级数据构建新索引后原子替换
+ * 3. 发布 {@link KnowledgeReloadedEvent}，由全文索引、语义索引、片段缓存等同步
+ */
+@Slf4j
+@Component
+public class KnowledgeFileWatcher {
+
+    private final KnowledgeRepository repository;
+    private final GradeKnowledgeCatalog grades;
+    private final KnowledgeProperties properties;
+    private final ApplicationEventPublisher publisher;
+    private final Object reloadLock = new Object();
+
+    private volatile WatchService watchService;
+    private volatile Thread watchThread;
+
+    public KnowledgeFileWatcher(KnowledgeRepository repository, GradeKnowledgeCatalog grades,
+                                KnowledgeProperties properties, ApplicationEventPublisher publisher) {
+        this.repository = repository;
+        this.grades = grades;
+        this.properties = properties;
+        this.publisher = publisher;
+    }
+
+    /**
+     * 启动监听（未配置外部目录或未启用热加载时不做任何事）
+     */
+    @PostConstruct
+    public void start() {
+        String directory = properties.getDirectory();
+        if (!properties.getWatch().isEnabled() || directory == null || directory.isBlank()) {
+            return;
+        }
+        Path dir = Path.of(directory);
+        if (!Files.isDirectory(dir)) {
+            log.warn("知识点数据目录不存在，未启用热加载: {}", dir.toAbsolutePath());
+            return;
+        }
+        try {
+            WatchService service = dir.getFileSystem().newWatchService();
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchService = service;
+        } catch (IOException e) {
+            log.error("知识点数据目录监听启动失败: {}", e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(this::watchLoop, "knowledge-watcher");
+        thread.setDaemon(true);
+        watchThread = thread;
+        thread.start();
+        log.info("知识点热加载已启用，监听目录: {}", dir.toAbsolutePath());
+    }
+
+    /**
+     * 停止监听
+     */
+    @PreDestroy
+    public void stop() {
+        Thread thread = watchThread;
+        watchThread = null;
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                log.debug("关闭知识点目录监听失败: {}", e.getMessage());
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 是否正在监听
+     */
+    public boolean isWatching() {
+        return watchThread != null;
+    }
+
+    /**
+     * 立即重新加载知识点数据
+     * @return 加载并切换成功返回 true；加载失败时保留原有数据并返回 false
+     */
+    public boolean reloadNow() {
+        synchronized (reloadLock) {
+            long start = System.nanoTime();
+            List<KnowledgeDomain> knowledge;
+            try {
+                knowledge = grades.reload();
+            } catch (IOException | RuntimeException e) {
+                log.error("知识点数据重新加载失败，继续使用原有数据: {}", e.getMessage());
+                return false;
+            }
+            if (knowledge.isEmpty()) {
+                log.warn("知识点数据文件为空，继续使用原有数据");
+                return false;
+            }
+
+            repository.reload(knowledge);
+            publisher.publishEvent(new KnowledgeReloadedEvent(repository.findAll(), repository.getVersion()));
+            log.info("知识点数据重新加载完成，版本{}，共{}个知识点，耗时{}ms",
+                repository.getVersion(), repository.size(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        }
+    }
+
+    private void watchLoop() {
+        long debounceMillis = Math.max(0, properties.getWatch().getDebounce().toMillis());
+        WatchService service = watchService;
+        while (watchThread == Thread.currentThread() && service != null) {
+            try {
+                boolean changed = drain(service.take());
+                // 持续有变化时继续等待，直到安静 debounce 时长
+                WatchKey next;
+                while ((next = service.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(next);
+                }
+                if (changed) {
+                    reloadNow();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+        }
+    }
+
+    private static boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                || String.valueOf(event.context()).endsWith(".json")) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,150 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.SolutionMethodDomain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 知识点 / 解题方法内存占用估算
+ *
+ * 按 64 位 JVM、压缩指针、紧凑字符串估算对象图大小：
+ * 同一个字符串、列表实例只计一次（模块、专题等共享的字符串不重复计算），
+ * ArrayList 按默认扩容规则估算底层数组容量，List.of() 空列表为 JVM 共享实例不计入；
+ * 知识点另按每条固定开销估算仓库索引的占用。结果用于分年级的内存统计与紧凑化效果对比，不要求精确。
+ */
+final class KnowledgeFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int ARRAY_HEADER = 16;
+    private static final int STRING_OBJECT = 24;
+    private static final int ARRAY_LIST_OBJECT = 24;
+    private static final int ARRAY_LIST_DEFAULT_CAPACITY = 10;
+
+    /**
+     * List.of 的 1-2 个元素实现：对象头 + 两个引用
+     */
+    private static final int LIST_12_OBJECT = 24;
+    private static final int LIST_N_OBJECT = 16;
+    private static final int UNMODIFIABLE_WRAPPER = 16;
+
+    /**
+     * KnowledgeDomain 对象本身：对象头 + 14 个引用字段，按 8 字节对齐
+     */
+    private static final int KNOWLEDGE_OBJECT = align(OBJECT_HEADER + 14 * REFERENCE);
+
+    /**
+     * SolutionMethodDomain 对象本身：对象头 + 14 个引用字段
+     */
+    private static final int METHOD_OBJECT = align(OBJECT_HEADER + 14 * REFERENCE);
+
+    /**
+     * 仓库索引中每个知识点的开销：编号哈希表节点 + 各倒排列表中的引用
+     */
+    private static final int INDEX_BYTES_PER_KNOWLEDGE = 32 + 12 * REFERENCE;
+
+    private static final Class<?> LIST_12 = List.of(1).getClass();
+    private static final Class<?> LIST_N = List.of().getClass();
+    private static final List<?> SHARED_EMPTY = List.of();
+
+    private KnowledgeFootprint() {
+    }
+
+    /**
+     * 估算知识点集合（含仓库索引）占用的字节数
+     */
+    static long estimate(Collection<KnowledgeDomain> knowledge) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (KnowledgeDomain k : knowledge) {
+            bytes += KNOWLEDGE_OBJECT + INDEX_BYTES_PER_KNOWLEDGE;
+            bytes += string(k.getCode(), seen) + string(k.getName(), seen) + string(k.getDescription(), seen)
+                + string(k.getModule(), seen) + string(k.getTopic(), seen) + string(k.getAssessmentCore(), seen);
+            bytes += stringList(k.getDetailedPoints(), seen);
+        }
+        return bytes;
+    }
+
+    /**
+     * 估算解题方法集合占用的字节数（相关方法只计引用）
+     */
+    static long estimateMethods(Collection<SolutionMethodDomain> methods) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (SolutionMethodDomain m : methods) {
+            bytes += METHOD_OBJECT;
+            bytes += string(m.getCode(), seen) + string(m.getName(), seen) + string(m.getDescription(), seen)
+                + string(m.getApplicableProblemTypes(), seen);
+            bytes += stringList(m.getSteps(), seen) + stringList(m.getKeyPoints(), seen)
+                + stringList(m.getPrecautions(), seen);
+            bytes += list(m.getApplicableKnowledgeSystems(), seen) + list(m.getRelatedMethods(), seen);
+        }
+        return bytes;
+    }
+
+    private static long stringList(List<String> values, Set<Object> seen) {
+        long bytes = list(values, seen);
+        if (bytes > 0) {
+            for (String value : values) {
+                bytes += string(value, seen);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 列表对象及其底层数组（不含元素）；已计过的列表返回 0
+     */
+    private static long list(List<?> values, Set<Object> seen) {
+        if (values == null || values == SHARED_EMPTY || !seen.add(values)) {
+            return 0;
+        }
+        int size = values.size();
+        if (values instanceof ArrayList) {
+            return ARRAY_LIST_OBJECT + (size == 0 ? 0 : align(ARRAY_HEADER + (long) arrayListCapacity(size) * REFERENCE));
+        }
+        if (values.getClass() == LIST_12) {
+            return LIST_12_OBJECT;
+        }
+        if (values.getClass() == LIST_N) {
+            return LIST_N_OBJECT + align(ARRAY_HEADER + (long) size * REFERENCE);
+        }
+        return UNMODIFIABLE_WRAPPER + ARRAY_LIST_OBJECT + align(ARRAY_HEADER + (long) size * REFERENCE);
+    }
+
+    /**
+     * 从空列表逐个添加到 size 个元素后的容量（首次扩到 10，之后每次扩 1.5 倍）
+     */
+    private static int arrayListCapacity(int size) {
+        int capacity = ARRAY_LIST_DEFAULT_CAPACITY;
+        while (capacity < size) {
+            capacity += capacity >> 1;
+        }
+        return capacity;
+    }
+
+    private static long string(String value, Set<Object> seen) {
+        if (value == null || !seen.add(value)) {
+            return 0;
+        }
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) < 256;
+        }
+        return STRING_OBJECT + align(ARRAY_HEADER + (long) value.length() * (latin1 ? 1 : 2));
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,334 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.KnowledgeDomain;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 知识点层次结构（不可变）
+ *
+ * 由 {@link KnowledgeRepository} 在加载时构建：
+ * - 为每个知识点分配稠密编号 0..n-1（即在仓库中的顺序）
+ * - 沿 parentKnowledge 建立森林，做一次欧拉遍历，记录进入 / 离开时间，
+ *   "X 是否为 Y 的祖先"转化为区间包含判断，O(1)
+ * - 欧拉序列上的深度做稀疏表（Sparse Table），最近公共祖先查询 O(1)
+ * - 完整路径、完整标识符、专题标识符在构建时一次性生成并驻留（相同内容共享同一实例）
+ *
+ * 父知识点按编号关联；父知识点不在仓库中时视为根节点，其路径仍包含外部父知识点的名称；
+ * 父链成环时从环上断开并记录告警。
+ */
+@Slf4j
+public class KnowledgeHierarchy {
+
+    /**
+     * 编号不存在时的返回值
+     */
+    public static final int NO_ID = -1;
+
+    private final List<KnowledgeDomain> nodes;
+    private final Map<String, Integer> idByCode;
+
+    private final int[] parent;
+    private final int[] depth;
+    private final int[] root;
+
+    /**
+     * 先序遍历的进入时间；子树中所有节点的进入时间位于 [enter[x], exit[x]]
+     */
+    private final int[] enter;
+    private final int[] exit;
+
+    /**
+     * 节点在欧拉序列中第一次出现的位置
+     */
+    private final int[] firstOccurrence;
+
+    /**
+     * sparse[level][i] 为欧拉序列 [i, i + 2^level) 中深度最小的节点
+     */
+    private final int[][] sparse;
+
+    private final String[] fullPaths;
+    private final String[] fullIdentifiers;
+    private final String[] topicIdentifiers;
+
+    KnowledgeHierarchy(List<KnowledgeDomain> knowledge) {
+        int n = knowledge.size();
+        this.nodes = knowledge;
+        this.idByCode = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            idByCode.put(knowledge.get(i).getCode(), i);
+        }
+
+        this.parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            KnowledgeDomain p = knowledge.get(i).getParentKnowledge();
+            Integer parentId = p != null ? idByCode.get(p.getCode()) : null;
+            parent[i] = parentId != null ? parentId : NO_ID;
+        }
+        breakCycles();
+
+        // 子节点链表：head[x] 为第一个子节点，next[c] 为下一个兄弟
+        int[] head = new int[n];
+        int[] next = new int[n];
+        Arrays.fill(head, NO_ID);
+        for (int i = n - 1; i >= 0; i--) {
+            if (parent[i] != NO_ID) {
+                next[i] = head[parent[i]];
+                head[parent[i]] = i;
+            }
+        }
+
+        this.depth = new int[n];
+        this.root = new int[n];
+        this.enter = new int[n];
+        this.exit = new int[n];
+        this.firstOccurrence = new int[n];
+        int[] euler = new int[Math.max(1, 2 * n - 1)];
+        int eulerSize = 0;
+        int clock = 0;
+
+        // 迭代式 DFS，避免层次较深时栈溢出
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+        for (int r = 0; r < n; r++) {
+            if (parent[r] != NO_ID) {
+                continue;
+            }
+            int top = 0;
+            stack[0] = r;
+            cursor[r] = head[r];
+            depth[r] = 0;
+            root[r] = r;
+            enter[r] = clock++;
+            firstOccurrence[r] = eulerSize;
+            euler[eulerSize++] = r;
+            while (top >= 0) {
+                int x = stack[top];
+                int child = cursor[x];
+                if (child != NO_ID) {
+                    cursor[x] = next[child];
+                    depth[child] = depth[x] + 1;
+                    root[child] = r;
+                    enter[child] = clock++;
+                    cursor[child] = head[child];
+                    firstOccurrence[child] = eulerSize;
+                    euler[eulerSize++] = child;
+                    stack[++top] = child;
+                } else {
+                    exit[x] = clock - 1;
+                    top--;
+                    if (top >= 0) {
+                        euler[eulerSize++] = stack[top];
+                    }
+                }
+            }
+        }
+        this.sparse = buildSparseTable(euler, eulerSize);
+
+        // 按先序生成路径，父路径总是先于子路径生成
+        Map<String, String> pool = new HashMap<>();
+        this.fullPaths = new String[n];
+        this.fullIdentifiers = new String[n];
+        this.topicIdentifiers = new String[n];
+        int[] preorder = new int[n];
+        for (int i = 0; i < n; i++) {
+            preorder[enter[i]] = i;
+        }
+        for (int x : preorder) {
+            KnowledgeDomain k = knowledge.get(x);
+            String path;
+            if (parent[x] != NO_ID) {
+                path = fullPaths[parent[x]] + KnowledgeDomain.PATH_SEPARATOR + k.getName();
+            } else if (k.getParentKnowledge() != null && !hasCyclicAncestry(k)) {
+                path = k.getFullPath();
+            } else {
+                path = k.getName();
+            }
+            fullPaths[x] = intern(pool, path);
+            fullIdentifiers[x] = k.getKnowledgeSystem() != null ? intern(pool, k.getFullIdentifier()) : null;
+            topicIdentifiers[x] = intern(pool, k.getTopicIdentifier());
+        }
+    }
+
+    /**
+     * 根据编号获取稠密编号
+     * @return 稠密编号，不存在时返回 {@link #NO_ID}
+     */
+    public int idOf(String code) {
+        Integer id = code != null ? idByCode.get(code) : null;
+        return id != null ? id : NO_ID;
+    }
+
+    /**
+     * 根据稠密编号获取知识点
+     */
+    public KnowledgeDomain get(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * 父节点的稠密编号，根节点返回 {@link #NO_ID}
+     */
+    public int parentOf(int id) {
+        return parent[id];
+    }
+
+    /**
+     * 节点深度，根节点为 0
+     */
+    public int depthOf(int id) {
+        return depth[id];
+    }
+
+    /**
+     * 判断 ancestor 是否为 descendant 的（严格）祖先
+     */
+    public boolean isAncestor(int ancestor, int descendant) {
+        return enter[ancestor] < enter[descendant] && enter[descendant] <= exit[ancestor];
+    }
+
+    /**
+     * 按知识点编号判断祖先关系，任一编号不存在时返回 false
+     */
+    public boolean isAncestor(String ancestorCode, String descendantCode) {
+        int a = idOf(ancestorCode);
+        int d = idOf(descendantCode);
+        return a != NO_ID && d != NO_ID && isAncestor(a, d);
+    }
+
+    /**
+     * 最近公共祖先（节点自身也算作自己的祖先）
+     * @return 稠密编号，两节点不在同一棵树上时返回 {@link #NO_ID}
+     */
+    public int lowestCommonAncestor(int a, int b) {
+        if (root[a] != root[b]) {
+            return NO_ID;
+        }
+        int from = Math.min(firstOccurrence[a], firstOccurrence[b]);
+        int to = Math.max(firstOccurrence[a], firstOccurrence[b]);
+        int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        int left = sparse[level][from];
+        int right = sparse[level][to - (1 << level) + 1];
+        return depth[left] <= depth[right] ? left : right;
+    }
+
+    /**
+     * 按知识点编号求最近公共祖先
+     * @return 公共祖先知识点，不存在时返回 null
+     */
+    public KnowledgeDomain lowestCommonAncestor(String codeA, String codeB) {
+        int a = idOf(codeA);
+        int b = idOf(codeB);
+        if (a == NO_ID || b == NO_ID) {
+            return null;
+        }
+        int lca = lowestCommonAncestor(a, b);
+        return lca != NO_ID ? nodes.get(lca) : null;
+    }
+
+    /**
+     * 预先生成的完整路径，如"方程基础 > 一元一次方程"
+     */
+    public String getFullPath(int id) {
+        return fullPaths[id];
+    }
+
+    /**
+     * 预先生成的完整标识符，如"代数-ALG001"
+     */
+    public String getFullIdentifier(int id) {
+        return fullIdentifiers[id];
+    }
+
+    /**
+     * 预先生成的专题标识符，如"方程与应用-一元一次方程基础-ALG001"
+     */
+    public String getTopicIdentifier(int id) {
+        return topicIdentifiers[id];
+    }
+
+    /**
+     * 节点数量
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 沿父链检测环，把环上编号最大节点的父指针断开
+     */
+    private void breakCycles() {
+        int n = parent.length;
+        // 0-未访问，1-当前链上，2-已确认无环
+        byte[] state = new byte[n];
+        int[] chain = new int[n];
+        for (int start = 0; start < n; start++) {
+            int size = 0;
+            int x = start;
+            while (x != NO_ID && state[x] == 0) {
+                state[x] = 1;
+                chain[size++] = x;
+                x = parent[x];
+            }
+            if (x != NO_ID && state[x] == 1) {
+                int cut = x;
+                for (int y = parent[x]; y != x; y = parent[y]) {
+                    cut = Math.max(cut, y);
+                }
+                log.warn("知识点父子关系成环，断开 {} 的父知识点", nodes.get(cut).getCode());
+                parent[cut] = NO_ID;
+            }
+            for (int i = 0; i < size; i++) {
+                state[chain[i]] = 2;
+            }
+        }
+    }
+
+    /**
+     * 父知识点链上是否存在环（此时不能调用 {@link KnowledgeDomain#getFullPath()}）
+     */
+    private static boolean hasCyclicAncestry(KnowledgeDomain k) {
+        KnowledgeDomain slow = k;
+        KnowledgeDomain fast = k;
+        while (fast != null && fast.getParentKnowledge() != null) {
+            slow = slow.getParentKnowledge();
+            fast = fast.getParentKnowledge().getParentKnowledge();
+            if (slow == fast) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[][] buildSparseTable(int[] euler, int size) {
+        int levels = 32 - Integer.numberOfLeadingZeros(Math.max(1, size));
+        int[][] table = new int[levels][];
+        table[0] = Arrays.copyOf(euler, size);
+        for (int level = 1; level < levels; level++) {
+            int half = 1 << (level - 1);
+            int length = size - (1 << level) + 1;
+            int[] previous = table[level - 1];
+            int[] current = new int[Math.max(0, length)];
+            for (int i = 0; i < length; i++) {
+                int left = previous[i];
+                int right = previous[i + half];
+                current[i] = depth[left] <= depth[right] ? left : right;
+            }
+            table[level] = current;
+        }
+        return table;
+    }
+
+    private static String intern(Map<String, String> pool, String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = pool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
@@ -0,0 +1,405 @@
+package com.mathtutor.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 知识点 JSON 加载器
+ *
+ * 文件格式与 knowledge_data.json 保持一致的风格：
+ * <pre>
+ * {
+ *   "knowledge_metadata": { "catalog_id": "...", "grade": "SEVENTH_GRADE", ... },
+ *   "knowledge_points": [
+ *     { "code": "M1T001", "name": "...", "knowledge_system": "ALGEBRA", "module": "...",
+ *       "topic": "...", "description": "...", "assessment_core": "...",
+ *       "detailed_points": ["..."], "depth_level": 2, "difficulty_level": 3,
+ *       "grade": "SEVENTH_GRADE", "parent_code": "..." }
+ *   ]
+ * }
+ * </pre>
+ * grade 省略时取 knowledge_metadata.grade；parent_code 在全部文件加载完后按编号关联。
+ *
+ * 使用 Jackson 流式解析器逐个读取知识点，不构建整棵 JSON 树。
+ * 内置数据在构建时另外生成二进制快照（见 {@link CatalogSnapshot}），存在时直接读取快照，跳过 JSON 解析。
+ * 任一文件格式错误或知识点不完整都会抛出异常，调用方应保留原有数据。
+ */
+@Slf4j
+public class KnowledgeJsonLoader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ResourcePatternResolver resolver;
+
+    public KnowledgeJsonLoader() {
+        this(new PathMatchingResourcePatternResolver());
+    }
+
+    public KnowledgeJsonLoader(ResourcePatternResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * 按配置加载全部知识点：先内置数据（优先使用二进制快照），再外部目录，同编号以后加载的为准
+     */
+    public List<KnowledgeDomain> load(KnowledgeProperties properties) throws IOException {
+        Map<String, PendingKnowledge> merged = new LinkedHashMap<>();
+        if (!loadSnapshot(properties.getSnapshot(), null, merged)) {
+            loadLocations(properties.getLocations(), merged);
+        }
+        for (Path file : listJsonFiles(properties.getDirectory())) {
+            try (InputStream in = Files.newInputStream(file)) {
+                parse(in, file.toString(), merged);
+            }
+        }
+        return link(merged);
+    }
+
+    /**
+     * 加载单个年级的知识点：内置数据优先从快照中只解码该年级的记录，没有快照时读取该年级的数据文件；
+     * 再读取外部目录中以 grade{级别}_ 开头的文件。不属于该年级的知识点由调用方过滤
+     */
+    public List<KnowledgeDomain> load(KnowledgeProperties properties, GradeEnum grade) throws IOException {
+        String level = String.valueOf(grade.getLevel());
+        Map<String, PendingKnowledge> merged = new LinkedHashMap<>();
+        if (!loadSnapshot(properties.getSnapshot(), grade, merged)) {
+            loadLocations(List.of(properties.getGrades().getLocation().replace("{level}", level)), merged);
+        }
+        loadFiles(properties.getDirectory(), "grade" + level + "_", merged);
+        return link(merged);
+    }
+
+    /**
+     * 从二进制快照读取内置知识点
+     * @param grade 只读取该年级的知识点，null 表示全部
+     * @return 快照未配置、不存在或无法读取时返回 false，由调用方改为解析 JSON
+     */
+    private boolean loadSnapshot(String location, GradeEnum grade, Map<String, PendingKnowledge> target) {
+        if (location == null || location.isBlank()) {
+            return false;
+        }
+        Resource resource = resolver.getResource(location);
+        if (!resource.exists()) {
+            return false;
+        }
+        try {
+            CatalogSnapshot snapshot = CatalogSnapshot.open(resource);
+            if (grade == null) {
+                for (KnowledgeDomain k : snapshot.toKnowledgeList()) {
+                    KnowledgeDomain parent = k.getParentKnowledge();
+                    target.put(k.getCode(), new PendingKnowledge(k, parent != null ? parent.getCode() : null));
+                }
+            } else {
+                Map<String, String> parentCodes = new HashMap<>();
+                for (KnowledgeDomain k : snapshot.toKnowledgeList(grade, parentCodes)) {
+                    target.put(k.getCode(), new PendingKnowledge(k, parentCodes.get(k.getCode())));
+                }
+            }
+            log.debug("从快照{}读取知识点{}个", resource.getDescription(), target.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // 头部校验之外的损坏（记录中的编号越界等）在解码时以运行时异常出现
+            log.warn("知识点快照不可用，改为解析 JSON: {}", e.toString());
+            target.clear();
+            return false;
+        }
+    }
+
+    private void loadLocations(List<String> locations, Map<String, PendingKnowledge> merged) throws IOException {
+        for (String location : locations) {
+            Resource[] resources = resolver.getResources(location);
+            Arrays.sort(resources, Comparator.comparing(r -> String.valueOf(r.getFilename())));
+            for (Resource resource : resources) {
+                if (!resource.exists()) {
+                    continue;
+                }
+                try (InputStream in = resource.getInputStream()) {
+                    parse(in, resource.getDescription(), merged);
+                }
+            }
+        }
+    }
+
+    /**
+     * 加载指定位置及外部目录中文件名以 filePrefix 开头的 JSON 文件（不使用快照）
+     * @param locations Spring 资源路径，支持通配符
+     * @param directory 外部目录，可为 null
+     * @param filePrefix 外部目录中的文件名前缀，如 "grade8_"
+     */
+    public List<KnowledgeDomain> load(List<String> locations, String directory, String filePrefix) throws IOException {
+        Map<String, PendingKnowledge> merged = new LinkedHashMap<>();
+        loadLocations(locations, merged);
+        loadFiles(directory, filePrefix, merged);
+        return link(merged);
+    }
+
+    private void loadFiles(String directory, String filePrefix, Map<String, PendingKnowledge> merged) throws IOException {
+        for (Path file : listJsonFiles(directory)) {
+            if (file.getFileName().toString().startsWith(filePrefix)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    parse(in, file.toString(), merged);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从输入流加载单个知识点文件
+     */
+    public List<KnowledgeDomain> load(InputStream in) throws IOException {
+        Map<String, PendingKnowledge> merged = new LinkedHashMap<>();
+        parse(in, "stream", merged);
+        return link(merged);
+    }
+
+    /**
+     * 列出外部目录下的 JSON 文件（按文件名排序），目录未配置或不存在时返回空列表
+     */
+    public static List<Path> listJsonFiles(String directory) throws IOException {
+        if (directory == null || directory.isBlank()) {
+            return List.of();
+        }
+        Path dir = Path.of(directory);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(KnowledgeJsonLoader::isJsonFile).sorted().toList();
+        }
+    }
+
+    static boolean isJsonFile(Path file) {
+        return file.getFileName().toString().endsWith(".json") && !Files.isDirectory(file);
+    }
+
+    private void parse(InputStream in, String source, Map<String, PendingKnowledge> target) throws IOException {
+        List<PendingKnowledge> points = new ArrayList<>();
+        GradeEnum defaultGrade = null;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "知识点文件必须是 JSON 对象: " + source);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("knowledge_metadata".equals(field)) {
+                    defaultGrade = readMetadataGrade(parser);
+                } else if ("knowledge_points".equals(field)) {
+                    if (parser.currentToken() != JsonToken.START_ARRAY) {
+                        throw new JsonParseException(parser, "knowledge_points 必须是数组: " + source);
+                    }
+                    while (nextObject(parser, source)) {
+                        points.add(readPoint(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        for (PendingKnowledge point : points) {
+            KnowledgeDomain k = point.knowledge;
+            if (k.getGrade() == null) {
+                k.setGrade(defaultGrade);
+            }
+            if (!k.isValid()) {
+                throw new IOException("知识点数据不完整: " + k.getCode() + " (" + source + ")");
+            }
+            if (target.put(k.getCode(), point) != null) {
+                log.debug("知识点{}被{}覆盖", k.getCode(), source);
+            }
+        }
+        log.debug("从{}读取知识点{}个", source, points.size());
+    }
+
+    /**
+     * 移到 knowledge_points 的下一个元素；元素不是对象时抛出异常，而不是在中途静默结束、丢掉其后的知识点
+     * @return 数组结束时返回 false
+     */
+    private static boolean nextObject(JsonParser parser, String source) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "knowledge_points 的元素必须是对象: " + source);
+        }
+        return true;
+    }
+
+    private static GradeEnum readMetadataGrade(JsonParser parser) throws IOException {
+        GradeEnum grade = null;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("grade".equals(field)) {
+                grade = parseEnum(parser, GradeEnum.class);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return grade;
+    }
+
+    private static PendingKnowledge readPoint(JsonParser parser) throws IOException {
+        String code = null, name = null, description = null, module = null, topic = null;
+        String assessmentCore = null, parentCode = null;
+        GradeEnum grade = null;
+        KnowledgeSystemEnum knowledgeSystem = null;
+        List<String> detailedPoints = null;
+        Integer depthLevel = null, difficultyLevel = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "code":
+                    code = parser.getValueAsString();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "grade":
+                    grade = parseEnum(parser, GradeEnum.class);
+                    break;
+                case "knowledge_system":
+                    knowledgeSystem = parseEnum(parser, KnowledgeSystemEnum.class);
+                    break;
+                case "module":
+                    module = parser.getValueAsString();
+                    break;
+                case "topic":
+                    topic = parser.getValueAsString();
+                    break;
+                case "description":
+                    description = parser.getValueAsString();
+                    break;
+                case "assessment_core":
+                    assessmentCore = parser.getValueAsString();
+                    break;
+                case "detailed_points":
+                    detailedPoints = readStringArray(parser);
+                    break;
+                case "depth_level":
+                    depthLevel = readInteger(parser);
+                    break;
+                case "difficulty_level":
+                    difficultyLevel = readInteger(parser);
+                    break;
+                case "parent_code":
+                    parentCode = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        KnowledgeDomain knowledge = new KnowledgeDomain(code, name, grade, description,
+            knowledgeSystem, module, topic, assessmentCore);
+        if (detailedPoints != null) {
+            knowledge.setDetailedPoints(detailedPoints);
+        }
+        if (depthLevel != null) {
+            knowledge.setDepthLevel(depthLevel);
+        }
+        if (difficultyLevel != null) {
+            knowledge.setDifficultyLevel(difficultyLevel);
+        }
+        return new PendingKnowledge(knowledge, parentCode);
+    }
+
+    private static List<String> readStringArray(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken().isScalarValue()) {
+                values.add(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static Integer readInteger(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw new JsonParseException(parser, "期望整数: " + parser.getText());
+        }
+        return parser.getIntValue();
+    }
+
+    private static <E extends Enum<E>> E parseEnum(JsonParser parser, Class<E> type) throws IOException {
+        String value = parser.getValueAsString();
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(parser, "未知的" + type.getSimpleName() + "取值: " + value);
+        }
+    }
+
+    private static List<KnowledgeDomain> link(Map<String, PendingKnowledge> merged) {
+        List<KnowledgeDomain> result = new ArrayList<>(merged.size());
+        for (PendingKnowledge point : merged.values()) {
+            if (point.parentCode != null) {
+                PendingKnowledge parent = merged.get(point.parentCode);
+                if (parent != null) {
+                    point.knowledge.setParentKnowledge(parent.knowledge);
+                } else {
+                    log.warn("知识点{}的父知识点{}不存在", point.knowledge.getCode(), point.parentCode);
+                }
+            }
+            result.add(point.knowledge);
+        }
+        return result;
+    }
+
+    /**
+     * 待关联父知识点的知识点
+     */
+    private static final class PendingKnowledge {
+        private final KnowledgeDomain knowledge;
+        private final String parentCode;
+
+        private PendingKnowledge(KnowledgeDomain knowledge, String parentCode) {
+            this.knowledge = knowledge;
+            this.parentCode = parentCode;
+        }
+    }
+}
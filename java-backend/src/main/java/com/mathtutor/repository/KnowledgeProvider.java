@@ -0,0 +1,26 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 分年级知识点数据提供者
+ *
+ * 每个年级一个实现，由 {@link GradeKnowledgeCatalog} 在该年级首次被访问时调用。
+ * 注册为 Spring Bean 即可替换对应年级的默认实现（{@link JsonKnowledgeProvider}）。
+ */
+public interface KnowledgeProvider {
+
+    /**
+     * 提供的年级
+     */
+    GradeEnum getGrade();
+
+    /**
+     * 加载该年级的全部知识点
+     */
+    List<KnowledgeDomain> load() throws IOException;
+}
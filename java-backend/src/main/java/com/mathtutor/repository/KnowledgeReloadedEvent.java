@@ -0,0 +1,26 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.KnowledgeDomain;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 知识点数据重新加载完成事件
+ *
+ * 在 {@link KnowledgeRepository} 切换到新数据之后发布，
+ * 依赖知识点内容的索引、缓存据此同步。
+ */
+@Value
+public class KnowledgeReloadedEvent {
+
+    /**
+     * 新的全部知识点（只读）
+     */
+    List<KnowledgeDomain> knowledge;
+
+    /**
+     * 新的数据版本号
+     */
+    long version;
+}
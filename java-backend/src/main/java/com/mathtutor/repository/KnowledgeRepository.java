@@ -0,0 +1,349 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 知识点仓库
+ *
+ * 作为全局 Bean 时是 {@link GradeKnowledgeCatalog} 常驻年级的视图：启动时只加载常驻年级（默认七年级），
+ * 其他年级按需由分年级目录加载，全局查询不会让未被请求的年级常驻内存。
+ * 每个仓库构建不可变索引：
+ * - 按编号：code -> 知识点
+ * - 按模块 / 专题：名称 -> 知识点列表
+ * - 按知识体系 / 年级 / 难度：枚举序号 -> 知识点列表
+ * - 组合查询（年级 × 知识体系 × 难度）：预先计算好的倒排列表
+ * - 父子层次：{@link KnowledgeHierarchy}，O(1) 祖先判断与最近公共祖先查询
+ *
+ * 所有查询直接返回预先构建的只读列表，查询过程不产生新对象。
+ * 知识点进入仓库时经 {@link CatalogCompactor} 紧凑化：共享字符串驻留，考点列表换为按长度分配的只读列表。
+ * 重新加载（{@link #reload}）时在后台构建一整套新索引后原子替换，正在进行的查询不会看到加载到一半的数据。
+ */
+@Slf4j
+@Component
+public class KnowledgeRepository {
+
+    /**
+     * 支持的最大难度级别（1-容易，2-中等，3-困难）
+     */
+    public static final int MAX_DIFFICULTY = 3;
+
+    /**
+     * 组合查询中表示"不限"的难度取值
+     */
+    public static final int ANY_DIFFICULTY = 0;
+
+    private static final int GRADE_SLOTS = GradeEnum.values().length + 1;
+    private static final int SYSTEM_SLOTS = KnowledgeSystemEnum.values().length + 1;
+    private static final int DIFFICULTY_SLOTS = MAX_DIFFICULTY + 1;
+
+    private static final KnowledgeJsonLoader LOADER = new KnowledgeJsonLoader();
+
+    /**
+     * 当前生效的索引；重新加载时整体替换，读取方拿到的总是某一版完整数据
+     */
+    private volatile Catalog catalog;
+
+    /**
+     * 默认构造函数：加载七年级知识点
+     */
+    public KnowledgeRepository() {
+        this(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge());
+    }
+
+    /**
+     * 构造函数：由分年级目录加载常驻年级，与年级仓库共享知识点对象；没有数据时使用内置的七年级知识点
+     */
+    @Autowired
+    public KnowledgeRepository(GradeKnowledgeCatalog grades) {
+        this(residentOrDefault(grades));
+    }
+
+    /**
+     * 构造函数：按配置从 JSON 文件加载全部年级的知识点，加载失败或没有数据时使用内置的七年级知识点
+     */
+    public KnowledgeRepository(KnowledgeProperties properties) {
+        this(loadOrDefault(properties));
+    }
+
+    /**
+     * 构造函数：基于给定的知识点集合构建索引
+     */
+    public KnowledgeRepository(Collection<KnowledgeDomain> knowledge) {
+        this.catalog = new Catalog(knowledge);
+    }
+
+    /**
+     * 基于新的知识点集合重建全部索引，构建完成后原子替换
+     * 构建期间的查询继续使用旧数据
+     */
+    public void reload(Collection<KnowledgeDomain> knowledge) {
+        this.catalog = new Catalog(knowledge);
+    }
+
+    /**
+     * 获取全部知识点
+     */
+    public List<KnowledgeDomain> findAll() {
+        return catalog.all;
+    }
+
+    /**
+     * 根据编号获取知识点
+     * @return 知识点，不存在时返回 null
+     */
+    public KnowledgeDomain findByCode(String code) {
+        return code != null ? catalog.byCode.get(code) : null;
+    }
+
+    /**
+     * 根据模块名称获取知识点
+     */
+    public List<KnowledgeDomain> findByModule(String module) {
+        return module != null ? catalog.byModule.getOrDefault(module, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    /**
+     * 根据专题名称获取知识点
+     */
+    public List<KnowledgeDomain> findByTopic(String topic) {
+        return topic != null ? catalog.byTopic.getOrDefault(topic, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    /**
+     * 根据知识体系获取知识点
+     */
+    public List<KnowledgeDomain> findByKnowledgeSystem(KnowledgeSystemEnum knowledgeSystem) {
+        return knowledgeSystem != null ? catalog.bySystem.getOrDefault(knowledgeSystem, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    /**
+     * 根据年级获取知识点
+     */
+    public List<KnowledgeDomain> findByGrade(GradeEnum grade) {
+        return grade != null ? catalog.byGrade.getOrDefault(grade, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    /**
+     * 根据难度级别获取知识点
+     */
+    public List<KnowledgeDomain> findByDifficulty(int difficultyLevel) {
+        if (difficultyLevel < 1 || difficultyLevel > MAX_DIFFICULTY) {
+            return Collections.emptyList();
+        }
+        return catalog.composite[compositeIndex(0, 0, difficultyLevel)];
+    }
+
+    /**
+     * 组合查询
+     * @param grade 年级，null 表示不限
+     * @param knowledgeSystem 知识体系，null 表示不限
+     * @param difficultyLevel 难度级别，{@link #ANY_DIFFICULTY} 表示不限
+     * @return 预先计算好的只读列表
+     */
+    public List<KnowledgeDomain> find(GradeEnum grade, KnowledgeSystemEnum knowledgeSystem, int difficultyLevel) {
+        if (difficultyLevel < ANY_DIFFICULTY || difficultyLevel > MAX_DIFFICULTY) {
+            return Collections.emptyList();
+        }
+        int g = grade != null ? grade.ordinal() + 1 : 0;
+        int s = knowledgeSystem != null ? knowledgeSystem.ordinal() + 1 : 0;
+        return catalog.composite[compositeIndex(g, s, difficultyLevel)];
+    }
+
+    /**
+     * 获取所有模块名称
+     */
+    public Set<String> getModules() {
+        return catalog.byModule.keySet();
+    }
+
+    /**
+     * 获取所有专题名称
+     */
+    public Set<String> getTopics() {
+        return catalog.byTopic.keySet();
+    }
+
+    /**
+     * 获取知识点层次结构
+     */
+    public KnowledgeHierarchy getHierarchy() {
+        return catalog.hierarchy;
+    }
+
+    /**
+     * 获取预先生成的完整路径，知识点不在仓库中时现场计算
+     */
+    public String getFullPath(KnowledgeDomain knowledge) {
+        Catalog current = catalog;
+        int id = current.hierarchy.idOf(knowledge.getCode());
+        return id != KnowledgeHierarchy.NO_ID && current.all.get(id) == knowledge
+            ? current.hierarchy.getFullPath(id)
+            : knowledge.getFullPath();
+    }
+
+    /**
+     * 数据版本号，每次重新加载加一
+     */
+    public long getVersion() {
+        return catalog.version;
+    }
+
+    /**
+     * 知识点总数
+     */
+    public int size() {
+        return catalog.all.size();
+    }
+
+    private static int difficultySlot(Integer difficultyLevel) {
+        if (difficultyLevel == null || difficultyLevel < 1 || difficultyLevel > MAX_DIFFICULTY) {
+            return -1;
+        }
+        return difficultyLevel;
+    }
+
+    private static int compositeIndex(int gradeSlot, int systemSlot, int difficultySlot) {
+        return (gradeSlot * SYSTEM_SLOTS + systemSlot) * DIFFICULTY_SLOTS + difficultySlot;
+    }
+
+    private static <K> Map<K, List<KnowledgeDomain>> freeze(Map<K, List<KnowledgeDomain>> source) {
+        source.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        return Collections.unmodifiableMap(source);
+    }
+
+    private static List<KnowledgeDomain> loadOrDefault(KnowledgeProperties properties) {
+        try {
+            List<KnowledgeDomain> knowledge = LOADER.load(properties);
+            if (!knowledge.isEmpty()) {
+                return knowledge;
+            }
+            log.warn("未找到知识点数据文件，使用内置七年级知识点");
+        } catch (IOException | RuntimeException e) {
+            log.error("知识点数据文件加载失败，使用内置七年级知识点: {}", e.toString());
+        }
+        return GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+    }
+
+    private static List<KnowledgeDomain> residentOrDefault(GradeKnowledgeCatalog grades) {
+        List<KnowledgeDomain> knowledge = grades.residentKnowledge();
+        if (!knowledge.isEmpty()) {
+            return knowledge;
+        }
+        log.warn("常驻年级没有知识点数据，使用内置七年级知识点");
+        return GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+    }
+
+    /**
+     * 某一版知识点数据及其全部索引（不可变）
+     */
+    private static final class Catalog {
+
+        private static final AtomicLong VERSIONS = new AtomicLong();
+
+        private final long version;
+        private final List<KnowledgeDomain> all;
+        private final Map<String, KnowledgeDomain> byCode;
+        private final Map<String, List<KnowledgeDomain>> byModule;
+        private final Map<String, List<KnowledgeDomain>> byTopic;
+        private final Map<KnowledgeSystemEnum, List<KnowledgeDomain>> bySystem;
+        private final Map<GradeEnum, List<KnowledgeDomain>> byGrade;
+
+        /**
+         * 组合倒排列表，下标为 [年级槽位][体系槽位][难度槽位]，槽位 0 表示"不限"
+         */
+        private final List<KnowledgeDomain>[] composite;
+
+        private final KnowledgeHierarchy hierarchy;
+
+        @SuppressWarnings("unchecked")
+        private Catalog(Collection<KnowledgeDomain> knowledge) {
+            List<KnowledgeDomain> allList = new ArrayList<>(knowledge.size());
+            Map<String, KnowledgeDomain> codeMap = new HashMap<>();
+            Map<String, List<KnowledgeDomain>> moduleMap = new HashMap<>();
+            Map<String, List<KnowledgeDomain>> topicMap = new HashMap<>();
+            Map<KnowledgeSystemEnum, List<KnowledgeDomain>> systemMap = new EnumMap<>(KnowledgeSystemEnum.class);
+            Map<GradeEnum, List<KnowledgeDomain>> gradeMap = new EnumMap<>(GradeEnum.class);
+            List<KnowledgeDomain>[] compositeLists = new List[GRADE_SLOTS * SYSTEM_SLOTS * DIFFICULTY_SLOTS];
+
+            for (KnowledgeDomain k : knowledge) {
+                if (k == null || k.getCode() == null) {
+                    continue;
+                }
+                if (codeMap.putIfAbsent(k.getCode(), k) != null) {
+                    log.warn("知识点编号重复，忽略后出现的条目: {}", k.getCode());
+                    continue;
+                }
+                CatalogCompactor.compact(k);
+                allList.add(k);
+                if (k.getModule() != null) {
+                    moduleMap.computeIfAbsent(k.getModule(), key -> new ArrayList<>()).add(k);
+                }
+                if (k.getTopic() != null) {
+                    topicMap.computeIfAbsent(k.getTopic(), key -> new ArrayList<>()).add(k);
+                }
+                if (k.getKnowledgeSystem() != null) {
+                    systemMap.computeIfAbsent(k.getKnowledgeSystem(), key -> new ArrayList<>()).add(k);
+                }
+                if (k.getGrade() != null) {
+                    gradeMap.computeIfAbsent(k.getGrade(), key -> new ArrayList<>()).add(k);
+                }
+
+                // 每个知识点写入其所有可能被命中的组合槽位（具体值 + "不限"）
+                int gradeSlot = k.getGrade() != null ? k.getGrade().ordinal() + 1 : -1;
+                int systemSlot = k.getKnowledgeSystem() != null ? k.getKnowledgeSystem().ordinal() + 1 : -1;
+                int difficultySlot = difficultySlot(k.getDifficultyLevel());
+                for (int g : new int[]{0, gradeSlot}) {
+                    if (g < 0) continue;
+                    for (int s : new int[]{0, systemSlot}) {
+                        if (s < 0) continue;
+                        for (int d : new int[]{ANY_DIFFICULTY, difficultySlot}) {
+                            if (d < 0) continue;
+                            int index = compositeIndex(g, s, d);
+                            if (compositeLists[index] == null) {
+                                compositeLists[index] = new ArrayList<>();
+                            }
+                            compositeLists[index].add(k);
+                        }
+                    }
+                }
+            }
+
+            for (int i = 0; i < compositeLists.length; i++) {
+                compositeLists[i] = compositeLists[i] == null
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(compositeLists[i]);
+            }
+
+            this.all = Collections.unmodifiableList(allList);
+            this.byCode = Collections.unmodifiableMap(codeMap);
+            this.byModule = freeze(moduleMap);
+            this.byTopic = freeze(topicMap);
+            this.bySystem = freeze(systemMap);
+            this.byGrade = freeze(gradeMap);
+            this.composite = compositeLists;
+            this.hierarchy = new KnowledgeHierarchy(this.all);
+            this.version = VERSIONS.incrementAndGet();
+
+            log.info("知识点仓库加载完成，共{}个知识点，{}个模块，{}个专题",
+                allList.size(), moduleMap.size(), topicMap.size());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.ProblemProperties;
+import com.mathtutor.model.LogicStep;
+import com.mathtutor.model.ProblemDifficulty;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.ProblemQuestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 题库
+ *
+ * 启动时由 {@link ProblemJsonLoader} 流式读取题目文件，题目为不可变对象，并构建不可变索引：
+ * - 按编号：problem_id -> 题目
+ * - 按模块 / 专题 / 难度 / 考查知识点（target_kp_id）：-> 题目列表
+ * - 组合查询（模块 × 专题 × 难度）：预先计算好的倒排列表
+ *
+ * 所有查询都是一次哈希查找，直接返回预先构建的只读列表，十万道题规模下单次查询在微秒以内。
+ * 重新加载（{@link #reload}）时构建一整套新索引后原子替换，正在进行的查询不会看到加载到一半的数据。
+ */
+@Slf4j
+@Component
+public class ProblemBank {
+
+    private static final ProblemJsonLoader LOADER = new ProblemJsonLoader();
+
+    /**
+     * 组合键各部分的分隔符，编号中不会出现
+     */
+    private static final char KEY_SEPARATOR = '\u001f';
+
+    /**
+     * 当前生效的索引；重新加载时整体替换，读取方拿到的总是某一版完整数据
+     */
+    private volatile Index index;
+
+    /**
+     * 构造函数：按配置从 JSON 文件加载题目，加载失败时题库为空
+     */
+    @Autowired
+    public ProblemBank(ProblemProperties properties) {
+        this(loadOrEmpty(properties));
+    }
+
+    /**
+     * 构造函数：基于给定的题目集合构建索引
+     */
+    public ProblemBank(Collection<ProblemDomain> problems) {
+        this.index = new Index(problems);
+    }
+
+    /**
+     * 基于新的题目集合重建全部索引，构建完成后原子替换
+     */
+    public void reload(Collection<ProblemDomain> problems) {
+        this.index = new Index(problems);
+    }
+
+    /**
+     * 获取全部题目（按加载顺序）
+     */
+    public List<ProblemDomain> findAll() {
+        return index.all;
+    }
+
+    /**
+     * 根据编号获取题目
+     * @return 题目，不存在时返回 null
+     */
+    public ProblemDomain findById(String problemId) {
+        return problemId != null ? index.byId.get(problemId) : null;
+    }
+
+    /**
+     * 根据模块编号获取题目
+     */
+    public List<ProblemDomain> findByModule(String moduleId) {
+        return lookup(index.byModule, moduleId);
+    }
+
+    /**
+     * 根据专题编号获取题目
+     */
+    public List<ProblemDomain> findByTopic(String topicId) {
+        return lookup(index.byTopic, topicId);
+    }
+
+    /**
+     * 根据难度获取题目
+     */
+    public List<ProblemDomain> findByDifficulty(ProblemDifficulty difficulty) {
+        return difficulty != null ? index.byDifficulty.getOrDefault(difficulty, Collections.emptyList())
+            : Collections.emptyList();
+    }
+
+    /**
+     * 获取考查某个知识点的题目（任一解题步骤的 target_kp_id 为该知识点）
+     */
+    public List<ProblemDomain> findByKnowledgePoint(String kpId) {
+        return lookup(index.byKnowledgePoint, kpId);
+    }
+
+    /**
+     * 组合查询
+     * @param moduleId 模块编号，null 表示不限
+     * @param topicId 专题编号，null 表示不限
+     * @param difficulty 难度，null 表示不限
+     * @return 预先计算好的只读列表
+     */
+    public List<ProblemDomain> find(String moduleId, String topicId, ProblemDifficulty difficulty) {
+        if (moduleId == null && topicId == null && difficulty == null) {
+            return index.all;
+        }
+        return lookup(index.composite, compositeKey(moduleId, topicId, difficulty));
+    }
+
+    /**
+     * 获取所有模块编号
+     */
+    public Set<String> getModuleIds() {
+        return index.byModule.keySet();
+    }
+
+    /**
+     * 获取所有被考查的知识点编号
+     */
+    public Set<String> getKnowledgePointIds() {
+        return index.byKnowledgePoint.keySet();
+    }
+
+    /**
+     * 数据版本号，每次重新加载加一
+     */
+    public long getVersion() {
+        return index.version;
+    }
+
+    /**
+     * 题目总数
+     */
+    public int size() {
+        return index.all.size();
+    }
+
+    private static List<ProblemDomain> lookup(Map<String, List<ProblemDomain>> map, String key) {
+        return key != null ? map.getOrDefault(key, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    private static String compositeKey(String moduleId, String topicId, ProblemDifficulty difficulty) {
+        return (moduleId != null ? moduleId : "") + KEY_SEPARATOR
+            + (topicId != null ? topicId : "") + KEY_SEPARATOR
+            + (difficulty != null ? difficulty.name() : "");
+    }
+
+    private static <K> Map<K, List<ProblemDomain>> freeze(Map<K, List<ProblemDomain>> source) {
+        source.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        return Collections.unmodifiableMap(source);
+    }
+
+    private static List<ProblemDomain> loadOrEmpty(ProblemProperties properties) {
+        try {
+            return LOADER.load(properties);
+        } catch (IOException e) {
+            log.error("题目数据文件加载失败，题库为空: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 某一版题目数据及其全部索引（不可变）
+     */
+    private static final class Index {
+
+        private static final AtomicLong VERSIONS = new AtomicLong();
+
+        private final long version;
+        private final List<ProblemDomain> all;
+        private final Map<String, ProblemDomain> byId;
+        private final Map<String, List<ProblemDomain>> byModule;
+        private final Map<String, List<ProblemDomain>> byTopic;
+        private final Map<ProblemDifficulty, List<ProblemDomain>> byDifficulty;
+        private final Map<String, List<ProblemDomain>> byKnowledgePoint;
+
+        /**
+         * 组合倒排列表，键为 模块|专题|难度，空串表示"不限"（三者都不限时直接使用 all）
+         */
+        private final Map<String, List<ProblemDomain>> composite;
+
+        private Index(Collection<ProblemDomain> problems) {
+            List<ProblemDomain> allList = new ArrayList<>(problems.size());
+            Map<String, ProblemDomain> idMap = new HashMap<>(Math.max(16, problems.size() * 4 / 3 + 1));
+            Map<String, List<ProblemDomain>> moduleMap = new HashMap<>();
+            Map<String, List<ProblemDomain>> topicMap = new HashMap<>();
+            Map<ProblemDifficulty, List<ProblemDomain>> difficultyMap = new EnumMap<>(ProblemDifficulty.class);
+            Map<String, List<ProblemDomain>> kpMap = new HashMap<>();
+            Map<String, List<ProblemDomain>> compositeMap = new HashMap<>();
+            Set<String> kpIds = new LinkedHashSet<>();
+
+            for (ProblemDomain p : problems) {
+                if (p == null || p.getProblemId() == null) {
+                    continue;
+                }
+                if (idMap.putIfAbsent(p.getProblemId(), p) != null) {
+                    log.warn("题目编号重复，忽略后出现的条目: {}", p.getProblemId());
+                    continue;
+                }
+                allList.add(p);
+                if (p.getModuleId() != null) {
+                    moduleMap.computeIfAbsent(p.getModuleId(), key -> new ArrayList<>()).add(p);
+                }
+                if (p.getTopicId() != null) {
+                    topicMap.computeIfAbsent(p.getTopicId(), key -> new ArrayList<>()).add(p);
+                }
+                if (p.getDifficulty() != null) {
+                    difficultyMap.computeIfAbsent(p.getDifficulty(), key -> new ArrayList<>()).add(p);
+                }
+
+                // 一道题的多个步骤可能考查同一知识点，只记一次
+                kpIds.clear();
+                for (ProblemQuestion question : p.getQuestions()) {
+                    for (LogicStep step : question.getLogicSteps()) {
+                        if (step.getTargetKpId() != null) {
+                            kpIds.add(step.getTargetKpId());
+                        }
+                    }
+                }
+                for (String kpId : kpIds) {
+                    kpMap.computeIfAbsent(kpId, key -> new ArrayList<>()).add(p);
+                }
+
+                // 每道题写入其所有可能被命中的组合槽位（具体值 + "不限"），跳过三者都不限的槽位
+                for (String m : slots(p.getModuleId())) {
+                    for (String t : slots(p.getTopicId())) {
+                        for (ProblemDifficulty d : slots(p.getDifficulty())) {
+                            if (m == null && t == null && d == null) {
+                                continue;
+                            }
+                            compositeMap.computeIfAbsent(compositeKey(m, t, d), key -> new ArrayList<>()).add(p);
+                        }
+                    }
+                }
+            }
+
+            this.all = Collections.unmodifiableList(allList);
+            this.byId = Collections.unmodifiableMap(idMap);
+            this.byModule = freeze(moduleMap);
+            this.byTopic = freeze(topicMap);
+            this.byDifficulty = freeze(difficultyMap);
+            this.byKnowledgePoint = freeze(kpMap);
+            this.composite = freeze(compositeMap);
+            this.version = VERSIONS.incrementAndGet();
+
+            log.info("题库加载完成，共{}道题，{}个模块，{}个考查知识点",
+                allList.size(), moduleMap.size(), kpMap.size());
+        }
+
+        /**
+         * 某一维度可写入的槽位：null（不限）以及具体取值（存在时）
+         */
+        private static <T> List<T> slots(T value) {
+            return value != null ? Arrays.asList(null, value) : Collections.singletonList(null);
+        }
+    }
+}
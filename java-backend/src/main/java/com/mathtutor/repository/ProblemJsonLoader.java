@@ -0,0 +1,333 @@
+package com.mathtutor.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mathtutor.config.ProblemProperties;
+import com.mathtutor.model.LogicStep;
+import com.mathtutor.model.ProblemDifficulty;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.ProblemQuestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 题目 JSON 加载器
+ *
+ * 单个题目文件格式与 math_problem_data.json 一致：
+ * <pre>
+ * {
+ *   "problem_metadata": { "problem_id": "...", "title": "...", "module_id": "M03", "topic_id": "T02",
+ *                         "difficulty": "Hard" },
+ *   "questions": [
+ *     { "question_index": 1, "question_text": "...",
+ *       "logic_steps": [
+ *         { "step_id": "1.1", "target_kp_id": "KP01_1", "goal": "...", "check_points": ["..."],
+ *           "scaffolding": { "level_1": "...", "level_2": "...", "level_3": "..." } }
+ *       ] }
+ *   ]
+ * }
+ * </pre>
+ * 批量文件的顶层为上述文档组成的数组。
+ *
+ * 使用 Jackson 流式解析器逐题读取，每读完一题立即转换为不可变的 {@link ProblemDomain}，不构建 JSON 树，
+ * 大文件的内存占用与单题大小相关而与题目总数无关。编号类字符串与检查点经驻留后在题目间共享。
+ * 任一文件格式错误或题目不完整都会抛出异常，调用方应保留原有数据。
+ */
+@Slf4j
+public class ProblemJsonLoader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String LEVEL_PREFIX = "level_";
+
+    private final ResourcePatternResolver resolver;
+
+    public ProblemJsonLoader() {
+        this(new PathMatchingResourcePatternResolver());
+    }
+
+    public ProblemJsonLoader(ResourcePatternResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * 按配置加载全部题目：先内置数据，再外部目录，同编号以后加载的为准
+     */
+    public List<ProblemDomain> load(ProblemProperties properties) throws IOException {
+        Map<String, ProblemDomain> merged = new LinkedHashMap<>();
+        Consumer<ProblemDomain> collector = problem -> {
+            if (merged.put(problem.getProblemId(), problem) != null) {
+                log.debug("题目{}被覆盖", problem.getProblemId());
+            }
+        };
+        for (String location : properties.getLocations()) {
+            Resource[] resources = resolver.getResources(location);
+            Arrays.sort(resources, Comparator.comparing(r -> String.valueOf(r.getFilename())));
+            for (Resource resource : resources) {
+                if (!resource.exists()) {
+                    continue;
+                }
+                try (InputStream in = resource.getInputStream()) {
+                    parse(in, resource.getDescription(), collector);
+                }
+            }
+        }
+        for (Path file : KnowledgeJsonLoader.listJsonFiles(properties.getDirectory())) {
+            try (InputStream in = Files.newInputStream(file)) {
+                parse(in, file.toString(), collector);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 从输入流读取题目，每读完一题回调一次
+     * @return 读取的题目数
+     */
+    public int parse(InputStream in, String source, Consumer<ProblemDomain> target) throws IOException {
+        int count = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken first = parser.nextToken();
+            if (first == JsonToken.START_OBJECT) {
+                target.accept(readProblem(parser, source));
+                count = 1;
+            } else if (first == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    expect(parser, JsonToken.START_OBJECT, "题目数组的元素必须是 JSON 对象: " + source);
+                    target.accept(readProblem(parser, source));
+                    count++;
+                }
+            } else {
+                throw new JsonParseException(parser, "题目文件必须是 JSON 对象或数组: " + source);
+            }
+        }
+        log.debug("从{}读取题目{}道", source, count);
+        return count;
+    }
+
+    private static ProblemDomain readProblem(JsonParser parser, String source) throws IOException {
+        String problemId = null, title = null, moduleId = null, topicId = null;
+        ProblemDifficulty difficulty = null;
+        List<ProblemQuestion> questions = List.of();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("problem_metadata".equals(field)) {
+                expect(parser, JsonToken.START_OBJECT, "problem_metadata 必须是对象: " + source);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (key) {
+                        case "problem_id":
+                            problemId = parser.getValueAsString();
+                            break;
+                        case "title":
+                            title = parser.getValueAsString();
+                            break;
+                        case "module_id":
+                            moduleId = CatalogCompactor.intern(parser.getValueAsString());
+                            break;
+                        case "topic_id":
+                            topicId = CatalogCompactor.intern(parser.getValueAsString());
+                            break;
+                        case "difficulty":
+                            difficulty = readDifficulty(parser, source);
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+            } else if ("questions".equals(field)) {
+                expect(parser, JsonToken.START_ARRAY, "questions 必须是数组: " + source);
+                List<ProblemQuestion> list = new ArrayList<>();
+                while (nextObject(parser, "questions", source)) {
+                    list.add(readQuestion(parser, source));
+                }
+                questions = CatalogCompactor.compactList(list);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (problemId == null || problemId.isBlank()) {
+            throw new IOException("题目缺少 problem_metadata.problem_id (" + source + ")");
+        }
+        return new ProblemDomain(problemId, title, moduleId, topicId, difficulty, questions);
+    }
+
+    private static ProblemQuestion readQuestion(JsonParser parser, String source) throws IOException {
+        int index = 0;
+        String text = null;
+        List<LogicStep> steps = List.of();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "question_index":
+                    if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+                        throw new JsonParseException(parser, "question_index 必须是整数: " + source);
+                    }
+                    index = parser.getIntValue();
+                    break;
+                case "question_text":
+                    text = parser.getValueAsString();
+                    break;
+                case "logic_steps":
+                    expect(parser, JsonToken.START_ARRAY, "logic_steps 必须是数组: " + source);
+                    List<LogicStep> list = new ArrayList<>();
+                    while (nextObject(parser, "logic_steps", source)) {
+                        list.add(readStep(parser, source));
+                    }
+                    steps = CatalogCompactor.compactList(list);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new ProblemQuestion(index, text, steps);
+    }
+
+    private static LogicStep readStep(JsonParser parser, String source) throws IOException {
+        String stepId = null, targetKpId = null, goal = null;
+        List<String> checkPoints = List.of();
+        List<String> scaffolding = List.of();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "step_id":
+                    stepId = CatalogCompactor.intern(parser.getValueAsString());
+                    break;
+                case "target_kp_id":
+                    targetKpId = CatalogCompactor.intern(parser.getValueAsString());
+                    break;
+                case "goal":
+                    goal = parser.getValueAsString();
+                    break;
+                case "check_points":
+                    checkPoints = CatalogCompactor.compactStrings(readStrings(parser));
+                    break;
+                case "scaffolding":
+                    scaffolding = readScaffolding(parser, source);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (stepId == null) {
+            throw new IOException("解题步骤缺少 step_id (" + source + ")");
+        }
+        return new LogicStep(stepId, targetKpId, goal, checkPoints, scaffolding);
+    }
+
+    /**
+     * 读取 {"level_1": ..., "level_2": ...}，按级别排成列表；级别不连续时视为格式错误
+     */
+    private static List<String> readScaffolding(JsonParser parser, String source) throws IOException {
+        expect(parser, JsonToken.START_OBJECT, "scaffolding 必须是对象: " + source);
+        String[] levels = new String[4];
+        int max = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            int level = parseLevel(field);
+            if (level <= 0) {
+                parser.skipChildren();
+                continue;
+            }
+            if (level > levels.length) {
+                levels = Arrays.copyOf(levels, Math.max(level, levels.length * 2));
+            }
+            levels[level - 1] = parser.getValueAsString();
+            max = Math.max(max, level);
+        }
+        for (int i = 0; i < max; i++) {
+            if (levels[i] == null) {
+                throw new JsonParseException(parser, "scaffolding 缺少 level_" + (i + 1) + ": " + source);
+            }
+        }
+        return List.of(Arrays.copyOf(levels, max));
+    }
+
+    private static int parseLevel(String field) {
+        if (!field.startsWith(LEVEL_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(field.substring(LEVEL_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken().isScalarValue() && parser.currentToken() != JsonToken.VALUE_NULL) {
+                values.add(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 无法识别的难度记为 null（题目照常加载，只是不参与按难度的查询）
+     */
+    private static ProblemDifficulty readDifficulty(JsonParser parser, String source) throws IOException {
+        String value = parser.getValueAsString();
+        if (value == null) {
+            return null;
+        }
+        ProblemDifficulty difficulty = ProblemDifficulty.fromValue(value);
+        if (difficulty == null) {
+            log.warn("未知的题目难度 {}，按未给出处理 ({})", value, source);
+        }
+        return difficulty;
+    }
+
+    /**
+     * 移到数组的下一个元素；元素不是对象时抛出异常，而不是在中途静默结束、丢掉其后的元素
+     * @return 数组结束时返回 false
+     */
+    private static boolean nextObject(JsonParser parser, String array, String source) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, array + " 的元素必须是对象: " + source);
+        }
+        return true;
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, String message) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new JsonParseException(parser, message);
+        }
+    }
+}
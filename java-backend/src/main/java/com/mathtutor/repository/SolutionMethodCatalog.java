@@ -0,0 +1,335 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.init.SolutionMethodInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.SolutionMethodCategory;
+import com.mathtutor.model.SolutionMethodDomain;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 解题方法目录
+ *
+ * 索引结构：
+ * - 每个方法的适用知识体系、适用年级预先展开为 EnumSet
+ * - 年级 / 知识体系 / 方法分类各自对应一个方法位图，按条件查询即位图求交
+ * - 方法编号按难度（再按编号）排序分配，遍历交集的置位即得到按难度排好序的结果
+ * - 相关方法的传递闭包预先计算，带访问标记，方法之间互相引用也不会无限递归
+ *
+ * 未指定适用知识体系或年级范围的方法视为全部适用，与 {@link SolutionMethodDomain} 的判断一致。
+ * 内置方法优先从构建时生成的快照（见 {@link CatalogSnapshot}）读取；方法进入目录时经 {@link CatalogCompactor} 紧凑化。
+ */
+@Slf4j
+@Component
+public class SolutionMethodCatalog {
+
+    private final SolutionMethodDomain[] methods;
+    private final List<SolutionMethodDomain> all;
+    private final Map<String, Integer> idByCode = new HashMap<>();
+
+    private final List<EnumSet<GradeEnum>> grades;
+    private final List<EnumSet<KnowledgeSystemEnum>> systems;
+
+    private final Map<GradeEnum, BitSet> byGrade = new EnumMap<>(GradeEnum.class);
+    private final Map<KnowledgeSystemEnum, BitSet> bySystem = new EnumMap<>(KnowledgeSystemEnum.class);
+    private final Map<SolutionMethodCategory, BitSet> byCategory = new EnumMap<>(SolutionMethodCategory.class);
+    private final BitSet allBits;
+
+    /**
+     * 每个方法直接或间接相关的方法（不含自身），按关联距离由近到远
+     */
+    private final List<List<SolutionMethodDomain>> relatedClosure;
+    private final BitSet[] relatedBits;
+
+    /**
+     * 默认构造函数：按默认配置加载内置解题方法
+     */
+    public SolutionMethodCatalog() {
+        this(new KnowledgeProperties());
+    }
+
+    /**
+     * 加载内置解题方法：优先读取知识点快照中的方法记录，快照不可用时由 {@link SolutionMethodInitializer} 创建
+     */
+    @Autowired
+    public SolutionMethodCatalog(KnowledgeProperties properties) {
+        this(loadBuiltIn(properties.getSnapshot()));
+    }
+
+    public SolutionMethodCatalog(Collection<SolutionMethodDomain> source) {
+        List<SolutionMethodDomain> sorted = new ArrayList<>(source);
+        CatalogCompactor.compactMethods(sorted);
+        sorted.sort(Comparator.comparingInt(SolutionMethodCatalog::difficultyOf)
+            .thenComparing(m -> String.valueOf(m.getCode())));
+        this.methods = sorted.toArray(new SolutionMethodDomain[0]);
+        this.all = List.copyOf(sorted);
+        this.grades = new ArrayList<>(methods.length);
+        this.systems = new ArrayList<>(methods.length);
+        this.allBits = new BitSet(methods.length);
+        allBits.set(0, methods.length);
+
+        for (GradeEnum grade : GradeEnum.values()) {
+            byGrade.put(grade, new BitSet(methods.length));
+        }
+        for (KnowledgeSystemEnum system : KnowledgeSystemEnum.values()) {
+            bySystem.put(system, new BitSet(methods.length));
+        }
+        for (SolutionMethodCategory category : SolutionMethodCategory.values()) {
+            byCategory.put(category, new BitSet(methods.length));
+        }
+
+        for (int id = 0; id < methods.length; id++) {
+            SolutionMethodDomain method = methods[id];
+            idByCode.putIfAbsent(method.getCode(), id);
+
+            EnumSet<GradeEnum> methodGrades = gradeRange(method);
+            grades.add(methodGrades);
+            for (GradeEnum grade : methodGrades) {
+                byGrade.get(grade).set(id);
+            }
+
+            EnumSet<KnowledgeSystemEnum> methodSystems = EnumSet.noneOf(KnowledgeSystemEnum.class);
+            if (method.getApplicableKnowledgeSystems() != null) {
+                method.getApplicableKnowledgeSystems().forEach(s -> {
+                    if (s != null) methodSystems.add(s);
+                });
+            }
+            systems.add(methodSystems);
+            for (KnowledgeSystemEnum system : methodSystems.isEmpty()
+                ? EnumSet.allOf(KnowledgeSystemEnum.class) : methodSystems) {
+                bySystem.get(system).set(id);
+            }
+
+            if (method.getMethodCategory() != null) {
+                byCategory.get(method.getMethodCategory()).set(id);
+            }
+        }
+
+        this.relatedBits = new BitSet[methods.length];
+        this.relatedClosure = new ArrayList<>(methods.length);
+        int[][] edges = relatedEdges();
+        for (int id = 0; id < methods.length; id++) {
+            int[] order = bfsOrder(id, edges);
+            relatedBits[id] = new BitSet(methods.length);
+            List<SolutionMethodDomain> related = new ArrayList<>(order.length);
+            for (int r : order) {
+                relatedBits[id].set(r);
+                related.add(methods[r]);
+            }
+            relatedClosure.add(Collections.unmodifiableList(related));
+        }
+        log.debug("解题方法目录构建完成，方法{}个", methods.length);
+    }
+
+    /**
+     * 获取全部解题方法（按难度、编号排序）
+     */
+    public List<SolutionMethodDomain> findAll() {
+        return all;
+    }
+
+    /**
+     * 根据编号获取解题方法
+     * @return 解题方法，不存在时返回 null
+     */
+    public SolutionMethodDomain findByCode(String code) {
+        Integer id = idByCode.get(code);
+        return id != null ? methods[id] : null;
+    }
+
+    /**
+     * 查找同时满足年级、知识体系、方法分类的解题方法，按难度由低到高排序
+     * @param grade 年级，null 表示不限
+     * @param knowledgeSystem 知识体系，null 表示不限
+     * @param category 方法分类，null 表示不限
+     */
+    public List<SolutionMethodDomain> findCandidates(GradeEnum grade, KnowledgeSystemEnum knowledgeSystem,
+                                                     SolutionMethodCategory category) {
+        BitSet bits = (BitSet) allBits.clone();
+        if (grade != null) {
+            bits.and(byGrade.get(grade));
+        }
+        if (knowledgeSystem != null) {
+            bits.and(bySystem.get(knowledgeSystem));
+        }
+        if (category != null) {
+            bits.and(byCategory.get(category));
+        }
+        return toList(bits);
+    }
+
+    /**
+     * 查找适用于年级、且适用于任一给定知识体系的解题方法，按难度由低到高排序
+     * @param grade 年级，null 表示不限
+     * @param knowledgeSystems 知识体系，为空表示不限
+     */
+    public List<SolutionMethodDomain> findCandidates(GradeEnum grade, Set<KnowledgeSystemEnum> knowledgeSystems) {
+        BitSet bits;
+        if (knowledgeSystems == null || knowledgeSystems.isEmpty()) {
+            bits = (BitSet) allBits.clone();
+        } else {
+            bits = new BitSet(methods.length);
+            for (KnowledgeSystemEnum system : knowledgeSystems) {
+                bits.or(bySystem.get(system));
+            }
+        }
+        if (grade != null) {
+            bits.and(byGrade.get(grade));
+        }
+        return toList(bits);
+    }
+
+    /**
+     * 方法明确标注的适用知识体系（未标注时为空集合，表示全部适用）
+     */
+    public Set<KnowledgeSystemEnum> getApplicableSystems(String code) {
+        Integer id = idByCode.get(code);
+        return id != null ? Collections.unmodifiableSet(systems.get(id)) : Collections.emptySet();
+    }
+
+    /**
+     * 方法适用的年级
+     */
+    public Set<GradeEnum> getApplicableGrades(String code) {
+        Integer id = idByCode.get(code);
+        return id != null ? Collections.unmodifiableSet(grades.get(id)) : Collections.emptySet();
+    }
+
+    /**
+     * 直接或间接相关的全部方法（不含自身），按关联距离由近到远
+     */
+    public List<SolutionMethodDomain> getRelatedClosure(String code) {
+        Integer id = idByCode.get(code);
+        return id != null ? relatedClosure.get(id) : Collections.emptyList();
+    }
+
+    /**
+     * target 是否与 source 直接或间接相关
+     */
+    public boolean isRelated(String source, String target) {
+        Integer from = idByCode.get(source);
+        Integer to = idByCode.get(target);
+        return from != null && to != null && relatedBits[from].get(to);
+    }
+
+    public int size() {
+        return methods.length;
+    }
+
+    private List<SolutionMethodDomain> toList(BitSet bits) {
+        List<SolutionMethodDomain> result = new ArrayList<>(bits.cardinality());
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            result.add(methods[id]);
+        }
+        return result;
+    }
+
+    /**
+     * 相关方法的邻接表；目录外的方法按编号匹配，匹配不到则忽略
+     */
+    private int[][] relatedEdges() {
+        Map<SolutionMethodDomain, Integer> identity = new IdentityHashMap<>();
+        for (int id = 0; id < methods.length; id++) {
+            identity.put(methods[id], id);
+        }
+        int[][] edges = new int[methods.length][];
+        for (int id = 0; id < methods.length; id++) {
+            List<SolutionMethodDomain> related = methods[id].getRelatedMethods();
+            if (related == null) {
+                edges[id] = new int[0];
+                continue;
+            }
+            BitSet targets = new BitSet(methods.length);
+            int[] ordered = new int[related.size()];
+            int count = 0;
+            for (SolutionMethodDomain r : related) {
+                Integer target = r == null ? null : identity.getOrDefault(r, idByCode.get(r.getCode()));
+                if (target != null && target != id && !targets.get(target)) {
+                    targets.set(target);
+                    ordered[count++] = target;
+                }
+            }
+            edges[id] = Arrays.copyOf(ordered, count);
+        }
+        return edges;
+    }
+
+    /**
+     * 从 start 出发的广度优先遍历顺序（不含 start），已访问的方法不再展开
+     */
+    private int[] bfsOrder(int start, int[][] edges) {
+        BitSet visited = new BitSet(methods.length);
+        visited.set(start);
+        int[] order = new int[methods.length];
+        int count = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            for (int next : edges[queue.poll()]) {
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    order[count++] = next;
+                    queue.add(next);
+                }
+            }
+        }
+        return Arrays.copyOf(order, count);
+    }
+
+    private static EnumSet<GradeEnum> gradeRange(SolutionMethodDomain method) {
+        EnumSet<GradeEnum> range = EnumSet.noneOf(GradeEnum.class);
+        for (GradeEnum grade : GradeEnum.values()) {
+            if (method.isApplicableToGrade(grade)) {
+                range.add(grade);
+            }
+        }
+        return range;
+    }
+
+    /**
+     * 从快照读取内置解题方法
+     * 快照未配置、不存在、不含方法记录或无法读取时改用 {@link SolutionMethodInitializer}
+     */
+    static List<SolutionMethodDomain> loadBuiltIn(String snapshotLocation) {
+        if (snapshotLocation != null && !snapshotLocation.isBlank()) {
+            Resource resource = new PathMatchingResourcePatternResolver().getResource(snapshotLocation);
+            if (resource.exists()) {
+                try {
+                    List<SolutionMethodDomain> methods = CatalogSnapshot.open(resource).toMethodList();
+                    if (!methods.isEmpty()) {
+                        log.debug("从快照{}读取解题方法{}个", resource.getDescription(), methods.size());
+                        return methods;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("解题方法快照不可用，改为内置初始化: {}", e.toString());
+                }
+            }
+        }
+        return SolutionMethodInitializer.initializeSolutionMethods();
+    }
+
+    private static int difficultyOf(SolutionMethodDomain method) {
+        return method.getDifficultyLevel() != null ? method.getDifficultyLevel() : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,653 @@
+package com.mathtutor.search;
+
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.repository.KnowledgeReloadedEvent;
+import com.mathtutor.repository.KnowledgeRepository;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 知识点全文检索索引
+ *
+ * 索引字段：name、description、assessmentCore、detailedPoints，
+ * 名称与考核核心按更高权重计入词频。
+ *
+ * 存储结构：
+ * - 词典：词 -> 词编号（只增不减，见 {@link TermDictionary}）
+ * - 倒排列表：每个词一段 byte[]，依次存放 varint(文档编号差值)、varint(词频)
+ * - 快照：倒排列表、文档长度等打包为不可变快照，更新时写时复制后整体替换
+ *
+ * 评分采用 BM25。知识点新增、修改、删除时只重新编码受影响词的倒排列表，
+ * 删除文档过多时再整体重建以回收文档编号。
+ */
+@Slf4j
+@Component
+public class KnowledgeSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CORE_WEIGHT = 2;
+    private static final int TEXT_WEIGHT = 1;
+
+    /**
+     * 文档频率超过该比例（且不少于 {@link #MIN_COMMON_DOC_FREQ}）的词视为高频词
+     */
+    private static final float COMMON_TERM_RATIO = 0.05f;
+    private static final int MIN_COMMON_DOC_FREQ = 256;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final TermDictionary dictionary = new TermDictionary();
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+
+    /**
+     * 构造函数：基于知识点仓库构建索引
+     */
+    @Autowired
+    public KnowledgeSearchIndex(KnowledgeRepository repository) {
+        this(repository.findAll());
+    }
+
+    /**
+     * 构造函数：基于给定的知识点集合构建索引
+     */
+    public KnowledgeSearchIndex(Collection<KnowledgeDomain> knowledge) {
+        rebuild(knowledge);
+    }
+
+    /**
+     * 检索与文本最相关的知识点
+     * @param text 检索文本（如学生提问、题目原文）
+     * @param topK 返回结果数量上限
+     * @return 按 BM25 得分降序排列的结果
+     */
+    public List<SearchHit> search(String text, int topK) {
+        Snapshot current = snapshot;
+        if (topK <= 0 || current.liveDocs == 0) {
+            return Collections.emptyList();
+        }
+
+        Scratch scratch = SCRATCH.get();
+        scratch.prepare(current.docs.length);
+        int termCount = collectQueryTerms(text, current, scratch);
+        if (termCount == 0) {
+            return Collections.emptyList();
+        }
+
+        // 按 idf 从高到低处理查询词；高频词只累加到已命中的文档上，不再扩大候选集
+        sortByIdf(scratch.queryTerms, termCount, current.idf);
+        float[] scores = scratch.scores;
+        int touched = 0;
+
+        for (int t = 0; t < termCount; t++) {
+            int termId = scratch.queryTerms[t];
+            if (current.docFreqs[termId] == 0) {
+                continue;
+            }
+            boolean expand = touched == 0 || current.docFreqs[termId] <= current.commonDocFreq;
+            float idf = current.idf[termId];
+            byte[] postings = current.postings[termId];
+            int pos = 0;
+            int docId = 0;
+            while (pos < postings.length) {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = postings[pos++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                docId += value;
+
+                int tf = 0;
+                shift = 0;
+                do {
+                    b = postings[pos++];
+                    tf |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                if (scores[docId] == 0f) {
+                    if (!expand) {
+                        continue;
+                    }
+                    scratch.touched[touched++] = docId;
+                }
+                scores[docId] += idf * tf * (K1 + 1) / (tf + current.docNorms[docId]);
+            }
+        }
+
+        List<SearchHit> hits = topK(current, scratch, touched, topK);
+        for (int i = 0; i < touched; i++) {
+            scores[scratch.touched[i]] = 0f;
+        }
+        return hits;
+    }
+
+    /**
+     * 新增或更新单个知识点
+     */
+    public void index(KnowledgeDomain knowledge) {
+        if (knowledge == null || knowledge.getCode() == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            apply(snapshot, Map.of(knowledge.getCode(), knowledge), Collections.emptySet());
+        }
+    }
+
+    /**
+     * 删除单个知识点
+     */
+    public void remove(String code) {
+        if (code == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            apply(snapshot, Collections.emptyMap(), Set.of(code));
+        }
+    }
+
+    /**
+     * 与最新的知识点集合同步：只对新增、变更、删除的知识点做增量更新
+     */
+    public void sync(Collection<KnowledgeDomain> knowledge) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Map<String, KnowledgeDomain> changed = new HashMap<>();
+            Set<String> seen = new HashSet<>();
+            for (KnowledgeDomain k : knowledge) {
+                if (k == null || k.getCode() == null || !seen.add(k.getCode())) {
+                    continue;
+                }
+                Integer docId = current.docIdByCode.get(k.getCode());
+                if (docId == null || !Objects.equals(current.docs[docId], k)) {
+                    changed.put(k.getCode(), k);
+                }
+            }
+            Set<String> removed = new HashSet<>(current.docIdByCode.keySet());
+            removed.removeAll(seen);
+            if (!changed.isEmpty() || !removed.isEmpty()) {
+                log.debug("知识点索引增量同步：变更{}个，删除{}个", changed.size(), removed.size());
+                apply(current, changed, removed);
+            }
+        }
+    }
+
+    /**
+     * 知识点数据重新加载后增量同步索引（先于依赖检索结果的缓存执行）
+     */
+    @EventListener
+    @Order(1)
+    public void onKnowledgeReloaded(KnowledgeReloadedEvent event) {
+        sync(event.getKnowledge());
+    }
+
+    /**
+     * 全量重建索引
+     */
+    public void rebuild(Collection<KnowledgeDomain> knowledge) {
+        synchronized (writeLock) {
+            List<KnowledgeDomain> docs = new ArrayList<>(knowledge.size());
+            Map<String, Integer> docIdByCode = new HashMap<>();
+            for (KnowledgeDomain k : knowledge) {
+                if (k != null && k.getCode() != null && docIdByCode.putIfAbsent(k.getCode(), docs.size()) == null) {
+                    docs.add(k);
+                }
+            }
+
+            int[][] forward = new int[docs.size()][];
+            int[] docLengths = new int[docs.size()];
+            long totalLength = 0;
+            for (int docId = 0; docId < docs.size(); docId++) {
+                forward[docId] = analyze(docs.get(docId));
+                docLengths[docId] = documentLength(forward[docId]);
+                totalLength += docLengths[docId];
+            }
+
+            int termCount = dictionary.size();
+            PostingsWriter[] writers = new PostingsWriter[termCount];
+            int[] docFreqs = new int[termCount];
+            for (int docId = 0; docId < forward.length; docId++) {
+                int[] terms = forward[docId];
+                for (int i = 0; i < terms.length; i += 2) {
+                    int termId = terms[i];
+                    if (writers[termId] == null) {
+                        writers[termId] = new PostingsWriter();
+                    }
+                    writers[termId].add(docId, terms[i + 1]);
+                    docFreqs[termId]++;
+                }
+            }
+            byte[][] postings = new byte[termCount][];
+            for (int termId = 0; termId < termCount; termId++) {
+                postings[termId] = writers[termId] != null ? writers[termId].toByteArray() : new byte[0];
+            }
+
+            snapshot = new Snapshot(docs.toArray(new KnowledgeDomain[0]), forward, docLengths,
+                postings, docFreqs, docIdByCode, dictionary.copy(), docs.size(), totalLength);
+            log.info("知识点全文索引构建完成，文档{}个，词项{}个", docs.size(), termCount);
+        }
+    }
+
+    /**
+     * 当前索引中的知识点数量
+     */
+    public int size() {
+        return snapshot.liveDocs;
+    }
+
+    /**
+     * 当前词典大小
+     */
+    public int termCount() {
+        return snapshot.postings.length;
+    }
+
+    /**
+     * 倒排列表占用的字节数
+     */
+    public long postingsBytes() {
+        long bytes = 0;
+        for (byte[] p : snapshot.postings) {
+            bytes += p.length;
+        }
+        return bytes;
+    }
+
+    private void apply(Snapshot current, Map<String, KnowledgeDomain> upserts, Set<String> removals) {
+        int deleted = current.docs.length - current.liveDocs;
+        if (deleted + removals.size() > Math.max(64, current.liveDocs)) {
+            // 空洞过多，整体重建以回收文档编号
+            Map<String, KnowledgeDomain> merged = new LinkedHashMap<>();
+            for (KnowledgeDomain k : current.docs) {
+                if (k != null) merged.put(k.getCode(), k);
+            }
+            removals.forEach(merged::remove);
+            merged.putAll(upserts);
+            rebuild(merged.values());
+            return;
+        }
+
+        int newDocCount = current.docs.length;
+        for (String code : upserts.keySet()) {
+            if (!current.docIdByCode.containsKey(code)) newDocCount++;
+        }
+
+        KnowledgeDomain[] docs = Arrays.copyOf(current.docs, newDocCount);
+        int[][] forward = Arrays.copyOf(current.forward, newDocCount);
+        int[] docLengths = Arrays.copyOf(current.docLengths, newDocCount);
+        Map<String, Integer> docIdByCode = new HashMap<>(current.docIdByCode);
+        long totalLength = current.totalLength;
+        int liveDocs = current.liveDocs;
+
+        // 受影响的词：docId -> 新词频（0 表示删除），旧词频从正排索引读取
+        Map<Integer, Map<Integer, Integer>> termChanges = new HashMap<>();
+        int nextDocId = current.docs.length;
+
+        for (String code : removals) {
+            Integer docId = docIdByCode.remove(code);
+            if (docId == null) continue;
+            int[] old = forward[docId];
+            for (int i = 0; i < old.length; i += 2) {
+                termChanges.computeIfAbsent(old[i], t -> new HashMap<>()).put(docId, 0);
+            }
+            totalLength -= docLengths[docId];
+            docs[docId] = null;
+            forward[docId] = new int[0];
+            docLengths[docId] = 0;
+            liveDocs--;
+        }
+
+        for (KnowledgeDomain k : upserts.values()) {
+            Integer existing = docIdByCode.get(k.getCode());
+            int docId;
+            if (existing != null) {
+                docId = existing;
+                int[] old = forward[docId];
+                for (int i = 0; i < old.length; i += 2) {
+                    termChanges.computeIfAbsent(old[i], t -> new HashMap<>()).put(docId, 0);
+                }
+                totalLength -= docLengths[docId];
+            } else {
+                docId = nextDocId++;
+                docIdByCode.put(k.getCode(), docId);
+                liveDocs++;
+            }
+            int[] terms = analyze(k);
+            for (int i = 0; i < terms.length; i += 2) {
+                termChanges.computeIfAbsent(terms[i], t -> new HashMap<>()).put(docId, terms[i + 1]);
+            }
+            docs[docId] = k;
+            forward[docId] = terms;
+            docLengths[docId] = documentLength(terms);
+            totalLength += docLengths[docId];
+        }
+
+        int termCount = dictionary.size();
+        byte[][] postings = Arrays.copyOf(current.postings, termCount);
+        int[] docFreqs = Arrays.copyOf(current.docFreqs, termCount);
+        for (int termId = current.postings.length; termId < termCount; termId++) {
+            postings[termId] = new byte[0];
+        }
+
+        for (Map.Entry<Integer, Map<Integer, Integer>> entry : termChanges.entrySet()) {
+            int termId = entry.getKey();
+            TreeMap<Integer, Integer> merged = new TreeMap<>();
+            decode(postings[termId], merged);
+            for (Map.Entry<Integer, Integer> change : entry.getValue().entrySet()) {
+                if (change.getValue() == 0) {
+                    merged.remove(change.getKey());
+                } else {
+                    merged.put(change.getKey(), change.getValue());
+                }
+            }
+            PostingsWriter writer = new PostingsWriter();
+            merged.forEach(writer::add);
+            postings[termId] = writer.toByteArray();
+            docFreqs[termId] = merged.size();
+        }
+
+        snapshot = new Snapshot(docs, forward, docLengths, postings, docFreqs, docIdByCode,
+            dictionary.copy(), liveDocs, totalLength);
+    }
+
+    /**
+     * 分析单个知识点，返回按词编号升序的 [词编号, 加权词频, 词编号, 加权词频, ...]
+     */
+    private int[] analyze(KnowledgeDomain knowledge) {
+        TermBuffer buffer = new TermBuffer();
+        addField(buffer, knowledge.getName(), NAME_WEIGHT);
+        addField(buffer, knowledge.getAssessmentCore(), CORE_WEIGHT);
+        addField(buffer, knowledge.getDescription(), TEXT_WEIGHT);
+        if (knowledge.getDetailedPoints() != null) {
+            for (String point : knowledge.getDetailedPoints()) {
+                addField(buffer, point, TEXT_WEIGHT);
+            }
+        }
+        return buffer.toPairs();
+    }
+
+    private void addField(TermBuffer buffer, String text, int weight) {
+        KnowledgeTokenizer.tokenize(text, token -> {
+            buffer.add(dictionary.getOrAdd(token), weight);
+        });
+    }
+
+    private int collectQueryTerms(String text, Snapshot current, Scratch scratch) {
+        int[] count = {0};
+        KnowledgeTokenizer.tokenize(text, token -> {
+            int termId = current.dictionary.get(token);
+            if (termId < 0) {
+                return;
+            }
+            for (int i = 0; i < count[0]; i++) {
+                if (scratch.queryTerms[i] == termId) {
+                    return;
+                }
+            }
+            if (count[0] == scratch.queryTerms.length) {
+                scratch.queryTerms = Arrays.copyOf(scratch.queryTerms, count[0] * 2);
+            }
+            scratch.queryTerms[count[0]++] = termId;
+        });
+        return count[0];
+    }
+
+    private static void sortByIdf(int[] terms, int count, float[] idf) {
+        for (int i = 1; i < count; i++) {
+            int term = terms[i];
+            int j = i - 1;
+            while (j >= 0 && idf[terms[j]] < idf[term]) {
+                terms[j + 1] = terms[j];
+                j--;
+            }
+            terms[j + 1] = term;
+        }
+    }
+
+    private static List<SearchHit> topK(Snapshot current, Scratch scratch, int touched, int topK) {
+        int k = Math.min(topK, touched);
+        int[] heapDocs = new int[k];
+        float[] heapScores = new float[k];
+        int size = 0;
+        float[] scores = scratch.scores;
+
+        for (int i = 0; i < touched; i++) {
+            int docId = scratch.touched[i];
+            float score = scores[docId];
+            if (size < k) {
+                heapDocs[size] = docId;
+                heapScores[size] = score;
+                siftUp(heapDocs, heapScores, size++);
+            } else if (score > heapScores[0]) {
+                heapDocs[0] = docId;
+                heapScores[0] = score;
+                siftDown(heapDocs, heapScores, size);
+            }
+        }
+
+        SearchHit[] hits = new SearchHit[size];
+        while (size > 0) {
+            hits[size - 1] = new SearchHit(current.docs[heapDocs[0]], heapScores[0]);
+            size--;
+            heapDocs[0] = heapDocs[size];
+            heapScores[0] = heapScores[size];
+            siftDown(heapDocs, heapScores, size);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private static void siftUp(int[] docs, float[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) break;
+            swap(docs, scores, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] docs, float[] scores, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) break;
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[index] <= scores[smallest]) break;
+            swap(docs, scores, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] docs, float[] scores, int a, int b) {
+        int d = docs[a];
+        docs[a] = docs[b];
+        docs[b] = d;
+        float s = scores[a];
+        scores[a] = scores[b];
+        scores[b] = s;
+    }
+
+    private static int documentLength(int[] terms) {
+        int length = 0;
+        for (int i = 1; i < terms.length; i += 2) {
+            length += terms[i];
+        }
+        return length;
+    }
+
+    private static void decode(byte[] postings, Map<Integer, Integer> target) {
+        int pos = 0;
+        int docId = 0;
+        int[] value = new int[1];
+        while (pos < postings.length) {
+            pos = readVarInt(postings, pos, value);
+            docId += value[0];
+            pos = readVarInt(postings, pos, value);
+            target.put(docId, value[0]);
+        }
+    }
+
+    private static int readVarInt(byte[] bytes, int pos, int[] out) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        out[0] = value;
+        return pos;
+    }
+
+    /**
+     * 检索结果
+     */
+    @Value
+    public static class SearchHit {
+        KnowledgeDomain knowledge;
+        float score;
+    }
+
+    /**
+     * 不可变索引快照，idf 与文档长度归一化因子在发布时一次算好
+     */
+    private static final class Snapshot {
+        final KnowledgeDomain[] docs;
+        final int[][] forward;
+        final int[] docLengths;
+        final byte[][] postings;
+        final int[] docFreqs;
+        final Map<String, Integer> docIdByCode;
+        final TermDictionary dictionary;
+        final int liveDocs;
+        final long totalLength;
+        final float[] idf;
+        final float[] docNorms;
+        final int commonDocFreq;
+
+        Snapshot(KnowledgeDomain[] docs, int[][] forward, int[] docLengths, byte[][] postings,
+                 int[] docFreqs, Map<String, Integer> docIdByCode, TermDictionary dictionary,
+                 int liveDocs, long totalLength) {
+            this.docs = docs;
+            this.forward = forward;
+            this.docLengths = docLengths;
+            this.postings = postings;
+            this.docFreqs = docFreqs;
+            this.docIdByCode = docIdByCode;
+            this.dictionary = dictionary;
+            this.liveDocs = liveDocs;
+            this.totalLength = totalLength;
+
+            this.idf = new float[docFreqs.length];
+            for (int termId = 0; termId < docFreqs.length; termId++) {
+                idf[termId] = (float) Math.log(1 + (liveDocs - docFreqs[termId] + 0.5) / (docFreqs[termId] + 0.5));
+            }
+            float avgLength = liveDocs > 0 ? (float) totalLength / liveDocs : 1f;
+            this.commonDocFreq = Math.max(MIN_COMMON_DOC_FREQ, (int) (liveDocs * COMMON_TERM_RATIO));
+            this.docNorms = new float[docLengths.length];
+            for (int docId = 0; docId < docLengths.length; docId++) {
+                docNorms[docId] = K1 * (1 - B + B * docLengths[docId] / avgLength);
+            }
+        }
+    }
+
+    /**
+     * 每个线程复用的检索缓冲区
+     */
+    private static final class Scratch {
+        float[] scores = new float[0];
+        int[] touched = new int[0];
+        int[] queryTerms = new int[16];
+
+        void prepare(int docCount) {
+            if (scores.length < docCount) {
+                scores = new float[docCount];
+                touched = new int[docCount];
+            }
+        }
+    }
+
+    /**
+     * 单个文档的词频累加缓冲区：(词编号 << 32 | 权重) 排序后合并相同词
+     */
+    private static final class TermBuffer {
+        private long[] entries = new long[64];
+        private int size;
+
+        void add(int termId, int weight) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = ((long) termId << 32) | weight;
+        }
+
+        int[] toPairs() {
+            Arrays.sort(entries, 0, size);
+            int[] pairs = new int[size * 2];
+            int count = 0;
+            for (int i = 0; i < size; ) {
+                int termId = (int) (entries[i] >>> 32);
+                int tf = 0;
+                while (i < size && (int) (entries[i] >>> 32) == termId) {
+                    tf += (int) entries[i++];
+                }
+                pairs[count++] = termId;
+                pairs[count++] = tf;
+            }
+            return Arrays.copyOf(pairs, count);
+        }
+    }
+
+    /**
+     * 倒排列表编码器：varint(文档编号差值) + varint(词频)
+     */
+    private static final class PostingsWriter {
+        private byte[] buffer = new byte[16];
+        private int size;
+        private int lastDocId;
+
+        void add(int docId, int tf) {
+            writeVarInt(docId - lastDocId);
+            writeVarInt(tf);
+            lastDocId = docId;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void writeVarInt(int value) {
+            if (size + 5 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+    }
+}
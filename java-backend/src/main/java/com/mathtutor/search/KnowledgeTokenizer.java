@@ -0,0 +1,142 @@
+package com.mathtutor.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 知识点文本分词器
+ *
+ * 分词规则：
+ * - 汉字连续片段按二元组（bigram）切分，单字片段保留单字
+ * - 英文字母、数字连续片段整体作为一个词，字母统一小写
+ * - LaTeX 命令（如 \frac、\sqrt）整体作为一个词，常见符号命令归一为对应的 Unicode 符号
+ * - 绝对值、角、三角形、根号等数学符号单独成词
+ * - 全角字符先转换为半角，$、括号等其余字符视为分隔符
+ */
+public final class KnowledgeTokenizer {
+
+    /**
+     * 单独成词的数学符号
+     */
+    private static final String MATH_SYMBOLS = "|∠△√²³%≥≤≠±⊥∥°π∞";
+
+    /**
+     * LaTeX 符号命令与 Unicode 符号的对应关系
+     */
+    private static final Map<String, String> LATEX_SYMBOLS = Map.ofEntries(
+        Map.entry("angle", "∠"),
+        Map.entry("triangle", "△"),
+        Map.entry("sqrt", "√"),
+        Map.entry("pi", "π"),
+        Map.entry("perp", "⊥"),
+        Map.entry("parallel", "∥"),
+        Map.entry("geq", "≥"),
+        Map.entry("ge", "≥"),
+        Map.entry("leq", "≤"),
+        Map.entry("le", "≤"),
+        Map.entry("neq", "≠"),
+        Map.entry("ne", "≠"),
+        Map.entry("pm", "±"),
+        Map.entry("vert", "|"),
+        Map.entry("lvert", "|"),
+        Map.entry("rvert", "|"),
+        Map.entry("circ", "°"),
+        Map.entry("infty", "∞")
+    );
+
+    private KnowledgeTokenizer() {
+    }
+
+    /**
+     * 分词并返回词列表
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens::add);
+        return tokens;
+    }
+
+    /**
+     * 分词并逐个回调
+     */
+    public static void tokenize(String text, Consumer<String> sink) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = normalize(text.charAt(i));
+
+            if (isHan(c)) {
+                int start = i;
+                while (i < length && isHan(text.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    sink.accept(String.valueOf(c));
+                } else {
+                    for (int j = start; j + 1 < i; j++) {
+                        sink.accept(text.substring(j, j + 2));
+                    }
+                }
+            } else if (c == '\\') {
+                int start = ++i;
+                while (i < length && Character.isLetter(text.charAt(i)) && text.charAt(i) < 128) {
+                    i++;
+                }
+                if (i > start) {
+                    String command = text.substring(start, i);
+                    String symbol = LATEX_SYMBOLS.get(command);
+                    sink.accept(symbol != null ? symbol : "\\" + command);
+                }
+            } else if (isWordChar(c)) {
+                StringBuilder word = new StringBuilder();
+                while (i < length) {
+                    char w = normalize(text.charAt(i));
+                    if (!isWordChar(w)) {
+                        break;
+                    }
+                    word.append(Character.toLowerCase(w));
+                    i++;
+                }
+                // 小数点只保留在数字中间，去掉句末等处的 '.'
+                int from = 0;
+                int to = word.length();
+                while (from < to && word.charAt(from) == '.') from++;
+                while (to > from && word.charAt(to - 1) == '.') to--;
+                if (to > from) {
+                    sink.accept(word.substring(from, to));
+                }
+            } else {
+                if (MATH_SYMBOLS.indexOf(c) >= 0) {
+                    sink.accept(String.valueOf(c));
+                }
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 全角 ASCII 字符转换为半角
+     */
+    static char normalize(char c) {
+        if (c >= '！' && c <= '～') {
+            return (char) (c - 0xFEE0);
+        }
+        if (c == '　') {
+            return ' ';
+        }
+        return c;
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.';
+    }
+}
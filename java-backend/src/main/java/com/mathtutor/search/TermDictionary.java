@@ -0,0 +1,133 @@
+package com.mathtutor.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 词典：词 -> 连续的词编号
+ *
+ * 汉字二元组的 String.hashCode 只落在很窄的区间内（31 * c1 + c2），
+ * 数十万个二元组放进 HashMap 会严重冲突。因此长度不超过 2 的词
+ * 直接把两个字符打包为 int 键，存入开放寻址表；更长的词使用普通 HashMap。
+ *
+ * 非线程安全：写入方持有独占副本，发布快照时通过 {@link #copy()} 生成只读副本。
+ */
+final class TermDictionary {
+
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int packedSize;
+    private final Map<String, Integer> words;
+    private int termCount;
+
+    TermDictionary() {
+        this.keys = new int[1024];
+        this.values = new int[1024];
+        this.words = new HashMap<>();
+    }
+
+    private TermDictionary(TermDictionary source) {
+        this.keys = source.keys.clone();
+        this.values = source.values.clone();
+        this.packedSize = source.packedSize;
+        this.words = new HashMap<>(source.words);
+        this.termCount = source.termCount;
+    }
+
+    /**
+     * 查询词编号
+     * @return 词编号，不存在时返回 -1
+     */
+    int get(String token) {
+        if (token.length() <= 2) {
+            int key = pack(token);
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                int k = keys[slot];
+                if (k == key) {
+                    return values[slot];
+                }
+                if (k == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+        Integer termId = words.get(token);
+        return termId != null ? termId : -1;
+    }
+
+    /**
+     * 查询词编号，不存在时分配新编号
+     */
+    int getOrAdd(String token) {
+        if (token.length() <= 2) {
+            int key = pack(token);
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                int k = keys[slot];
+                if (k == key) {
+                    return values[slot];
+                }
+                if (k == EMPTY) {
+                    keys[slot] = key;
+                    values[slot] = termCount;
+                    if (++packedSize * 2 > keys.length) {
+                        resize();
+                    }
+                    return termCount++;
+                }
+            }
+        }
+        Integer termId = words.get(token);
+        if (termId == null) {
+            termId = termCount++;
+            words.put(token, termId);
+        }
+        return termId;
+    }
+
+    /**
+     * 词典大小
+     */
+    int size() {
+        return termCount;
+    }
+
+    /**
+     * 生成独立副本
+     */
+    TermDictionary copy() {
+        return new TermDictionary(this);
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static int pack(String token) {
+        return (token.charAt(0) << 16) | (token.length() > 1 ? token.charAt(1) : 0);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,56 @@
+package com.mathtutor.search.dedup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 题目近似重复索引
+ *
+ * 按 {@link QuestionFingerprint#getKey()} 精确查找：排版、出处与分值抬头、全角半角、数字写法或语气词不同的
+ * 同一道题能找到，数字、符号、字母或任何一个实词不同的题目都不会匹配。
+ * 多个条目的键相同时保留最后放入的。
+ */
+public class NearDuplicateIndex {
+
+    private final Map<String, String> idsByKey = new HashMap<>();
+    private final Map<String, String> keysById = new HashMap<>();
+
+    /**
+     * 收录题目，同一标识的旧条目被替换
+     */
+    public void put(String id, String questionText) {
+        String key = QuestionFingerprint.of(questionText).getKey();
+        synchronized (this) {
+            remove(id);
+            idsByKey.put(key, id);
+            keysById.put(id, key);
+        }
+    }
+
+    public synchronized boolean remove(String id) {
+        String key = keysById.remove(id);
+        if (key == null) {
+            return false;
+        }
+        idsByKey.remove(key, id);
+        return true;
+    }
+
+    /**
+     * 有效条目数
+     */
+    public synchronized int size() {
+        return keysById.size();
+    }
+
+    /**
+     * 查找与题目相同的条目
+     * @return 条目标识，没有时返回 null
+     */
+    public String find(String questionText) {
+        String key = QuestionFingerprint.of(questionText).getKey();
+        synchronized (this) {
+            return idsByKey.get(key);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.mathtutor.search.dedup;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 题目文本指纹
+ *
+ * 归一化只消除不改变题意的差异：全角/半角、空白与标点、答题括号与下划线的写法、
+ * 试卷出处与分值等抬头、数字的书写格式（3.0 与 3、０５ 与 5）。
+ * 数字本身（含中文数字，"三个点" 记为 3）从文本中抽出，正文里以 # 代替。
+ * 正文去掉 "请""的" 等语气与虚词后的核心文本连同数字序列构成 {@link #getKey()}，键相同才是同一道题：
+ * 数字、符号、字母不同，或只差一个字（"最大值" 与 "最小值"、"向左" 与 "向右"）的两道题都不会被当作同一题。
+ */
+@Getter
+public final class QuestionFingerprint {
+
+    /**
+     * 试卷出处标记，如 "【2023·北京期末】"、"(2024 七年级月考)"
+     */
+    private static final Pattern SOURCE_TAG = Pattern.compile(
+        "[\\[(【][^\\[\\]()【】\\n]{0,40}?(期中|期末|月考|中考|模拟|联考|真题|改编|竞赛|考试|试卷|检测|学年)"
+            + "[^\\[\\]()【】\\n]{0,40}?[\\])】]");
+
+    /**
+     * 以年份开头、单独成行的试卷抬头，如 "2024年某市七年级期中考试"
+     */
+    private static final Pattern HEADER_LINE = Pattern.compile(
+        "^\\d{4}(\\s*-\\s*\\d{4})?\\s*(学年|年)?[^\\n=]{0,30}(期中|期末|月考|中考|模拟|联考|真题|竞赛|考试|试卷|检测|练习)"
+            + "[^\\n=]{0,20}\\n");
+
+    private static final Pattern SCORE_TAG = Pattern.compile("\\(\\s*(本题)?(满分)?\\s*\\d+\\s*分\\s*\\)");
+
+    private static final Pattern LEADING_NUMBER = Pattern.compile(
+        "^\\s*(第\\s*\\d+\\s*题\\s*[.、:]?|例\\s*\\d+\\s*[.、:]?|\\d+\\s*(、|\\.(?!\\d)|\\))|\\(\\d+\\))\\s*");
+
+    private static final Pattern ANSWER_BLANK = Pattern.compile("\\(\\s*\\)|_{2,}");
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?|[〇零一二两三四五六七八九十百千万]+");
+
+    private static final String CHINESE_DIGITS = "零一二三四五六七八九";
+
+    /**
+     * 不改变题意的语气词与虚词，比较核心文本时去掉（"请求出" 与 "求"）
+     */
+    private static final String FILLER = "请试出的了呢吗吧";
+
+    private static final char NUMBER_MARK = '#';
+
+    /**
+     * 归一化并以 # 代替数字后的正文
+     */
+    private final String maskedText;
+
+    /**
+     * 按出现顺序排列的规范化数字
+     */
+    private final List<String> numbers;
+
+    /**
+     * 式子骨架：正文去掉汉字与答题空后剩下的字母和运算符号，如 "|a+#|+(b-#)^#=#"
+     */
+    private final String formula;
+
+    /**
+     * 去掉语气词、虚词与答题空后的正文，连同数字序列
+     */
+    private final String key;
+
+    private QuestionFingerprint(String maskedText, List<String> numbers) {
+        this.maskedText = maskedText;
+        this.numbers = numbers;
+        this.formula = formulaOf(maskedText);
+        this.key = coreTextOf(maskedText) + '\n' + String.join(",", numbers);
+    }
+
+    public static QuestionFingerprint of(String questionText) {
+        String text = replaceSuperscripts(questionText == null ? "" : questionText);
+        text = Normalizer.normalize(text, Normalizer.Form.NFKC)
+            .replace('−', '-').replace('×', '*').replace('÷', '/').replace('⁄', '/')
+            .replace('。', '.').replace("\r", "");
+
+        text = HEADER_LINE.matcher(text.strip()).replaceFirst("");
+        text = SOURCE_TAG.matcher(text).replaceAll("");
+        text = SCORE_TAG.matcher(text).replaceAll("");
+        text = LEADING_NUMBER.matcher(text).replaceFirst("");
+        text = ANSWER_BLANK.matcher(text).replaceAll("_");
+
+        List<String> numbers = new ArrayList<>();
+        StringBuilder masked = new StringBuilder(text.length());
+        Matcher matcher = NUMBER.matcher(text);
+        int last = 0;
+        while (matcher.find()) {
+            appendSignificant(masked, text, last, matcher.start());
+            masked.append(NUMBER_MARK);
+            String number = matcher.group();
+            numbers.add(number.charAt(0) >= '0' && number.charAt(0) <= '9'
+                ? new BigDecimal(number).stripTrailingZeros().toPlainString() : chineseNumber(number));
+            last = matcher.end();
+        }
+        appendSignificant(masked, text, last, text.length());
+        return new QuestionFingerprint(masked.toString(), Collections.unmodifiableList(numbers));
+    }
+
+    /**
+     * 中文数字的值："十二" 为 12，"一百零五" 为 105，"二〇二四" 这样没有单位的按位连写为 2024
+     */
+    static String chineseNumber(String text) {
+        boolean positional = true;
+        for (int i = 0; i < text.length() && positional; i++) {
+            positional = digitOf(text.charAt(i)) >= 0;
+        }
+        if (positional) {
+            StringBuilder digits = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                digits.append(digitOf(text.charAt(i)));
+            }
+            return new BigDecimal(digits.toString()).toPlainString();
+        }
+        try {
+            long total = 0;
+            long section = 0;
+            long digit = -1;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                int d = digitOf(c);
+                if (d >= 0) {
+                    digit = d;
+                    continue;
+                }
+                if (c == '万') {
+                    total = Math.multiplyExact(total + section + Math.max(digit, 0), 10000L);
+                    section = 0;
+                } else {
+                    long unit = c == '十' ? 10 : c == '百' ? 100 : 1000;
+                    section = Math.addExact(section, (digit < 0 ? 1 : digit) * unit);
+                }
+                digit = -1;
+            }
+            return Long.toString(Math.addExact(total, section + Math.max(digit, 0)));
+        } catch (ArithmeticException overflow) {
+            // 不成数的长串按原文比较
+            return text;
+        }
+    }
+
+    private static int digitOf(char c) {
+        if (c == '〇') {
+            return 0;
+        }
+        if (c == '两') {
+            return 2;
+        }
+        return CHINESE_DIGITS.indexOf(c);
+    }
+
+    private static String coreTextOf(String maskedText) {
+        StringBuilder core = new StringBuilder(maskedText.length());
+        for (int i = 0; i < maskedText.length(); i++) {
+            char c = maskedText.charAt(i);
+            // 答题空的有无与位置也不影响题意
+            if (c != '_' && FILLER.indexOf(c) < 0) {
+                core.append(c);
+            }
+        }
+        return core.toString();
+    }
+
+    private static String formulaOf(String maskedText) {
+        StringBuilder formula = new StringBuilder();
+        for (int i = 0; i < maskedText.length(); i++) {
+            char c = maskedText.charAt(i);
+            if (c != '_' && Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN) {
+                formula.append(c);
+            }
+        }
+        return formula.toString();
+    }
+
+    /**
+     * NFKC 会把上标数字变成普通数字（x² 变成 x2），先改写为幂运算
+     */
+    private static String replaceSuperscripts(String text) {
+        StringBuilder result = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '²':
+                    result.append("^2");
+                    break;
+                case '³':
+                    result.append("^3");
+                    break;
+                default:
+                    result.append(c);
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 只保留字母（含汉字）、运算符号与全部数学符号（Unicode Sm 类，如 ≤ ≥ ≠ ∈）；
+     * 空白、逗号、引号等不影响题意的字符丢弃
+     */
+    private static void appendSignificant(StringBuilder target, String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c) || Character.getType(c) == Character.MATH_SYMBOL
+                || "+-*/^=<>()|%_∠△⊥∥≌∽√π".indexOf(c) >= 0) {
+                target.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.mathtutor.search.vector;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 本地文本向量化器：哈希字符 n-gram + TF-IDF + 稀疏随机投影
+ *
+ * 1. 文本归一化（全角转半角、去空白、字母小写）后抽取 1~3 元字符 n-gram
+ * 2. n-gram 哈希到 2^16 个桶，按 TF-IDF 加权（IDF 由 {@link #fit} 从语料中统计）
+ * 3. 每个桶通过稀疏随机投影映射到低维空间的若干维（符号随机），降维到 {@code dimension}
+ * 4. L2 归一化，向量点积即余弦相似度
+ *
+ * 不依赖任何外部服务，fit 之后只读，可多线程并发调用。
+ */
+public class NgramEmbedder {
+
+    private static final int BUCKET_BITS = 16;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+
+    /**
+     * 每个桶投影到的维数（稀疏随机投影的非零个数）
+     */
+    private static final int PROJECTIONS = 3;
+
+    private static final float UNIGRAM_WEIGHT = 0.3f;
+    private static final float BIGRAM_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 1.0f;
+
+    private final int dimension;
+    private final float[] idf = new float[BUCKETS];
+
+    public NgramEmbedder(int dimension) {
+        this.dimension = dimension;
+        Arrays.fill(idf, 1f);
+    }
+
+    /**
+     * 基于语料统计每个桶的 IDF
+     */
+    public void fit(Collection<String> corpus) {
+        int[] docFreq = new int[BUCKETS];
+        int[] seen = new int[BUCKETS];
+        int docId = 0;
+        for (String text : corpus) {
+            docId++;
+            char[] chars = normalize(text);
+            for (int n = 1; n <= 3; n++) {
+                for (int i = 0; i + n <= chars.length; i++) {
+                    int bucket = bucket(chars, i, n);
+                    if (seen[bucket] != docId) {
+                        seen[bucket] = docId;
+                        docFreq[bucket]++;
+                    }
+                }
+            }
+        }
+        int docs = Math.max(1, corpus.size());
+        for (int b = 0; b < BUCKETS; b++) {
+            idf[b] = (float) Math.log(1 + (double) docs / (1 + docFreq[b]));
+        }
+    }
+
+    /**
+     * 向量维度
+     */
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * 向量化文本
+     */
+    public float[] embed(String text) {
+        float[] vector = new float[dimension];
+        embedInto(text, vector, 0);
+        return vector;
+    }
+
+    /**
+     * 向量化文本并写入 target[offset..offset+dimension)
+     */
+    public void embedInto(String text, float[] target, int offset) {
+        Arrays.fill(target, offset, offset + dimension, 0f);
+        char[] chars = normalize(text);
+        addGrams(chars, 1, UNIGRAM_WEIGHT, target, offset);
+        addGrams(chars, 2, BIGRAM_WEIGHT, target, offset);
+        addGrams(chars, 3, TRIGRAM_WEIGHT, target, offset);
+
+        double norm = 0;
+        for (int i = offset; i < offset + dimension; i++) {
+            norm += target[i] * target[i];
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = offset; i < offset + dimension; i++) {
+                target[i] *= scale;
+            }
+        }
+    }
+
+    private void addGrams(char[] chars, int n, float weight, float[] target, int offset) {
+        for (int i = 0; i + n <= chars.length; i++) {
+            int bucket = bucket(chars, i, n);
+            float value = weight * idf[bucket];
+            int h = bucket * 0x9E3779B9;
+            for (int p = 0; p < PROJECTIONS; p++) {
+                h = h * 0x85EBCA6B + 0xC2B2AE35;
+                int mixed = h ^ (h >>> 15);
+                int dim = Math.floorMod(mixed, dimension);
+                target[offset + dim] += (mixed & 0x40000000) != 0 ? value : -value;
+            }
+        }
+    }
+
+    private static int bucket(char[] chars, int start, int n) {
+        int h = 0x811C9DC5;
+        for (int i = start; i < start + n; i++) {
+            h = (h ^ chars[i]) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        return h & (BUCKETS - 1);
+    }
+
+    private static char[] normalize(String text) {
+        if (text == null) {
+            return new char[0];
+        }
+        char[] out = new char[text.length()];
+        int size = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '！' && c <= '～') {
+                c = (char) (c - 0xFEE0);
+            }
+            if (Character.isWhitespace(c) || c == '　' || c == '$') {
+                continue;
+            }
+            out[size++] = Character.toLowerCase(c);
+        }
+        return Arrays.copyOf(out, size);
+    }
+}
@@ -0,0 +1,175 @@
+package com.mathtutor.search.vector;
+
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.SolutionMethodDomain;
+import com.mathtutor.repository.KnowledgeReloadedEvent;
+import com.mathtutor.repository.KnowledgeRepository;
+import com.mathtutor.repository.ProblemBank;
+import com.mathtutor.repository.SolutionMethodCatalog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 语义相似度索引
+ *
+ * 用 {@link NgramEmbedder} 把知识点、解题方法和题库题目向量化后存入同一个 {@link VectorIndex}，
+ * 支持"相似题目"、"题目涉及哪些知识点"等按意思而非关键字的检索。
+ * 知识点数据重新加载后整体重建（IDF 随语料变化），已加入的题目会重新向量化。
+ */
+@Slf4j
+@Component
+public class SemanticIndex {
+
+    public static final String TYPE_KNOWLEDGE = "knowledge";
+    public static final String TYPE_METHOD = "method";
+    public static final String TYPE_PROBLEM = "problem";
+
+    /**
+     * 默认向量维度
+     */
+    public static final int DEFAULT_DIMENSION = 256;
+
+    private final int dimension;
+    private final List<SolutionMethodDomain> methods;
+
+    /**
+     * 已加入的题目（编号 -> 文本），重建时重新加入
+     */
+    private final Map<String, String> problems = new LinkedHashMap<>();
+
+    /**
+     * 当前的向量化器与索引，知识点重新加载时整体替换
+     */
+    private volatile State state;
+
+    @Autowired
+    public SemanticIndex(KnowledgeRepository repository, SolutionMethodCatalog methodCatalog, ProblemBank problemBank) {
+        this(repository.findAll(), methodCatalog.findAll(), DEFAULT_DIMENSION);
+        for (ProblemDomain problem : problemBank.findAll()) {
+            addProblem(problem.getProblemId(), problem.getSearchText());
+        }
+    }
+
+    public SemanticIndex(Collection<KnowledgeDomain> knowledge, Collection<SolutionMethodDomain> methods, int dimension) {
+        this.dimension = dimension;
+        this.methods = List.copyOf(methods);
+        this.state = build(knowledge);
+    }
+
+    /**
+     * 加入题库题目
+     */
+    public synchronized void addProblem(String problemId, String text) {
+        problems.put(problemId, text);
+        State current = state;
+        current.index.add(problemId, TYPE_PROBLEM, current.embedder.embed(text));
+    }
+
+    /**
+     * 基于新的知识点集合重建索引（保留解题方法和已加入的题目），构建完成后原子替换
+     */
+    public synchronized void rebuild(Collection<KnowledgeDomain> knowledge) {
+        State next = build(knowledge);
+        problems.forEach((id, text) -> next.index.add(id, TYPE_PROBLEM, next.embedder.embed(text)));
+        state = next;
+    }
+
+    /**
+     * 知识点数据重新加载后重建索引
+     */
+    @EventListener
+    @Order(1)
+    public void onKnowledgeReloaded(KnowledgeReloadedEvent event) {
+        rebuild(event.getKnowledge());
+    }
+
+    /**
+     * 检索语义相近的知识点
+     */
+    public List<VectorIndex.Hit> similarKnowledge(String text, int topK) {
+        return search(text, topK, TYPE_KNOWLEDGE);
+    }
+
+    /**
+     * 检索语义相近的解题方法
+     */
+    public List<VectorIndex.Hit> similarMethods(String text, int topK) {
+        return search(text, topK, TYPE_METHOD);
+    }
+
+    /**
+     * 检索语义相近的题目
+     */
+    public List<VectorIndex.Hit> similarProblems(String text, int topK) {
+        return search(text, topK, TYPE_PROBLEM);
+    }
+
+    /**
+     * 条目总数
+     */
+    public int size() {
+        return state.index.size();
+    }
+
+    private List<VectorIndex.Hit> search(String text, int topK, String type) {
+        State current = state;
+        return current.index.search(current.embedder.embed(text), topK, type);
+    }
+
+    private State build(Collection<KnowledgeDomain> knowledge) {
+        List<String> corpus = new ArrayList<>();
+        knowledge.forEach(k -> corpus.add(knowledgeText(k)));
+        methods.forEach(m -> corpus.add(methodText(m)));
+
+        NgramEmbedder embedder = new NgramEmbedder(dimension);
+        embedder.fit(corpus);
+        VectorIndex index = new VectorIndex(dimension, VectorOps.instance(), corpus.size() * 2 + problems.size());
+
+        knowledge.forEach(k -> index.add(k.getCode(), TYPE_KNOWLEDGE, embedder.embed(knowledgeText(k))));
+        methods.forEach(m -> index.add(m.getCode(), TYPE_METHOD, embedder.embed(methodText(m))));
+        log.info("语义索引构建完成，条目{}个，维度{}", index.size(), dimension);
+        return new State(embedder, index);
+    }
+
+    private static String knowledgeText(KnowledgeDomain k) {
+        StringBuilder text = new StringBuilder();
+        text.append(k.getName()).append(' ').append(k.getName()).append(' ')
+            .append(k.getDescription()).append(' ').append(k.getAssessmentCore());
+        if (k.getDetailedPoints() != null) {
+            k.getDetailedPoints().forEach(point -> text.append(' ').append(point));
+        }
+        return text.toString();
+    }
+
+    private static String methodText(SolutionMethodDomain m) {
+        StringBuilder text = new StringBuilder();
+        text.append(m.getName()).append(' ').append(m.getName()).append(' ').append(m.getDescription());
+        if (m.getApplicableProblemTypes() != null) {
+            text.append(' ').append(m.getApplicableProblemTypes());
+        }
+        if (m.getKeyPoints() != null) {
+            m.getKeyPoints().forEach(point -> text.append(' ').append(point));
+        }
+        return text.toString();
+    }
+
+    private static final class State {
+        private final NgramEmbedder embedder;
+        private final VectorIndex index;
+
+        private State(NgramEmbedder embedder, VectorIndex index) {
+            this.embedder = embedder;
+            this.index = index;
+        }
+    }
+}
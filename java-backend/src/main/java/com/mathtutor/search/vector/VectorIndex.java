@@ -0,0 +1,171 @@
+package com.mathtutor.search.vector;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 内存向量索引
+ *
+ * 所有向量按行连续存放在一个 float[] 中（第 i 个向量位于 [i*dimension, (i+1)*dimension)），
+ * 检索时整段顺序扫描计算点积，再用小顶堆取 Top-K。
+ * 写入加锁、读取无锁：先写数据再发布计数，读取方只访问已发布的行。
+ */
+public class VectorIndex {
+
+    private final int dimension;
+    private final VectorOps ops;
+
+    private volatile float[] data;
+    private volatile String[] ids;
+    private volatile String[] types;
+    private volatile int size;
+
+    public VectorIndex(int dimension) {
+        this(dimension, VectorOps.instance(), 1024);
+    }
+
+    public VectorIndex(int dimension, VectorOps ops, int initialCapacity) {
+        this.dimension = dimension;
+        this.ops = ops;
+        int capacity = Math.max(16, initialCapacity);
+        this.data = new float[capacity * dimension];
+        this.ids = new String[capacity];
+        this.types = new String[capacity];
+    }
+
+    /**
+     * 添加向量（调用方需保证已 L2 归一化）
+     * @param id 条目标识，如知识点编号
+     * @param type 条目类型，如 knowledge / method / problem
+     * @param vector 向量
+     */
+    public synchronized void add(String id, String type, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配: " + vector.length + " != " + dimension);
+        }
+        int row = size;
+        ensureCapacity(row + 1);
+        System.arraycopy(vector, 0, data, row * dimension, dimension);
+        ids[row] = id;
+        types[row] = type;
+        size = row + 1;
+    }
+
+    /**
+     * 检索余弦相似度最高的条目
+     * @param query 已归一化的查询向量
+     * @param topK 结果数量
+     * @param type 只返回指定类型，null 表示不限
+     */
+    public List<Hit> search(float[] query, int topK, String type) {
+        int rows = size;
+        float[] matrix = data;
+        String[] rowIds = ids;
+        String[] rowTypes = types;
+        if (rows == 0 || topK <= 0) {
+            return Collections.emptyList();
+        }
+
+        int k = Math.min(topK, rows);
+        int[] heapRows = new int[k];
+        float[] heapScores = new float[k];
+        int heapSize = 0;
+
+        for (int row = 0, offset = 0; row < rows; row++, offset += dimension) {
+            if (type != null && !type.equals(rowTypes[row])) {
+                continue;
+            }
+            float score = ops.dot(matrix, offset, query, 0, dimension);
+            if (heapSize < k) {
+                heapRows[heapSize] = row;
+                heapScores[heapSize] = score;
+                siftUp(heapRows, heapScores, heapSize++);
+            } else if (score > heapScores[0]) {
+                heapRows[0] = row;
+                heapScores[0] = score;
+                siftDown(heapRows, heapScores, heapSize);
+            }
+        }
+
+        Hit[] hits = new Hit[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            hits[i] = new Hit(rowIds[heapRows[0]], rowTypes[heapRows[0]], heapScores[0]);
+            heapRows[0] = heapRows[i];
+            heapScores[0] = heapScores[i];
+            siftDown(heapRows, heapScores, i);
+        }
+        return new ArrayList<>(Arrays.asList(hits));
+    }
+
+    /**
+     * 条目数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * 向量数据占用的字节数
+     */
+    public long dataBytes() {
+        return (long) size * dimension * Float.BYTES;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(rows, ids.length * 2);
+        data = Arrays.copyOf(data, capacity * dimension);
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+    }
+
+    private static void siftUp(int[] rows, float[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) break;
+            swap(rows, scores, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] rows, float[] scores, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) break;
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[index] <= scores[smallest]) break;
+            swap(rows, scores, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] rows, float[] scores, int a, int b) {
+        int r = rows[a];
+        rows[a] = rows[b];
+        rows[b] = r;
+        float s = scores[a];
+        scores[a] = scores[b];
+        scores[b] = s;
+    }
+
+    /**
+     * 检索结果
+     */
+    @Value
+    public static class Hit {
+        String id;
+        String type;
+        float score;
+    }
+}
@@ -0,0 +1,102 @@
+package com.mathtutor.search.vector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向量运算内核
+ *
+ * 默认构建只包含标量实现。以 vector-api profile 构建时另外编译 src/main/java-vector 下的 JDK Vector API 实现，
+ * 运行时带有 --add-modules jdk.incubator.vector 才会启用，否则仍使用标量实现。
+ * SIMD 实现通过反射加载，类不存在或未启用孵化模块时都不会触发类加载错误。
+ */
+@Slf4j
+public abstract class VectorOps {
+
+    private static final String SIMD_IMPLEMENTATION = "com.mathtutor.search.vector.SimdVectorOps";
+
+    private static final VectorOps INSTANCE = detect();
+
+    /**
+     * 当前运行环境下可用的最优实现
+     */
+    public static VectorOps instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 标量实现
+     */
+    public static VectorOps scalar() {
+        return ScalarVectorOps.INSTANCE;
+    }
+
+    /**
+     * 计算 a[aOffset..aOffset+length) 与 b[bOffset..bOffset+length) 的点积
+     */
+    public abstract float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * 计算矩阵中每一行与查询向量的点积
+     * @param matrix 按行连续存放的矩阵
+     * @param rows 行数
+     * @param dimension 每行维度
+     * @param query 查询向量
+     * @param out 输出，长度不小于 rows
+     */
+    public void dotAll(float[] matrix, int rows, int dimension, float[] query, float[] out) {
+        for (int row = 0, offset = 0; row < rows; row++, offset += dimension) {
+            out[row] = dot(matrix, offset, query, 0, dimension);
+        }
+    }
+
+    /**
+     * 实现名称
+     */
+    public abstract String name();
+
+    private static VectorOps detect() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                VectorOps simd = (VectorOps) Class.forName(SIMD_IMPLEMENTATION).getDeclaredConstructor().newInstance();
+                log.info("向量运算使用 JDK Vector API: {}", simd.name());
+                return simd;
+            } catch (ClassNotFoundException e) {
+                log.info("构建时未包含 Vector API 实现（vector-api profile），向量运算使用标量实现");
+            } catch (Throwable e) {
+                log.warn("加载 Vector API 实现失败，使用标量实现", e);
+            }
+        } else {
+            log.info("未启用 jdk.incubator.vector 模块，向量运算使用标量实现");
+        }
+        return ScalarVectorOps.INSTANCE;
+    }
+
+    /**
+     * 标量实现：四路展开以减少循环依赖
+     */
+    static final class ScalarVectorOps extends VectorOps {
+
+        static final ScalarVectorOps INSTANCE = new ScalarVectorOps();
+
+        @Override
+        public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (; i + 3 < length; i += 4) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+                s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+                s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+                s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+            }
+            for (; i < length; i++) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    }
+}
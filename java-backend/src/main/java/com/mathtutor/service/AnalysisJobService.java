@@ -0,0 +1,47 @@
+package com.mathtutor.service;
+
+import com.mathtutor.job.JobPriority;
+import com.mathtutor.job.JobRejectedException;
+import com.mathtutor.model.AnalysisJobStats;
+import com.mathtutor.model.AnalysisJobView;
+import reactor.core.publisher.Flux;
+
+import java.util.Optional;
+
+/**
+ * 异步分析任务服务
+ * 提交后立即返回任务ID，任务在进程内有界的优先级队列中排队，由固定数量的工作线程执行；
+ * 结束的任务保留一段时间供查询，之后自动丢弃
+ */
+public interface AnalysisJobService {
+
+    /**
+     * 提交分析任务
+     * @param question 数学题目
+     * @param context 上下文信息，可为空
+     * @param priority 优先级，LOW 按批量负载排队
+     * @param tenant 提交人，可为空
+     * @return 任务当前状态
+     * @throws JobRejectedException 排队任务已满
+     */
+    AnalysisJobView submit(String question, String context, JobPriority priority, String tenant);
+
+    /**
+     * 查询任务；不存在或已过期时为空
+     */
+    Optional<AnalysisJobView> find(String jobId);
+
+    /**
+     * 任务已生成的分析文本，先重放已有内容，之后随生成推送，任务结束时完成
+     * @return 不存在或已过期时返回 null
+     */
+    Flux<String> progress(String jobId);
+
+    /**
+     * 取消排队中或执行中的任务
+     * @return 任务不存在或已结束时返回 false
+     */
+    boolean cancel(String jobId);
+
+    AnalysisJobStats getStats();
+}
@@ -0,0 +1,27 @@
+package com.mathtutor.service;
+
+import com.mathtutor.model.PregenerationProgress;
+
+/**
+ * 题目分析预生成服务
+ * 在业务低谷时段为题库中的题目预先生成分析，在线分析同一题目时直接返回
+ */
+public interface AnalysisPregenerationService {
+
+    /**
+     * 启动一次运行；存在未完成的断点时从断点继续
+     * @param ignoreWindow 是否忽略运行时段限制（手动触发时使用）
+     * @return 已在运行或不在运行时段内时返回 false
+     */
+    boolean start(boolean ignoreWindow);
+
+    /**
+     * 请求停止，进行中的分析完成后退出并保存断点
+     */
+    void stop();
+
+    /**
+     * 当前进度
+     */
+    PregenerationProgress getProgress();
+}
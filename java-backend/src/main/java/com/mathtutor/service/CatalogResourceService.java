@@ -0,0 +1,33 @@
+package com.mathtutor.service;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.PrecomputedJson;
+
+/**
+ * 知识点 / 解题方法 / 题目只读资源服务接口
+ * 返回预先序列化好的 JSON，资源不存在时返回 null
+ */
+public interface CatalogResourceService {
+
+    /**
+     * 知识点列表
+     * @param grade 年级，null 表示全部知识点
+     */
+    PrecomputedJson getKnowledgeList(GradeEnum grade);
+
+    PrecomputedJson getKnowledge(String code);
+
+    PrecomputedJson getMethodList();
+
+    PrecomputedJson getMethod(String code);
+
+    /**
+     * 题目列表（只含 problem_metadata）
+     */
+    PrecomputedJson getProblemList();
+
+    /**
+     * 完整题目（格式同 math_problem_data.json）
+     */
+    PrecomputedJson getProblem(String problemId);
+}
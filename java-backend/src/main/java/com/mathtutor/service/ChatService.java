@@ -1,8 +1,11 @@
 package com.mathtutor.service;
 
+import com.mathtutor.llm.LlmClient;
 import com.mathtutor.model.ChatRequest;
 import com.mathtutor.model.ChatResponse;
 
+import java.util.function.Consumer;
+
 /**
  * 聊天服务接口
  */
@@ -15,6 +18,17 @@ public interface ChatService {
      */
     ChatResponse chat(ChatRequest request);
 
+    /**
+     * 流式处理聊天请求，回调可能发生在后台线程
+     * @param request 聊天请求
+     * @param onDelta 每段增量文本
+     * @param onComplete 正常结束时调用
+     * @param onError 上游失败、流被截断、超过截止时间或未获调度时调用，已收到的文本不完整（取消后两者都不再调用）
+     * @return 取消句柄，客户端断开时取消以断开上游
+     */
+    LlmClient.StreamHandle chatStream(ChatRequest request, Consumer<String> onDelta, Runnable onComplete,
+                                      Consumer<Throwable> onError);
+
     /**
      * 生成会话ID
      * @return 会话ID
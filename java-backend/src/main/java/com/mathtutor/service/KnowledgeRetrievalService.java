@@ -0,0 +1,18 @@
+package com.mathtutor.service;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.GroundingContext;
+
+/**
+ * 本地知识检索服务接口
+ */
+public interface KnowledgeRetrievalService {
+
+    /**
+     * 检索与题目相关的知识点和解题方法，并在token预算内渲染为提示词片段
+     * @param question 数学题目
+     * @param grade 学生年级
+     * @return 检索增强上下文
+     */
+    GroundingContext retrieve(String question, GradeEnum grade);
+}
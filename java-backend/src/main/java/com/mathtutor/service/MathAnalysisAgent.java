@@ -1,7 +1,12 @@
 package com.mathtutor.service;
 
+import com.mathtutor.llm.Deadline;
+import com.mathtutor.llm.Workload;
+import com.mathtutor.model.GroundingUsage;
 import com.mathtutor.model.ProblemAnalysisDomain;
 
+import java.util.function.Consumer;
+
 /**
  * 数学题目分析Agent服务接口
  */
@@ -14,6 +19,14 @@ public interface MathAnalysisAgent {
      */
     ProblemAnalysisDomain analyzeMathProblem(String question);
 
+    /**
+     * 分析数学压轴题，大模型调用按给定负载排队
+     * @param question 数学题目
+     * @param workload 负载类别与租户
+     * @return 分析响应
+     */
+    ProblemAnalysisDomain analyzeMathProblem(String question, Workload workload);
+
     /**
      * 分析数学压轴题（带上下文）
      * @param question 数学题目
@@ -22,6 +35,28 @@ public interface MathAnalysisAgent {
      */
     ProblemAnalysisDomain analyzeMathProblemWithContext(String question, String context);
 
+    /**
+     * 分析数学压轴题，生成过程中逐段回报分析文本；结果与 {@link #analyzeMathProblemWithContext} 相同
+     * @param question 数学题目
+     * @param context 上下文信息
+     * @param workload 负载类别与租户
+     * @param deadline 截止时间，到期时断开上游并以错误结果返回
+     * @param onDelta 每段新生成的分析文本，在后台线程回调
+     * @return 分析响应
+     */
+    ProblemAnalysisDomain analyzeMathProblemWithProgress(String question, String context, Workload workload,
+                                                         Deadline deadline, Consumer<String> onDelta);
+
+    /**
+     * 当前提示词版本，提示词模板或检索增强开关变化后改变；预生成的分析只在版本一致时使用
+     */
+    String getPromptVersion();
+
+    /**
+     * 检索增强与未检索提示词的token用量对比
+     */
+    GroundingUsage getGroundingUsage();
+
     /**
      * 生成会话ID
      * @return 会话ID
@@ -0,0 +1,26 @@
+package com.mathtutor.service;
+
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 响应式聊天服务接口，与 {@link ChatService} 行为一致
+ */
+public interface ReactiveChatService {
+
+    /**
+     * 处理聊天请求
+     * @param request 聊天请求
+     * @return 聊天响应，失败时为 status 为 error 的响应
+     */
+    Mono<ChatResponse> chat(ChatRequest request);
+
+    /**
+     * 流式处理聊天请求
+     * @param request 聊天请求
+     * @return 增量文本，按订阅方需求产生
+     */
+    Flux<String> chatStream(ChatRequest request);
+}
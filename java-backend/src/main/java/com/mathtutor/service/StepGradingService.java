@@ -0,0 +1,33 @@
+package com.mathtutor.service;
+
+import com.mathtutor.model.StepGradeResult;
+import com.mathtutor.model.StepSubmission;
+
+import java.util.List;
+
+/**
+ * 解题步骤批改服务接口
+ */
+public interface StepGradingService {
+
+    /**
+     * 批改单个步骤作答
+     * @param submission 学生作答
+     * @return 批改结果
+     */
+    StepGradeResult grade(StepSubmission submission);
+
+    /**
+     * 只在本地批改，无法判定时返回 AMBIGUOUS，不交给大模型复核
+     * @param submission 学生作答
+     * @return 批改结果
+     */
+    StepGradeResult gradeLocally(StepSubmission submission);
+
+    /**
+     * 批量批改（如全班对同一道题的作答），结果与输入一一对应
+     * @param submissions 学生作答列表
+     * @return 批改结果列表
+     */
+    List<StepGradeResult> gradeBatch(List<StepSubmission> submissions);
+}
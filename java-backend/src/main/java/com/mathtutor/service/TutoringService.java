@@ -0,0 +1,33 @@
+package com.mathtutor.service;
+
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.TutoringStats;
+
+/**
+ * 分步辅导服务接口
+ */
+public interface TutoringService {
+
+    /**
+     * ChatRequest.context 以该前缀加题目编号表示在该题上开始（或切换到该题）辅导，如 "problem:P_MATH_2025_025"
+     */
+    String PROBLEM_CONTEXT_PREFIX = "problem:";
+
+    /**
+     * 该请求是否由辅导流程处理：带题目上下文，或会话正在辅导中
+     */
+    boolean accepts(ChatRequest request);
+
+    /**
+     * 处理一轮辅导对话
+     * @param request 聊天请求（sessionId 不能为空）
+     * @return 回复
+     */
+    ChatResponse handle(ChatRequest request);
+
+    /**
+     * 获取本地应答占比与延迟统计
+     */
+    TutoringStats getStats();
+}
@@ -0,0 +1,286 @@
+package com.mathtutor.service.impl;
+
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.job.AnalysisJob;
+import com.mathtutor.job.JobPriority;
+import com.mathtutor.job.JobRejectedException;
+import com.mathtutor.job.JobStatus;
+import com.mathtutor.llm.Deadline;
+import com.mathtutor.llm.Workload;
+import com.mathtutor.llm.WorkloadClass;
+import com.mathtutor.model.AnalysisJobStats;
+import com.mathtutor.model.AnalysisJobView;
+import com.mathtutor.model.ProblemAnalysisDomain;
+import com.mathtutor.service.AnalysisJobService;
+import com.mathtutor.service.MathAnalysisAgent;
+import com.mathtutor.tutoring.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步分析任务服务实现类
+ *
+ * 任务按 {@link AnalysisJob#QUEUE_ORDER} 排在优先级队列中，固定数量的工作线程依次取出执行，
+ * 每段生成的分析文本写入任务供轮询和进度流读取。执行时限同时交给大模型调用（截止时间）和定时器，
+ * 到期时任务标记为超时并中断工作线程断开上游；排队超过时限的任务不再执行。
+ * 结束的任务按结束先后排列，查询或提交时顺带丢弃超过保留时间或超出数量上限的任务。
+ */
+@Slf4j
+@Service
+public class AnalysisJobServiceImpl implements AnalysisJobService {
+
+    private final MathAnalysisAgent analysisAgent;
+    private final AnalysisProperties.Jobs properties;
+
+    private final PriorityBlockingQueue<AnalysisJob> queue = new PriorityBlockingQueue<>(64, AnalysisJob.QUEUE_ORDER);
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<AnalysisJob> finishedOrder = new ConcurrentLinkedQueue<>();
+    /** finishedOrder 的长度；ConcurrentLinkedQueue.size() 需要遍历整个队列 */
+    private final AtomicInteger retained = new AtomicInteger();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private volatile boolean stopped;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final Map<JobStatus, LongAdder> finished = new EnumMap<>(JobStatus.class);
+    private final LatencyHistogram queueTimes = new LatencyHistogram();
+    private final LatencyHistogram runTimes = new LatencyHistogram();
+
+    public AnalysisJobServiceImpl(MathAnalysisAgent analysisAgent, AnalysisProperties analysisProperties) {
+        this.analysisAgent = analysisAgent;
+        this.properties = analysisProperties.getJobs();
+        for (JobStatus status : JobStatus.values()) {
+            if (status.isFinished()) {
+                finished.put(status, new LongAdder());
+            }
+        }
+        for (int i = 0; i < Math.max(1, properties.getWorkers()); i++) {
+            Thread worker = new Thread(this::work, "analysis-job-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public AnalysisJobView submit(String question, String context, JobPriority priority, String tenant) {
+        sweep(System.nanoTime());
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString().replace("-", ""), question,
+            context != null ? context : "", priority != null ? priority : JobPriority.NORMAL, tenant);
+        synchronized (queue) {
+            if (stopped || queue.size() >= properties.getQueueCapacity()) {
+                rejected.increment();
+                throw new JobRejectedException("分析任务排队已满，请稍后重试", estimatedWait(queue.size()));
+            }
+            jobs.put(job.getId(), job);
+            queue.add(job);
+        }
+        submitted.increment();
+        log.debug("提交分析任务 {}，优先级 {}", job.getId(), job.getPriority());
+        return job.toView(queuePosition(job));
+    }
+
+    @Override
+    public Optional<AnalysisJobView> find(String jobId) {
+        sweep(System.nanoTime());
+        AnalysisJob job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(job.toView(queuePosition(job)));
+    }
+
+    @Override
+    public Flux<String> progress(String jobId) {
+        AnalysisJob job = jobs.get(jobId);
+        return job != null ? job.progress() : null;
+    }
+
+    @Override
+    public boolean cancel(String jobId) {
+        AnalysisJob job = jobs.get(jobId);
+        if (job == null || !job.abort(JobStatus.CANCELLED, "任务已取消")) {
+            return false;
+        }
+        queue.remove(job);
+        finished(job);
+        log.debug("分析任务 {} 已取消", jobId);
+        return true;
+    }
+
+    @Override
+    public AnalysisJobStats getStats() {
+        sweep(System.nanoTime());
+        Map<String, Long> counts = new LinkedHashMap<>();
+        finished.forEach((status, count) -> counts.put(status.name().toLowerCase(), count.sum()));
+        return new AnalysisJobStats(workers.size(), properties.getQueueCapacity(), queue.size(), running.get(),
+            jobs.size(), submitted.sum(), rejected.sum(), counts, expired.sum(),
+            queueTimes.percentileNanos(50) / 1e6, queueTimes.percentileNanos(95) / 1e6,
+            runTimes.percentileNanos(50) / 1e6, runTimes.percentileNanos(95) / 1e6);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        workers.forEach(Thread::interrupt);
+        AnalysisJob job;
+        while ((job = queue.poll()) != null) {
+            if (job.abort(JobStatus.CANCELLED, "服务已停止")) {
+                finished(job);
+            }
+        }
+    }
+
+    private void work() {
+        while (!stopped) {
+            AnalysisJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            try {
+                run(job);
+            } catch (RuntimeException e) {
+                log.error("执行分析任务 {} 时发生错误", job.getId(), e);
+                complete(job, JobStatus.FAILED, null, e.getMessage());
+            } finally {
+                // 取消或超时发出的中断只针对这个任务
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private void run(AnalysisJob job) {
+        long waited = System.nanoTime() - job.getSubmittedNanos();
+        if (waited > properties.getMaxQueueWait().toNanos()) {
+            complete(job, JobStatus.TIMED_OUT, null, "排队超过 " + properties.getMaxQueueWait().toSeconds() + " 秒");
+            return;
+        }
+        if (!job.start(Thread.currentThread())) {
+            return;
+        }
+        queueTimes.record(Math.max(1, waited));
+        running.incrementAndGet();
+        Duration timeout = properties.getTimeout();
+        Deadline deadline = Deadline.after(timeout);
+        Disposable timer = Schedulers.parallel().schedule(() -> {
+            if (job.abort(JobStatus.TIMED_OUT, "分析超过 " + timeout.toSeconds() + " 秒时限")) {
+                finished(job);
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            ProblemAnalysisDomain result = analysisAgent.analyzeMathProblemWithProgress(
+                job.getQuestion(), job.getContext(), workload(job), deadline, job::append);
+            if (result == null) {
+                complete(job, JobStatus.FAILED, null, "分析没有返回结果");
+            } else if (result.getErrorMessage() != null) {
+                complete(job, deadline.isExpired() ? JobStatus.TIMED_OUT : JobStatus.FAILED, result,
+                    result.getErrorMessage());
+            } else {
+                complete(job, JobStatus.SUCCEEDED, result, null);
+            }
+        } finally {
+            timer.dispose();
+            running.decrementAndGet();
+        }
+    }
+
+    /**
+     * 低优先级任务按批量负载排队，其余按流式分析
+     */
+    private static Workload workload(AnalysisJob job) {
+        WorkloadClass workloadClass = job.getPriority() == JobPriority.LOW
+            ? WorkloadClass.BATCH : WorkloadClass.STREAMED_ANALYSIS;
+        return Workload.of(workloadClass, job.getTenant());
+    }
+
+    private void complete(AnalysisJob job, JobStatus status, ProblemAnalysisDomain result, String error) {
+        if (job.finish(status, result, error)) {
+            finished(job);
+        }
+    }
+
+    /**
+     * 任务结束只会经过这里一次：计数、记录执行时长，并排入待过期队列
+     */
+    private void finished(AnalysisJob job) {
+        JobStatus status = job.getStatus();
+        finished.get(status).increment();
+        if (job.getStartedNanos() > 0 && status != JobStatus.CANCELLED) {
+            runTimes.record(Math.max(1, job.getFinishedNanos() - job.getStartedNanos()));
+        }
+        finishedOrder.add(job);
+        retained.incrementAndGet();
+        log.debug("分析任务 {} 结束: {}", job.getId(), status);
+    }
+
+    /**
+     * 丢弃超过保留时间的已结束任务，保留数超过上限时先丢弃最早结束的；
+     * 超限时每次都检查，否则最多每秒检查一次
+     */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        boolean overflow = retained.get() > properties.getMaxRetained();
+        if (!overflow && (now - last < TimeUnit.SECONDS.toNanos(1) || !lastSweep.compareAndSet(last, now))) {
+            return;
+        }
+        long retention = properties.getRetention().toNanos();
+        AnalysisJob oldest;
+        while ((oldest = finishedOrder.peek()) != null
+            && (retained.get() > properties.getMaxRetained() || now - oldest.getFinishedNanos() > retention)) {
+            // 并发清理时取出的可能是紧随其后结束的任务，同样在队首，一并丢弃
+            AnalysisJob polled = finishedOrder.poll();
+            if (polled != null) {
+                retained.decrementAndGet();
+                jobs.remove(polled.getId(), polled);
+                expired.increment();
+            }
+        }
+    }
+
+    /**
+     * 前面排着的任务数；不在排队时返回 -1
+     */
+    private int queuePosition(AnalysisJob job) {
+        if (job.getStatus() != JobStatus.QUEUED) {
+            return -1;
+        }
+        int ahead = 0;
+        for (AnalysisJob other : queue) {
+            if (other != job && AnalysisJob.QUEUE_ORDER.compare(other, job) < 0) {
+                ahead++;
+            }
+        }
+        return ahead;
+    }
+
+    /**
+     * 按近期执行时长估计排在最后的任务多久能开始执行
+     */
+    private Duration estimatedWait(int queued) {
+        long perJob = runTimes.getCount() > 0 ? runTimes.percentileNanos(50) : properties.getTimeout().toNanos() / 4;
+        long nanos = (queued + 1L) * perJob / Math.max(1, workers.size());
+        return Duration.ofSeconds(Math.max(1, (long) Math.ceil(nanos / 1e9)));
+    }
+}
@@ -0,0 +1,482 @@
+package com.mathtutor.service.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.PregenerationProperties;
+import com.mathtutor.llm.Workload;
+import com.mathtutor.llm.WorkloadClass;
+import com.mathtutor.model.PregenerationProgress;
+import com.mathtutor.model.ProblemAnalysisDomain;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.StoredAnalysis;
+import com.mathtutor.pregeneration.AdaptiveConcurrencyLimiter;
+import com.mathtutor.pregeneration.PregenerationCheckpoint;
+import com.mathtutor.pregeneration.PregenerationStatus;
+import com.mathtutor.repository.AnalysisStore;
+import com.mathtutor.repository.ProblemBank;
+import com.mathtutor.service.AnalysisPregenerationService;
+import com.mathtutor.service.MathAnalysisAgent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 题目分析预生成服务实现类
+ *
+ * 一次运行：按编号扫描题库，已有当前提示词版本、且题目文本未变的分析直接跳过，其余排队；
+ * 调度线程按 {@link AdaptiveConcurrencyLimiter} 给出的并发限额把题目交给工作线程调用分析，
+ * 成功的分析立即写入 {@link AnalysisStore}，遇到上游限流的题目放回队尾稍后重试。
+ * 运行时段结束、手动停止或达到花费上限时不再发起新的分析，等进行中的分析完成后保存断点退出。
+ * 崩溃重启后，断点中状态仍为 RUNNING 的一轮会在运行时段内自动继续。
+ */
+@Slf4j
+@Service
+public class AnalysisPregenerationServiceImpl implements AnalysisPregenerationService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(200);
+    private static final BigDecimal MILLION = BigDecimal.valueOf(1_000_000);
+    private static final Workload PREGENERATION_WORKLOAD = Workload.of(WorkloadClass.PREGENERATION, "pregeneration");
+
+    private final ProblemBank problemBank;
+    private final MathAnalysisAgent analysisAgent;
+    private final AnalysisStore analysisStore;
+    private final PregenerationProperties properties;
+    private final Clock clock;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Object checkpointFileLock = new Object();
+
+    /**
+     * 正在进行或本进程最近一次的运行
+     */
+    private volatile Run current;
+
+    @Autowired
+    public AnalysisPregenerationServiceImpl(ProblemBank problemBank, MathAnalysisAgent analysisAgent,
+                                            AnalysisStore analysisStore, PregenerationProperties properties) {
+        this(problemBank, analysisAgent, analysisStore, properties, Clock.systemDefaultZone());
+    }
+
+    public AnalysisPregenerationServiceImpl(ProblemBank problemBank, MathAnalysisAgent analysisAgent,
+                                            AnalysisStore analysisStore, PregenerationProperties properties,
+                                            Clock clock) {
+        this.problemBank = problemBank;
+        this.analysisAgent = analysisAgent;
+        this.analysisStore = analysisStore;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @Scheduled(cron = "${mathtutor.pregeneration.cron:0 0 1 * * *}")
+    public void scheduledRun() {
+        if (properties.isEnabled() && start(false)) {
+            log.info("按计划开始预生成题目分析");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeAfterRestart() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        PregenerationCheckpoint checkpoint = readCheckpoint();
+        if (checkpoint != null && checkpoint.getStatus() == PregenerationStatus.RUNNING && start(false)) {
+            log.info("上次预生成异常退出，从断点继续: {}", checkpoint.getRunId());
+        }
+    }
+
+    @Override
+    public boolean start(boolean ignoreWindow) {
+        if (!ignoreWindow && !inWindow()) {
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            String promptVersion = analysisAgent.getPromptVersion();
+            PregenerationCheckpoint checkpoint = readCheckpoint();
+            // 完成或花光预算的一轮不再续跑：新一轮从头扫描，已生成的分析照常跳过
+            if (checkpoint == null || checkpoint.getStatus() == PregenerationStatus.COMPLETED
+                || checkpoint.getStatus() == PregenerationStatus.BUDGET_EXHAUSTED
+                || !promptVersion.equals(checkpoint.getPromptVersion())) {
+                long now = clock.millis();
+                checkpoint = new PregenerationCheckpoint(Long.toString(now, 36), promptVersion, now);
+            } else {
+                log.info("从断点继续预生成: {}（已生成{}份，已花费token {}/{}）", checkpoint.getRunId(),
+                    checkpoint.getCompleted(), checkpoint.getPromptTokens(), checkpoint.getCompletionTokens());
+            }
+            checkpoint.setStatus(PregenerationStatus.RUNNING);
+            Run run = new Run(checkpoint, ignoreWindow);
+            current = run;
+            Thread coordinator = new Thread(() -> execute(run), "analysis-pregeneration");
+            coordinator.setDaemon(true);
+            coordinator.start();
+            return true;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public void stop() {
+        Run run = current;
+        if (run != null && running.get()) {
+            run.stopRequested = true;
+            synchronized (run) {
+                run.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public PregenerationProgress getProgress() {
+        Run run = current;
+        if (run == null) {
+            PregenerationCheckpoint saved = readCheckpoint();
+            if (saved == null) {
+                return new PregenerationProgress(PregenerationStatus.IDLE, null, analysisAgent.getPromptVersion(),
+                    problemBank.size(), 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, BigDecimal.ZERO);
+            }
+            return progress(saved, saved.getStatus(), saved.getTotal() - saved.getSkipped() - saved.getCompleted()
+                - saved.getFailed(), 0, 0, saved.getActiveMillis());
+        }
+        synchronized (run) {
+            PregenerationCheckpoint checkpoint = run.checkpoint;
+            boolean active = running.get() && current == run;
+            // 结果状态在断点写入、运行标记清除之后才对外可见，此时立即重新开始不会读到旧断点
+            PregenerationStatus status = !active ? checkpoint.getStatus()
+                : run.stopRequested ? PregenerationStatus.STOPPING : PregenerationStatus.RUNNING;
+            return progress(checkpoint, status, run.queue.size() + run.inFlight, run.limiter.getLimit(),
+                run.inFlight, checkpoint.getActiveMillis() + (active ? clock.millis() - run.segmentStart : 0));
+        }
+    }
+
+    private void execute(Run run) {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, properties.getMaxConcurrency()), r -> {
+            Thread thread = new Thread(r, "analysis-pregeneration-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        PregenerationStatus outcome = PregenerationStatus.STOPPED;
+        try {
+            scan(run);
+            writeCheckpoint(run);
+            outcome = dispatch(run, workers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("预生成题目分析异常终止", e);
+        } finally {
+            workers.shutdown();
+            try {
+                // 等进行中的分析完成，已花费的 token 不能白白丢掉
+                if (!workers.awaitTermination(10, TimeUnit.MINUTES)) {
+                    log.warn("仍有预生成分析未完成，放弃等待");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (run) {
+                run.checkpoint.setStatus(outcome);
+                run.checkpoint.setActiveMillis(run.checkpoint.getActiveMillis() + clock.millis() - run.segmentStart);
+                run.segmentStart = clock.millis();
+            }
+            writeCheckpoint(run);
+            running.set(false);
+            PregenerationProgress progress = getProgress();
+            log.info("预生成题目分析结束: {}，生成{}份，跳过{}份，放弃{}份，剩余{}份，吞吐{}份/分钟，花费{}",
+                outcome, progress.getCompleted(), progress.getSkipped(), progress.getFailed(), progress.getRemaining(),
+                String.format("%.1f", progress.getThroughputPerMinute()), progress.getSpend());
+        }
+    }
+
+    /**
+     * 扫描题库：已有有效分析的计入跳过（本轮开始后生成的计入已完成），已放弃的不再排队，其余排队
+     */
+    private void scan(Run run) {
+        List<ProblemDomain> problems = new ArrayList<>(problemBank.findAll());
+        problems.sort(Comparator.comparing(ProblemDomain::getProblemId));
+        PregenerationCheckpoint checkpoint = run.checkpoint;
+        Set<String> abandoned = new HashSet<>(checkpoint.getFailedProblemIds());
+        int skipped = 0;
+        int completed = 0;
+        synchronized (run) {
+            for (ProblemDomain problem : problems) {
+                StoredAnalysis stored = analysisStore.find(problem.getProblemId(), checkpoint.getPromptVersion());
+                if (stored != null && AnalysisStore.questionKey(problem.getSearchText()).equals(stored.getQuestionKey())) {
+                    if (stored.getGeneratedAt() >= checkpoint.getStartedAt()) {
+                        completed++;
+                    } else {
+                        skipped++;
+                    }
+                } else if (!abandoned.contains(problem.getProblemId())) {
+                    run.queue.add(problem);
+                }
+            }
+            checkpoint.setTotal(problems.size());
+            checkpoint.setSkipped(skipped);
+            checkpoint.setCompleted(completed);
+            checkpoint.setFailed(abandoned.size());
+        }
+        log.info("预生成扫描完成: 共{}题，跳过{}题，本轮已生成{}题，待生成{}题", problems.size(), skipped, completed,
+            run.queue.size());
+    }
+
+    private PregenerationStatus dispatch(Run run, ExecutorService workers) throws InterruptedException {
+        while (true) {
+            if (run.stopRequested) {
+                return PregenerationStatus.STOPPED;
+            }
+            if (!run.ignoreWindow && !inWindow()) {
+                return PregenerationStatus.OUT_OF_WINDOW;
+            }
+            if (budgetExhausted(run)) {
+                return PregenerationStatus.BUDGET_EXHAUSTED;
+            }
+            ProblemDomain next;
+            synchronized (run) {
+                next = run.queue.poll();
+                if (next == null) {
+                    if (run.inFlight == 0) {
+                        return PregenerationStatus.COMPLETED;
+                    }
+                    run.wait(POLL_INTERVAL.toMillis());
+                    continue;
+                }
+            }
+            if (!run.limiter.tryAcquire(POLL_INTERVAL)) {
+                synchronized (run) {
+                    run.queue.addFirst(next);
+                }
+                continue;
+            }
+            synchronized (run) {
+                run.inFlight++;
+            }
+            workers.execute(() -> analyze(run, next));
+        }
+    }
+
+    private void analyze(Run run, ProblemDomain problem) {
+        String question = problem.getSearchText();
+        ProblemAnalysisDomain analysis;
+        try {
+            analysis = analysisAgent.analyzeMathProblem(question, PREGENERATION_WORKLOAD);
+        } catch (RuntimeException e) {
+            analysis = new ProblemAnalysisDomain();
+            analysis.setErrorMessage(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        String error = analysis.getErrorMessage();
+        boolean saved = false;
+        if (error == null) {
+            StoredAnalysis stored = new StoredAnalysis(problem.getProblemId(), run.checkpoint.getPromptVersion(),
+                AnalysisStore.questionKey(question), analysis);
+            stored.setQuestionText(question);
+            stored.setGeneratedAt(clock.millis());
+            try {
+                analysisStore.save(stored);
+                saved = true;
+            } catch (IOException e) {
+                error = "保存分析失败: " + e.getMessage();
+            }
+        }
+
+        synchronized (run) {
+            PregenerationCheckpoint checkpoint = run.checkpoint;
+            if (analysis.getPromptTokens() != null && analysis.getCompletionTokens() != null) {
+                checkpoint.setPromptTokens(checkpoint.getPromptTokens() + analysis.getPromptTokens());
+                checkpoint.setCompletionTokens(checkpoint.getCompletionTokens() + analysis.getCompletionTokens());
+            }
+            if (saved) {
+                checkpoint.setCompleted(checkpoint.getCompleted() + 1);
+                run.limiter.onSuccess();
+            } else if (isRateLimited(error)) {
+                checkpoint.setRateLimited(checkpoint.getRateLimited() + 1);
+                run.queue.addLast(problem);
+                run.limiter.onRateLimited();
+                log.debug("上游限流，并发限额降为{}: {}", run.limiter.getLimit(), problem.getProblemId());
+            } else {
+                int attempts = run.attempts.merge(problem.getProblemId(), 1, Integer::sum);
+                if (attempts < properties.getMaxAttempts()) {
+                    run.queue.addLast(problem);
+                } else {
+                    checkpoint.setFailed(checkpoint.getFailed() + 1);
+                    checkpoint.getFailedProblemIds().add(problem.getProblemId());
+                    log.warn("题目{}分析失败{}次，本轮放弃: {}", problem.getProblemId(), attempts, error);
+                }
+                run.limiter.onFailure();
+            }
+            run.inFlight--;
+            run.notifyAll();
+        }
+        writeCheckpoint(run);
+    }
+
+    /**
+     * 断点中的 token 数跨越各次续跑累计，预算按整轮运行的总花费计算
+     */
+    private boolean budgetExhausted(Run run) {
+        BigDecimal budget = properties.getBudget();
+        if (budget == null) {
+            return false;
+        }
+        synchronized (run) {
+            return spend(run.checkpoint).compareTo(budget) >= 0;
+        }
+    }
+
+    /**
+     * 是否在运行时段内；结束时间早于开始时间时跨过午夜
+     */
+    boolean inWindow() {
+        LocalTime start = LocalTime.parse(properties.getWindowStart());
+        LocalTime end = LocalTime.parse(properties.getWindowEnd());
+        LocalTime now = LocalTime.now(clock);
+        if (start.equals(end)) {
+            return true;
+        }
+        return start.isBefore(end)
+            ? !now.isBefore(start) && now.isBefore(end)
+            : !now.isBefore(start) || now.isBefore(end);
+    }
+
+    static boolean isRateLimited(String error) {
+        if (error == null) {
+            return false;
+        }
+        String lower = error.toLowerCase(Locale.ROOT);
+        return lower.contains("http 429") || lower.contains("too many requests") || lower.contains("rate limit")
+            || error.contains("限流");
+    }
+
+    private BigDecimal spend(PregenerationCheckpoint checkpoint) {
+        return properties.getPromptTokenPrice().multiply(BigDecimal.valueOf(checkpoint.getPromptTokens()))
+            .add(properties.getCompletionTokenPrice().multiply(BigDecimal.valueOf(checkpoint.getCompletionTokens())))
+            .divide(MILLION, 4, RoundingMode.HALF_UP);
+    }
+
+    private PregenerationProgress progress(PregenerationCheckpoint checkpoint, PregenerationStatus status,
+                                           int remaining, int concurrency, int inFlight, long activeMillis) {
+        double minutes = activeMillis / 60_000.0;
+        return new PregenerationProgress(status, checkpoint.getRunId(), checkpoint.getPromptVersion(),
+            checkpoint.getTotal(), checkpoint.getSkipped(), checkpoint.getCompleted(), checkpoint.getFailed(),
+            Math.max(0, remaining), checkpoint.getRateLimited(), concurrency, inFlight,
+            minutes > 0 ? checkpoint.getCompleted() / minutes : 0,
+            checkpoint.getPromptTokens(), checkpoint.getCompletionTokens(), spend(checkpoint));
+    }
+
+    private PregenerationCheckpoint readCheckpoint() {
+        Path file = checkpointFile();
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        synchronized (checkpointFileLock) {
+            try {
+                return MAPPER.readValue(file.toFile(), PregenerationCheckpoint.class);
+            } catch (IOException e) {
+                log.warn("预生成断点文件无法读取，重新开始: {}", e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private void writeCheckpoint(Run run) {
+        Path file = checkpointFile();
+        if (file == null) {
+            return;
+        }
+        byte[] bytes;
+        synchronized (run) {
+            PregenerationCheckpoint checkpoint = run.checkpoint;
+            long active = checkpoint.getActiveMillis();
+            if (checkpoint.getStatus() == PregenerationStatus.RUNNING) {
+                checkpoint.setActiveMillis(active + clock.millis() - run.segmentStart);
+            }
+            try {
+                bytes = MAPPER.writeValueAsBytes(checkpoint);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                checkpoint.setActiveMillis(active);
+            }
+        }
+        synchronized (checkpointFileLock) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(temp, bytes);
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                log.warn("保存预生成断点失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Path checkpointFile() {
+        String checkpoint = properties.getCheckpoint();
+        return checkpoint == null || checkpoint.isBlank() ? null : Path.of(checkpoint);
+    }
+
+    /**
+     * 一次运行的状态，除 stopRequested 外均在 synchronized (run) 下访问
+     */
+    private final class Run {
+
+        private final PregenerationCheckpoint checkpoint;
+        private final boolean ignoreWindow;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Deque<ProblemDomain> queue = new ArrayDeque<>();
+        private final Map<String, Integer> attempts = new HashMap<>();
+        private int inFlight;
+        private long segmentStart;
+        private volatile boolean stopRequested;
+
+        private Run(PregenerationCheckpoint checkpoint, boolean ignoreWindow) {
+            this.checkpoint = checkpoint;
+            this.ignoreWindow = ignoreWindow;
+            this.limiter = new AdaptiveConcurrencyLimiter(properties.getInitialConcurrency(),
+                properties.getMaxConcurrency(), properties.getRateLimitBackoff(), properties.getMaxBackoff());
+            this.segmentStart = clock.millis();
+        }
+    }
+}
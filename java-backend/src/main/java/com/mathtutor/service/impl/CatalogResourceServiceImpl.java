@@ -0,0 +1,335 @@
+package com.mathtutor.service.impl;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.LogicStep;
+import com.mathtutor.model.PrecomputedJson;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.ProblemQuestion;
+import com.mathtutor.model.SolutionMethodDomain;
+import com.mathtutor.repository.GradeKnowledgeCatalog;
+import com.mathtutor.repository.KnowledgeRepository;
+import com.mathtutor.repository.ProblemBank;
+import com.mathtutor.repository.SolutionMethodCatalog;
+import com.mathtutor.service.CatalogResourceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 只读资源服务实现类
+ *
+ * 每个资源（列表、单条）首次请求时序列化为 JSON 字节并预压缩，按数据版本缓存：
+ * 全部知识点（常驻年级）跟随 {@link KnowledgeRepository} 的版本，分年级列表跟随 {@link GradeKnowledgeCatalog}
+ * 中该年级仓库的版本，单个知识点跟随所在仓库的版本，题目跟随 {@link ProblemBank} 的版本；版本变化后下一次请求重新生成，其余请求直接返回缓存的字节。
+ * 缓存按数据来源分组，某个来源出现新版本时整组丢弃，已删除的知识点、题目不会一直留在缓存中。
+ * 同一资源的并发首次请求可能各自序列化一次，结果相同，后写入的覆盖先写入的。
+ */
+@Slf4j
+@Service
+public class CatalogResourceServiceImpl implements CatalogResourceService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 解题方法目录启动后不变，使用固定版本号
+     */
+    private static final long STATIC_VERSION = 0;
+
+    private final KnowledgeRepository repository;
+    private final GradeKnowledgeCatalog gradeCatalog;
+    private final SolutionMethodCatalog methodCatalog;
+    private final ProblemBank problemBank;
+    private final Map<String, SourceCache> caches = new ConcurrentHashMap<>();
+
+    public CatalogResourceServiceImpl(KnowledgeRepository repository, GradeKnowledgeCatalog gradeCatalog,
+                                      SolutionMethodCatalog methodCatalog, ProblemBank problemBank) {
+        this.repository = repository;
+        this.gradeCatalog = gradeCatalog;
+        this.methodCatalog = methodCatalog;
+        this.problemBank = problemBank;
+    }
+
+    @Override
+    public PrecomputedJson getKnowledgeList(GradeEnum grade) {
+        KnowledgeRepository source = grade != null ? gradeCatalog.get(grade) : repository;
+        String key = grade != null ? "knowledge:" + grade.name() : "knowledge";
+        return cached(key, key, source.getVersion(), () -> write(json -> {
+            json.writeStartObject();
+            json.writeObjectFieldStart("knowledge_metadata");
+            if (grade != null) {
+                json.writeStringField("grade", grade.name());
+            }
+            json.writeNumberField("count", source.size());
+            json.writeEndObject();
+            json.writeArrayFieldStart("knowledge_points");
+            for (KnowledgeDomain k : source.findAll()) {
+                writeKnowledge(json, k);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }));
+    }
+
+    @Override
+    public PrecomputedJson getKnowledge(String code) {
+        long version = repository.getVersion();
+        String source = "knowledge";
+        KnowledgeDomain k = repository.findByCode(code);
+        if (k == null) {
+            // 不在常驻年级中的知识点由分年级目录查找，只加载需要的年级
+            k = gradeCatalog.findByCode(code);
+            if (k == null) {
+                return null;
+            }
+            version = gradeCatalog.get(k.getGrade()).getVersion();
+            source = "knowledge:" + k.getGrade().name();
+        }
+        KnowledgeDomain knowledge = k;
+        return cached(source, "knowledge/" + code, version, () -> write(json -> writeKnowledge(json, knowledge)));
+    }
+
+    @Override
+    public PrecomputedJson getMethodList() {
+        return cached("methods", "methods", STATIC_VERSION, () -> write(json -> {
+            json.writeStartObject();
+            json.writeArrayFieldStart("solution_methods");
+            for (SolutionMethodDomain method : methodCatalog.findAll()) {
+                writeMethod(json, method);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }));
+    }
+
+    @Override
+    public PrecomputedJson getMethod(String code) {
+        SolutionMethodDomain method = methodCatalog.findByCode(code);
+        if (method == null) {
+            return null;
+        }
+        return cached("methods", "methods/" + code, STATIC_VERSION, () -> write(json -> writeMethod(json, method)));
+    }
+
+    @Override
+    public PrecomputedJson getProblemList() {
+        long version = problemBank.getVersion();
+        List<ProblemDomain> problems = problemBank.findAll();
+        return cached("problems", "problems", version, () -> write(json -> {
+            json.writeStartObject();
+            json.writeArrayFieldStart("problems");
+            for (ProblemDomain problem : problems) {
+                writeProblemMetadata(json, problem);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }));
+    }
+
+    @Override
+    public PrecomputedJson getProblem(String problemId) {
+        long version = problemBank.getVersion();
+        ProblemDomain problem = problemBank.findById(problemId);
+        if (problem == null) {
+            return null;
+        }
+        return cached("problems", "problems/" + problemId, version, () -> write(json -> writeProblem(json, problem)));
+    }
+
+    /**
+     * 已缓存的资源数
+     */
+    public int cacheSize() {
+        int size = 0;
+        for (SourceCache cache : caches.values()) {
+            size += cache.entries.size();
+        }
+        return size;
+    }
+
+    /**
+     * @param source 数据来源，同一来源的资源共用版本号
+     * @param version 读取数据时来源的版本；比已缓存的版本旧时只序列化、不缓存
+     */
+    private PrecomputedJson cached(String source, String key, long version, Supplier<byte[]> serializer) {
+        Map<String, PrecomputedJson> entries = caches.computeIfAbsent(source, s -> new SourceCache()).entries(version);
+        PrecomputedJson current = entries != null ? entries.get(key) : null;
+        if (current != null) {
+            return current;
+        }
+        PrecomputedJson next = new PrecomputedJson(serializer.get(), version);
+        if (entries != null) {
+            entries.put(key, next);
+        }
+        log.debug("资源{}已序列化: {}字节，gzip {}字节", key, next.getJson().length,
+            next.hasGzip() ? next.getGzip().length : 0);
+        return next;
+    }
+
+    private static void writeKnowledge(JsonGenerator json, KnowledgeDomain k) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("code", k.getCode());
+        json.writeStringField("name", k.getName());
+        writeEnum(json, "grade", k.getGrade());
+        writeEnum(json, "knowledge_system", k.getKnowledgeSystem());
+        json.writeStringField("module", k.getModule());
+        json.writeStringField("topic", k.getTopic());
+        json.writeStringField("description", k.getDescription());
+        json.writeStringField("assessment_core", k.getAssessmentCore());
+        writeStrings(json, "detailed_points", k.getDetailedPoints());
+        writeInteger(json, "depth_level", k.getDepthLevel());
+        writeInteger(json, "difficulty_level", k.getDifficultyLevel());
+        if (k.getParentKnowledge() != null) {
+            json.writeStringField("parent_code", k.getParentKnowledge().getCode());
+        }
+        json.writeStringField("full_path", k.getFullPath());
+        json.writeEndObject();
+    }
+
+    private static void writeMethod(JsonGenerator json, SolutionMethodDomain m) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("code", m.getCode());
+        json.writeStringField("name", m.getName());
+        json.writeStringField("description", m.getDescription());
+        writeEnum(json, "method_category", m.getMethodCategory());
+        writeEnum(json, "applicable_grade_from", m.getApplicableGradeFrom());
+        writeEnum(json, "applicable_grade_to", m.getApplicableGradeTo());
+        if (m.getApplicableKnowledgeSystems() != null) {
+            json.writeArrayFieldStart("applicable_knowledge_systems");
+            for (KnowledgeSystemEnum system : m.getApplicableKnowledgeSystems()) {
+                json.writeString(system.name());
+            }
+            json.writeEndArray();
+        }
+        json.writeStringField("applicable_problem_types", m.getApplicableProblemTypes());
+        writeInteger(json, "difficulty_level", m.getDifficultyLevel());
+        writeStrings(json, "steps", m.getSteps());
+        writeStrings(json, "key_points", m.getKeyPoints());
+        writeStrings(json, "precautions", m.getPrecautions());
+        if (m.getRelatedMethods() != null) {
+            // 只输出编号，避免相关方法互相引用时无限展开
+            json.writeArrayFieldStart("related_method_codes");
+            for (SolutionMethodDomain related : m.getRelatedMethods()) {
+                json.writeString(related.getCode());
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * 按题目数据文件的格式输出，与 math_problem_data.json 保持一致
+     */
+    private static void writeProblem(JsonGenerator json, ProblemDomain p) throws IOException {
+        json.writeStartObject();
+        json.writeFieldName("problem_metadata");
+        writeProblemMetadata(json, p);
+        json.writeArrayFieldStart("questions");
+        for (ProblemQuestion question : p.getQuestions()) {
+            json.writeStartObject();
+            json.writeNumberField("question_index", question.getQuestionIndex());
+            json.writeStringField("question_text", question.getQuestionText());
+            json.writeArrayFieldStart("logic_steps");
+            for (LogicStep step : question.getLogicSteps()) {
+                json.writeStartObject();
+                json.writeStringField("step_id", step.getStepId());
+                json.writeStringField("target_kp_id", step.getTargetKpId());
+                json.writeStringField("goal", step.getGoal());
+                writeStrings(json, "check_points", step.getCheckPoints());
+                json.writeObjectFieldStart("scaffolding");
+                for (int level = 1; level <= step.getHintLevels(); level++) {
+                    json.writeStringField("level_" + level, step.getHint(level));
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private static void writeProblemMetadata(JsonGenerator json, ProblemDomain p) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("problem_id", p.getProblemId());
+        json.writeStringField("title", p.getTitle());
+        json.writeStringField("module_id", p.getModuleId());
+        json.writeStringField("topic_id", p.getTopicId());
+        if (p.getDifficulty() != null) {
+            json.writeStringField("difficulty", p.getDifficulty().getValue());
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeEnum(JsonGenerator json, String field, Enum<?> value) throws IOException {
+        if (value != null) {
+            json.writeStringField(field, value.name());
+        }
+    }
+
+    private static void writeInteger(JsonGenerator json, String field, Integer value) throws IOException {
+        if (value != null) {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    private static void writeStrings(JsonGenerator json, String field, Collection<String> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        json.writeArrayFieldStart(field);
+        for (String value : values) {
+            json.writeString(value);
+        }
+        json.writeEndArray();
+    }
+
+    private static byte[] write(JsonWriter writer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try (JsonGenerator json = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            writer.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 一个数据来源的缓存，只保存当前版本的资源
+     */
+    private static final class SourceCache {
+
+        private long version = Long.MIN_VALUE;
+        private volatile Map<String, PrecomputedJson> entries = new ConcurrentHashMap<>();
+
+        /**
+         * 来源出现新版本时丢弃旧版本的全部资源
+         * @return 该版本的资源表；版本比已缓存的旧时返回 null
+         */
+        synchronized Map<String, PrecomputedJson> entries(long sourceVersion) {
+            if (sourceVersion > version) {
+                version = sourceVersion;
+                entries = new ConcurrentHashMap<>();
+            }
+            return sourceVersion == version ? entries : null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonWriter {
+        void write(JsonGenerator json) throws IOException;
+    }
+}
@@ -4,20 +4,33 @@ import com.mathtutor.llm.LlmClient;
 import com.mathtutor.model.ChatRequest;
 import com.mathtutor.model.ChatResponse;
 import com.mathtutor.service.ChatService;
+import com.mathtutor.service.TutoringService;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class ChatServiceImpl implements ChatService {
 
     private final LlmClient llmClient;
+    private final TutoringService tutoringService;
 
     public ChatServiceImpl(LlmClient llmClient) {
+        this(llmClient, null);
+    }
+
+    /**
+     * 带题目上下文或正在辅导中的会话先交给分步辅导，脚本内的对话在本地应答
+     */
+    @Autowired
+    public ChatServiceImpl(LlmClient llmClient, TutoringService tutoringService) {
         this.llmClient = llmClient;
+        this.tutoringService = tutoringService;
     }
 
     @Override
@@ -29,6 +42,9 @@ public class ChatServiceImpl implements ChatService {
                 request.setSessionId(generateSessionId());
             }
 
+            if (tutoringService != null && tutoringService.accepts(request)) {
+                return tutoringService.handle(request);
+            }
             return llmClient.chat(request);
         } catch (Exception e) {
             log.error("Error processing chat request", e);
@@ -36,6 +52,40 @@ public class ChatServiceImpl implements ChatService {
         }
     }
 
+    /**
+     * 辅导会话一次性给出整段回复；其余请求由上游逐段推送，空内容表示结束
+     */
+    @Override
+    public LlmClient.StreamHandle chatStream(ChatRequest request, Consumer<String> onDelta, Runnable onComplete,
+                                             Consumer<Throwable> onError) {
+        if (request.getSessionId() == null || request.getSessionId().isEmpty()) {
+            request.setSessionId(generateSessionId());
+        }
+        if (tutoringService != null && tutoringService.accepts(request)) {
+            ChatResponse response = chat(request);
+            if (response.getResponse() != null) {
+                onDelta.accept(response.getResponse());
+            }
+            onComplete.run();
+            return LlmClient.StreamHandle.NONE;
+        }
+        return llmClient.chatStream(request, new LlmClient.StreamHandler() {
+            @Override
+            public void onContent(String content, Runnable ignored) {
+                if (content == null || content.isEmpty()) {
+                    onComplete.run();
+                } else {
+                    onDelta.accept(content);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                onError.accept(error);
+            }
+        });
+    }
+
     @Override
     public String generateSessionId() {
         return UUID.randomUUID().toString().replace("-", "");
@@ -0,0 +1,220 @@
+package com.mathtutor.service.impl;
+
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.llm.TokenEstimator;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.GroundingContext;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.SolutionMethodDomain;
+import com.mathtutor.repository.KnowledgeReloadedEvent;
+import com.mathtutor.repository.SolutionMethodCatalog;
+import com.mathtutor.search.KnowledgeSearchIndex;
+import com.mathtutor.search.KnowledgeTokenizer;
+import com.mathtutor.service.KnowledgeRetrievalService;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地知识检索服务实现类
+ *
+ * 检索流程：
+ * 1. 全文索引检索题目相关的知识点，按年级过滤
+ * 2. 由解题方法目录按年级位图取候选方法，按与题目的词重合度及知识体系匹配度排序（同分按难度由低到高）
+ * 3. 按排名依次取用预先渲染好的片段，直到达到token预算
+ */
+@Slf4j
+@Service
+public class KnowledgeRetrievalServiceImpl implements KnowledgeRetrievalService {
+
+    private static final String HEADER = "参考知识库（考点识别与知识点梳理请优先使用以下条目的名称，不要编造未列出的考点）：";
+
+    /**
+     * 每个片段最多保留的详细考点 / 步骤数量
+     */
+    private static final int MAX_SNIPPET_POINTS = 2;
+
+    /**
+     * 片段中单条考点的最大字数
+     */
+    private static final int MAX_POINT_LENGTH = 40;
+
+    /**
+     * 方法知识体系与命中知识点一致时的加分
+     */
+    private static final double SYSTEM_MATCH_BONUS = 2.0;
+
+    private final KnowledgeSearchIndex searchIndex;
+    private final AnalysisProperties properties;
+    private final SolutionMethodCatalog methodCatalog;
+    private final Map<String, Set<String>> methodTerms = new ConcurrentHashMap<>();
+    private final Map<String, String> snippetCache = new ConcurrentHashMap<>();
+
+    public KnowledgeRetrievalServiceImpl(KnowledgeSearchIndex searchIndex, AnalysisProperties properties) {
+        this(searchIndex, properties, new SolutionMethodCatalog());
+    }
+
+    @Autowired
+    public KnowledgeRetrievalServiceImpl(KnowledgeSearchIndex searchIndex, AnalysisProperties properties,
+                                         SolutionMethodCatalog methodCatalog) {
+        this.searchIndex = searchIndex;
+        this.properties = properties;
+        this.methodCatalog = methodCatalog;
+        for (SolutionMethodDomain method : methodCatalog.findAll()) {
+            methodTerms.put(method.getCode(), tokenSet(method));
+        }
+    }
+
+    @Override
+    public GroundingContext retrieve(String question, GradeEnum grade) {
+        AnalysisProperties.Grounding config = properties.getGrounding();
+        GroundingContext context = new GroundingContext();
+        if (question == null || question.isBlank()) {
+            return context;
+        }
+
+        int knowledgeTopK = config.getKnowledgeTopK();
+        List<KnowledgeDomain> knowledge = new ArrayList<>(knowledgeTopK);
+        for (KnowledgeSearchIndex.SearchHit hit : searchIndex.search(question, knowledgeTopK * 3)) {
+            KnowledgeDomain k = hit.getKnowledge();
+            if (grade == null || k.getGrade() == null || k.getGrade().getLevel() <= grade.getLevel()) {
+                knowledge.add(k);
+                if (knowledge.size() == knowledgeTopK) {
+                    break;
+                }
+            }
+        }
+
+        EnumSet<KnowledgeSystemEnum> systems = EnumSet.noneOf(KnowledgeSystemEnum.class);
+        knowledge.forEach(k -> {
+            if (k.getKnowledgeSystem() != null) systems.add(k.getKnowledgeSystem());
+        });
+        List<SolutionMethodDomain> rankedMethods = rankMethods(question, grade, systems, config.getMethodTopK());
+
+        StringBuilder prompt = new StringBuilder(HEADER);
+        int budget = config.getMaxTokens() - TokenEstimator.estimate(HEADER);
+        int used = 0;
+        for (KnowledgeDomain k : knowledge) {
+            String snippet = snippetCache.computeIfAbsent("K:" + k.getCode(), key -> renderKnowledge(k));
+            int cost = TokenEstimator.estimate(snippet);
+            if (used + cost > budget) {
+                continue;
+            }
+            prompt.append(snippet);
+            used += cost;
+            context.getKnowledgeCodes().add(k.getCode());
+        }
+        for (SolutionMethodDomain method : rankedMethods) {
+            String snippet = snippetCache.computeIfAbsent("M:" + method.getCode(), key -> renderMethod(method));
+            int cost = TokenEstimator.estimate(snippet);
+            if (used + cost > budget) {
+                continue;
+            }
+            prompt.append(snippet);
+            used += cost;
+            context.getMethodCodes().add(method.getCode());
+        }
+
+        if (!context.isEmpty()) {
+            context.setPrompt(prompt.toString());
+            context.setEstimatedTokens(TokenEstimator.estimate(context.getPrompt()));
+        }
+        log.debug("检索增强完成，知识点: {}, 方法: {}, 估算token: {}",
+            context.getKnowledgeCodes(), context.getMethodCodes(), context.getEstimatedTokens());
+        return context;
+    }
+
+    /**
+     * 清空片段缓存（知识点内容更新后调用）
+     */
+    public void evictSnippets() {
+        snippetCache.clear();
+    }
+
+    /**
+     * 知识点数据重新加载后清空片段缓存（在全文索引同步之后执行）
+     */
+    @EventListener
+    @Order(2)
+    public void onKnowledgeReloaded(KnowledgeReloadedEvent event) {
+        evictSnippets();
+    }
+
+    private List<SolutionMethodDomain> rankMethods(String question, GradeEnum grade,
+                                                   Set<KnowledgeSystemEnum> systems, int topK) {
+        Set<String> questionTerms = new HashSet<>(KnowledgeTokenizer.tokenize(question));
+        List<SolutionMethodDomain> candidates = new ArrayList<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (SolutionMethodDomain method : methodCatalog.findCandidates(grade, null, null)) {
+            double score = 0;
+            for (String term : methodTerms.get(method.getCode())) {
+                if (questionTerms.contains(term)) {
+                    score += 1;
+                }
+            }
+            Set<KnowledgeSystemEnum> methodSystems = methodCatalog.getApplicableSystems(method.getCode());
+            for (KnowledgeSystemEnum system : systems) {
+                if (methodSystems.contains(system)) {
+                    score += SYSTEM_MATCH_BONUS;
+                }
+            }
+            if (score > 0) {
+                candidates.add(method);
+                scores.put(method.getCode(), score);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((SolutionMethodDomain m) -> scores.get(m.getCode())).reversed());
+        return candidates.size() > topK ? candidates.subList(0, topK) : candidates;
+    }
+
+    private static Set<String> tokenSet(SolutionMethodDomain method) {
+        Set<String> terms = new HashSet<>();
+        terms.addAll(KnowledgeTokenizer.tokenize(method.getName()));
+        terms.addAll(KnowledgeTokenizer.tokenize(method.getDescription()));
+        terms.addAll(KnowledgeTokenizer.tokenize(method.getApplicableProblemTypes()));
+        if (method.getKeyPoints() != null) {
+            method.getKeyPoints().forEach(point -> terms.addAll(KnowledgeTokenizer.tokenize(point)));
+        }
+        return terms;
+    }
+
+    private static String renderKnowledge(KnowledgeDomain k) {
+        StringBuilder snippet = new StringBuilder();
+        snippet.append("\n【考点 ").append(k.getCode()).append("】").append(k.getName())
+            .append("（").append(k.getModule()).append("）：").append(k.getAssessmentCore());
+        appendPoints(snippet, k.getDetailedPoints());
+        return snippet.toString();
+    }
+
+    private static String renderMethod(SolutionMethodDomain method) {
+        StringBuilder snippet = new StringBuilder();
+        snippet.append("\n【方法 ").append(method.getCode()).append("】").append(method.getName())
+            .append("：").append(method.getDescription());
+        appendPoints(snippet, method.getSteps());
+        return snippet.toString();
+    }
+
+    private static void appendPoints(StringBuilder snippet, List<String> points) {
+        if (points == null) {
+            return;
+        }
+        for (int i = 0; i < points.size() && i < MAX_SNIPPET_POINTS; i++) {
+            String point = points.get(i);
+            snippet.append("；").append(point.length() > MAX_POINT_LENGTH ? point.substring(0, MAX_POINT_LENGTH) + "…" : point);
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package com.mathtutor.service.impl;
 
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.llm.Deadline;
 import com.mathtutor.llm.LlmClient;
+import com.mathtutor.llm.TokenEstimator;
+import com.mathtutor.llm.TokenUsageStats;
+import com.mathtutor.llm.Workload;
 import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.GroundingContext;
+import com.mathtutor.model.GroundingUsage;
 import com.mathtutor.model.ProblemAnalysisDomain;
+import com.mathtutor.model.StoredAnalysis;
+import com.mathtutor.repository.AnalysisStore;
+import com.mathtutor.service.KnowledgeRetrievalService;
 import com.mathtutor.service.MathAnalysisAgent;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * 数学题目分析Agent服务实现类
@@ -18,6 +36,19 @@ import java.util.UUID;
 public class MathAnalysisAgentImpl implements MathAnalysisAgent {
 
     private final LlmClient llmClient;
+    private final KnowledgeRetrievalService retrievalService;
+    private final AnalysisProperties properties;
+
+    /**
+     * 预生成分析，为空时每次都调用大模型
+     */
+    private final AnalysisStore analysisStore;
+
+    /**
+     * token用量统计：检索增强 / 未检索增强，用于对比两种提示词的用量差异
+     */
+    private final TokenUsageStats groundedUsage = new TokenUsageStats();
+    private final TokenUsageStats plainUsage = new TokenUsageStats();
 
     // 题目分析提示词模板
     private static final String ANALYSIS_PROMPT_TEMPLATE =
@@ -39,8 +70,27 @@ public class MathAnalysisAgentImpl implements MathAnalysisAgent {
         "**注意：** 如果你的输出中有包含数学符号，请用LaTeX格式表示。" +
         "**输入信息：** 数学压轴题：";
 
+    /**
+     * 提示词模板的摘要，模板变化后预生成的分析随之失效
+     */
+    private static final String TEMPLATE_DIGEST = AnalysisStore.questionKey(ANALYSIS_PROMPT_TEMPLATE).substring(0, 12);
+
     public MathAnalysisAgentImpl(LlmClient llmClient) {
+        this(llmClient, null, new AnalysisProperties());
+    }
+
+    public MathAnalysisAgentImpl(LlmClient llmClient, KnowledgeRetrievalService retrievalService,
+                                 AnalysisProperties properties) {
+        this(llmClient, retrievalService, properties, null);
+    }
+
+    @Autowired
+    public MathAnalysisAgentImpl(LlmClient llmClient, KnowledgeRetrievalService retrievalService,
+                                 AnalysisProperties properties, AnalysisStore analysisStore) {
         this.llmClient = llmClient;
+        this.retrievalService = retrievalService;
+        this.properties = properties;
+        this.analysisStore = analysisStore;
     }
 
     @Override
@@ -50,6 +100,34 @@ public class MathAnalysisAgentImpl implements MathAnalysisAgent {
 
     @Override
     public ProblemAnalysisDomain analyzeMathProblemWithContext(String question, String context) {
+        return analyze(question, context, null, null, null);
+    }
+
+    @Override
+    public ProblemAnalysisDomain analyzeMathProblem(String question, Workload workload) {
+        return analyze(question, "", workload, null, null);
+    }
+
+    @Override
+    public ProblemAnalysisDomain analyzeMathProblemWithProgress(String question, String context, Workload workload,
+                                                                Deadline deadline, Consumer<String> onDelta) {
+        return analyze(question, context, workload, deadline, onDelta);
+    }
+
+    /**
+     * @param workload 为 null 时按交互调用排队
+     * @param onDelta 为 null 时一次性调用大模型，否则以流式调用逐段回报
+     */
+    private ProblemAnalysisDomain analyze(String question, String context, Workload workload, Deadline deadline,
+                                          Consumer<String> onDelta) {
+        ProblemAnalysisDomain pregenerated = findPregenerated(question, context);
+        if (pregenerated != null) {
+            log.debug("命中预生成分析，题目长度: {}", question.length());
+            if (onDelta != null && pregenerated.getProblemAnalysis() != null) {
+                onDelta.accept(pregenerated.getProblemAnalysis());
+            }
+            return pregenerated;
+        }
         try {
             log.debug("开始分析数学题目，题目长度: {}, 上下文长度: {}", question.length(), context.length());
 
@@ -64,6 +142,12 @@ public class MathAnalysisAgentImpl implements MathAnalysisAgent {
                 promptBuilder.append(" 附加信息：").append(context);
             }
 
+            // 从本地知识库检索相关考点与方法，约束模型的考点识别
+            GroundingContext grounding = retrieveGrounding(question);
+            if (!grounding.isEmpty()) {
+                promptBuilder.append(" ").append(grounding.getPrompt());
+            }
+
             promptBuilder.append(" 请开始你的分析。");
 
             // 创建聊天请求
@@ -71,17 +155,31 @@ public class MathAnalysisAgentImpl implements MathAnalysisAgent {
             chatRequest.setMessage(promptBuilder.toString());
             chatRequest.setSessionId(generateSessionId());
             chatRequest.setContext("math_analysis");
+            chatRequest.setDeadline(deadline);
+            chatRequest.setWorkload(workload);
 
             log.debug("发送分析请求到LLM服务");
 
             // 调用LLM服务进行分析
-            String problemAnalysis = llmClient.chat(chatRequest).getResponse();
+            ChatResponse chatResponse = onDelta == null
+                ? llmClient.chat(chatRequest)
+                : streamChat(chatRequest, deadline, onDelta);
+            if ("error".equals(chatResponse.getStatus())) {
+                throw new IllegalStateException(chatResponse.getResponse());
+            }
+            String problemAnalysis = chatResponse.getResponse();
 
             log.info("数学题目分析完成，结果长度: {}", problemAnalysis != null ? problemAnalysis.length() : 0);
+            recordUsage(grounding, chatRequest, chatResponse);
 
             ProblemAnalysisDomain domain = new ProblemAnalysisDomain();
             domain.setProblemAnalysis(problemAnalysis);
             domain.setSessionId(chatRequest.getSessionId());
+            domain.setGroundingKnowledgeCodes(grounding.getKnowledgeCodes());
+            domain.setGroundingMethodCodes(grounding.getMethodCodes());
+            domain.setPromptTokens(chatResponse.getPromptTokens());
+            domain.setCompletionTokens(chatResponse.getCompletionTokens());
+            storeLiveResult(question, context, domain);
             return domain;
 
         } catch (Exception e) {
@@ -90,10 +188,173 @@ public class MathAnalysisAgentImpl implements MathAnalysisAgent {
             ProblemAnalysisDomain domain = new ProblemAnalysisDomain();
             domain.setProblemAnalysis("抱歉，分析过程中发生了错误，请稍后重试。错误信息：" + e.getMessage());
             domain.setSessionId(sessionId);
+            domain.setErrorMessage(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
             return domain;
         }
     }
 
+    /**
+     * 流式调用大模型并等待结束；到达截止时间或线程被中断时取消上游调用
+     * 只有正常结束（收到 [DONE]）的文本才作为结果，中途断开的不完整文本按失败处理，不会被保存复用。
+     * 流式响应不带 token 用量，结果中的用量为空，用量统计按文本长度估算
+     */
+    private ChatResponse streamChat(ChatRequest request, Deadline deadline, Consumer<String> onDelta)
+        throws InterruptedException, TimeoutException {
+        StringBuilder text = new StringBuilder();
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        LlmClient.StreamHandle handle = llmClient.chatStream(request, new LlmClient.StreamHandler() {
+            @Override
+            public void onContent(String content, Runnable ignored) {
+                if (content == null || content.isEmpty()) {
+                    done.countDown();
+                } else {
+                    text.append(content);
+                    onDelta.accept(content);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                failure.set(error);
+                done.countDown();
+            }
+        });
+        boolean finished = false;
+        try {
+            finished = done.await(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+            // 客户端在截止时间断开上游时同样以空内容结束，此时的文本并不完整
+            if (!finished || deadline.isExpired()) {
+                throw new TimeoutException("分析超过截止时间");
+            }
+        } finally {
+            if (!finished) {
+                handle.cancel();
+            }
+        }
+        Throwable error = failure.get();
+        if (error != null) {
+            return ChatResponse.error("大模型流式响应中断: " + error.getMessage(), request.getSessionId());
+        }
+        if (text.length() == 0) {
+            return ChatResponse.error("大模型没有返回分析内容", request.getSessionId());
+        }
+        return ChatResponse.success(text.toString(), request.getSessionId());
+    }
+
+    @Override
+    public String getPromptVersion() {
+        boolean grounded = retrievalService != null && properties.getGrounding().isEnabled();
+        return TEMPLATE_DIGEST + (grounded ? "-g" : "-p");
+    }
+
+    /**
+     * 没有附加上下文时查找当前提示词版本的已存分析，返回副本：
+     * 先按题目全文摘要精确查找，再查找规范化后相同、只是格式不同的题目
+     */
+    private ProblemAnalysisDomain findPregenerated(String question, String context) {
+        if (analysisStore == null || question == null || (context != null && !context.trim().isEmpty())) {
+            return null;
+        }
+        StoredAnalysis stored = analysisStore.findByQuestion(AnalysisStore.questionKey(question), getPromptVersion());
+        if (stored == null && properties.getNearDuplicate().isEnabled()) {
+            String problemId = analysisStore.findNearDuplicate(question);
+            if (problemId != null) {
+                stored = analysisStore.find(problemId, getPromptVersion());
+                log.debug("命中格式不同的同一道题 {}", problemId);
+            }
+        }
+        if (stored == null || stored.getAnalysis() == null) {
+            return null;
+        }
+        ProblemAnalysisDomain source = stored.getAnalysis();
+        ProblemAnalysisDomain domain = new ProblemAnalysisDomain();
+        domain.setProblemAnalysis(source.getProblemAnalysis());
+        domain.setBackgrounds(source.getBackgrounds());
+        domain.setIntents(source.getIntents());
+        domain.setDifficulties(source.getDifficulties());
+        domain.setOverallOriginalMarkdown(source.getOverallOriginalMarkdown());
+        domain.setSubQuestions(source.getSubQuestions());
+        domain.setSuggestions(source.getSuggestions());
+        domain.setGroundingKnowledgeCodes(source.getGroundingKnowledgeCodes());
+        domain.setGroundingMethodCodes(source.getGroundingMethodCodes());
+        domain.setSessionId(generateSessionId());
+        domain.setMatchConfidence(1.0);
+        return domain;
+    }
+
+    /**
+     * 在线生成的分析存入分析存储，以 {@link AnalysisStore#LIVE_PREFIX} 加题目摘要为编号
+     */
+    private void storeLiveResult(String question, String context, ProblemAnalysisDomain domain) {
+        if (analysisStore == null || !properties.isStoreLiveResults() || (context != null && !context.trim().isEmpty())) {
+            return;
+        }
+        String questionKey = AnalysisStore.questionKey(question);
+        StoredAnalysis stored = new StoredAnalysis(AnalysisStore.LIVE_PREFIX + questionKey, getPromptVersion(), questionKey, domain);
+        stored.setQuestionText(question);
+        try {
+            analysisStore.save(stored);
+        } catch (IOException e) {
+            log.warn("保存在线分析失败: {}", e.getMessage());
+        }
+    }
+
+    private GroundingContext retrieveGrounding(String question) {
+        if (retrievalService == null || !properties.getGrounding().isEnabled()) {
+            return new GroundingContext();
+        }
+        try {
+            return retrievalService.retrieve(question, properties.getDefaultGrade());
+        } catch (Exception e) {
+            log.warn("本地知识检索失败，使用无检索提示词继续分析", e);
+            return new GroundingContext();
+        }
+    }
+
+    /**
+     * 记录本次分析的 token 用量；上游没有返回用量（流式响应）时按提示词与分析文本的长度估算
+     */
+    private void recordUsage(GroundingContext grounding, ChatRequest chatRequest, ChatResponse chatResponse) {
+        TokenUsageStats stats = grounding.isEmpty() ? plainUsage : groundedUsage;
+        int prompt;
+        int completion;
+        if (chatResponse.getPromptTokens() != null && chatResponse.getCompletionTokens() != null) {
+            prompt = chatResponse.getPromptTokens();
+            completion = chatResponse.getCompletionTokens();
+            stats.record(prompt, completion);
+        } else {
+            prompt = TokenEstimator.estimate(chatRequest.getMessage());
+            completion = TokenEstimator.estimate(chatResponse.getResponse());
+            stats.recordEstimated(prompt, completion);
+        }
+        log.info("分析token用量 - 检索增强: {}, 提示词: {}, 生成: {}；均值 检索增强 {}/{}（{}次），未检索 {}/{}（{}次）",
+            !grounding.isEmpty(), prompt, completion,
+            String.format("%.0f", groundedUsage.getAveragePromptTokens()),
+            String.format("%.0f", groundedUsage.getAverageCompletionTokens()), groundedUsage.getCalls(),
+            String.format("%.0f", plainUsage.getAveragePromptTokens()),
+            String.format("%.0f", plainUsage.getAverageCompletionTokens()), plainUsage.getCalls());
+    }
+
+    @Override
+    public GroundingUsage getGroundingUsage() {
+        return new GroundingUsage(groundedUsage.getUsage(), plainUsage.getUsage());
+    }
+
+    /**
+     * 检索增强提示词的token用量统计
+     */
+    public TokenUsageStats getGroundedUsage() {
+        return groundedUsage;
+    }
+
+    /**
+     * 未检索增强提示词的token用量统计
+     */
+    public TokenUsageStats getPlainUsage() {
+        return plainUsage;
+    }
+
     @Override
     public String generateSessionId() {
         return "math_analysis_" + UUID.randomUUID().toString().replace("-", "");
@@ -0,0 +1,69 @@
+package com.mathtutor.service.impl;
+
+import com.mathtutor.llm.ReactiveLlmClient;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.service.ChatService;
+import com.mathtutor.service.ReactiveChatService;
+import com.mathtutor.service.TutoringService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 响应式聊天服务实现类
+ *
+ * 普通对话走非阻塞客户端，不占用线程；分步辅导与阻塞版本共用 {@link TutoringService}，
+ * 脚本外的追问会同步调用 LLM，因此放到 boundedElastic 线程上执行，不阻塞事件循环。
+ */
+@Slf4j
+@Service
+public class ReactiveChatServiceImpl implements ReactiveChatService {
+
+    private final ReactiveLlmClient llmClient;
+    private final ChatService chatService;
+    private final TutoringService tutoringService;
+
+    public ReactiveChatServiceImpl(ReactiveLlmClient llmClient, ChatService chatService) {
+        this(llmClient, chatService, null);
+    }
+
+    @Autowired
+    public ReactiveChatServiceImpl(ReactiveLlmClient llmClient, ChatService chatService,
+                                   TutoringService tutoringService) {
+        this.llmClient = llmClient;
+        this.chatService = chatService;
+        this.tutoringService = tutoringService;
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(ChatRequest request) {
+        prepare(request);
+        if (tutoringService != null && tutoringService.accepts(request)) {
+            return Mono.fromCallable(() -> chatService.chat(request)).subscribeOn(Schedulers.boundedElastic());
+        }
+        return llmClient.chat(request)
+            .onErrorResume(e -> {
+                log.error("Error processing chat request", e);
+                return Mono.just(ChatResponse.error("Service temporarily unavailable", request.getSessionId()));
+            });
+    }
+
+    @Override
+    public Flux<String> chatStream(ChatRequest request) {
+        prepare(request);
+        if (tutoringService != null && tutoringService.accepts(request)) {
+            return chat(request).mapNotNull(ChatResponse::getResponse).flux();
+        }
+        return llmClient.chatStream(request);
+    }
+
+    private void prepare(ChatRequest request) {
+        if (request.getSessionId() == null || request.getSessionId().isEmpty()) {
+            request.setSessionId(chatService.generateSessionId());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.mathtutor.service.impl;
+
+import com.mathtutor.config.TutoringProperties;
+import com.mathtutor.llm.LlmClient;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.LogicStep;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.ProblemQuestion;
+import com.mathtutor.model.StepSubmission;
+import com.mathtutor.model.TutoringStats;
+import com.mathtutor.repository.ProblemBank;
+import com.mathtutor.service.StepGradingService;
+import com.mathtutor.service.TutoringService;
+import com.mathtutor.tutoring.IntentClassifier;
+import com.mathtutor.tutoring.LatencyHistogram;
+import com.mathtutor.tutoring.TutoringSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分步辅导服务实现类
+ *
+ * 每个会话维护一个 {@link TutoringSession} 状态机，按题目数据中预先编写的分级提示（scaffolding）在本地应答：
+ * 求助时逐级给出提示，作答经 {@link StepGradingService#gradeLocally} 判定后前进或追加提示，全程不访问大模型。
+ * 只有学生的输入超出脚本（提问、本地无法判定的作答）时才带着当前步骤的上下文调用大模型。
+ * 分别统计本地应答与大模型应答的次数和延迟分位数。
+ */
+@Slf4j
+@Service
+public class TutoringServiceImpl implements TutoringService {
+
+    private static final String OFF_SCRIPT_PROMPT_TEMPLATE =
+        "你是一名初中数学辅导老师，正在带学生一步一步完成一道题。题目：《%s》。当前小题：%s。当前步骤的目标：%s。" +
+        "本步骤预先编写的提示（由浅入深）：%s。学生说：%s。" +
+        "请结合当前步骤简短回应学生，引导其自己思考，不要直接给出最终答案。";
+
+    private final ProblemBank problemBank;
+    private final StepGradingService gradingService;
+    private final LlmClient llmClient;
+    private final TutoringProperties properties;
+    private final IntentClassifier classifier = new IntentClassifier();
+
+    private final Map<String, TutoringSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastIdleCheck = new AtomicLong(System.nanoTime());
+
+    private final LongAdder localTurns = new LongAdder();
+    private final LongAdder llmTurns = new LongAdder();
+    private final LatencyHistogram localLatency = new LatencyHistogram();
+    private final LatencyHistogram llmLatency = new LatencyHistogram();
+
+    public TutoringServiceImpl(ProblemBank problemBank, StepGradingService gradingService, LlmClient llmClient,
+                               TutoringProperties properties) {
+        this.problemBank = problemBank;
+        this.gradingService = gradingService;
+        this.llmClient = llmClient;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean accepts(ChatRequest request) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        return contextProblemId(request) != null
+            || (request.getSessionId() != null && sessions.containsKey(request.getSessionId()));
+    }
+
+    @Override
+    public ChatResponse handle(ChatRequest request) {
+        long start = System.nanoTime();
+        evictIdleIfDue(start);
+        String sessionId = request.getSessionId();
+
+        String reply;
+        OffScript offScript = null;
+        TutoringSession session = sessions.get(sessionId);
+        String problemId = contextProblemId(request);
+        if (problemId != null && (session == null || !session.getProblem().getProblemId().equals(problemId))) {
+            ProblemDomain problem = problemBank.findById(problemId);
+            if (problem == null) {
+                return ChatResponse.error("未找到题目: " + problemId, sessionId);
+            }
+            session = new TutoringSession(sessionId, problem);
+            sessions.put(sessionId, session);
+            evictOverflow();
+            reply = introduce(session);
+        } else if (session == null) {
+            return ChatResponse.error("当前会话没有正在辅导的题目", sessionId);
+        } else {
+            synchronized (session) {
+                session.touch();
+                reply = scriptedReply(session, request.getMessage());
+                if (reply == null) {
+                    offScript = new OffScript(session, request.getMessage());
+                }
+            }
+        }
+
+        if (offScript == null) {
+            localTurns.increment();
+            localLatency.record(System.nanoTime() - start);
+            return ChatResponse.success(reply, sessionId);
+        }
+        ChatResponse response = askLlm(offScript, sessionId);
+        llmTurns.increment();
+        llmLatency.record(System.nanoTime() - start);
+        return response;
+    }
+
+    @Override
+    public TutoringStats getStats() {
+        long local = localTurns.sum();
+        long llm = llmTurns.sum();
+        long total = local + llm;
+        return new TutoringStats(total, local, llm, total == 0 ? 0 : (double) local / total,
+            localLatency.percentileNanos(50) / 1e3, localLatency.percentileNanos(95) / 1e3,
+            localLatency.percentileNanos(99) / 1e3,
+            llmLatency.percentileNanos(50) / 1e6, llmLatency.percentileNanos(95) / 1e6,
+            llmLatency.percentileNanos(99) / 1e6,
+            sessions.size());
+    }
+
+    /**
+     * 按脚本应答，输入超出脚本时返回 null
+     */
+    private String scriptedReply(TutoringSession session, String message) {
+        LogicStep step = session.getCurrentStep();
+        switch (classifier.classify(message)) {
+            case QUESTION:
+                return null;
+            case HINT:
+                return hintReply(session);
+            case SKIP:
+                return advance(session, "好的，这一步先跳过。");
+            default:
+                StepSubmission submission = new StepSubmission(null, session.getProblem().getProblemId(),
+                    step.getStepId(), message);
+                switch (gradingService.gradeLocally(submission).getVerdict()) {
+                    case CORRECT:
+                        return advance(session, "正确！");
+                    case INCORRECT:
+                        String hint = session.nextHint();
+                        return hint != null ? "还不对，再想想。" + hint : "还不对，再检查一下计算。";
+                    default:
+                        return null;
+                }
+        }
+    }
+
+    private String hintReply(TutoringSession session) {
+        boolean exhausted = session.isHintExhausted();
+        String hint = session.nextHint();
+        if (hint == null) {
+            return "这一步没有预设提示，先试着写出你的思路。";
+        }
+        if (exhausted) {
+            return "这已经是最详细的提示了：" + hint + " 写出你的结果发给我，或者说\"跳过\"。";
+        }
+        return "提示" + session.getHintLevel() + "：" + hint;
+    }
+
+    private String advance(TutoringSession session, String prefix) {
+        boolean newQuestion = session.advance();
+        if (session.isFinished()) {
+            sessions.remove(session.getSessionId(), session);
+            return prefix + "本题全部步骤已完成，做得很好！";
+        }
+        StringBuilder reply = new StringBuilder(prefix);
+        if (newQuestion) {
+            ProblemQuestion question = session.getCurrentQuestion();
+            reply.append("接下来看第").append(question.getQuestionIndex()).append("问：")
+                .append(question.getQuestionText()).append(" ");
+        }
+        return reply.append("下一步：").append(session.getCurrentStep().getGoal()).toString();
+    }
+
+    private String introduce(TutoringSession session) {
+        ProblemQuestion question = session.getCurrentQuestion();
+        if (question == null) {
+            sessions.remove(session.getSessionId(), session);
+            return "这道题没有分步数据，可以直接提问。";
+        }
+        return "我们来做《" + session.getProblem().getTitle() + "》。第" + question.getQuestionIndex() + "问："
+            + question.getQuestionText() + " 第一步：" + session.getCurrentStep().getGoal()
+            + "。需要时可以说\"提示\"。";
+    }
+
+    private ChatResponse askLlm(OffScript offScript, String sessionId) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(String.format(OFF_SCRIPT_PROMPT_TEMPLATE, offScript.title, offScript.questionText,
+            offScript.goal, offScript.hints, offScript.message));
+        request.setSessionId(sessionId);
+        request.setContext("tutoring");
+        try {
+            return llmClient.chat(request);
+        } catch (Exception e) {
+            log.error("辅导对话调用大模型失败", e);
+            return ChatResponse.error("Service temporarily unavailable", sessionId);
+        }
+    }
+
+    private static String contextProblemId(ChatRequest request) {
+        String context = request.getContext();
+        if (context == null || !context.startsWith(PROBLEM_CONTEXT_PREFIX)) {
+            return null;
+        }
+        String problemId = context.substring(PROBLEM_CONTEXT_PREFIX.length()).trim();
+        return problemId.isEmpty() ? null : problemId;
+    }
+
+    private void evictIdleIfDue(long now) {
+        long timeout = properties.getSessionIdleTimeout().toNanos();
+        long last = lastIdleCheck.get();
+        // 最多每半个空闲时长检查一次，避免每轮对话都遍历
+        if (now - last > timeout / 2 && lastIdleCheck.compareAndSet(last, now)) {
+            int before = sessions.size();
+            sessions.values().removeIf(s -> now - s.getLastActiveNanos() > timeout);
+            if (sessions.size() < before) {
+                log.debug("丢弃空闲辅导会话{}个", before - sessions.size());
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (sessions.size() > properties.getMaxSessions()) {
+            TutoringSession oldest = null;
+            for (TutoringSession s : sessions.values()) {
+                if (oldest == null || s.getLastActiveNanos() < oldest.getLastActiveNanos()) {
+                    oldest = s;
+                }
+            }
+            if (oldest == null || !sessions.remove(oldest.getSessionId(), oldest)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 调用大模型所需的当前步骤上下文，在会话锁内取出，调用期间不持有锁
+     */
+    private static final class OffScript {
+
+        private final String title;
+        private final String questionText;
+        private final String goal;
+        private final String hints;
+        private final String message;
+
+        private OffScript(TutoringSession session, String message) {
+            LogicStep step = session.getCurrentStep();
+            this.title = session.getProblem().getTitle();
+            this.questionText = session.getCurrentQuestion().getQuestionText();
+            this.goal = step.getGoal();
+            this.hints = String.join("；", step.getScaffolding());
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.mathtutor.tutoring;
+
+import com.mathtutor.grading.AhoCorasickAutomaton;
+import com.mathtutor.grading.AnswerNormalizer;
+import com.mathtutor.grading.MathExpression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 基于关键词的意图识别
+ *
+ * 全部关键词编译成一个 {@link AhoCorasickAutomaton}，对规范化、转小写后的输入扫描一次。
+ * 同时命中多种意图时按 {@link TutorIntent} 的声明顺序取优先级（提问 > 求助 > 跳过），都未命中时视为作答。
+ * 关键词只用来识别简短的整句：含有完整算式的输入（"t=2.5，下一步呢"）先按作答批改，
+ * 超过 {@link #MAX_UTTERANCE_LENGTH} 个字符的输入也按作答处理，由批改决定是否交给大模型。
+ */
+public class IntentClassifier {
+
+    private static final List<String> QUESTION_WORDS = List.of(
+        "为什么", "为啥", "什么意思", "是什么", "怎么来的", "能不能解释", "why");
+
+    private static final List<String> HINT_WORDS = List.of(
+        "不会", "提示", "卡住", "没思路", "没有思路", "怎么做", "怎么办", "怎么算", "想不出", "不知道", "帮帮",
+        "help", "hint", "stuck");
+
+    private static final List<String> SKIP_WORDS = List.of(
+        "下一步", "跳过", "skip", "next");
+
+    /**
+     * 按意图识别的输入的最大长度（规范化后的字符数）
+     */
+    static final int MAX_UTTERANCE_LENGTH = 20;
+
+    private final AhoCorasickAutomaton automaton;
+    private final TutorIntent[] patternIntent;
+
+    public IntentClassifier() {
+        List<String> patterns = new ArrayList<>();
+        List<TutorIntent> intents = new ArrayList<>();
+        add(patterns, intents, QUESTION_WORDS, TutorIntent.QUESTION);
+        add(patterns, intents, HINT_WORDS, TutorIntent.HINT);
+        add(patterns, intents, SKIP_WORDS, TutorIntent.SKIP);
+        this.automaton = new AhoCorasickAutomaton(patterns);
+        this.patternIntent = intents.toArray(new TutorIntent[0]);
+    }
+
+    public TutorIntent classify(String input) {
+        String normalized = AnswerNormalizer.normalize(input);
+        if (normalized.length() > MAX_UTTERANCE_LENGTH || containsFormula(normalized)) {
+            return TutorIntent.ANSWER;
+        }
+        String text = normalized.toLowerCase(Locale.ROOT);
+        int[] best = {TutorIntent.ANSWER.ordinal()};
+        automaton.match(text, (pattern, start, end) ->
+            best[0] = Math.min(best[0], patternIntent[pattern].ordinal()));
+        return TutorIntent.values()[best[0]];
+    }
+
+    /**
+     * 是否有一个结论整个是含数值或等号的算式（说明文字中夹着的数值不算）
+     */
+    static boolean containsFormula(String normalized) {
+        for (String part : normalized.split("[,;]")) {
+            if (part.isEmpty() || (part.indexOf('=') < 0 && part.chars().noneMatch(c -> c >= '0' && c <= '9'))) {
+                continue;
+            }
+            MathExpression expression = MathExpression.parse(part);
+            if (expression != null && expression.getSource().length() == part.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void add(List<String> patterns, List<TutorIntent> intents, List<String> words, TutorIntent intent) {
+        for (String word : words) {
+            patterns.add(word);
+            intents.add(intent);
+        }
+    }
+}
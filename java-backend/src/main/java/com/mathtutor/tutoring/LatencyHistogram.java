@@ -0,0 +1,67 @@
+package com.mathtutor.tutoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁延迟直方图
+ *
+ * 按纳秒记录，桶边界为 2^(i/4) 纳秒（相邻桶相差约 19%），覆盖 1ns 到约 18 分钟。
+ * 分位数返回所在桶的上界，精度足够区分微秒级的本地响应与秒级的大模型响应。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 分位数（纳秒）
+     * @param percentile 0-100
+     * @return 没有记录时返回 0
+     */
+    public long percentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos <= 1) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(SUB_BUCKETS * Math.log(nanos) / Math.log(2));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(2, (double) bucket / SUB_BUCKETS));
+    }
+}
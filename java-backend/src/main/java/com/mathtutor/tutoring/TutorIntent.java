@@ -0,0 +1,27 @@
+package com.mathtutor.tutoring;
+
+/**
+ * 辅导对话中学生输入的意图
+ * 声明顺序即识别优先级：同时命中多种意图时取靠前的
+ */
+public enum TutorIntent {
+    /**
+     * 提问：为什么、什么意思，脚本之外的内容
+     */
+    QUESTION,
+
+    /**
+     * 求助：不会、给个提示
+     */
+    HINT,
+
+    /**
+     * 跳过当前步骤
+     */
+    SKIP,
+
+    /**
+     * 作答
+     */
+    ANSWER
+}
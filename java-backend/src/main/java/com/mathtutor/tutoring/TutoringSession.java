@@ -0,0 +1,120 @@
+package com.mathtutor.tutoring;
+
+import com.mathtutor.model.LogicStep;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.ProblemQuestion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个会话的辅导状态：当前题目、当前步骤、已给出的提示级别
+ *
+ * 状态转移：
+ * - 求助 / 作答错误：提示级别加一（到最高级后保持）
+ * - 作答正确 / 跳过：进入下一步骤，提示级别清零；最后一步之后会话结束
+ * 非线程安全，由调用方对会话对象加锁。
+ */
+public class TutoringSession {
+
+    private final String sessionId;
+    private final ProblemDomain problem;
+
+    /**
+     * 按顺序展开的全部步骤及其所属小题
+     */
+    private final List<LogicStep> steps = new ArrayList<>();
+    private final List<ProblemQuestion> stepQuestions = new ArrayList<>();
+
+    private int stepIndex;
+    private int hintLevel;
+    private volatile long lastActiveNanos = System.nanoTime();
+
+    public TutoringSession(String sessionId, ProblemDomain problem) {
+        this.sessionId = sessionId;
+        this.problem = problem;
+        for (ProblemQuestion question : problem.getQuestions()) {
+            for (LogicStep step : question.getLogicSteps()) {
+                steps.add(step);
+                stepQuestions.add(question);
+            }
+        }
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public ProblemDomain getProblem() {
+        return problem;
+    }
+
+    /**
+     * 当前步骤，全部完成后返回 null
+     */
+    public LogicStep getCurrentStep() {
+        return isFinished() ? null : steps.get(stepIndex);
+    }
+
+    public ProblemQuestion getCurrentQuestion() {
+        return isFinished() ? null : stepQuestions.get(stepIndex);
+    }
+
+    /**
+     * 当前步骤已给出的最高提示级别，0 表示还没有给过提示
+     */
+    public int getHintLevel() {
+        return hintLevel;
+    }
+
+    /**
+     * 提示级别加一并返回该级提示；已是最高级时返回最高级提示
+     */
+    public String nextHint() {
+        LogicStep step = getCurrentStep();
+        if (step == null || step.getHintLevels() == 0) {
+            return null;
+        }
+        hintLevel = Math.min(hintLevel + 1, step.getHintLevels());
+        return step.getHint(hintLevel);
+    }
+
+    /**
+     * 当前步骤的提示是否已全部给出
+     */
+    public boolean isHintExhausted() {
+        LogicStep step = getCurrentStep();
+        return step != null && hintLevel >= step.getHintLevels();
+    }
+
+    /**
+     * 进入下一步骤
+     * @return 是否进入了新的小题
+     */
+    public boolean advance() {
+        ProblemQuestion before = getCurrentQuestion();
+        stepIndex++;
+        hintLevel = 0;
+        return !isFinished() && getCurrentQuestion() != before;
+    }
+
+    public boolean isFinished() {
+        return stepIndex >= steps.size();
+    }
+
+    public int getStepCount() {
+        return steps.size();
+    }
+
+    public int getStepIndex() {
+        return stepIndex;
+    }
+
+    public void touch() {
+        lastActiveNanos = System.nanoTime();
+    }
+
+    public long getLastActiveNanos() {
+        return lastActiveNanos;
+    }
+}
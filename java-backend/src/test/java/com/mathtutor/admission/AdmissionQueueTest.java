@@ -0,0 +1,221 @@
+package com.mathtutor.admission;
+
+import com.mathtutor.config.AdmissionProperties;
+import com.mathtutor.model.AdmissionStats;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionQueueTest {
+
+    private static final int STUDENTS = 200;
+    private static final long SERVICE_MILLIS = 50;
+    private static final Duration DEADLINE = Duration.ofSeconds(1);
+
+    @Test
+    void testClassifiesRoutesInOrder() {
+        AdmissionQueue queue = new AdmissionQueue(new AdmissionProperties());
+        assertEquals(AdmissionPriority.STREAMING, queue.classify("/api/chat/stream"));
+        assertEquals(AdmissionPriority.INTERACTIVE, queue.classify("/api/chat"));
+        assertEquals(AdmissionPriority.BATCH, queue.classify("/api/grading/batch"));
+        assertNull(queue.classify("/api/catalog/problems"));
+
+        AdmissionProperties disabled = new AdmissionProperties();
+        disabled.setEnabled(false);
+        assertNull(new AdmissionQueue(disabled).classify("/api/chat"));
+    }
+
+    @Test
+    void testHigherPriorityIsServedFirst() {
+        AdmissionQueue queue = new AdmissionQueue(properties(1, 10, Duration.ofMillis(10), Duration.ofSeconds(30)));
+        AdmissionTicket holder = queue.acquire(AdmissionPriority.BATCH);
+        assertTrue(holder.decision().getNow(false));
+
+        AdmissionTicket batch = queue.acquire(AdmissionPriority.BATCH);
+        AdmissionTicket streaming = queue.acquire(AdmissionPriority.STREAMING);
+        AdmissionTicket interactive = queue.acquire(AdmissionPriority.INTERACTIVE);
+        assertFalse(batch.decision().isDone());
+        assertEquals(3, queue.getStats().getQueued());
+
+        holder.release();
+        assertTrue(interactive.decision().getNow(false));
+        assertFalse(streaming.decision().isDone());
+        interactive.release();
+        assertTrue(streaming.decision().getNow(false));
+        assertFalse(batch.decision().isDone());
+        streaming.release();
+        assertTrue(batch.decision().getNow(false));
+        batch.release();
+        batch.release();
+
+        AdmissionStats stats = queue.getStats();
+        assertEquals(0, stats.getInUse());
+        assertEquals(0, stats.getQueued());
+        assertEquals(4, stats.getAdmitted());
+    }
+
+    @Test
+    void testShedsImmediatelyWhenExpectedWaitExceedsDeadline() {
+        // 单个名额、每个请求约 1 秒：排在第 3 位预计等 3 秒，超过 2.5 秒时限
+        AdmissionQueue queue = new AdmissionQueue(properties(1, 10, Duration.ofSeconds(1), Duration.ofMillis(2500)));
+        queue.acquire(AdmissionPriority.INTERACTIVE);
+        AdmissionTicket first = queue.acquire(AdmissionPriority.INTERACTIVE);
+        AdmissionTicket second = queue.acquire(AdmissionPriority.INTERACTIVE);
+        AdmissionTicket third = queue.acquire(AdmissionPriority.INTERACTIVE);
+
+        assertFalse(first.decision().isDone());
+        assertFalse(second.decision().isDone());
+        assertFalse(third.decision().getNow(true), "预计等待超过时限应立即拒绝");
+        assertEquals(Duration.ofSeconds(3), third.getRetryAfter());
+        assertEquals(1L, queue.getStats().getShedByReason().get(AdmissionQueue.SHED_EXPECTED_WAIT));
+    }
+
+    @Test
+    void testFullQueueEvictsNewestLowerPriorityWaiter() {
+        AdmissionQueue queue = new AdmissionQueue(properties(1, 2, Duration.ofMillis(10), Duration.ofSeconds(30)));
+        queue.acquire(AdmissionPriority.INTERACTIVE);
+        AdmissionTicket olderBatch = queue.acquire(AdmissionPriority.BATCH);
+        AdmissionTicket newerBatch = queue.acquire(AdmissionPriority.BATCH);
+
+        AdmissionTicket interactive = queue.acquire(AdmissionPriority.INTERACTIVE);
+        assertFalse(interactive.decision().isDone());
+        assertFalse(newerBatch.decision().getNow(true), "最新进入的批量请求被挤出");
+        assertFalse(olderBatch.decision().isDone());
+
+        AdmissionTicket rejected = queue.acquire(AdmissionPriority.BATCH);
+        assertFalse(rejected.decision().getNow(true), "没有更低优先级可挤出时拒绝新请求");
+        AdmissionStats stats = queue.getStats();
+        assertEquals(2, stats.getQueued());
+        assertEquals(1L, stats.getShedByReason().get(AdmissionQueue.SHED_EVICTED));
+        assertEquals(1L, stats.getShedByReason().get(AdmissionQueue.SHED_QUEUE_FULL));
+        assertEquals(2L, stats.getShedByPriority().get("batch"));
+    }
+
+    @Test
+    void testWaiterTimesOutAndAbandonedWaiterIsSkipped() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(properties(1, 10, Duration.ofMillis(10), Duration.ofMillis(200)));
+        AdmissionTicket holder = queue.acquire(AdmissionPriority.INTERACTIVE);
+        AdmissionTicket expiring = queue.acquire(AdmissionPriority.INTERACTIVE);
+        assertFalse(expiring.decision().get(5, TimeUnit.SECONDS));
+        assertEquals(1L, queue.getStats().getShedByReason().get(AdmissionQueue.SHED_TIMEOUT));
+        assertEquals(0, queue.getStats().getQueued());
+
+        AdmissionTicket abandoned = queue.acquire(AdmissionPriority.INTERACTIVE);
+        AdmissionTicket next = queue.acquire(AdmissionPriority.INTERACTIVE);
+        abandoned.release();
+        assertEquals(1, queue.getStats().getQueued());
+        holder.release();
+        assertTrue(next.decision().getNow(false));
+        next.release();
+        assertEquals(0, queue.getStats().getInUse());
+    }
+
+    /**
+     * 模拟一个班 200 人同时提问：4 个名额，每个请求处理 50ms，排队时限 1 秒
+     * 每个请求都有结果，超出处理能力的被拒绝，结束后没有残留的名额和排队
+     */
+    @Test
+    void testClassroomBurstShedsExcessAndDrains() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(properties(4, 128, Duration.ofMillis(SERVICE_MILLIS), DEADLINE));
+        Burst burst = burst(queue);
+
+        AdmissionStats stats = queue.getStats();
+        assertEquals(STUDENTS, burst.admitted.size() + burst.rejected.size());
+        assertEquals(burst.admitted.size(), stats.getAdmitted());
+        assertEquals(burst.rejected.size(), stats.getShed());
+        assertTrue(burst.rejected.size() > 0, "超出处理能力的请求应被拒绝");
+        assertEquals(0, stats.getInUse());
+        assertEquals(0, stats.getQueued());
+    }
+
+    /**
+     * 同一场景的耗时：被拒绝的请求应当很快得到 503，放行的请求排队时间不超过时限
+     * 依赖机器负载，只在 benchmark 分组中运行
+     */
+    @Test
+    @Tag("benchmark")
+    void testClassroomBurstShedsFastAndKeepsAdmittedWithinDeadline() throws Exception {
+        AdmissionQueue queue = new AdmissionQueue(properties(4, 128, Duration.ofMillis(SERVICE_MILLIS), DEADLINE));
+        Burst burst = burst(queue);
+
+        List<Long> admitted = burst.admitted;
+        List<Long> rejected = burst.rejected;
+        long rejectedMedian = rejected.isEmpty() ? 0 : rejected.get(rejected.size() / 2);
+        System.out.printf("准入: %d 人同时提问，放行 %d，拒绝 %d %s；放行者排队最长 %d ms，拒绝中位数 %d ms%n",
+            STUDENTS, admitted.size(), rejected.size(), queue.getStats().getShedByReason(),
+            admitted.get(admitted.size() - 1), rejectedMedian);
+
+        assertTrue(admitted.size() >= 40, "时限内能处理约 80 个，实际放行 " + admitted.size());
+        assertTrue(admitted.get(admitted.size() - 1) <= DEADLINE.toMillis() + 300,
+            "放行请求排队 " + admitted.get(admitted.size() - 1) + " ms");
+        assertTrue(rejectedMedian < 200, "拒绝应立即返回，中位数 " + rejectedMedian + " ms");
+    }
+
+    /**
+     * STUDENTS 个线程同时申请名额，放行的占用 SERVICE_MILLIS 后释放
+     * @return 放行与拒绝请求各自的等待时间（毫秒，升序）
+     */
+    private static Burst burst(AdmissionQueue queue) throws Exception {
+        List<Long> admittedWaits = Collections.synchronizedList(new ArrayList<>());
+        List<Long> rejectedWaits = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(STUDENTS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < STUDENTS; i++) {
+                futures.add(pool.submit(() -> {
+                    long start = System.nanoTime();
+                    AdmissionTicket ticket = queue.acquire(AdmissionPriority.INTERACTIVE);
+                    boolean granted = ticket.decision().get(10, TimeUnit.SECONDS);
+                    long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (granted) {
+                        admittedWaits.add(waited);
+                        Thread.sleep(SERVICE_MILLIS);
+                    } else {
+                        rejectedWaits.add(waited);
+                    }
+                    ticket.release();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Burst burst = new Burst();
+        burst.admitted.addAll(admittedWaits);
+        burst.rejected.addAll(rejectedWaits);
+        Collections.sort(burst.admitted);
+        Collections.sort(burst.rejected);
+        return burst;
+    }
+
+    private static final class Burst {
+        final List<Long> admitted = new ArrayList<>();
+        final List<Long> rejected = new ArrayList<>();
+    }
+
+    private static AdmissionProperties properties(int maxConcurrent, int capacity, Duration serviceTime,
+                                                  Duration timeout) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setMaxConcurrent(maxConcurrent);
+        properties.setQueueCapacity(capacity);
+        properties.setInitialServiceTime(serviceTime);
+        for (AdmissionPriority priority : AdmissionPriority.values()) {
+            properties.getQueueTimeout().put(priority, timeout);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,407 @@
+package com.mathtutor.channel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.ChannelProperties;
+import com.mathtutor.config.StreamingProperties;
+import com.mathtutor.llm.StreamCoalescer;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.GradeVerdict;
+import com.mathtutor.model.StepGradeResult;
+import com.mathtutor.model.StepSubmission;
+import com.mathtutor.service.ReactiveChatService;
+import com.mathtutor.service.StepGradingService;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TutorChannelTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ReactiveChatService chatService;
+    private StepGradingService gradingService;
+    private ChannelProperties properties;
+    private TutorChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        chatService = mock(ReactiveChatService.class);
+        gradingService = mock(StepGradingService.class);
+        properties = new ChannelProperties();
+        // 逐段转发，便于按条数检查额度；合并本身见 StreamCoalescerTest
+        StreamingProperties streaming = new StreamingProperties();
+        streaming.setCoalesce(false);
+        channel = new TutorChannel(chatService, gradingService, new StreamCoalescer(streaming), properties);
+        when(gradingService.grade(any())).thenAnswer(invocation ->
+            graded(invocation.getArgument(0)));
+    }
+
+    @Test
+    void testMultiplexesRequestTypesAndSessions() throws Exception {
+        when(chatService.chat(any())).thenAnswer(invocation -> {
+            ChatRequest request = invocation.getArgument(0);
+            return Mono.just(ChatResponse.success("回复:" + request.getMessage(), request.getSessionId()));
+        });
+        Client client = new Client();
+
+        JsonNode hello = client.next();
+        assertEquals("hello", hello.get("t").asText());
+        String defaultSession = hello.get("s").asText();
+        assertEquals(32, hello.get("d").get("window").asInt());
+
+        client.send("{\"t\":\"check\",\"id\":1,\"p\":\"P1\",\"step\":\"1\",\"a\":\"a=-5\"}");
+        client.send("{\"t\":\"hint\",\"id\":2,\"s\":\"blackboard\",\"p\":\"P1\"}");
+        client.send("{\"t\":\"chat\",\"id\":3,\"m\":\"什么是绝对值\"}");
+
+        Map<Long, JsonNode> replies = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            JsonNode reply = client.next();
+            assertEquals("reply", reply.get("t").asText(), reply.toString());
+            replies.put(reply.get("id").asLong(), reply);
+        }
+        assertEquals("CORRECT", replies.get(1L).get("d").get("verdict").asText());
+        assertEquals("1", replies.get(1L).get("d").get("stepId").asText());
+        assertEquals("blackboard", replies.get(2L).get("s").asText());
+        assertEquals(defaultSession, replies.get(3L).get("s").asText());
+        assertEquals("回复:什么是绝对值", replies.get(3L).get("d").get("response").asText());
+
+        ArgumentCaptor<ChatRequest> captor = ArgumentCaptor.forClass(ChatRequest.class);
+        verify(chatService, times(2)).chat(captor.capture());
+        ChatRequest hint = captor.getAllValues().stream()
+            .filter(r -> "blackboard".equals(r.getSessionId())).findFirst().orElseThrow();
+        assertEquals("problem:P1", hint.getContext());
+        assertEquals("给个提示", hint.getMessage());
+
+        client.send("{\"t\":\"chat\",\"id\":4}");
+        client.send("not json");
+        client.send("{\"t\":\"reply\",\"id\":5}");
+        assertEquals("bad_request", client.next().get("code").asText());
+        assertEquals("bad_request", client.next().get("code").asText());
+        assertEquals("bad_request", client.next().get("code").asText());
+        client.close();
+    }
+
+    @Test
+    void testInFlightLimitIsPerMessageType() throws Exception {
+        properties.getMaxInFlight().put("check", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return graded(invocation.getArgument(0));
+        }).when(gradingService).grade(any());
+        when(chatService.chat(any())).thenReturn(Mono.just(ChatResponse.success("好", "s")));
+        Client client = new Client();
+        client.next();
+
+        client.send("{\"t\":\"check\",\"id\":1,\"p\":\"P1\",\"step\":\"1\",\"a\":\"x\"}");
+        client.send("{\"t\":\"check\",\"id\":2,\"p\":\"P1\",\"step\":\"2\",\"a\":\"y\"}");
+        JsonNode busy = client.next();
+        assertEquals("error", busy.get("t").asText());
+        assertEquals(2, busy.get("id").asLong());
+        assertEquals("busy", busy.get("code").asText());
+
+        // 作答检查占满名额时对话不受影响
+        client.send("{\"t\":\"chat\",\"id\":3,\"m\":\"你好\"}");
+        assertEquals(3, client.next().get("id").asLong());
+
+        release.countDown();
+        assertEquals(1, client.next().get("id").asLong());
+        client.send("{\"t\":\"check\",\"id\":2,\"p\":\"P1\",\"step\":\"2\",\"a\":\"y\"}");
+        assertEquals("reply", client.next().get("t").asText());
+        client.close();
+    }
+
+    @Test
+    void testStreamDeltasFollowClientCredit() throws Exception {
+        properties.setStreamWindow(5);
+        AtomicLong requested = new AtomicLong();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(chatService.chatStream(any())).thenAnswer(invocation -> Flux.range(0, 1000)
+            .map(i -> "段" + i)
+            .doOnRequest(n -> requested.addAndGet(n))
+            .doOnCancel(() -> cancelled.set(true)));
+        Client client = new Client();
+        client.next();
+
+        client.send("{\"t\":\"stream\",\"id\":9,\"m\":\"讲讲这道题\"}");
+        for (int i = 0; i < 5; i++) {
+            JsonNode delta = client.next();
+            assertEquals("delta", delta.get("t").asText());
+            assertEquals("段" + i, delta.get("m").asText());
+        }
+        assertNull(client.poll(200), "额度用完后不再推送");
+        assertEquals(5, requested.get());
+
+        client.send("{\"t\":\"credit\",\"id\":9,\"n\":3}");
+        for (int i = 5; i < 8; i++) {
+            assertEquals("段" + i, client.next().get("m").asText());
+        }
+        assertNull(client.poll(200));
+
+        client.send("{\"t\":\"cancel\",\"id\":9}");
+        Thread.sleep(50);
+        assertTrue(cancelled.get());
+        assertEquals(8, requested.get());
+
+        // 取消后名额释放，新的流正常结束
+        doReturn(Flux.just("一", "二")).when(chatService).chatStream(any());
+        client.send("{\"t\":\"stream\",\"id\":10,\"m\":\"再讲一遍\"}");
+        assertEquals("一", client.next().get("m").asText());
+        assertEquals("二", client.next().get("m").asText());
+        JsonNode done = client.next();
+        assertEquals("done", done.get("t").asText());
+        assertEquals(10, done.get("id").asLong());
+        client.close();
+    }
+
+    @Test
+    void testHeartbeatAndIdleTimeout() throws Exception {
+        properties.setHeartbeatInterval(Duration.ofMillis(100));
+        properties.setIdleTimeout(Duration.ofMillis(600));
+        Client client = new Client();
+        client.next();
+
+        assertEquals("ping", client.next().get("t").asText());
+        client.send("{\"t\":\"ping\",\"id\":1}");
+        JsonNode pong;
+        do {
+            pong = client.next();
+        } while ("ping".equals(pong.get("t").asText()));
+        assertEquals("pong", pong.get("t").asText());
+        assertEquals(1, channel.getOpenConnections());
+
+        // 停止回复后连接在空闲超时后关闭
+        assertTrue(client.completed.await(3, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && channel.getOpenConnections() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, channel.getOpenConnections());
+    }
+
+    /**
+     * 同一节点上保持 500 条长连接，每条连接做 10 次作答检查；
+     * 与同样次数的 HTTP 请求（连接池复用，带浏览器和 Tomcat 的常见头部）比较线上字节数
+     */
+    @Test
+    void testConcurrentConnectionsAgainstHttp() throws Exception {
+        int connections = 500;
+        int checksPerConnection = 10;
+        AtomicLong wireBytes = new AtomicLong();
+        String frame = "{\"t\":\"check\",\"id\":%d,\"p\":\"P_MATH_2025_025\",\"step\":\"2\",\"a\":\"AB=13\"}";
+        String body = "{\"problemId\":\"P_MATH_2025_025\",\"stepId\":\"2\",\"answer\":\"AB=13\"}";
+
+        DisposableServer server = HttpServer.create().host("127.0.0.1").port(0)
+            .doOnChannelInit((observer, ch, address) -> ch.pipeline().addFirst(new ByteCounter(wireBytes)))
+            .route(routes -> routes
+                .ws("/ws/tutor", (in, out) -> out.sendString(
+                    channel.connect(in.receive().asString(StandardCharsets.UTF_8)), StandardCharsets.UTF_8))
+                .post("/api/grading/step", (request, response) -> response
+                    .header("Content-Type", "application/json")
+                    .header("Vary", "Origin")
+                    .header("Vary", "Access-Control-Request-Method")
+                    .header("Vary", "Access-Control-Request-Headers")
+                    .header("Access-Control-Allow-Origin", "*")
+                    .header("Keep-Alive", "timeout=60")
+                    .sendString(request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                        .map(text -> json(gradingService.grade(read(text, StepSubmission.class)))))))
+            .bindNow();
+        ConnectionProvider pool = ConnectionProvider.builder("bench").maxConnections(connections).build();
+        try {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            Sinks.Empty<Void> closeAll = Sinks.empty();
+            CountDownLatch answered = new CountDownLatch(connections);
+            AtomicInteger replies = new AtomicInteger();
+            HttpClient wsClient = HttpClient.create(pool);
+            long start = System.nanoTime();
+            for (int c = 0; c < connections; c++) {
+                AtomicInteger mine = new AtomicInteger();
+                wsClient.websocket()
+                    .uri("ws://127.0.0.1:" + server.port() + "/ws/tutor")
+                    .handle((in, out) -> {
+                        in.receive().asString(StandardCharsets.UTF_8)
+                            .filter(text -> text.startsWith("{\"t\":\"reply\""))
+                            .subscribe(text -> {
+                                replies.incrementAndGet();
+                                if (mine.incrementAndGet() == checksPerConnection) {
+                                    answered.countDown();
+                                }
+                            });
+                        return out.sendString(Flux.range(0, checksPerConnection)
+                            .map(i -> String.format(frame, i))
+                            .concatWith(closeAll.asMono().then(Mono.empty())));
+                    })
+                    .subscribe();
+            }
+            assertTrue(answered.await(60, TimeUnit.SECONDS), "未完成的连接 " + answered.getCount());
+            double wsMillis = (System.nanoTime() - start) / 1e6;
+            int open = channel.getOpenConnections();
+            System.gc();
+            long heapPerConnection = (runtime.totalMemory() - runtime.freeMemory() - heapBefore) / connections;
+            int extraThreads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+            long wsBytes = wireBytes.getAndSet(0);
+            closeAll.tryEmitEmpty();
+
+            HttpClient httpClient = HttpClient.create(pool).headers(headers -> headers
+                .set("Content-Type", "application/json")
+                .set("Accept", "application/json, text/plain, */*")
+                .set("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8")
+                .set("Accept-Encoding", "gzip, deflate, br")
+                .set("Origin", "http://localhost:3000")
+                .set("Referer", "http://localhost:3000/")
+                .set("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+                    + "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36"));
+            start = System.nanoTime();
+            Integer httpReplies = Flux.range(0, connections)
+                .flatMap(c -> Flux.range(0, checksPerConnection).concatMap(i -> httpClient.post()
+                    .uri("http://127.0.0.1:" + server.port() + "/api/grading/step")
+                    .send((request, out) -> out.sendString(Mono.just(body)))
+                    .responseContent().aggregate().asString()), connections)
+                .count().map(Long::intValue)
+                .block(Duration.ofSeconds(60));
+            double httpMillis = (System.nanoTime() - start) / 1e6;
+            long httpBytes = wireBytes.get();
+
+            int interactions = connections * checksPerConnection;
+            System.out.printf("WebSocket: %d 条连接同时打开，%d 次检查 %.0f ms，每次 %d 字节（含握手），"
+                    + "每条连接堆内存约 %.1f KB（客户端与服务端合计），新增线程 %d%n",
+                open, replies.get(), wsMillis, wsBytes / interactions, heapPerConnection / 1024.0, extraThreads);
+            System.out.printf("HTTP:      %d 次请求 %.0f ms，每次 %d 字节%n",
+                httpReplies, httpMillis, httpBytes / interactions);
+
+            assertEquals(connections, open);
+            assertEquals(interactions, replies.get());
+            assertEquals(interactions, httpReplies);
+            assertTrue(wsBytes * 3 < httpBytes * 2, "WebSocket " + wsBytes + " 字节, HTTP " + httpBytes + " 字节");
+        } finally {
+            pool.disposeLater().block(Duration.ofSeconds(10));
+            server.disposeNow();
+        }
+    }
+
+    private static StepGradeResult graded(StepSubmission submission) {
+        StepGradeResult result = new StepGradeResult(submission, GradeVerdict.CORRECT);
+        result.setNormalizedAnswer(submission.getAnswer());
+        return result;
+    }
+
+    private static String json(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T read(String text, Class<T> type) {
+        try {
+            return MAPPER.readValue(text, type);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 统计连接上收发的原始字节
+     */
+    private static final class ByteCounter extends ChannelDuplexHandler {
+
+        private final AtomicLong bytes;
+
+        ByteCounter(AtomicLong bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf) {
+                bytes.addAndGet(((ByteBuf) msg).readableBytes());
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (msg instanceof ByteBuf) {
+                bytes.addAndGet(((ByteBuf) msg).readableBytes());
+            }
+            ctx.write(msg, promise);
+        }
+    }
+
+    /**
+     * 直接连到协议处理上的客户端
+     */
+    private final class Client {
+
+        private final Sinks.Many<String> inbound = Sinks.many().unicast().onBackpressureBuffer();
+        private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        Client() {
+            channel.connect(inbound.asFlux()).subscribe(
+                text -> received.add(parse(text)),
+                e -> completed.countDown(),
+                completed::countDown);
+        }
+
+        void send(String text) {
+            inbound.tryEmitNext(text);
+        }
+
+        JsonNode next() throws InterruptedException {
+            JsonNode frame = poll(5000);
+            assertNotNull(frame, "5 秒内没有收到消息");
+            return frame;
+        }
+
+        JsonNode poll(long millis) throws InterruptedException {
+            return received.poll(millis, TimeUnit.MILLISECONDS);
+        }
+
+        void close() {
+            inbound.tryEmitComplete();
+        }
+
+        private JsonNode parse(String text) {
+            try {
+                return MAPPER.readTree(text);
+            } catch (Exception e) {
+                throw new IllegalStateException(text, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mathtutor.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.config.ProblemProperties;
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.repository.GradeKnowledgeCatalog;
+import com.mathtutor.repository.KnowledgeRepository;
+import com.mathtutor.repository.ProblemBank;
+import com.mathtutor.repository.SolutionMethodCatalog;
+import com.mathtutor.service.impl.CatalogResourceServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class CatalogControllerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private KnowledgeRepository repository;
+    private CatalogResourceServiceImpl resourceService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        repository = new KnowledgeRepository();
+        resourceService = new CatalogResourceServiceImpl(repository,
+            new GradeKnowledgeCatalog(new KnowledgeProperties(), List.of()), new SolutionMethodCatalog(),
+            new ProblemBank(new ProblemProperties()));
+        mockMvc = MockMvcBuilders.standaloneSetup(new CatalogController(resourceService)).build();
+    }
+
+    @Test
+    void testConditionalGet() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/knowledge"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        JsonNode body = MAPPER.readTree(first.getResponse().getContentAsByteArray());
+        assertEquals(10, body.path("knowledge_metadata").path("count").asInt());
+        assertEquals("M1T001", body.path("knowledge_points").get(0).path("code").asText());
+
+        mockMvc.perform(get("/api/knowledge").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/knowledge").header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+            .andExpect(status().isNotModified());
+
+        // 内容不变的重新加载不改变 ETag，内容变化后 ETag 随之变化
+        repository.reload(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge());
+        mockMvc.perform(get("/api/knowledge").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+        List<KnowledgeDomain> changed = GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+        changed.get(0).setName("绝对值化简（修订）");
+        repository.reload(changed);
+        mockMvc.perform(get("/api/knowledge").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testPrecompressedVariant() throws Exception {
+        byte[] plain = mockMvc.perform(get("/api/methods")).andReturn().getResponse().getContentAsByteArray();
+        MvcResult gzip = mockMvc.perform(get("/api/methods").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andReturn();
+        byte[] compressed = gzip.getResponse().getContentAsByteArray();
+        assertTrue(compressed.length < plain.length);
+        assertArrayEquals(plain, gunzip(compressed));
+
+        String gzipEtag = gzip.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(gzipEtag.endsWith("-gz\""));
+        mockMvc.perform(get("/api/methods").header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+            .andExpect(status().isNotModified());
+
+        // 序列化与压缩只做一次
+        assertSame(resourceService.getMethodList().getGzip(), resourceService.getMethodList().getGzip());
+        assertEquals(8, MAPPER.readTree(plain).path("solution_methods").size());
+    }
+
+    @Test
+    void testItemsAndProblems() throws Exception {
+        mockMvc.perform(get("/api/knowledge/M3T008"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("数轴动点问题"))
+            .andExpect(jsonPath("$.grade").value("SEVENTH_GRADE"));
+        mockMvc.perform(get("/api/knowledge/NOT_EXIST")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/methods/SM005"))
+            .andExpect(jsonPath("$.name").value("动点坐标表示法"));
+        mockMvc.perform(get("/api/knowledge").param("grade", "SEVENTH_GRADE"))
+            .andExpect(jsonPath("$.knowledge_metadata.grade").value("SEVENTH_GRADE"))
+            .andExpect(jsonPath("$.knowledge_metadata.count").value(10));
+        mockMvc.perform(get("/api/knowledge").param("grade", "NINTH_GRADE"))
+            .andExpect(jsonPath("$.knowledge_metadata.count").value(0));
+
+        mockMvc.perform(get("/api/problems"))
+            .andExpect(jsonPath("$.problems[0].problem_id").value("P_MATH_2025_025"));
+        mockMvc.perform(get("/api/problems/P_MATH_2025_025"))
+            .andExpect(jsonPath("$.questions[0].logic_steps[0].check_points[0]").value("a=-5"));
+        mockMvc.perform(get("/api/problems/P_NONE")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testReloadDropsCachedItemsOfOldVersion() throws Exception {
+        mockMvc.perform(get("/api/knowledge/M3T008")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/knowledge/M1T001")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/knowledge")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/methods/SM005")).andExpect(status().isOk());
+        assertEquals(4, resourceService.cacheSize());
+
+        List<KnowledgeDomain> remaining = GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+        remaining.removeIf(k -> "M3T008".equals(k.getCode()));
+        repository.reload(remaining);
+        mockMvc.perform(get("/api/knowledge"))
+            .andExpect(jsonPath("$.knowledge_metadata.count").value(9));
+        // 旧版本的单个知识点整组丢弃，与知识点无关的方法缓存保留
+        assertEquals(2, resourceService.cacheSize());
+        mockMvc.perform(get("/api/knowledge/M1T001")).andExpect(status().isOk());
+        assertEquals(3, resourceService.cacheSize());
+    }
+
+    @Test
+    void testAcceptEncodingParsing() {
+        assertTrue(CatalogController.acceptsGzip("gzip"));
+        assertTrue(CatalogController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(CatalogController.acceptsGzip("*"));
+        assertFalse(CatalogController.acceptsGzip(null));
+        assertFalse(CatalogController.acceptsGzip("identity"));
+        assertFalse(CatalogController.acceptsGzip("gzip;q=0"));
+        assertFalse(CatalogController.acceptsGzip("*;q=1, gzip;q=0"));
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mathtutor.grading;
+
+import com.mathtutor.grading.AnswerEquivalence.Result;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerEquivalenceTest {
+
+    @Test
+    void testRationalArithmetic() {
+        assertEquals(Rational.of(5, 2), Rational.parse("2.50"));
+        assertEquals(Rational.of(-1, 2), Rational.parse("-.5"));
+        assertEquals("13/4", Rational.of(26, 8).toString());
+        assertEquals(Rational.of(1, 6), Rational.of(1, 2).subtract(Rational.of(1, 3)));
+        assertEquals(Rational.valueOf(-8), Rational.of(-1, 2).pow(-3));
+
+        // long 溢出后改用 BigInteger，结果回到 long 范围时降回 long 表示
+        Rational big = Rational.valueOf(Long.MAX_VALUE).add(Rational.ONE);
+        assertEquals("9223372036854775808", big.toString());
+        assertEquals(Rational.valueOf(Long.MAX_VALUE), big.subtract(Rational.ONE));
+        assertEquals(Rational.of(BigInteger.TWO.pow(125), BigInteger.ONE),
+            Rational.valueOf(Long.MAX_VALUE).add(Rational.ONE).pow(2).divide(Rational.valueOf(2)));
+        assertEquals(Rational.ONE, Rational.of(Long.MAX_VALUE, 3).multiply(Rational.of(3, Long.MAX_VALUE)));
+        assertTrue(Rational.of(1, 3).compareTo(Rational.of(Long.MAX_VALUE - 1, Long.MAX_VALUE)) < 0);
+        assertEquals(Rational.parse("12345678901234567890.5"), Rational.of(
+            new BigInteger("24691357802469135781"), BigInteger.TWO));
+        assertThrows(ArithmeticException.class, () -> Rational.ONE.divide(Rational.ZERO));
+    }
+
+    @Test
+    void testParse() {
+        MathExpression assignment = parse("t=5/2");
+        assertTrue(assignment.isAssignment());
+        assertEquals(Rational.of(5, 2), assignment.getValue());
+        assertEquals(Rational.of(5, 2), parse("2.5秒").getValue());
+        assertEquals(Rational.valueOf(5), parse("坐标5").getValue());
+        assertEquals(Rational.valueOf(13), parse("|-5|+8").getValue());
+        assertEquals(List.of("xM", "t"), parse("xM=10-2t").getVariables());
+        assertTrue(parse("4t+2(t-1)=13").isLinear());
+        assertFalse(parse("|15-2t|+|2t-8|=10").isLinear());
+        assertFalse(parse("x^2-1").isLinear());
+        assertEquals(Rational.of(1, 8), parse("2^-3").getValue());
+
+        for (String invalid : List.of("", "绝对值方程", "t=", "t=三", "sqrt(2)", "(1+2", "|t", "t==1", "x^y", "1/0")) {
+            MathExpression parsed = MathExpression.parse(AnswerNormalizer.normalize(invalid));
+            assertTrue(parsed == null || parsed.getValue() == null, invalid);
+        }
+    }
+
+    @Test
+    void testNestedPowersAreBounded() {
+        assertEquals(Rational.valueOf(1L << 32), parse("(2^16)^2").getValue());
+        assertEquals(Rational.ONE, parse("((((1^16)^16)^16)^16)^16").getValue());
+
+        // 每层指数都不超过 16，但结果按指数之积增长；超过上限时应立即判为无法解析而不是算上几秒或抛出异常
+        String nested = "(((((((2)^16)^16)^16)^16)^16)^16)^16";
+        long start = System.nanoTime();
+        assertNull(MathExpression.parse(AnswerNormalizer.normalize(nested)));
+        assertNull(MathExpression.parse(AnswerNormalizer.normalize("(" + nested + ")^16")));
+        assertNull(MathExpression.parse(AnswerNormalizer.normalize("t=" + nested)));
+        assertNull(MathExpression.parse(AnswerNormalizer.normalize("2^(((2^16)^16)^16)")));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        assertThrows(ArithmeticException.class, () -> Rational.valueOf(3).pow(16).pow(16).pow(16));
+
+        // 含变量时在采样点上才会超限，按不可比较处理
+        assertEquals(Result.INCOMPARABLE, compare("x", "(((x^16)^16)^16)^16"));
+    }
+
+    @Test
+    void testEquivalence() {
+        assertEquals(Result.EQUIVALENT, compare("t=2.5", "t = 5/2"));
+        assertEquals(Result.EQUIVALENT, compare("t=2.5", "2.5秒"));
+        assertEquals(Result.EQUIVALENT, compare("2.5秒", "t=10/4"));
+        assertEquals(Result.DIFFERENT, compare("t=2.5", "t=2.6"));
+        assertEquals(Result.INCOMPARABLE, compare("t=2.5", "P=5/2"));
+        assertEquals(Result.INCOMPARABLE, compare("t=2.5", "6t=15"));
+
+        assertEquals(Result.EQUIVALENT, compare("6t=15", "4t+2(t-1)=13"));
+        assertEquals(Result.EQUIVALENT, compare("6t=15", "15 = 6t"));
+        assertEquals(Result.EQUIVALENT, compare("6t=15", "t=5/2"));
+        assertEquals(Result.DIFFERENT, compare("6t=15", "6t=16"));
+        assertEquals(Result.INCOMPARABLE, compare("6t=15", "6x=15"));
+
+        assertEquals(Result.EQUIVALENT, compare("15-2t", "-2t+15"));
+        assertEquals(Result.EQUIVALENT, compare("10-2t", "xM=2(5-t)"));
+        assertEquals(Result.DIFFERENT, compare("10-2t", "2t-10"));
+        assertEquals(Result.EQUIVALENT, compare("xM=10-2t", "xM+2t-10=0"));
+        assertEquals(Result.EQUIVALENT, compare("(x+1)^2", "x^2+2x+1"));
+        assertEquals(Result.DIFFERENT, compare("(x+1)^2", "x^2+1"));
+        assertEquals(Result.EQUIVALENT, compare("|15-2t|+|2t-8|=10", "|2t-15|+|8-2t|-10=0"));
+        assertEquals(Result.EQUIVALENT, compare("|15-2t|+|2t-8|=10", "2|7.5-t|+2|t-4|=10"));
+        assertEquals(Result.INCOMPARABLE, compare("|15-2t|+|2t-8|=10", "|15-2t|=10"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testEquivalenceThroughput() {
+        String[][] cases = {
+            {"t=2.5", "t=5/2"}, {"6t=15", "4t+2(t-1)=13"}, {"10-2t", "-2t+10"},
+            {"13", "AB=13"}, {"xM=10-2t", "xM=2(5-t)"}, {"t=2.5", "t=2.6"},
+        };
+        MathExpression[] expected = new MathExpression[cases.length];
+        String[] answers = new String[cases.length];
+        for (int i = 0; i < cases.length; i++) {
+            expected[i] = parse(cases[i][0]);
+            answers[i] = AnswerNormalizer.normalize(cases[i][1]);
+        }
+        int rounds = 600_000;
+        long best = Long.MAX_VALUE;
+        int equivalent = 0;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                int k = i % cases.length;
+                if (AnswerEquivalence.compare(expected[k], MathExpression.parse(answers[k])) == Result.EQUIVALENT) {
+                    equivalent++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double perSecond = rounds * 1e9 / best;
+        System.out.printf("等价判定（解析作答 + 比较）：单线程 %.0f 次/秒%n", perSecond);
+        assertTrue(equivalent > 0);
+        assertTrue(perSecond > 50_000, "每秒 " + perSecond + " 次");
+    }
+
+    private static MathExpression parse(String text) {
+        MathExpression parsed = MathExpression.parse(AnswerNormalizer.normalize(text));
+        assertNotNull(parsed, text);
+        return parsed;
+    }
+
+    private static Result compare(String expected, String answer) {
+        return AnswerEquivalence.compare(parse(expected), parse(answer));
+    }
+}
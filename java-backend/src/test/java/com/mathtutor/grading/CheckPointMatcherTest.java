@@ -0,0 +1,177 @@
+package com.mathtutor.grading;
+
+import com.mathtutor.config.ProblemProperties;
+import com.mathtutor.model.GradeVerdict;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.repository.ProblemBank;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckPointMatcherTest {
+
+    private static CheckPointMatcher matcher;
+
+    @BeforeAll
+    static void setUp() {
+        ProblemDomain problem = new ProblemBank(new ProblemProperties()).findById("P_MATH_2025_025");
+        matcher = new CheckPointMatcher(problem);
+    }
+
+    @Test
+    void testNormalize() {
+        assertEquals("4t+2(t-1)=13", AnswerNormalizer.normalize("４t ＋ 2 × ( t − 1 ) ＝ １３"));
+        assertEquals("6t=15", AnswerNormalizer.normalize("6 * t = 15"));
+        assertEquals("2*3=6", AnswerNormalizer.normalize("2×3 = 6"));
+        assertEquals("x^2+1", AnswerNormalizer.normalize("x² + 1"));
+        assertEquals("a=-5,b=8", AnswerNormalizer.normalize("a = －5，b = 8"));
+        assertEquals("", AnswerNormalizer.normalize(" \t　"));
+        // 只省略可以不写的乘号，正负号前的乘号保留
+        assertEquals("2(t-1)", AnswerNormalizer.normalize("2*(t-1)"));
+        assertEquals("(t-1)(t+1)", AnswerNormalizer.normalize("(t-1)*(t+1)"));
+        assertEquals("x=2*-3", AnswerNormalizer.normalize("x = 2 × -3"));
+        assertEquals("t*2", AnswerNormalizer.normalize("t*2"));
+        assertEquals("2**3", AnswerNormalizer.normalize("2**3"));
+    }
+
+    @Test
+    void testMultiplicationBeforeSignIsKept() {
+        assertCorrect("2.2", "t=-5/2*-1");
+        assertCorrect("2.2", "t = 5 × -1 ÷ -2");
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=5/2*-1"));
+    }
+
+    @Test
+    void testAutomatonReportsAllOccurrences() {
+        AhoCorasickAutomaton automaton = new AhoCorasickAutomaton(List.of("he", "she", "his", "hers", "距离"));
+        List<String> hits = new ArrayList<>();
+        automaton.match("ushers距离", (p, start, end) -> hits.add(automaton.getPattern(p) + "@" + start));
+        assertEquals(List.of("she@1", "he@2", "hers@2", "距离@6"), hits);
+        assertTrue(automaton.containsAny("xhisx"));
+        assertFalse(automaton.containsAny("hxs"));
+    }
+
+    @Test
+    void testDirectMatches() {
+        assertCorrect("2.1", "4t+2×(t−1)=13");
+        assertCorrect("1.1", "a=-5, b=8");
+        assertCorrect("1.2", "13。");
+        assertCorrect("2.2", "t=2.5.");
+        assertEquals(List.of("a=-5", "-5", "b=8", "8"),
+            matcher.match("1.1", AnswerNormalizer.normalize("a=-5,b=8")).getMatchedCheckPoints());
+    }
+
+    @Test
+    void testHitInsideProseIsAmbiguous() {
+        // 说明文字可能否定或改变命中的含义，交给大模型复核
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("2.2", "不是2.5"));
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("2.2", "我觉得是2.5"));
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("2.2", "t=2.5不对"));
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("2.1", "相遇时 6t = 15"));
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("1.2", "AB的距离是13。"));
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("2.2", "t=2.5,不是P=5"));
+        // 其他结论本身就算错时仍判为错误
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=3,不是2.5"));
+        // 检查点本身带的文字不算说明文字
+        assertCorrect("2.2", "2.5秒");
+        assertCorrect("2.2", "2.5秒,P=5");
+        assertTrue(CheckPointMatcher.inFormula("a=-5,b=8", 2, 4));
+        assertFalse(CheckPointMatcher.inFormula("不是2.5", 2, 5));
+    }
+
+    @Test
+    void testBoundaries() {
+        // 8 不命中 18，13 不命中 130，-5 中的 5 不算命中
+        assertNotEquals(GradeVerdict.CORRECT, verdict("1.1", "x=18"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("1.2", "130"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=25"));
+        assertTrue(CheckPointMatcher.onBoundary("a=-5", 2, 4));
+        assertTrue(CheckPointMatcher.onBoundary("距离是13。", 3, 5));
+        assertFalse(CheckPointMatcher.onBoundary("8-5", 2, 3));
+        assertFalse(CheckPointMatcher.onBoundary("a=-5", 3, 4));
+        assertFalse(CheckPointMatcher.onBoundary("2.5", 2, 3));
+        // 其他步骤的检查点不算数
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("2.1", "a=-5"));
+    }
+
+    @Test
+    void testHitMustCoverWholeConclusion() {
+        // 检查点后面接着运算符时只是算式的一部分，按整个算式的值判定
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=2.5+1"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=2.5*2"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.1", "6t=15-3"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("1.2", "13+2"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("1.2", "2+13"));
+        assertCorrect("1.2", "13+0");
+        assertCorrect("3.1", "xM=10-2t");
+    }
+
+    @Test
+    void testConflictingValues() {
+        // 罗列多个取值碰运气不算对
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=1,t=2,t=2.5,t=3"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=2.5或t=3"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("1.2", "13，14"));
+        // 多个结论都对应检查点，或与之不可比时仍判为正确
+        assertCorrect("3.3", "t=3.25或t=8.25");
+        assertCorrect("1.1", "a=-5,b=8");
+        assertCorrect("1.1", "a=-5,b=8,AB=13");
+        assertCorrect("2.2", "t=2.5,P=5");
+    }
+
+    @Test
+    void testValueComparison() {
+        assertCorrect("2.2", "t = 2.50");
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=3"));
+        assertCorrect("3.3", "8.250");
+        assertEquals(GradeVerdict.INCORRECT, verdict("1.2", "14"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("1.2", "  "));
+        // 等价的其他写法按数学等价判定，中文作答无法在本地判定
+        assertCorrect("2.2", "t=5/2");
+        assertCorrect("2.1", "12t - 30 = 0");
+        assertCorrect("3.1", "xM = -2t + 10");
+        assertCorrect("3.2", "|2t-15| + |8-2t| = 10");
+        assertCorrect("3.3", "t=13/4或t=33/4");
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.2", "t=7/2"));
+        assertEquals(GradeVerdict.INCORRECT, verdict("2.1", "4t+2t=13"));
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("1.2", "十三"));
+        assertEquals(GradeVerdict.AMBIGUOUS, verdict("2.2", "6t=15"));
+        assertEquals(GradeVerdict.UNKNOWN_STEP, verdict("9.9", "13"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testGradingLatency() {
+        List<String> answers = List.of("4t+2(t-1)=13", "6 t = 15", "t=5/2", "相遇时间t=2.5秒，P点表示的数是5", "14");
+        String[] steps = {"2.1", "2.1", "2.2", "2.2", "1.2"};
+        int rounds = 200_000;
+        long best = Long.MAX_VALUE;
+        int correct = 0;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                int k = i % answers.size();
+                if (matcher.match(steps[k], AnswerNormalizer.normalize(answers.get(k))).getVerdict() == GradeVerdict.CORRECT) {
+                    correct++;
+                }
+            }
+            best = Math.min(best, (System.nanoTime() - start) / rounds);
+        }
+        System.out.printf("检查点批改：规范化 + 匹配平均 %.2f µs/份%n", best / 1000.0);
+        assertTrue(correct > 0);
+        assertTrue(best < 50_000, "批改耗时 " + best + " ns");
+    }
+
+    private static GradeVerdict verdict(String stepId, String answer) {
+        return matcher.match(stepId, AnswerNormalizer.normalize(answer)).getVerdict();
+    }
+
+    private static void assertCorrect(String stepId, String answer) {
+        assertEquals(GradeVerdict.CORRECT, verdict(stepId, answer), answer);
+    }
+}
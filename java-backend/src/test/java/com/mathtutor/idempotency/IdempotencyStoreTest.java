@@ -0,0 +1,176 @@
+package com.mathtutor.idempotency;
+
+import com.mathtutor.config.IdempotencyProperties;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.IdempotencyStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    @Test
+    void testDuplicatesAttachWhileInFlightAndReplayAfterwards() {
+        IdempotencyStore store = new IdempotencyStore(new IdempotencyProperties());
+        CompletableFuture<ChatResponse> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        IdempotencyStore.Attempt<ChatResponse> original = store.chat("k1", request("1+1=?"), () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        IdempotencyStore.Attempt<ChatResponse> retry = store.chat("k1", request("1+1=?"), () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(ChatResponse.success("不应执行", "s"));
+        });
+        assertEquals(IdempotencyStore.Status.EXECUTED, original.getStatus());
+        assertEquals(IdempotencyStore.Status.ATTACHED, retry.getStatus());
+        assertFalse(retry.getResult().isDone());
+
+        upstream.complete(ChatResponse.success("2", "s1"));
+        assertEquals("2", original.getResult().join().getResponse());
+        assertSame(original.getResult().join(), retry.getResult().join());
+
+        IdempotencyStore.Attempt<ChatResponse> late = store.chat("k1", request("1+1=?"), CompletableFuture::new);
+        assertEquals(IdempotencyStore.Status.REPLAYED, late.getStatus());
+        assertEquals("2", late.getResult().join().getResponse());
+        assertEquals(1, calls.get());
+
+        IdempotencyStats stats = store.getStats();
+        assertEquals(3, stats.getRequests());
+        assertEquals(1, stats.getExecuted());
+        assertEquals(1, stats.getAttached());
+        assertEquals(1, stats.getReplayed());
+        assertEquals(2.0 / 3, stats.getDuplicateFraction(), 1e-9);
+        assertEquals(1, stats.getEntries());
+        assertTrue(stats.getBytes() > 0);
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestConflicts() {
+        IdempotencyStore store = new IdempotencyStore(new IdempotencyProperties());
+        store.chat("k1", request("1+1=?"), () -> CompletableFuture.completedFuture(ChatResponse.success("2", "s")));
+
+        IdempotencyStore.Attempt<ChatResponse> other = store.chat("k1", request("2+2=?"), CompletableFuture::new);
+        assertEquals(IdempotencyStore.Status.CONFLICT, other.getStatus());
+        assertNull(other.getResult());
+        assertEquals(1, store.getStats().getConflicts());
+        assertFalse(store.accepts(" "));
+        assertFalse(store.accepts("k".repeat(129)));
+    }
+
+    @Test
+    void testFailedResultsAreNotReplayed() {
+        IdempotencyStore store = new IdempotencyStore(new IdempotencyProperties());
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            IdempotencyStore.Attempt<ChatResponse> attempt = store.chat("k1", request("1+1=?"), () -> {
+                calls.incrementAndGet();
+                return CompletableFuture.completedFuture(ChatResponse.error("API调用失败", "s"));
+            });
+            assertEquals(IdempotencyStore.Status.EXECUTED, attempt.getStatus());
+            assertEquals("error", attempt.getResult().join().getStatus());
+        }
+        IdempotencyStore.Attempt<ChatResponse> thrown = store.chat("k2", request("1+1=?"), () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertTrue(thrown.getResult().isCompletedExceptionally());
+        assertEquals(2, calls.get());
+        assertEquals(0, store.getStats().getEntries());
+    }
+
+    @Test
+    void testRetentionAndCapsBoundStoredResults() throws InterruptedException {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setRetention(Duration.ofMillis(100));
+        properties.setMaxEntries(3);
+        IdempotencyStore store = new IdempotencyStore(properties);
+        for (int i = 0; i < 5; i++) {
+            store.chat("k" + i, request("题" + i), () -> CompletableFuture.completedFuture(ChatResponse.success("答", "s")));
+        }
+        IdempotencyStats stats = store.getStats();
+        assertEquals(3, stats.getEntries());
+        assertEquals(2, stats.getEvicted());
+        assertEquals(IdempotencyStore.Status.EXECUTED,
+            store.chat("k0", request("题0"), () -> CompletableFuture.completedFuture(ChatResponse.success("答", "s")))
+                .getStatus(), "最早的结果已被挤出");
+
+        Thread.sleep(150);
+        assertEquals(0, store.getStats().getEntries());
+        assertEquals(0, store.getStats().getBytes());
+
+        IdempotencyProperties small = new IdempotencyProperties();
+        small.setMaxBytes(4096);
+        IdempotencyStore bounded = new IdempotencyStore(small);
+        for (int i = 0; i < 10; i++) {
+            bounded.chat("k" + i, request("题" + i),
+                () -> CompletableFuture.completedFuture(ChatResponse.success("长".repeat(500), "s")));
+        }
+        assertTrue(bounded.getStats().getBytes() <= 4096);
+        assertTrue(bounded.getStats().getEntries() < 10);
+    }
+
+    /**
+     * 模拟校园网下的移动端：每个学生的请求在 50ms 内又重试两次，大模型响应需要 200ms
+     */
+    @Test
+    void testRetryStormCallsUpstreamOncePerKey() throws Exception {
+        int students = 100;
+        IdempotencyStore store = new IdempotencyStore(new IdempotencyProperties());
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<ChatResponse>> responses = new ArrayList<>();
+            for (int attempt = 0; attempt < 3; attempt++) {
+                for (int i = 0; i < students; i++) {
+                    String key = "student-" + i;
+                    ChatRequest request = request("第" + i + "题怎么做");
+                    responses.add(pool.submit(() -> store.chat(key, request, () -> CompletableFuture.supplyAsync(() -> {
+                        upstreamCalls.incrementAndGet();
+                        sleep(200);
+                        return ChatResponse.success("答案" + key, key);
+                    })).getResult().get(10, TimeUnit.SECONDS)));
+                }
+                Thread.sleep(25);
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals("答案student-" + (i % students), responses.get(i).get(10, TimeUnit.SECONDS).getResponse());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        IdempotencyStats stats = store.getStats();
+        System.out.printf("幂等: %d 个请求，上游调用 %d 次，等待原请求 %d，重放 %d，重复占比 %.0f%%%n",
+            stats.getRequests(), upstreamCalls.get(), stats.getAttached(), stats.getReplayed(),
+            stats.getDuplicateFraction() * 100);
+        assertEquals(students, upstreamCalls.get());
+        assertEquals(3L * students, stats.getRequests());
+        assertEquals(2L * students, stats.getAttached() + stats.getReplayed());
+    }
+
+    private static ChatRequest request(String message) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(message);
+        return request;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
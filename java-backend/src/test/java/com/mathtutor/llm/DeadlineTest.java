@@ -0,0 +1,41 @@
+package com.mathtutor.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineTest {
+
+    private static final Duration DEFAULT = Duration.ofSeconds(60);
+    private static final Duration MAX = Duration.ofMinutes(5);
+
+    @Test
+    void testResolvesHeaderWithinServerLimits() {
+        assertRemaining(20_000, Deadline.resolve("20s", DEFAULT, MAX));
+        assertRemaining(1_500, Deadline.resolve("1500", DEFAULT, MAX));
+        assertRemaining(1_500, Deadline.resolve("1500ms", DEFAULT, MAX));
+        assertRemaining(60_000, Deadline.resolve(null, DEFAULT, MAX));
+        assertRemaining(60_000, Deadline.resolve("soon", DEFAULT, MAX));
+        assertRemaining(60_000, Deadline.resolve("0", DEFAULT, MAX));
+        assertRemaining(300_000, Deadline.resolve("1h", DEFAULT, MAX));
+    }
+
+    @Test
+    void testCapsTimeoutsToRemainingTime() throws InterruptedException {
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+        assertTrue(deadline.cap(Duration.ofSeconds(30)).toMillis() <= 50);
+        assertEquals(Duration.ofMillis(10), Deadline.after(Duration.ofMinutes(1)).cap(Duration.ofMillis(10)));
+        Thread.sleep(60);
+        assertTrue(deadline.isExpired());
+        assertEquals(Duration.ZERO, deadline.remaining());
+        assertEquals(Duration.ofMillis(1), deadline.cap(Duration.ofSeconds(30)));
+    }
+
+    private static void assertRemaining(long expectedMillis, Deadline deadline) {
+        long remaining = deadline.remaining().toMillis();
+        assertTrue(remaining <= expectedMillis && remaining > expectedMillis - 1000,
+            "剩余 " + remaining + " ms，期望约 " + expectedMillis + " ms");
+    }
+}
@@ -0,0 +1,429 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.config.LlmProperties;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.LlmSchedulerStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmSchedulerTest {
+
+    private static final Deadline FAR = Deadline.after(Duration.ofHours(1));
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testDispatchesInProportionToWeightsUnderSaturation() {
+        // 每次调用都占用 1 秒
+        long[] clock = {0};
+        LlmScheduler scheduler = new LlmScheduler(properties(1), () -> clock[0]);
+        SchedulerTicket holder = scheduler.acquire(Workload.of(WorkloadClass.BATCH, "warmup"), FAR);
+        List<WorkloadClass> order = new ArrayList<>();
+        List<SchedulerTicket> granted = new ArrayList<>();
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            for (int i = 0; i < 100; i++) {
+                SchedulerTicket ticket = scheduler.acquire(Workload.of(workloadClass, "t"), FAR);
+                ticket.decision().thenAccept(ok -> {
+                    order.add(workloadClass);
+                    granted.add(ticket);
+                });
+            }
+        }
+        clock[0] += SECOND;
+        holder.release();
+        while (order.size() < 150) {
+            clock[0] += SECOND;
+            granted.get(order.size() - 1).release();
+        }
+
+        Map<WorkloadClass, Integer> counts = new EnumMap<>(WorkloadClass.class);
+        order.forEach(c -> counts.merge(c, 1, Integer::sum));
+        // 权重 8:4:2:1，150 个名额约为 80:40:20:10
+        assertEquals(80, counts.get(WorkloadClass.INTERACTIVE), 1);
+        assertEquals(40, counts.get(WorkloadClass.STREAMED_ANALYSIS), 1);
+        assertEquals(20, counts.get(WorkloadClass.BATCH), 1);
+        assertEquals(10, counts.get(WorkloadClass.PREGENERATION), 1);
+    }
+
+    @Test
+    void testLendsIdleCapacityAndServesNewArrivalsFirst() {
+        LlmScheduler scheduler = new LlmScheduler(properties(4));
+        List<SchedulerTicket> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(scheduler.acquire(Workload.of(WorkloadClass.PREGENERATION, "p"), FAR));
+        }
+        // 只有预生成在排队时它用满全部名额
+        assertEquals(4, batch.stream().filter(t -> t.decision().getNow(false)).count());
+        assertEquals(4, scheduler.getStats().getInUse());
+
+        SchedulerTicket hint = scheduler.acquire(Workload.of(WorkloadClass.INTERACTIVE, "student"), FAR);
+        assertFalse(hint.decision().isDone());
+        batch.get(0).release();
+        assertTrue(hint.decision().getNow(false));
+        assertFalse(batch.get(4).decision().isDone());
+
+        LlmSchedulerStats.WorkloadStats stats = scheduler.getStats().getWorkloads().get("pregeneration");
+        assertEquals(3, stats.getInUse());
+        assertEquals(16, stats.getQueued());
+        assertEquals(1, stats.getQueuedTenants());
+    }
+
+    @Test
+    void testSharesClassEquallyBetweenTenants() {
+        LlmScheduler scheduler = new LlmScheduler(properties(1));
+        SchedulerTicket holder = scheduler.acquire(Workload.of(WorkloadClass.BATCH, "warmup"), FAR);
+        List<String> order = new ArrayList<>();
+        List<SchedulerTicket> granted = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            track(scheduler.acquire(Workload.of(WorkloadClass.BATCH, "teacher-a"), FAR), order, granted);
+        }
+        for (int i = 0; i < 5; i++) {
+            track(scheduler.acquire(Workload.of(WorkloadClass.BATCH, "teacher-b"), FAR), order, granted);
+        }
+        holder.release();
+        while (order.size() < 55) {
+            granted.get(order.size() - 1).release();
+        }
+        // 后到的小批量与大批量交替执行，不用等前面 50 道题做完
+        assertEquals(List.of("teacher-a", "teacher-b", "teacher-a", "teacher-b"), order.subList(0, 4));
+        assertTrue(order.lastIndexOf("teacher-b") < 10);
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFullOrDeadlinePasses() throws Exception {
+        LlmProperties properties = properties(1);
+        properties.getScheduler().setQueueCapacity(1);
+        LlmScheduler scheduler = new LlmScheduler(properties);
+        SchedulerTicket holder = scheduler.acquire(Workload.of(WorkloadClass.BATCH, "a"), FAR);
+        SchedulerTicket waiting = scheduler.acquire(Workload.of(WorkloadClass.BATCH, "a"),
+            Deadline.after(Duration.ofMillis(50)));
+        SchedulerTicket overflow = scheduler.acquire(Workload.of(WorkloadClass.INTERACTIVE, "b"), FAR);
+
+        assertFalse(overflow.decision().getNow(true));
+        assertEquals(LlmScheduler.REJECT_QUEUE_FULL, overflow.getRejectReason());
+        assertFalse(waiting.decision().get(1, TimeUnit.SECONDS));
+        assertEquals(LlmScheduler.REJECT_DEADLINE, waiting.getRejectReason());
+        assertEquals(0, scheduler.getStats().getQueued());
+
+        holder.release();
+        assertEquals(0, scheduler.getStats().getInUse());
+        assertEquals(1, scheduler.getStats().getWorkloads().get("interactive").getRejected());
+    }
+
+    @Test
+    void testStreamHoldsSlotUntilFinishedAndCancelAbandonsQueue() {
+        LlmScheduler scheduler = new LlmScheduler(properties(1));
+        List<LlmClient.StreamHandler> upstream = new ArrayList<>();
+        ScheduledLlmClient client = new ScheduledLlmClient(new FakeClient(upstream), scheduler);
+        List<String> received = new ArrayList<>();
+
+        client.chatStream(request("s1"), (content, ignored) -> received.add("s1:" + content));
+        LlmClient.StreamHandle queued = client.chatStream(request("s2"), (content, ignored) -> received.add("s2:" + content));
+        client.chatStream(request("s3"), (content, ignored) -> received.add("s3:" + content));
+        assertEquals(1, upstream.size());
+        assertEquals(2, scheduler.getStats().getQueued());
+
+        queued.cancel();
+        upstream.get(0).onContent("x", null);
+        upstream.get(0).onContent("", null);
+        // s2 已放弃排队，名额直接交给 s3
+        assertEquals(2, upstream.size());
+        assertEquals(List.of("s1:x", "s1:"), received);
+        assertEquals(1, scheduler.getStats().getInUse());
+        assertEquals(0, scheduler.getStats().getQueued());
+    }
+
+    @Test
+    void testFailedStreamReleasesSlotAndForwardsError() {
+        LlmScheduler scheduler = new LlmScheduler(properties(1));
+        List<LlmClient.StreamHandler> upstream = new ArrayList<>();
+        ScheduledLlmClient client = new ScheduledLlmClient(new FakeClient(upstream), scheduler);
+        List<String> received = new ArrayList<>();
+        LlmClient.StreamHandler recorder = new LlmClient.StreamHandler() {
+            @Override
+            public void onContent(String content, Runnable onComplete) {
+                received.add(content);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                received.add("error:" + error.getMessage());
+            }
+        };
+
+        client.chatStream(request("s1"), recorder);
+        client.chatStream(request("s2"), (content, ignored) -> { });
+        upstream.get(0).onContent("x", null);
+        upstream.get(0).onError(new java.io.IOException("eof"));
+
+        assertEquals(List.of("x", "error:eof"), received);
+        // 出错的流归还名额，排队的 s2 随即开始
+        assertEquals(2, upstream.size());
+        assertEquals(1, scheduler.getStats().getInUse());
+    }
+
+    @Test
+    void testStreamThatFailsToStartReleasesSlotAndForwardsError() {
+        LlmScheduler scheduler = new LlmScheduler(properties(1));
+        List<LlmClient.StreamHandler> upstream = new ArrayList<>();
+        ScheduledLlmClient client = new ScheduledLlmClient(new FakeClient(upstream), scheduler);
+        List<String> received = new ArrayList<>();
+
+        client.chatStream(request("fail-s1"), new LlmClient.StreamHandler() {
+            @Override
+            public void onContent(String content, Runnable onComplete) {
+                received.add(content);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                received.add("error:" + error.getMessage());
+            }
+        });
+
+        assertEquals(List.of("error:upstream unavailable"), received);
+        assertEquals(0, scheduler.getStats().getInUse());
+        client.chatStream(request("s2"), (content, ignored) -> { });
+        assertEquals(1, upstream.size(), "名额已归还，下一个流可以开始");
+    }
+
+    /**
+     * 模拟 10 分钟：16 个上游名额，40 名学生每隔 10～30 秒请求一次提示（每次约 1 秒）；
+     * 三位教师不断上传 50 道题的批量分析（每题 6～12 秒），预生成同时保持 8 个调用在排队或执行。
+     * 按默认权重、保留 4 个交互名额调度时，交互请求排队时间的 p95 与没有批量负载时基本相同，其余名额都借给批量；
+     * 对照：不保留名额时提示要等批量调用结束，全部同一队列先到先得时提示要排在上百道题之后。
+     */
+    @Test
+    void testInteractiveLatencyStaysFlatUnderBatchSaturation() {
+        Outcome alone = simulate(properties(16, 4), false, false);
+        Outcome saturated = simulate(properties(16, 4), true, false);
+        Outcome unreserved = simulate(properties(16, 0), true, false);
+        Outcome fifo = simulate(properties(16, 0), true, true);
+
+        // 批量一直占满时提示排队的 p95 仍不到半次提示的时长
+        assertTrue(saturated.interactiveP95 <= alone.interactiveP95 + 0.5,
+            "interactive p95 wait " + saturated.interactiveP95 + "s under batch load vs " + alone.interactiveP95 + "s alone");
+        // 除交互没用上的保留名额外都借给了批量与预生成
+        assertEquals(16, saturated.peakInUse);
+        assertTrue(saturated.inUseSeconds / 600.0 >= 13, "average in use " + saturated.inUseSeconds / 600.0);
+        assertTrue(unreserved.inUseSeconds / 600.0 >= 15.5, "average in use " + unreserved.inUseSeconds / 600.0);
+        assertTrue(unreserved.interactiveP95 > saturated.interactiveP95 + 1,
+            "without reserve p95 wait " + unreserved.interactiveP95 + "s");
+        assertTrue(fifo.interactiveP95 > 30, "single FIFO queue p95 wait " + fifo.interactiveP95 + "s");
+    }
+
+    /**
+     * 离散事件模拟，时间以秒计；调度器分出名额是同步回调，完成事件排在模拟时间上
+     * @param fifo 所有调用归入同一类别同一租户，相当于没有分类的先到先得队列
+     */
+    private static Outcome simulate(LlmProperties properties, boolean withBatch, boolean fifo) {
+        Simulation sim = new Simulation();
+        LlmScheduler scheduler = new LlmScheduler(properties, () -> (long) (sim.now * SECOND));
+        Random random = new Random(42);
+        Outcome outcome = new Outcome();
+        List<Double> waits = new ArrayList<>();
+        double horizon = 600;
+        Workload pregeneration = fifo ? Workload.of(WorkloadClass.BATCH, "all")
+            : Workload.of(WorkloadClass.PREGENERATION, "pregeneration");
+
+        for (int s = 0; s < 40; s++) {
+            Workload student = fifo ? Workload.of(WorkloadClass.BATCH, "all")
+                : Workload.of(WorkloadClass.INTERACTIVE, "student-" + s);
+            sim.at(random.nextDouble() * 10, new Runnable() {
+                @Override
+                public void run() {
+                    double arrived = sim.now;
+                    double service = 0.5 + random.nextDouble();
+                    Runnable next = this;
+                    submit(sim, scheduler, student, service, () -> {
+                        waits.add(sim.now - arrived - service);
+                        if (sim.now < horizon) {
+                            sim.at(sim.now + 10 + random.nextDouble() * 20, next);
+                        }
+                    });
+                }
+            });
+        }
+        if (withBatch) {
+            for (int t = 0; t < 3; t++) {
+                Workload teacher = Workload.of(WorkloadClass.BATCH, fifo ? "all" : "teacher-" + t);
+                sim.at(5 + t, new Runnable() {
+                    private int remaining;
+
+                    @Override
+                    public void run() {
+                        // 上一批做完立即再传一批，整个模拟期间批量都在排队
+                        remaining = 50;
+                        for (int i = 0; i < 50; i++) {
+                            submit(sim, scheduler, teacher, 6 + random.nextDouble() * 6, this::done);
+                        }
+                    }
+
+                    private void done() {
+                        outcome.batchDone++;
+                        if (--remaining == 0 && sim.now < horizon) {
+                            run();
+                        }
+                    }
+                });
+            }
+            sim.at(0, new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 8; i++) {
+                        submit(sim, scheduler, pregeneration, 8, this::refill);
+                    }
+                }
+
+                private void refill() {
+                    if (sim.now < horizon) {
+                        submit(sim, scheduler, pregeneration, 8, this::refill);
+                    }
+                }
+            });
+        }
+        sim.at(0, new Runnable() {
+            @Override
+            public void run() {
+                outcome.peakInUse = Math.max(outcome.peakInUse, scheduler.getStats().getInUse());
+                outcome.inUseSeconds += scheduler.getStats().getInUse();
+                if (sim.now < horizon) {
+                    sim.at(sim.now + 1, this);
+                }
+            }
+        });
+        sim.run(horizon + 60);
+
+        Collections.sort(waits);
+        outcome.interactiveP95 = waits.get((int) Math.ceil(waits.size() * 0.95) - 1);
+        return outcome;
+    }
+
+    /**
+     * 申请名额，分到后占用 service 秒再归还并回调 done
+     */
+    private static void submit(Simulation sim, LlmScheduler scheduler, Workload workload, double service, Runnable done) {
+        SchedulerTicket ticket = scheduler.acquire(workload, FAR);
+        ticket.decision().thenAccept(granted -> sim.at(sim.now + service, () -> {
+            ticket.release();
+            done.run();
+        }));
+    }
+
+    private static void track(SchedulerTicket ticket, List<String> order, List<SchedulerTicket> granted) {
+        ticket.decision().thenAccept(ok -> {
+            order.add(ticket.getWorkload().getTenant());
+            granted.add(ticket);
+        });
+    }
+
+    private static ChatRequest request(String sessionId) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage("提示");
+        request.setSessionId(sessionId);
+        return request;
+    }
+
+    private static LlmProperties properties(int maxConcurrent) {
+        return properties(maxConcurrent, 0);
+    }
+
+    private static LlmProperties properties(int maxConcurrent, int interactiveReserved) {
+        LlmProperties properties = new LlmProperties();
+        properties.getScheduler().setMaxConcurrent(maxConcurrent);
+        properties.getScheduler().setQueueCapacity(10_000);
+        properties.getScheduler().getReserved().put(WorkloadClass.INTERACTIVE, interactiveReserved);
+        return properties;
+    }
+
+    private static class Outcome {
+
+        double interactiveP95;
+        int batchDone;
+        int peakInUse;
+        long inUseSeconds;
+    }
+
+    private static class Simulation {
+
+        private final PriorityQueue<Event> events = new PriorityQueue<>();
+        private long sequence;
+        double now;
+
+        void at(double time, Runnable action) {
+            events.add(new Event(time, sequence++, action));
+        }
+
+        void run(double until) {
+            while (!events.isEmpty() && events.peek().time <= until) {
+                Event event = events.poll();
+                now = event.time;
+                event.action.run();
+            }
+        }
+    }
+
+    private static class Event implements Comparable<Event> {
+
+        final double time;
+        final long sequence;
+        final Runnable action;
+
+        Event(double time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Double.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static class FakeClient implements LlmClient {
+
+        private final List<StreamHandler> streams;
+
+        FakeClient(List<StreamHandler> streams) {
+            this.streams = streams;
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            return ChatResponse.success("ok", request.getSessionId());
+        }
+
+        @Override
+        public CompletableFuture<ChatResponse> chatAsync(ChatRequest request) {
+            return CompletableFuture.completedFuture(chat(request));
+        }
+
+        @Override
+        public StreamHandle chatStream(ChatRequest request, StreamHandler handler) {
+            if (request.getSessionId().startsWith("fail-")) {
+                throw new IllegalStateException("upstream unavailable");
+            }
+            streams.add(handler);
+            return StreamHandle.NONE;
+        }
+
+        @Override
+        public boolean healthCheck() {
+            return true;
+        }
+    }
+}
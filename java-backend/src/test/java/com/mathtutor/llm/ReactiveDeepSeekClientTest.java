@@ -0,0 +1,420 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.config.LlmProperties;
+import com.mathtutor.config.ReactiveProperties;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.StreamUsage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.test.StepVerifier;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 以本地模拟的上游（Reactor Netty 服务器，按 DeepSeek 报文格式应答）测试响应式客户端，
+ * 并与阻塞客户端对比同时进行的流式对话数与每路占用的线程和内存
+ */
+class ReactiveDeepSeekClientTest {
+
+    private volatile BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> handler;
+    private volatile String lastRequestBody;
+    private volatile String lastAuthorization;
+
+    private DisposableServer upstream;
+    private LlmProperties properties;
+    private ReactiveDeepSeekClient client;
+
+    @BeforeEach
+    void setUp() {
+        upstream = HttpServer.create().host("127.0.0.1").port(0)
+            .handle((request, response) -> handler.apply(request, response))
+            .bindNow();
+        properties = new LlmProperties();
+        properties.setBaseUrl("http://127.0.0.1:" + upstream.port());
+        properties.setApiKey("test-key");
+        properties.setTimeout("10s");
+        client = new ReactiveDeepSeekClient(properties, new ReactiveProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void testChatParsesContentAndUsage() {
+        respond(200, "application/json", body -> Mono.just(
+            "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"x=2\"}}],"
+                + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":3}}"));
+
+        ChatResponse response = client.chat(request("解方程 2x=4", "s1")).block(Duration.ofSeconds(10));
+
+        assertEquals("success", response.getStatus());
+        assertEquals("x=2", response.getResponse());
+        assertEquals("s1", response.getSessionId());
+        assertEquals(12, response.getPromptTokens());
+        assertEquals(3, response.getCompletionTokens());
+        assertEquals("Bearer test-key", lastAuthorization);
+        assertTrue(lastRequestBody.contains("\"stream\":false") && lastRequestBody.contains("解方程 2x=4"));
+    }
+
+    @Test
+    void testChatMapsHttpErrorToErrorResponse() {
+        respond(429, "application/json", body -> Mono.just("{\"error\":\"Too Many Requests\"}"));
+
+        ChatResponse response = client.chat(request("1+1", "s2")).block(Duration.ofSeconds(10));
+
+        assertEquals("error", response.getStatus());
+        assertTrue(response.getResponse().contains("HTTP 429"), response.getResponse());
+        assertEquals("s2", response.getSessionId());
+    }
+
+    @Test
+    void testStreamEmitsDeltasUntilDone() {
+        respond(200, "text/event-stream", body -> Flux.just(
+            "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n",
+            sse("因为"), ": keep-alive\n\n", sse("2x=4，"), sse("所以 x=2"),
+            "data: [DONE]\n\n", sse("不应出现")));
+
+        StepVerifier.create(client.chatStream(request("解方程 2x=4", null)))
+            .expectNext("因为", "2x=4，", "所以 x=2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+        assertTrue(lastRequestBody.contains("\"stream\":true"));
+    }
+
+    @Test
+    void testStreamSignalsUpstreamFailure() {
+        respond(500, "application/json", body -> Mono.just("{\"error\":\"boom\"}"));
+
+        StepVerifier.create(client.chatStream(request("1+1", null)))
+            .expectErrorMatches(e -> e.getMessage().contains("HTTP 500"))
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testStreamWithoutDoneEndsWithError() {
+        respond(200, "text/event-stream", body -> Flux.just(sse("因为"), sse("2x=4")));
+
+        StepVerifier.create(client.chatStream(request("截断", null)))
+            .expectNext("因为", "2x=4")
+            .expectErrorMatches(e -> e.getMessage().contains("[DONE]"))
+            .verify(Duration.ofSeconds(10));
+        StreamUsage stats = client.getStreamStats().getStats();
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getCompleted());
+    }
+
+    @Test
+    void testSlowConsumerStopsUpstreamReads() {
+        AtomicInteger produced = new AtomicInteger();
+        String padding = "填".repeat(1000);
+        int total = 100_000;
+        respond(200, "text/event-stream", body -> Flux.range(0, total)
+            .doOnNext(i -> produced.incrementAndGet())
+            .map(i -> sse(padding + i)));
+
+        StepVerifier.create(client.chatStream(request("长回答", null)), 0)
+            .thenRequest(5)
+            .expectNextCount(5)
+            .thenAwait(Duration.ofMillis(800))
+            .then(() -> assertTrue(produced.get() < total / 2,
+                "下游只取了5条，上游已生成 " + produced.get() + " 条"))
+            .thenRequest(100)
+            .expectNextCount(100)
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+        System.out.printf("背压: 消费 105 条时上游生成 %d / %d 条（每条约 3KB）%n", produced.get(), total);
+    }
+
+    @Test
+    void testCancellingReactiveStreamClosesUpstreamAndCountsSavings() throws Exception {
+        CountDownLatch upstreamCancelled = new CountDownLatch(1);
+        AtomicInteger produced = new AtomicInteger();
+        respond(200, "text/event-stream", body -> Flux.interval(Duration.ofMillis(20))
+            .take(500)
+            .doOnNext(i -> produced.incrementAndGet())
+            .map(i -> sse("第" + i + "段"))
+            .doOnCancel(upstreamCancelled::countDown));
+
+        StepVerifier.create(client.chatStream(request("长回答", null)))
+            .expectNextCount(5)
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+
+        assertTrue(upstreamCancelled.await(5, TimeUnit.SECONDS), "客户端取消后上游连接应关闭");
+        assertTrue(produced.get() < 100, "上游已生成 " + produced.get() + " 段");
+        StreamUsage stats = client.getStreamStats().getStats();
+        assertEquals(1, stats.getCancelled());
+        assertEquals(0, stats.getCompleted());
+        assertTrue(stats.getTokensSaved() > 0);
+    }
+
+    @Test
+    void testCancellingBlockingStreamCancelsCall() throws Exception {
+        CountDownLatch upstreamCancelled = new CountDownLatch(1);
+        respond(200, "text/event-stream", body -> Flux.interval(Duration.ofMillis(20))
+            .take(500)
+            .map(i -> sse("第" + i + "段"))
+            .doOnCancel(upstreamCancelled::countDown));
+
+        DeepSeekClient blockingClient = new DeepSeekClient(properties);
+        AtomicInteger received = new AtomicInteger();
+        AtomicBoolean ended = new AtomicBoolean();
+        CountDownLatch fiveDeltas = new CountDownLatch(5);
+        LlmClient.StreamHandle handle = blockingClient.chatStream(request("长回答", null), (content, ignored) -> {
+            if (content.isEmpty()) {
+                ended.set(true);
+            } else {
+                received.incrementAndGet();
+                fiveDeltas.countDown();
+            }
+        });
+        assertTrue(fiveDeltas.await(5, TimeUnit.SECONDS));
+        handle.cancel();
+        assertTrue(handle.isCancelled());
+
+        assertTrue(upstreamCancelled.await(5, TimeUnit.SECONDS), "取消后上游连接应关闭");
+        int afterCancel = received.get();
+        Thread.sleep(200);
+        assertTrue(received.get() <= afterCancel + 1, "取消后不应继续回调");
+        assertFalse(ended.get(), "取消后不再发出结束回调");
+        StreamUsage stats = blockingClient.getStreamStats().getStats();
+        assertEquals(1, stats.getCancelled());
+        assertTrue(stats.getTokensBeforeCancel() > 0);
+        assertTrue(stats.getTokensSaved() > 0);
+    }
+
+    @Test
+    void testBlockingStreamWithoutDoneEndsWithError() throws Exception {
+        DeepSeekClient blockingClient = new DeepSeekClient(properties);
+        for (int status : new int[]{200, 500}) {
+            respond(status, "text/event-stream", body -> Flux.just(sse("因为"), sse("2x=4")));
+            StringBuilder text = new StringBuilder();
+            AtomicInteger normalEnds = new AtomicInteger();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            CountDownLatch ended = new CountDownLatch(1);
+            blockingClient.chatStream(request("截断", null), new LlmClient.StreamHandler() {
+                @Override
+                public void onContent(String content, Runnable ignored) {
+                    if (content.isEmpty()) {
+                        normalEnds.incrementAndGet();
+                        ended.countDown();
+                    } else {
+                        text.append(content);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error.set(e);
+                    ended.countDown();
+                }
+            });
+            assertTrue(ended.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals(0, normalEnds.get(), "没有 [DONE] 不算正常结束");
+            assertNotNull(error.get());
+            assertEquals(status == 200 ? "因为2x=4" : "", text.toString());
+        }
+        StreamUsage stats = blockingClient.getStreamStats().getStats();
+        assertEquals(2, stats.getFailed());
+        assertEquals(0, stats.getCompleted());
+    }
+
+    @Test
+    void testDeadlineEndsStreamsBeforeUpstreamFinishes() throws Exception {
+        respond(200, "text/event-stream", body -> Flux.interval(Duration.ofMillis(50))
+            .take(100)
+            .map(i -> sse("第" + i + "段"))
+            .concatWith(Mono.just("data: [DONE]\n\n")));
+
+        ChatRequest reactiveRequest = request("长回答", null);
+        reactiveRequest.setDeadline(Deadline.after(Duration.ofMillis(400)));
+        // 上游需要 5 秒才能发完，截止时间先到
+        StepVerifier.create(client.chatStream(reactiveRequest))
+            .thenConsumeWhile(delta -> true)
+            .expectError(TimeoutException.class)
+            .verify(Duration.ofSeconds(10));
+        assertEquals(1, client.getStreamStats().getStats().getDeadlineExceeded());
+
+        DeepSeekClient blockingClient = new DeepSeekClient(properties);
+        ChatRequest blockingRequest = request("长回答", null);
+        blockingRequest.setDeadline(Deadline.after(Duration.ofMillis(400)));
+        CountDownLatch ended = new CountDownLatch(1);
+        blockingClient.chatStream(blockingRequest, (content, ignored) -> {
+            if (content.isEmpty()) {
+                ended.countDown();
+            }
+        });
+        assertTrue(ended.await(4, TimeUnit.SECONDS), "截止时间到达时应结束，不等上游发完");
+        assertEquals(1, blockingClient.getStreamStats().getStats().getDeadlineExceeded());
+    }
+
+    /**
+     * 每路流式对话持续约 2 秒（40 段、间隔 50ms）。阻塞客户端每路占用一个线程，
+     * 同时进行的流数受线程数限制；响应式客户端只用少量事件循环线程
+     */
+    @Test
+    @Tag("benchmark")
+    void testReactiveStreamsAreNotBoundByThreads() throws Exception {
+        int streams = 500;
+        respond(200, "text/event-stream", body -> Flux.interval(Duration.ofMillis(50))
+            .take(40)
+            .map(i -> sse("第" + i + "段"))
+            .concatWith(Mono.just("data: [DONE]\n\n")));
+
+        LoadResult reactive = measure(streams, (started, finished) -> {
+            for (int i = 0; i < streams; i++) {
+                AtomicBoolean first = new AtomicBoolean();
+                client.chatStream(request("并发流" + i, null))
+                    .doOnNext(delta -> {
+                        if (first.compareAndSet(false, true)) {
+                            started.run();
+                        }
+                    })
+                    .doFinally(signal -> finished.run())
+                    .subscribe(delta -> { }, e -> { });
+            }
+        });
+
+        DeepSeekClient blockingClient = new DeepSeekClient(properties);
+        LoadResult blocking = measure(streams, (started, finished) -> {
+            for (int i = 0; i < streams; i++) {
+                AtomicBoolean first = new AtomicBoolean();
+                blockingClient.chatStream(request("并发流" + i, null), (content, ignored) -> {
+                    if (content.isEmpty()) {
+                        finished.run();
+                    } else if (first.compareAndSet(false, true)) {
+                        started.run();
+                    }
+                });
+            }
+        });
+
+        System.out.printf("响应式: 完成 %d/%d，同时进行峰值 %d 路，新增线程 %d（%.3f/路），堆增量 %.1f KB/路%n",
+            reactive.completed, streams, reactive.peakActive, reactive.extraThreads,
+            reactive.threadsPerStream(), reactive.heapPerStream() / 1024);
+        System.out.printf("阻塞:   完成 %d/%d，同时进行峰值 %d 路，新增线程 %d（%.3f/路，每个线程另占约 1MB 栈空间），"
+                + "堆增量 %.1f KB/路%n",
+            blocking.completed, streams, blocking.peakActive, blocking.extraThreads,
+            blocking.threadsPerStream(), blocking.heapPerStream() / 1024);
+
+        assertEquals(streams, reactive.completed);
+        // 单核环境下同时进行的峰值受建立连接的速度限制，这里只要求大部分流重叠
+        assertTrue(reactive.peakActive >= streams / 2, "响应式同时进行 " + reactive.peakActive + " 路");
+        assertTrue(reactive.extraThreads < streams / 10, "响应式新增线程 " + reactive.extraThreads);
+        assertTrue(blocking.threadsPerStream() >= 0.9, "阻塞模式每路线程 " + blocking.threadsPerStream());
+    }
+
+    private interface Load {
+        void start(Runnable started, Runnable finished);
+    }
+
+    private static final class LoadResult {
+        int completed;
+        int peakActive;
+        int extraThreads;
+        long extraHeap;
+
+        double threadsPerStream() {
+            return peakActive == 0 ? 0 : extraThreads / (double) peakActive;
+        }
+
+        double heapPerStream() {
+            return peakActive == 0 ? 0 : extraHeap / (double) peakActive;
+        }
+    }
+
+    private static LoadResult measure(int streams, Load load) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        Thread.sleep(100);
+        int baselineThreads = threads.getThreadCount();
+        long baselineHeap = runtime.totalMemory() - runtime.freeMemory();
+
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peakActive = new AtomicInteger();
+        AtomicInteger peakThreads = new AtomicInteger(baselineThreads);
+        AtomicLong peakHeap = new AtomicLong(baselineHeap);
+        CountDownLatch finished = new CountDownLatch(streams);
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (sampling.get()) {
+                peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                peakHeap.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        load.start(() -> peakActive.accumulateAndGet(active.incrementAndGet(), Math::max), () -> {
+            active.decrementAndGet();
+            finished.countDown();
+        });
+        finished.await(15, TimeUnit.SECONDS);
+        sampling.set(false);
+        sampler.join();
+
+        LoadResult result = new LoadResult();
+        result.completed = (int) (streams - finished.getCount());
+        result.peakActive = peakActive.get();
+        result.extraThreads = Math.max(0, peakThreads.get() - baselineThreads - 1);
+        result.extraHeap = Math.max(0, peakHeap.get() - baselineHeap);
+        return result;
+    }
+
+    private void respond(int status, String contentType, Function<String, Publisher<String>> body) {
+        handler = (request, response) -> {
+            lastAuthorization = request.requestHeaders().get("Authorization");
+            return response.status(status)
+                .header("Content-Type", contentType + ";charset=UTF-8")
+                .sendString(request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                    .flatMapMany(text -> {
+                        lastRequestBody = text;
+                        return body.apply(text);
+                    }), StandardCharsets.UTF_8);
+        };
+    }
+
+    private static String sse(String content) {
+        return "data: {\"choices\":[{\"delta\":{\"content\":\"" + content + "\"}}]}\n\n";
+    }
+
+    private static ChatRequest request(String message, String sessionId) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(message);
+        request.setSessionId(sessionId);
+        return request;
+    }
+}
@@ -0,0 +1,221 @@
+package com.mathtutor.llm;
+
+import com.mathtutor.config.StreamingProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamCoalescerTest {
+
+    private static final String ANSWER = "解：因为 $|a+5| \\ge 0$，$(b-8)^2 \\ge 0$，且 $|a+5|+(b-8)^2=0$，"
+        + "所以 **a=-5，b=8**。\n\n点A与点B之间的距离为：\n$$AB = |b-a| = |8-(-5)| = 13$$\n"
+        + "设运动时间为 $t$ 秒，则点M表示的数为 \\(-5+4t\\)，由题意得\n"
+        + "\\begin{cases} -5+4t = 8 \\\\ t > 0 \\end{cases}\n"
+        + "解得 $t=\\frac{13}{4}$，单价 \\$5 不变，`AB` 的长度乘 2*3 倍。\n";
+
+    @Test
+    void testHoldsBackUnbalancedConstructs() {
+        assertEquals("因为 ", safeAfter("因为 $|a+5"));
+        assertEquals("因为 ", safeAfter("因为 $"), "末尾的 $ 可能是 $$ 的前半");
+        assertEquals("因为 $x$，", safeAfter("因为 $x$，$$AB = 13$"));
+        assertEquals("$$AB = 13$$", safeAfter("$$AB = 13$$"));
+        assertEquals("\\(x\\)", safeAfter("\\(x\\)\\[y"));
+        assertEquals("", safeAfter("\\begin{cases} x \\\\ y"));
+        assertEquals("\\begin{cases} x \\end{cases}", safeAfter("\\begin{cases} x \\end{cases}"));
+        assertEquals("所以", safeAfter("所以\\fra"), "命令可能尚未写完");
+        assertEquals("所以 ", safeAfter("所以 **a=-5"));
+        assertEquals("所以 **a=-5**。", safeAfter("所以 **a=-5**。"));
+        assertEquals("单价 \\$5 与 2*3", safeAfter("单价 \\$5 与 2*3"), "转义的 $ 和单个 * 不影响");
+        assertEquals("代码 ", safeAfter("代码 ```java\nint a = $x;\n``"));
+        assertEquals("```java\nint a = $x;\n```\n", safeAfter("```java\nint a = $x;\n```\n"));
+        assertEquals("用 `$` 表示", safeAfter("用 `$` 表示"));
+
+        DeltaCoalescer forced = new DeltaCoalescer();
+        forced.append("$$x+");
+        assertEquals(0, forced.safeLength());
+        assertEquals("$$x+", forced.takeScanned());
+        forced.append("1$$，好");
+        assertEquals("1$$，好", forced.takeSafe(), "强制输出后仍记得公式未闭合");
+        assertEquals(0, forced.pendingBytes());
+    }
+
+    @Test
+    void testRandomSplitsNeverCutInsideConstructs() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            DeltaCoalescer buffer = new DeltaCoalescer();
+            StringBuilder output = new StringBuilder();
+            for (String delta : split(ANSWER, random)) {
+                buffer.append(delta);
+                String out = buffer.takeSafe();
+                if (!out.isEmpty()) {
+                    output.append(out);
+                    assertBalanced(output.toString());
+                }
+                assertEquals(utf8(bufferContent(buffer, output)), buffer.pendingBytes());
+            }
+            output.append(buffer.takeAll());
+            assertEquals(ANSWER, output.toString());
+        }
+    }
+
+    /**
+     * 模拟上游每 20ms 推送 1~3 个字符，时间窗口 200ms
+     * 时间取自虚拟时钟，延迟断言不受机器负载影响，留在默认测试中
+     */
+    @Test
+    void testCoalescingCutsEventsByAnOrderOfMagnitude() {
+        String text = ANSWER.repeat(4);
+        List<String> deltas = split(text, new Random(42));
+        long intervalMillis = 20;
+        StreamCoalescer coalescer = new StreamCoalescer(new StreamingProperties());
+
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+        List<String> events = new ArrayList<>();
+        List<Long> eventTimes = new ArrayList<>();
+        try {
+            coalescer.coalesce(Flux.fromIterable(deltas).delayElements(Duration.ofMillis(intervalMillis)))
+                .subscribe(event -> {
+                    events.add(event);
+                    eventTimes.add(Schedulers.parallel().now(TimeUnit.MILLISECONDS));
+                });
+            scheduler.advanceTimeBy(Duration.ofMinutes(5));
+        } finally {
+            VirtualTimeScheduler.reset();
+        }
+        assertEquals(text, String.join("", events));
+
+        // 每个字符到达的时刻，与它所在事件发出时刻之差即合并带来的延迟
+        long[] arrival = new long[text.length()];
+        int position = 0;
+        for (int i = 0; i < deltas.size(); i++) {
+            for (int j = 0; j < deltas.get(i).length(); j++) {
+                arrival[position++] = (i + 1) * intervalMillis;
+            }
+        }
+        long[] delays = new long[text.length()];
+        position = 0;
+        int rawUnbalanced = 0;
+        StringBuilder raw = new StringBuilder();
+        for (String delta : deltas) {
+            raw.append(delta);
+            if (!isBalanced(raw.toString())) {
+                rawUnbalanced++;
+            }
+        }
+        StringBuilder rendered = new StringBuilder();
+        for (int i = 0; i < events.size(); i++) {
+            for (int j = 0; j < events.get(i).length(); j++) {
+                delays[position] = eventTimes.get(i) - arrival[position];
+                position++;
+            }
+            rendered.append(events.get(i));
+            if (i < events.size() - 1) {
+                assertBalanced(rendered.toString());
+            }
+        }
+        Arrays.sort(delays);
+        long median = delays[delays.length / 2];
+        long p95 = delays[delays.length * 95 / 100];
+        System.out.printf("合并: 上游 %d 段 -> %d 个事件（%.1f 倍），逐段转发时 %d 次渲染出半截公式，合并后 0 次；"
+                + "延迟中位数 %d ms，P95 %d ms，最大 %d ms%n",
+            deltas.size(), events.size(), deltas.size() / (double) events.size(), rawUnbalanced,
+            median, p95, delays[delays.length - 1]);
+
+        assertTrue(events.size() * 8 <= deltas.size(), deltas.size() + " 段合并为 " + events.size() + " 个事件");
+        assertTrue(rawUnbalanced > 0);
+        assertTrue(median <= 200, "延迟中位数 " + median + " ms");
+        assertTrue(p95 <= 400, "P95 延迟 " + p95 + " ms");
+    }
+
+    @Test
+    void testFlushesOnByteThresholdWithoutWaiting() {
+        StreamingProperties properties = new StreamingProperties();
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setFlushBytes(30);
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> events = new ArrayList<>();
+        new StreamCoalescer(properties).coalesce(upstream.asFlux()).subscribe(events::add);
+
+        for (int i = 0; i < 4; i++) {
+            upstream.tryEmitNext("一二");
+        }
+        assertEquals(0, events.size(), "24 字节不到阈值");
+        upstream.tryEmitNext("三四");
+        assertEquals(List.of("一二".repeat(4) + "三四"), events);
+        upstream.tryEmitNext("$x");
+        upstream.tryEmitNext("+1".repeat(20));
+        assertEquals(1, events.size(), "公式未闭合时超过阈值也不输出");
+        upstream.tryEmitNext("$。");
+        assertEquals("$x" + "+1".repeat(20) + "$。", events.get(1));
+        upstream.tryEmitNext("尾");
+        upstream.tryEmitComplete();
+        assertEquals("尾", events.get(2));
+    }
+
+    @Test
+    void testSlowConsumerLimitsUpstreamReads() {
+        AtomicInteger produced = new AtomicInteger();
+        Flux<String> upstream = Flux.range(0, 100_000).map(i -> "字").doOnNext(s -> produced.incrementAndGet());
+        StreamingProperties properties = new StreamingProperties();
+        properties.setFlushInterval(Duration.ofMillis(10));
+
+        StepVerifier.create(new StreamCoalescer(properties).coalesce(upstream), 1)
+            .expectNextCount(1)
+            .thenAwait(Duration.ofMillis(200))
+            .then(() -> assertTrue(produced.get() < 1000, "下游只取了 1 个事件，上游已生成 " + produced.get() + " 段"))
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    private static String safeAfter(String text) {
+        DeltaCoalescer buffer = new DeltaCoalescer();
+        for (int i = 0; i < text.length(); i++) {
+            buffer.append(text.substring(i, i + 1));
+        }
+        return buffer.takeSafe();
+    }
+
+    private static List<String> split(String text, Random random) {
+        List<String> deltas = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int end = Math.min(text.length(), i + 1 + random.nextInt(3));
+            deltas.add(text.substring(i, end));
+            i = end;
+        }
+        return deltas;
+    }
+
+    private static boolean isBalanced(String text) {
+        DeltaCoalescer buffer = new DeltaCoalescer();
+        buffer.append(text);
+        return buffer.isBalanced() && buffer.safeLength() == text.length();
+    }
+
+    private static void assertBalanced(String text) {
+        assertTrue(isBalanced(text), "输出在结构中间切开: " + text);
+    }
+
+    private static String bufferContent(DeltaCoalescer buffer, StringBuilder output) {
+        return ANSWER.substring(output.length(), output.length() + buffer.pendingLength());
+    }
+
+    private static int utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -138,4 +138,26 @@ class KnowledgeDomainTest {
         assertTrue(knowledge.isValid());
         assertEquals("代数-TEST001", knowledge.getFullIdentifier());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDerivedStringCacheInvalidation() {
+        KnowledgeDomain parent = new KnowledgeDomain("P001", "方程基础", GradeEnum.SEVENTH_GRADE, "说明",
+            KnowledgeSystemEnum.ALGEBRA, "方程与应用", "专题", "核心");
+        KnowledgeDomain child = new KnowledgeDomain("C001", "一元一次方程", GradeEnum.SEVENTH_GRADE, "说明",
+            KnowledgeSystemEnum.ALGEBRA, "方程与应用", "专题", "核心", parent);
+
+        assertSame(child.getFullPath(), child.getFullPath());
+        assertSame(child.getTopicIdentifier(), child.getTopicIdentifier());
+
+        parent.setName("方程");
+        assertEquals("方程 > 一元一次方程", child.getFullPath());
+        child.setParentKnowledge(null);
+        assertEquals("一元一次方程", child.getFullPath());
+
+        child.setCode("C002");
+        child.setKnowledgeSystem(KnowledgeSystemEnum.GEOMETRY);
+        child.setTopic("新专题");
+        assertEquals("几何-C002", child.getFullIdentifier());
+        assertEquals("方程与应用-新专题-C002", child.getTopicIdentifier());
+    }
+}
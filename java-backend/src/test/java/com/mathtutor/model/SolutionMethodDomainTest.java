@@ -128,6 +128,26 @@ class SolutionMethodDomainTest {
         assertTrue(mainMethod.getRelatedMethods().contains(relatedMethod2));
     }
 
+    @Test
+    void testMutuallyRelatedMethodsDoNotRecurse() {
+        SolutionMethodDomain a = new SolutionMethodDomain("SM001", "数轴法", "借助数轴表示数量关系", SolutionMethodCategory.NUMBER_SHAPE_COMBINATION);
+        SolutionMethodDomain b = new SolutionMethodDomain("SM002", "分类讨论法", "按情况分别讨论", SolutionMethodCategory.CLASSIFICATION);
+        a.addRelatedMethod(b);
+        b.addRelatedMethod(a);
+
+        assertEquals(a.hashCode(), a.hashCode());
+        assertTrue(a.toString().contains("relatedMethods=[SM002]"), a.toString());
+        assertTrue(b.toString().contains("relatedMethods=[SM001]"), b.toString());
+
+        // 相关方法按编号比较
+        SolutionMethodDomain copy = new SolutionMethodDomain("SM001", "数轴法", "借助数轴表示数量关系", SolutionMethodCategory.NUMBER_SHAPE_COMBINATION);
+        copy.addRelatedMethod(new SolutionMethodDomain("SM002", "另一个名称", "d", SolutionMethodCategory.CLASSIFICATION));
+        assertEquals(a, copy);
+        assertEquals(a.hashCode(), copy.hashCode());
+        copy.setRelatedMethods(java.util.List.of(b, a));
+        assertNotEquals(a, copy);
+    }
+
     @Test
     void testDifferentMethodCategories() {
         // 测试不同分类的方法
@@ -0,0 +1,66 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.ProblemAnalysisDomain;
+import com.mathtutor.model.StoredAnalysis;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisStoreTest {
+
+    private static final String VERSION = "test-version";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLiveResultsAreCappedOldestFirst() throws Exception {
+        AnalysisStore store = new AnalysisStore(tempDir, 3, null);
+        store.save(stored("P_001", "预生成题目", 0));
+        for (int i = 0; i < 5; i++) {
+            store.save(stored(AnalysisStore.LIVE_PREFIX + i, "在线题目 " + i, 1000 + i));
+        }
+
+        assertEquals(3, store.liveSize());
+        assertEquals(4, store.size());
+        assertNotNull(store.find("P_001", VERSION), "预生成的分析不参与淘汰");
+        assertNull(store.find(AnalysisStore.LIVE_PREFIX + 0, VERSION));
+        assertNull(store.findByQuestion(AnalysisStore.questionKey("在线题目 1"), VERSION));
+        assertNotNull(store.findByQuestion(AnalysisStore.questionKey("在线题目 4"), VERSION));
+        assertFalse(Files.exists(tempDir.resolve(AnalysisStore.LIVE_PREFIX + "0.json")));
+        assertTrue(Files.exists(tempDir.resolve(AnalysisStore.LIVE_PREFIX + "4.json")));
+
+        AnalysisStore reloaded = new AnalysisStore(tempDir, 2, null);
+        assertEquals(2, reloaded.liveSize());
+        assertNull(reloaded.find(AnalysisStore.LIVE_PREFIX + 2, VERSION));
+        assertNotNull(reloaded.find(AnalysisStore.LIVE_PREFIX + 4, VERSION));
+    }
+
+    @Test
+    void testExpiredLiveResultsAreDropped() throws Exception {
+        long now = System.currentTimeMillis();
+        AnalysisStore store = new AnalysisStore(tempDir, 100, Duration.ofDays(1));
+        store.save(stored(AnalysisStore.LIVE_PREFIX + "old", "两天前的题目", now - Duration.ofDays(2).toMillis()));
+        store.save(stored(AnalysisStore.LIVE_PREFIX + "new", "刚生成的题目", now));
+        store.save(stored("P_001", "预生成题目", now - Duration.ofDays(2).toMillis()));
+
+        assertEquals(1, store.liveSize());
+        assertNull(store.find(AnalysisStore.LIVE_PREFIX + "old", VERSION));
+        assertNull(store.findNearDuplicate("两天前的题目"));
+        assertNotNull(store.find(AnalysisStore.LIVE_PREFIX + "new", VERSION));
+        assertNotNull(store.find("P_001", VERSION));
+    }
+
+    private static StoredAnalysis stored(String problemId, String question, long generatedAt) {
+        StoredAnalysis stored = new StoredAnalysis(problemId, VERSION, AnalysisStore.questionKey(question),
+            new ProblemAnalysisDomain());
+        stored.setQuestionText(question);
+        stored.setGeneratedAt(generatedAt);
+        return stored;
+    }
+}
@@ -0,0 +1,123 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.SolutionMethodCategory;
+import com.mathtutor.model.SolutionMethodDomain;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCompactorTest {
+
+    @Test
+    void testCompactionPreservesValues() {
+        List<KnowledgeDomain> knowledge = syntheticKnowledge(200);
+        List<KnowledgeDomain> expected = syntheticKnowledge(200);
+        KnowledgeRepository repository = new KnowledgeRepository(knowledge);
+
+        assertEquals(expected, repository.findAll());
+        KnowledgeDomain first = repository.findAll().get(0);
+        KnowledgeDomain second = repository.findAll().get(12);
+        assertSame(first.getModule(), second.getModule());
+        assertSame(first.getDetailedPoints().get(0), repository.findAll().get(1).getDetailedPoints().get(0));
+        assertThrows(UnsupportedOperationException.class, () -> first.getDetailedPoints().add("x"));
+
+        // 仍可通过领域对象的方法修改，修改的是自己的副本
+        List<String> shared = first.getDetailedPoints();
+        first.addDetailedPoint("新增考点");
+        assertEquals(shared.size() + 1, first.getDetailedPointCount());
+        assertNotSame(shared, first.getDetailedPoints());
+
+        // 重复处理不再复制
+        List<String> points = second.getDetailedPoints();
+        CatalogCompactor.compact(second);
+        assertSame(points, second.getDetailedPoints());
+    }
+
+    @Test
+    void testMethodsShareEmptyLists() {
+        SolutionMethodDomain empty = new SolutionMethodDomain("M1", "方法", "说明", SolutionMethodCategory.INDUCTION);
+        SolutionMethodDomain other = new SolutionMethodDomain("M2", "方法", "说明", SolutionMethodCategory.INDUCTION);
+        assertSame(empty.getSteps(), other.getPrecautions());
+        assertTrue(empty.isApplicableToKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA));
+
+        other.addStep("第一步");
+        other.addRelatedMethod(empty);
+        empty.addRelatedMethod(other);
+        SolutionMethodCatalog catalog = new SolutionMethodCatalog(List.of(empty, other));
+
+        assertEquals(List.of("第一步"), catalog.findByCode("M2").getSteps());
+        assertEquals("M2", catalog.getRelatedClosure("M1").get(0).getCode());
+        assertThrows(UnsupportedOperationException.class, () -> other.getSteps().add("x"));
+        other.addStep("第二步");
+        assertEquals(List.of("第一步", "第二步"), other.getSteps());
+    }
+
+    @Test
+    void testHeapFootprintReport() {
+        int size = Integer.getInteger("footprint.bench.size", 5_000);
+        List<KnowledgeDomain> knowledge = syntheticKnowledge(size);
+        List<SolutionMethodDomain> methods = syntheticMethods(size / 10);
+
+        long knowledgeBefore = KnowledgeFootprint.estimate(knowledge);
+        long methodsBefore = KnowledgeFootprint.estimateMethods(methods);
+        CatalogCompactor.compactKnowledge(knowledge);
+        CatalogCompactor.compactMethods(methods);
+        long knowledgeAfter = KnowledgeFootprint.estimate(knowledge);
+        long methodsAfter = KnowledgeFootprint.estimateMethods(methods);
+
+        System.out.println("目录内存估算：" + size + " 个知识点，" + methods.size() + " 个解题方法");
+        System.out.println("知识点: 紧凑化前 " + knowledgeBefore / size + " 字节/条，紧凑化后 " + knowledgeAfter / size
+            + " 字节/条（" + percent(knowledgeAfter, knowledgeBefore) + "）");
+        System.out.println("解题方法: 紧凑化前 " + methodsBefore / methods.size() + " 字节/条，紧凑化后 "
+            + methodsAfter / methods.size() + " 字节/条（" + percent(methodsAfter, methodsBefore) + "）");
+
+        assertTrue(knowledgeAfter < knowledgeBefore * 0.8, knowledgeAfter + " vs " + knowledgeBefore);
+        assertTrue(methodsAfter < methodsBefore * 0.8, methodsAfter + " vs " + methodsBefore);
+    }
+
+    /**
+     * 模拟从 JSON 解析得到的数据：每条知识点的字符串都是独立的实例
+     */
+    private static List<KnowledgeDomain> syntheticKnowledge(int size) {
+        List<KnowledgeDomain> knowledge = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            KnowledgeDomain k = new KnowledgeDomain("K" + i, "知识点" + i, GradeEnum.values()[i % 4],
+                "关于第" + i + "个知识点的说明",
+                KnowledgeSystemEnum.ALGEBRA, copy("数与式的深度运算"), copy("绝对值化简_(专题" + i % 12 + ")"),
+                copy("分类讨论思想与符号意识"));
+            k.addDetailedPoint(copy("零点分段后逐段去绝对值"));
+            k.addDetailedPoint(copy("化简结果需合并同类项"));
+            k.addDetailedPoint("第" + i + "条特有考点");
+            knowledge.add(k);
+        }
+        return knowledge;
+    }
+
+    private static List<SolutionMethodDomain> syntheticMethods(int size) {
+        List<SolutionMethodDomain> methods = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SolutionMethodDomain m = new SolutionMethodDomain("SM" + i, copy("分类讨论"), copy("按情况分别求解"),
+                SolutionMethodCategory.CLASSIFICATION, GradeEnum.SEVENTH_GRADE, GradeEnum.NINTH_GRADE);
+            m.addStep(copy("确定分类标准"));
+            m.addStep(copy("逐类求解"));
+            m.addKeyPoint(copy("不重不漏"));
+            m.addApplicableKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA);
+            methods.add(m);
+        }
+        return methods;
+    }
+
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static String percent(long after, long before) {
+        return String.format("节省 %.1f%%", 100.0 * (before - after) / before);
+    }
+}
@@ -0,0 +1,246 @@
+package com.mathtutor.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.init.SolutionMethodInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.SolutionMethodDomain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        List<KnowledgeDomain> knowledge = GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+        knowledge.get(1).setParentKnowledge(knowledge.get(0));
+        knowledge.get(2).setDetailedPoints(null);
+        knowledge.get(2).setDifficultyLevel(null);
+        List<SolutionMethodDomain> methods = SolutionMethodInitializer.initializeSolutionMethods();
+        methods.get(0).addRelatedMethod(methods.get(5));
+
+        CatalogSnapshot snapshot = CatalogSnapshot.wrap(CatalogSnapshotWriter.toBytes(knowledge, methods));
+
+        assertEquals(knowledge, snapshot.toKnowledgeList());
+        List<KnowledgeDomain> restored = snapshot.toKnowledgeList();
+        assertSame(restored.get(0), restored.get(1).getParentKnowledge());
+
+        List<SolutionMethodDomain> restoredMethods = snapshot.toMethodList();
+        assertEquals(methods, restoredMethods);
+        assertSame(restoredMethods.get(5), restoredMethods.get(0).getRelatedMethods().get(0));
+    }
+
+    @Test
+    void testFlyweightLookup() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        Files.write(file, CatalogSnapshotWriter.toBytes(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge(),
+            SolutionMethodInitializer.initializeSolutionMethods()));
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        CatalogSnapshot.KnowledgeView view = snapshot.findKnowledge("M3T008");
+        assertEquals("数轴动点问题", view.name());
+        assertEquals(GradeEnum.SEVENTH_GRADE, view.grade());
+        assertEquals(-1, view.parentId());
+        assertSame(view.name(), snapshot.knowledge(view.id()).name());
+        assertNull(snapshot.findKnowledge("NOT_EXIST"));
+
+        CatalogSnapshot.MethodView method = snapshot.findMethod("SM005");
+        assertEquals("动点坐标表示法", method.name());
+        assertEquals(SolutionMethodInitializer.initializeSolutionMethods().get(method.id()).getApplicableKnowledgeSystems(),
+            method.applicableKnowledgeSystems());
+        assertNull(snapshot.findMethod("SM999"));
+    }
+
+    @Test
+    void testRejectsUnknownFormat() {
+        byte[] bytes = CatalogSnapshotWriter.toBytes(List.of(), List.of());
+        bytes[5] = 99;
+        assertThrows(IOException.class, () -> CatalogSnapshot.wrap(bytes));
+        assertThrows(IOException.class, () -> CatalogSnapshot.wrap(new byte[16]));
+    }
+
+    @Test
+    void testCorruptSnapshotFallsBackToJson() throws IOException {
+        byte[] bytes = CatalogSnapshotWriter.toBytes(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge(), List.of());
+        // 截断：头部记录的各段超出文件长度
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(IOException.class, () -> CatalogSnapshot.wrap(truncated));
+
+        // 头部完好但记录损坏：第一个知识点的名称指向不存在的字符串
+        ByteBuffer.wrap(bytes).putInt(ByteBuffer.wrap(bytes).getInt(32) + 4, Integer.MAX_VALUE);
+        Path snapshot = directory.resolve("corrupt.snapshot");
+        Files.write(snapshot, bytes);
+        KnowledgeProperties properties = new KnowledgeProperties();
+        properties.setSnapshot("file:" + snapshot);
+
+        List<KnowledgeDomain> loaded = new KnowledgeJsonLoader().load(properties);
+        assertEquals(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge(), loaded);
+        assertEquals(10, new KnowledgeJsonLoader().load(properties, GradeEnum.SEVENTH_GRADE).size());
+
+        Files.write(snapshot, truncated);
+        assertEquals(10, new KnowledgeRepository(properties).size());
+    }
+
+    @Test
+    void testMethodCatalogLoadsFromSnapshot() throws IOException {
+        List<SolutionMethodDomain> methods = SolutionMethodInitializer.initializeSolutionMethods();
+        methods.get(0).setName("来自快照");
+        Path snapshot = directory.resolve("catalog.snapshot");
+        Files.write(snapshot, CatalogSnapshotWriter.toBytes(List.of(), methods));
+        KnowledgeProperties properties = new KnowledgeProperties();
+        properties.setSnapshot("file:" + snapshot);
+
+        SolutionMethodCatalog catalog = new SolutionMethodCatalog(properties);
+        assertEquals(methods.size(), catalog.size());
+        assertEquals("来自快照", catalog.findByCode(methods.get(0).getCode()).getName());
+
+        // 快照中没有方法记录或文件不存在时改用内置初始化
+        Files.write(snapshot, CatalogSnapshotWriter.toBytes(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge(),
+            List.of()));
+        assertEquals("零点分段法", new SolutionMethodCatalog(properties).findByCode("SM001").getName());
+        properties.setSnapshot("file:" + directory.resolve("missing.snapshot"));
+        assertEquals(methods.size(), new SolutionMethodCatalog(properties).size());
+    }
+
+    @Test
+    void testLoaderPrefersSnapshotAndAppliesOverrides() throws IOException {
+        List<KnowledgeDomain> knowledge = GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+        knowledge.get(0).setName("来自快照");
+        Path snapshot = directory.resolve("catalog.snapshot");
+        Files.write(snapshot, CatalogSnapshotWriter.toBytes(knowledge, List.of()));
+        Path external = Files.createDirectory(directory.resolve("external"));
+        Files.writeString(external.resolve("child.json"), "{\"knowledge_metadata\": {\"grade\": \"SEVENTH_GRADE\"},"
+            + "\"knowledge_points\": [{\"code\": \"C1\", \"name\": \"子知识点\", \"knowledge_system\": \"ALGEBRA\","
+            + "\"module\": \"m\", \"topic\": \"t\", \"description\": \"d\", \"assessment_core\": \"a\","
+            + "\"parent_code\": \"M1T001\"}]}");
+
+        KnowledgeProperties properties = new KnowledgeProperties();
+        properties.setSnapshot("file:" + snapshot);
+        properties.setDirectory(external.toString());
+        KnowledgeRepository repository = new KnowledgeRepository(new KnowledgeJsonLoader().load(properties));
+
+        assertEquals(11, repository.size());
+        assertEquals("来自快照", repository.findByCode("M1T001").getName());
+        assertEquals("来自快照 > 子知识点", repository.findByCode("C1").getFullPath());
+
+        // 按年级加载时只解码该年级的记录，外部目录只读取该年级前缀的文件
+        List<KnowledgeDomain> seventh = new KnowledgeJsonLoader().load(properties, GradeEnum.SEVENTH_GRADE);
+        assertEquals(10, seventh.size());
+        assertEquals("来自快照", seventh.get(0).getName());
+        assertTrue(new KnowledgeJsonLoader().load(properties, GradeEnum.EIGHTH_GRADE).isEmpty());
+
+        properties.setSnapshot("file:" + directory.resolve("missing.snapshot"));
+        assertEquals("绝对值化简", new KnowledgeJsonLoader().load(properties).get(0).getName());
+    }
+
+    @Test
+    void testStartupBenchmark() throws IOException {
+        int size = Integer.getInteger("snapshot.bench.size", 20_000);
+        List<KnowledgeDomain> knowledge = syntheticKnowledge(size);
+        Path json = directory.resolve("bench.json");
+        Path snapshotFile = directory.resolve("bench.snapshot");
+        writeJson(knowledge, json);
+        Files.write(snapshotFile, CatalogSnapshotWriter.toBytes(knowledge, List.of()));
+
+        KnowledgeJsonLoader loader = new KnowledgeJsonLoader();
+        long jsonNanos = Long.MAX_VALUE;
+        long snapshotNanos = Long.MAX_VALUE;
+        long lookupNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            List<KnowledgeDomain> fromJson;
+            try (InputStream in = Files.newInputStream(json)) {
+                fromJson = loader.load(in);
+            }
+            jsonNanos = Math.min(jsonNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<KnowledgeDomain> fromSnapshot = CatalogSnapshot.open(snapshotFile).toKnowledgeList();
+            snapshotNanos = Math.min(snapshotNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            String name = CatalogSnapshot.open(snapshotFile).findKnowledge("K" + (size / 2)).name();
+            lookupNanos = Math.min(lookupNanos, System.nanoTime() - start);
+
+            assertEquals(fromJson, fromSnapshot);
+            assertEquals(knowledge.get(size / 2).getName(), name);
+        }
+
+        System.out.println("知识点加载基准：" + size + " 个知识点，JSON " + Files.size(json) / 1024
+            + " KB，快照 " + Files.size(snapshotFile) / 1024 + " KB");
+        System.out.println("JSON 流式解析: " + jsonNanos / 1_000_000 + " ms");
+        System.out.println("快照映射 + 全量创建对象: " + snapshotNanos / 1_000_000 + " ms");
+        System.out.println("快照映射 + 单条按需读取: " + lookupNanos / 1_000 + " µs");
+    }
+
+    private static List<KnowledgeDomain> syntheticKnowledge(int size) {
+        Random random = new Random(5);
+        String pool = "数轴动点绝对值方程代数式化简求值相遇追及角平分线线段中点分类讨论整体代入系数规律探索";
+        List<KnowledgeDomain> knowledge = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            KnowledgeDomain k = new KnowledgeDomain("K" + i, text(random, pool, 6), GradeEnum.values()[i % 4],
+                text(random, pool, 40), KnowledgeSystemEnum.values()[i % KnowledgeSystemEnum.values().length],
+                "模块" + (i % 12), "专题" + (i % 120), text(random, pool, 30));
+            for (int p = 0; p < 3; p++) {
+                k.addDetailedPoint(text(random, pool, 25));
+            }
+            k.setDifficultyLevel(1 + i % 3);
+            if (i > 0 && i % 4 != 0) {
+                k.setParentKnowledge(knowledge.get(random.nextInt(i)));
+            }
+            knowledge.add(k);
+        }
+        return knowledge;
+    }
+
+    private static String text(Random random, String pool, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(pool.charAt(random.nextInt(pool.length())));
+        }
+        return text.toString();
+    }
+
+    private static void writeJson(List<KnowledgeDomain> knowledge, Path file) throws IOException {
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (KnowledgeDomain k : knowledge) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("code", k.getCode());
+            point.put("name", k.getName());
+            point.put("grade", k.getGrade().name());
+            point.put("knowledge_system", k.getKnowledgeSystem().name());
+            point.put("module", k.getModule());
+            point.put("topic", k.getTopic());
+            point.put("description", k.getDescription());
+            point.put("assessment_core", k.getAssessmentCore());
+            point.put("detailed_points", k.getDetailedPoints());
+            point.put("depth_level", k.getDepthLevel());
+            point.put("difficulty_level", k.getDifficultyLevel());
+            if (k.getParentKnowledge() != null) {
+                point.put("parent_code", k.getParentKnowledge().getCode());
+            }
+            points.add(point);
+        }
+        new ObjectMapper().writeValue(file.toFile(), Map.of("knowledge_points", points));
+    }
+}
@@ -0,0 +1,216 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradeKnowledgeCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    private KnowledgeProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KnowledgeProperties();
+        properties.setDirectory(directory.toString());
+    }
+
+    @Test
+    void testLoadsLazilyFromGradeFiles() throws Exception {
+        Files.writeString(directory.resolve("grade8_geometry.json"), "{\"knowledge_metadata\": {\"grade\": \"EIGHTH_GRADE\"},"
+            + "\"knowledge_points\": [{\"code\": \"G8T001\", \"name\": \"勾股定理\", \"knowledge_system\": \"GEOMETRY\","
+            + "\"module\": \"三角形\", \"topic\": \"勾股定理\", \"description\": \"d\", \"assessment_core\": \"a\"}]}");
+        GradeKnowledgeCatalog catalog = new GradeKnowledgeCatalog(properties, List.of());
+
+        for (GradeEnum grade : GradeEnum.values()) {
+            assertFalse(catalog.isLoaded(grade));
+        }
+        assertEquals(0, catalog.getEstimatedBytes());
+
+        assertEquals(10, catalog.get(GradeEnum.SEVENTH_GRADE).size());
+        assertTrue(catalog.isLoaded(GradeEnum.SEVENTH_GRADE));
+        assertFalse(catalog.isLoaded(GradeEnum.EIGHTH_GRADE));
+
+        KnowledgeRepository eighth = catalog.get(GradeEnum.EIGHTH_GRADE);
+        assertEquals(1, eighth.size());
+        assertEquals("勾股定理", eighth.findByCode("G8T001").getName());
+        assertNull(eighth.findByCode("M1T001"));
+
+        assertEquals(0, catalog.get(GradeEnum.NINTH_GRADE).size());
+        assertTrue(catalog.isLoaded(GradeEnum.NINTH_GRADE));
+        assertFalse(catalog.isLoaded(GradeEnum.SIXTH_GRADE));
+        for (GradeKnowledgeCatalog.GradeStats stats : catalog.getStats()) {
+            assertEquals(stats.getSize() > 0, stats.getEstimatedBytes() > 0, stats.getGrade().name());
+        }
+    }
+
+    @Test
+    void testConcurrentAccessLoadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        KnowledgeProvider slow = provider(GradeEnum.EIGHTH_GRADE, 5, () -> {
+            loads.incrementAndGet();
+            release.await();
+        });
+        GradeKnowledgeCatalog catalog = new GradeKnowledgeCatalog(properties, List.of(slow));
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<KnowledgeRepository>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> catalog.get(GradeEnum.EIGHTH_GRADE)));
+            }
+            // 一个年级加载中时其他年级不受影响
+            assertEquals(10, catalog.get(GradeEnum.SEVENTH_GRADE).size());
+            Thread.sleep(50);
+            release.countDown();
+
+            KnowledgeRepository first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<KnowledgeRepository> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(5, first.size());
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBudgetEvictsLeastRecentlyUsedGrade() {
+        List<KnowledgeProvider> providers = List.of(
+            provider(GradeEnum.SIXTH_GRADE, 250, null),
+            provider(GradeEnum.EIGHTH_GRADE, 250, null),
+            provider(GradeEnum.NINTH_GRADE, 250, null));
+        // 预算恰好容纳三个年级
+        GradeKnowledgeCatalog probe = new GradeKnowledgeCatalog(properties, providers);
+        probe.get(GradeEnum.SEVENTH_GRADE);
+        probe.get(GradeEnum.SIXTH_GRADE);
+        probe.get(GradeEnum.EIGHTH_GRADE);
+        long budget = probe.getEstimatedBytes();
+        properties.getGrades().setMemoryBudget(DataSize.ofBytes(budget));
+        GradeKnowledgeCatalog catalog = new GradeKnowledgeCatalog(properties, providers);
+
+        catalog.get(GradeEnum.SEVENTH_GRADE);
+        catalog.get(GradeEnum.SIXTH_GRADE);
+        catalog.get(GradeEnum.EIGHTH_GRADE);
+        assertTrue(catalog.isLoaded(GradeEnum.SIXTH_GRADE));
+        catalog.get(GradeEnum.SIXTH_GRADE);
+
+        catalog.get(GradeEnum.NINTH_GRADE);
+        assertTrue(catalog.isLoaded(GradeEnum.SEVENTH_GRADE), "常驻年级不淘汰");
+        assertTrue(catalog.isLoaded(GradeEnum.NINTH_GRADE), "刚加载的年级不淘汰");
+        assertTrue(catalog.isLoaded(GradeEnum.SIXTH_GRADE));
+        assertFalse(catalog.isLoaded(GradeEnum.EIGHTH_GRADE), "最久未访问的年级被淘汰");
+        assertTrue(catalog.getEstimatedBytes() <= budget);
+
+        assertEquals(250, catalog.get(GradeEnum.EIGHTH_GRADE).size());
+        assertEquals(2, catalog.getStats().get(GradeEnum.EIGHTH_GRADE.ordinal()).getLoadCount());
+    }
+
+    @Test
+    void testIdleGradesEvicted() throws Exception {
+        properties.getGrades().setIdleTimeout(Duration.ofMillis(20));
+        GradeKnowledgeCatalog catalog = new GradeKnowledgeCatalog(properties,
+            List.of(provider(GradeEnum.NINTH_GRADE, 3, null)));
+        catalog.get(GradeEnum.SEVENTH_GRADE);
+        catalog.get(GradeEnum.NINTH_GRADE);
+
+        Thread.sleep(50);
+        assertEquals(1, catalog.evictIdle());
+        assertTrue(catalog.isLoaded(GradeEnum.SEVENTH_GRADE));
+        assertFalse(catalog.isLoaded(GradeEnum.NINTH_GRADE));
+    }
+
+    @Test
+    void testFailedLoadIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        KnowledgeProvider flaky = provider(GradeEnum.SIXTH_GRADE, 2, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("数据源不可用");
+            }
+        });
+        GradeKnowledgeCatalog catalog = new GradeKnowledgeCatalog(properties, List.of(flaky));
+
+        assertEquals(0, catalog.get(GradeEnum.SIXTH_GRADE).size());
+        assertFalse(catalog.isLoaded(GradeEnum.SIXTH_GRADE));
+        assertEquals(2, catalog.get(GradeEnum.SIXTH_GRADE).size());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testGlobalRepositoryOnlyHoldsResidentGrades() {
+        AtomicInteger eighthLoads = new AtomicInteger();
+        GradeKnowledgeCatalog catalog = new GradeKnowledgeCatalog(properties, List.of(
+            provider(GradeEnum.EIGHTH_GRADE, 3, eighthLoads::incrementAndGet),
+            provider(GradeEnum.NINTH_GRADE, 3, null)));
+
+        KnowledgeRepository global = new KnowledgeRepository(catalog);
+        assertEquals(10, global.size());
+        assertSame(catalog.get(GradeEnum.SEVENTH_GRADE).findByCode("M1T001"), global.findByCode("M1T001"));
+        for (GradeEnum grade : List.of(GradeEnum.SIXTH_GRADE, GradeEnum.EIGHTH_GRADE, GradeEnum.NINTH_GRADE)) {
+            assertFalse(catalog.isLoaded(grade), grade.name());
+        }
+
+        // 按编号查找时先查已加载年级，只加载到找到为止
+        assertSame(global.findByCode("M1T001"), catalog.findByCode("M1T001"));
+        assertFalse(catalog.isLoaded(GradeEnum.SIXTH_GRADE));
+        assertEquals("知识点1", catalog.findByCode("EIGHTH_GRADE1").getName());
+        assertEquals(1, eighthLoads.get());
+        assertFalse(catalog.isLoaded(GradeEnum.NINTH_GRADE));
+        assertNotNull(catalog.findByCode("EIGHTH_GRADE2"));
+        assertEquals(1, eighthLoads.get());
+        assertNull(catalog.findByCode("NOT_EXIST"));
+    }
+
+    private static KnowledgeProvider provider(GradeEnum grade, int size, Step beforeLoad) {
+        return new KnowledgeProvider() {
+            @Override
+            public GradeEnum getGrade() {
+                return grade;
+            }
+
+            @Override
+            public List<KnowledgeDomain> load() {
+                if (beforeLoad != null) {
+                    try {
+                        beforeLoad.run();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                List<KnowledgeDomain> knowledge = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    knowledge.add(new KnowledgeDomain(grade.name() + i, "知识点" + i, grade, "说明" + i,
+                        KnowledgeSystemEnum.ALGEBRA, "模块" + grade.getLevel(), "专题" + i % 10, "考查" + i));
+                }
+                return knowledge;
+            }
+        };
+    }
+
+    private interface Step {
+        void run() throws InterruptedException;
+    }
+}
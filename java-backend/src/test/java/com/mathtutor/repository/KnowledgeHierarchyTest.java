@@ -0,0 +1,115 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeHierarchyTest {
+
+    private static KnowledgeDomain node(String code, KnowledgeDomain parent) {
+        return new KnowledgeDomain(code, "名称" + code, GradeEnum.SEVENTH_GRADE, "说明",
+            KnowledgeSystemEnum.ALGEBRA, "模块", "专题", "考核核心", parent);
+    }
+
+    @Test
+    void testAncestorAndLca() {
+        // A -> B -> D, A -> C -> E, F 独立
+        KnowledgeDomain a = node("A", null);
+        KnowledgeDomain b = node("B", a);
+        KnowledgeDomain c = node("C", a);
+        KnowledgeDomain d = node("D", b);
+        KnowledgeDomain e = node("E", c);
+        KnowledgeDomain f = node("F", null);
+        KnowledgeHierarchy hierarchy = new KnowledgeRepository(List.of(d, e, a, f, b, c)).getHierarchy();
+
+        assertTrue(hierarchy.isAncestor("A", "D"));
+        assertTrue(hierarchy.isAncestor("B", "D"));
+        assertFalse(hierarchy.isAncestor("C", "D"));
+        assertFalse(hierarchy.isAncestor("D", "D"));
+        assertFalse(hierarchy.isAncestor("A", "F"));
+        assertFalse(hierarchy.isAncestor("A", "NOT_EXIST"));
+
+        assertSame(a, hierarchy.lowestCommonAncestor("D", "E"));
+        assertSame(b, hierarchy.lowestCommonAncestor("B", "D"));
+        assertSame(d, hierarchy.lowestCommonAncestor("D", "D"));
+        assertNull(hierarchy.lowestCommonAncestor("D", "F"));
+        assertEquals(2, hierarchy.depthOf(hierarchy.idOf("E")));
+        assertEquals(hierarchy.idOf("C"), hierarchy.parentOf(hierarchy.idOf("E")));
+    }
+
+    @Test
+    void testPrecomputedStringsMatchDomain() {
+        KnowledgeDomain root = node("R", null);
+        KnowledgeDomain child = node("C1", root);
+        KnowledgeDomain grandChild = node("G1", child);
+        KnowledgeRepository repository = new KnowledgeRepository(List.of(grandChild, child, root));
+        KnowledgeHierarchy hierarchy = repository.getHierarchy();
+
+        int id = hierarchy.idOf("G1");
+        assertEquals("名称R > 名称C1 > 名称G1", hierarchy.getFullPath(id));
+        assertEquals(grandChild.getFullPath(), hierarchy.getFullPath(id));
+        assertEquals(grandChild.getFullIdentifier(), hierarchy.getFullIdentifier(id));
+        assertEquals(grandChild.getTopicIdentifier(), hierarchy.getTopicIdentifier(id));
+        assertSame(hierarchy.getFullPath(id), repository.getFullPath(grandChild));
+        assertSame(hierarchy.getFullPath(id), hierarchy.getFullPath(id));
+    }
+
+    @Test
+    void testExternalParentAndCycle() {
+        KnowledgeDomain outside = node("OUT", null);
+        KnowledgeDomain inside = node("IN", outside);
+        KnowledgeDomain x = node("X", null);
+        KnowledgeDomain y = node("Y", x);
+        x.setParentKnowledge(y);
+
+        KnowledgeHierarchy hierarchy = new KnowledgeRepository(List.of(inside, x, y)).getHierarchy();
+
+        int in = hierarchy.idOf("IN");
+        assertEquals(KnowledgeHierarchy.NO_ID, hierarchy.parentOf(in));
+        assertEquals("名称OUT > 名称IN", hierarchy.getFullPath(in));
+        assertTrue(hierarchy.isAncestor("X", "Y") ^ hierarchy.isAncestor("Y", "X"));
+    }
+
+    @Test
+    void testRandomForestAgainstParentWalk() {
+        Random random = new Random(11);
+        List<KnowledgeDomain> knowledge = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            KnowledgeDomain parent = i == 0 || random.nextInt(20) == 0 ? null : knowledge.get(random.nextInt(i));
+            knowledge.add(node("K" + i, parent));
+        }
+        KnowledgeHierarchy hierarchy = new KnowledgeRepository(knowledge).getHierarchy();
+
+        for (int t = 0; t < 5000; t++) {
+            KnowledgeDomain a = knowledge.get(random.nextInt(knowledge.size()));
+            KnowledgeDomain b = knowledge.get(random.nextInt(knowledge.size()));
+            assertSame(naiveLca(a, b), hierarchy.lowestCommonAncestor(a.getCode(), b.getCode()));
+            assertEquals(naiveIsAncestor(a, b), hierarchy.isAncestor(a.getCode(), b.getCode()));
+        }
+    }
+
+    private static boolean naiveIsAncestor(KnowledgeDomain ancestor, KnowledgeDomain node) {
+        for (KnowledgeDomain p = node.getParentKnowledge(); p != null; p = p.getParentKnowledge()) {
+            if (p == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static KnowledgeDomain naiveLca(KnowledgeDomain a, KnowledgeDomain b) {
+        for (KnowledgeDomain p = a; p != null; p = p.getParentKnowledge()) {
+            if (p == b || naiveIsAncestor(p, b)) {
+                return p;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.config.KnowledgeProperties;
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.search.KnowledgeSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeJsonLoaderTest {
+
+    private static final String EXTRA = "{\n"
+        + "  \"knowledge_metadata\": {\"catalog_id\": \"EXTRA\", \"grade\": \"EIGHTH_GRADE\"},\n"
+        + "  \"knowledge_points\": [\n"
+        + "    {\"code\": \"M1T001\", \"name\": \"绝对值化简（修订）\", \"knowledge_system\": \"ALGEBRA\",\n"
+        + "     \"module\": \"数与式的深度运算\", \"topic\": \"绝对值化简_(专题1)\", \"description\": \"修订后的说明\",\n"
+        + "     \"assessment_core\": \"符号意识\", \"grade\": \"SEVENTH_GRADE\", \"difficulty_level\": 3},\n"
+        + "    {\"code\": \"G8T001\", \"name\": \"勾股定理\", \"knowledge_system\": \"GEOMETRY\",\n"
+        + "     \"module\": \"三角形\", \"topic\": \"勾股定理\", \"description\": \"直角三角形三边关系\",\n"
+        + "     \"assessment_core\": \"a²+b²=c²\", \"detailed_points\": [\"逆定理\"], \"parent_code\": \"M3T008\",\n"
+        + "     \"unknown_field\": {\"nested\": [1, 2, 3]}}\n"
+        + "  ]\n"
+        + "}\n";
+
+    @TempDir
+    Path directory;
+
+    private KnowledgeProperties properties;
+    private KnowledgeFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KnowledgeProperties();
+        properties.setDirectory(directory.toString());
+        properties.getWatch().setDebounce(Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (watcher != null) {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    void testBundledJsonMatchesInitializer() throws IOException {
+        properties.setDirectory(null);
+        List<KnowledgeDomain> loaded = new KnowledgeJsonLoader().load(properties);
+        assertEquals(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge(), loaded);
+        assertEquals(10, new KnowledgeRepository(properties).size());
+    }
+
+    @Test
+    void testExternalDirectoryOverridesAndLinksParents() throws IOException {
+        Files.writeString(directory.resolve("extra.json"), EXTRA);
+        Files.writeString(directory.resolve("notes.txt"), "ignored");
+
+        List<KnowledgeDomain> loaded = new KnowledgeJsonLoader().load(properties);
+        KnowledgeRepository repository = new KnowledgeRepository(loaded);
+
+        assertEquals(11, repository.size());
+        assertEquals("绝对值化简（修订）", repository.findByCode("M1T001").getName());
+        assertEquals(2, repository.findByCode("M1T001").getDepthLevel());
+
+        KnowledgeDomain pythagoras = repository.findByCode("G8T001");
+        assertEquals(GradeEnum.EIGHTH_GRADE, pythagoras.getGrade());
+        assertEquals(List.of("逆定理"), pythagoras.getDetailedPoints());
+        assertSame(repository.findByCode("M3T008"), pythagoras.getParentKnowledge());
+        assertTrue(repository.getHierarchy().isAncestor("M3T008", "G8T001"));
+    }
+
+    @Test
+    void testInvalidDataIsRejected() {
+        KnowledgeJsonLoader loader = new KnowledgeJsonLoader();
+        assertThrows(IOException.class, () -> loader.load(stream("{\"knowledge_points\": [{\"code\": ")));
+        assertThrows(IOException.class, () -> loader.load(stream("[]")));
+        assertThrows(IOException.class, () -> loader.load(stream(
+            "{\"knowledge_points\": [{\"code\": \"X1\", \"name\": \"缺少字段\", \"grade\": \"SEVENTH_GRADE\"}]}")));
+        assertThrows(IOException.class, () -> loader.load(stream(
+            "{\"knowledge_points\": [{\"code\": \"X1\", \"grade\": \"TENTH_GRADE\"}]}")));
+    }
+
+    @Test
+    void testNonObjectElementIsRejected() {
+        // 数组中间混入非对象元素时整个文件报错，不会只加载前面的知识点
+        String point = "{\"code\": \"X%d\", \"name\": \"n\", \"knowledge_system\": \"ALGEBRA\", \"module\": \"m\","
+            + " \"topic\": \"t\", \"description\": \"d\", \"assessment_core\": \"a\", \"grade\": \"SEVENTH_GRADE\"}";
+        KnowledgeJsonLoader loader = new KnowledgeJsonLoader();
+        for (String element : List.of("null", "\"X\"", "42", "[]")) {
+            String json = "{\"knowledge_points\": [" + String.format(point, 1) + ", " + element + ", "
+                + String.format(point, 2) + "]}";
+            assertThrows(IOException.class, () -> loader.load(stream(json)), element);
+        }
+    }
+
+    @Test
+    void testFailedReloadKeepsCurrentData() throws IOException {
+        properties.getGrades().setPinned(List.of(GradeEnum.SEVENTH_GRADE, GradeEnum.EIGHTH_GRADE));
+        GradeKnowledgeCatalog grades = new GradeKnowledgeCatalog(properties, List.of());
+        KnowledgeRepository repository = new KnowledgeRepository(grades);
+        long version = repository.getVersion();
+        AtomicReference<Object> published = new AtomicReference<>();
+        watcher = new KnowledgeFileWatcher(repository, grades, properties, published::set);
+
+        Files.writeString(directory.resolve("grade8_extra.json"), "{\"knowledge_points\": [");
+        assertFalse(watcher.reloadNow());
+        assertEquals(version, repository.getVersion());
+        assertNull(published.get());
+
+        Files.writeString(directory.resolve("grade8_extra.json"), EXTRA);
+        assertTrue(watcher.reloadNow());
+        assertEquals(11, repository.size());
+        assertSame(grades.get(GradeEnum.EIGHTH_GRADE).findByCode("G8T001"), repository.findByCode("G8T001"));
+        KnowledgeReloadedEvent event = (KnowledgeReloadedEvent) published.get();
+        assertEquals(repository.getVersion(), event.getVersion());
+        assertSame(repository.findAll(), event.getKnowledge());
+    }
+
+    @Test
+    void testReadersNeverSeePartialCatalog() throws Exception {
+        KnowledgeRepository repository = new KnowledgeRepository(properties);
+        List<KnowledgeDomain> small = repository.findAll();
+        List<KnowledgeDomain> large = new KnowledgeJsonLoader().load(stream(EXTRA));
+        large.addAll(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge());
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                int size = repository.size();
+                if (size != 10 && size != 11) {
+                    failure.set("size=" + size);
+                }
+                if (repository.findByCode("M3T008") == null) {
+                    failure.set("M3T008 missing");
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 200; i++) {
+            repository.reload(i % 2 == 0 ? large : small);
+        }
+        running.set(false);
+        reader.join();
+        assertNull(failure.get());
+    }
+
+    @Test
+    void testWatcherReloadsAndSyncsIndex() throws Exception {
+        properties.getGrades().setPinned(List.of(GradeEnum.SEVENTH_GRADE, GradeEnum.EIGHTH_GRADE));
+        GradeKnowledgeCatalog grades = new GradeKnowledgeCatalog(properties, List.of());
+        KnowledgeRepository repository = new KnowledgeRepository(grades);
+        KnowledgeSearchIndex index = new KnowledgeSearchIndex(repository);
+        watcher = new KnowledgeFileWatcher(repository, grades, properties,
+            event -> index.onKnowledgeReloaded((KnowledgeReloadedEvent) event));
+        watcher.start();
+        assertTrue(watcher.isWatching());
+        assertTrue(index.search("勾股定理", 1).isEmpty());
+
+        Files.writeString(directory.resolve("grade8_extra.json"), EXTRA);
+
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (index.search("勾股定理", 1).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(11, repository.size());
+        assertEquals("G8T001", index.search("勾股定理", 1).get(0).getKnowledge().getCode());
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,113 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeRepositoryTest {
+
+    private KnowledgeRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new KnowledgeRepository();
+    }
+
+    @Test
+    void testFindByCode() {
+        assertEquals(10, repository.size());
+        KnowledgeDomain absoluteValue = repository.findByCode("M1T001");
+        assertNotNull(absoluteValue);
+        assertEquals("绝对值化简", absoluteValue.getName());
+        assertNull(repository.findByCode("NOT_EXIST"));
+        assertNull(repository.findByCode(null));
+    }
+
+    @Test
+    void testFindByModuleAndTopicMatchesInitializer() {
+        for (String module : List.of("数与式的深度运算", "方程与应用", "数轴与动态几何")) {
+            assertEquals(GradeSevenKnowledgeInitializer.getKnowledgeByModule(module).size(),
+                repository.findByModule(module).size());
+        }
+        assertEquals(1, repository.findByTopic("绝对值化简_(专题1)").size());
+        assertEquals("M3T008", repository.findByTopic("数轴动点问题_(专题8)").get(0).getCode());
+        assertTrue(repository.findByModule("不存在的模块").isEmpty());
+    }
+
+    @Test
+    void testEnumAndDifficultyIndexes() {
+        assertEquals(10, repository.findByGrade(GradeEnum.SEVENTH_GRADE).size());
+        assertTrue(repository.findByGrade(GradeEnum.NINTH_GRADE).isEmpty());
+
+        long algebra = repository.findAll().stream()
+            .filter(k -> k.getKnowledgeSystem() == KnowledgeSystemEnum.ALGEBRA).count();
+        assertEquals(algebra, repository.findByKnowledgeSystem(KnowledgeSystemEnum.ALGEBRA).size());
+
+        int total = 0;
+        for (int d = 1; d <= KnowledgeRepository.MAX_DIFFICULTY; d++) {
+            total += repository.findByDifficulty(d).size();
+        }
+        assertEquals(10, total);
+        assertTrue(repository.findByDifficulty(9).isEmpty());
+    }
+
+    @Test
+    void testCompositeQuery() {
+        List<KnowledgeDomain> hardGeometry = repository.find(GradeEnum.SEVENTH_GRADE, KnowledgeSystemEnum.GEOMETRY, 3);
+        assertFalse(hardGeometry.isEmpty());
+        hardGeometry.forEach(k -> {
+            assertEquals(KnowledgeSystemEnum.GEOMETRY, k.getKnowledgeSystem());
+            assertEquals(3, k.getDifficultyLevel());
+        });
+
+        assertEquals(repository.size(), repository.find(null, null, KnowledgeRepository.ANY_DIFFICULTY).size());
+        assertSame(repository.find(null, KnowledgeSystemEnum.ALGEBRA, 0), repository.find(null, KnowledgeSystemEnum.ALGEBRA, 0));
+    }
+
+    @Test
+    void testIndexesAreImmutable() {
+        assertThrows(UnsupportedOperationException.class, () -> repository.findAll().clear());
+        assertThrows(UnsupportedOperationException.class,
+            () -> repository.findByModule("方程与应用").add(new KnowledgeDomain()));
+    }
+
+    @Test
+    void testLookupBenchmark() {
+        int iterations = 20_000;
+        String topic = "数轴动点问题_(专题8)";
+        String module = "数轴与动态几何";
+        long sink = 0;
+
+        // 预热
+        for (int i = 0; i < iterations; i++) {
+            sink += GradeSevenKnowledgeInitializer.getKnowledgeByTopic(topic).size();
+            sink += repository.findByTopic(topic).size();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += GradeSevenKnowledgeInitializer.getKnowledgeByTopic(topic).size();
+            sink += GradeSevenKnowledgeInitializer.getKnowledgeByModule(module).size();
+        }
+        long initializerNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += repository.findByTopic(topic).size();
+            sink += repository.findByModule(module).size();
+        }
+        long repositoryNanos = System.nanoTime() - start;
+
+        System.out.println("知识点查询基准（专题 + 模块，" + iterations + " 次）：");
+        System.out.println("GradeSevenKnowledgeInitializer: " + initializerNanos / iterations + " ns/op");
+        System.out.println("KnowledgeRepository:            " + repositoryNanos / iterations + " ns/op");
+        assertTrue(sink > 0);
+    }
+}
@@ -0,0 +1,215 @@
+package com.mathtutor.repository;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mathtutor.config.ProblemProperties;
+import com.mathtutor.model.LogicStep;
+import com.mathtutor.model.ProblemDifficulty;
+import com.mathtutor.model.ProblemDomain;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProblemBankTest {
+
+    private static final String SAMPLE_ID = "P_MATH_2025_025";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLoadSampleProblem() {
+        ProblemBank bank = new ProblemBank(new ProblemProperties());
+        ProblemDomain problem = bank.findById(SAMPLE_ID);
+
+        assertNotNull(problem);
+        assertEquals("M03", problem.getModuleId());
+        assertEquals(ProblemDifficulty.HARD, problem.getDifficulty());
+        assertEquals(3, problem.getQuestions().size());
+        assertEquals(7, problem.getStepCount());
+
+        LogicStep step = problem.findStep("1.1");
+        assertEquals("KP01_1", step.getTargetKpId());
+        assertEquals(List.of("a=-5", "b=8", "-5", "8"), step.getCheckPoints());
+        assertEquals(3, step.getHintLevels());
+        assertTrue(step.getHint(3).contains("a=-5"));
+        assertNull(step.getHint(4));
+        assertThrows(UnsupportedOperationException.class, () -> step.getCheckPoints().add("x"));
+
+        assertEquals(List.of(problem), bank.findByKnowledgePoint("KP02_1"));
+        assertEquals(List.of(problem), bank.find("M03", "T02", ProblemDifficulty.HARD));
+        assertTrue(bank.find("M03", null, ProblemDifficulty.EASY).isEmpty());
+        assertNull(bank.findById("P_NONE"));
+    }
+
+    @Test
+    void testIndexesAndOverride() throws IOException {
+        writeProblems(directory.resolve("a.json"), 30, i -> "旧题" + i);
+        writeProblems(directory.resolve("b.json"), 1, i -> "覆盖后的题目");
+        ProblemProperties properties = new ProblemProperties();
+        properties.setLocations(List.of());
+        properties.setDirectory(directory.toString());
+        ProblemBank bank = new ProblemBank(properties);
+
+        assertEquals(30, bank.size());
+        assertEquals("覆盖后的题目", bank.findById("P0").getTitle());
+        // 模块 i % 4，专题 i % 6，难度 i % 3
+        assertEquals(8, bank.findByModule("M1").size());
+        assertEquals(10, bank.findByDifficulty(ProblemDifficulty.MEDIUM).size());
+        assertEquals(bank.findAll().stream().filter(p -> p.getModuleId().equals("M1")
+                && p.getDifficulty() == ProblemDifficulty.EASY).toList(),
+            bank.find("M1", null, ProblemDifficulty.EASY));
+        assertEquals(bank.findByTopic("T5"), bank.find(null, "T5", null));
+        assertSame(bank.findAll(), bank.find(null, null, null));
+
+        // 同一道题的多个步骤考查同一知识点时只出现一次
+        assertEquals(30, bank.findByKnowledgePoint("KP_COMMON").size());
+        assertSame(bank.findById("P3").getModuleId(), bank.findById("P7").getModuleId());
+
+        long version = bank.getVersion();
+        bank.reload(List.of());
+        assertTrue(bank.findByModule("M1").isEmpty());
+        assertTrue(bank.getVersion() > version);
+    }
+
+    @Test
+    void testRejectsInvalidDocuments() {
+        ProblemJsonLoader loader = new ProblemJsonLoader();
+        assertThrows(IOException.class, () -> parse(loader, "{\"problem_metadata\":{\"title\":\"缺少编号\"}}"));
+        assertThrows(IOException.class, () -> parse(loader, "{\"problem_metadata\":{\"problem_id\":\"P1\"},"
+            + "\"questions\":[{\"logic_steps\":[{\"step_id\":\"1.1\",\"scaffolding\":{\"level_2\":\"跳级\"}}]}]}"));
+        assertThrows(IOException.class, () -> parse(loader, "[1, 2]"));
+        // 小题、步骤数组中混入非对象元素时整个文件报错，不会只加载前面的元素
+        assertThrows(IOException.class, () -> parse(loader, "{\"problem_metadata\":{\"problem_id\":\"P1\"},"
+            + "\"questions\":[{\"question_index\":1}, null, {\"question_index\":2}]}"));
+        assertThrows(IOException.class, () -> parse(loader, "{\"problem_metadata\":{\"problem_id\":\"P1\"},"
+            + "\"questions\":[{\"logic_steps\":[{\"step_id\":\"1.1\"}, \"1.2\"]}]}"));
+    }
+
+    @Test
+    void testUnknownDifficultyIsNull() throws IOException {
+        List<ProblemDomain> loaded = new ArrayList<>();
+        new ProblemJsonLoader().parse(new ByteArrayInputStream(
+            "{\"problem_metadata\":{\"problem_id\":\"P1\",\"difficulty\":\"Impossible\"}}".getBytes(StandardCharsets.UTF_8)),
+            "test", loaded::add);
+        assertEquals(1, loaded.size());
+        assertNull(loaded.get(0).getDifficulty());
+
+        ProblemBank bank = new ProblemBank(loaded);
+        assertSame(loaded.get(0), bank.findById("P1"));
+        for (ProblemDifficulty difficulty : ProblemDifficulty.values()) {
+            assertTrue(bank.findByDifficulty(difficulty).isEmpty());
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testHundredThousandProblemsBenchmark() throws IOException {
+        int size = Integer.getInteger("problem.bench.size", 100_000);
+        Path file = directory.resolve("bulk.json");
+        writeProblems(file, size, i -> "题目" + i);
+        ProblemProperties properties = new ProblemProperties();
+        properties.setLocations(List.of());
+        properties.setDirectory(directory.toString());
+
+        long start = System.nanoTime();
+        ProblemBank bank = new ProblemBank(properties);
+        long loadNanos = System.nanoTime() - start;
+        assertEquals(size, bank.size());
+
+        int queries = 200_000;
+        long byId = measure(queries, i -> bank.findById("P" + (i % size)) != null ? 1 : 0);
+        long byKp = measure(queries, i -> bank.findByKnowledgePoint("KP" + (i % 500)).size());
+        long composite = measure(queries, i -> bank.find("M" + (i % 4), "T" + (i % 6),
+            ProblemDifficulty.values()[i % 3]).size());
+
+        System.out.println("题库基准：" + size + " 道题，文件 " + Files.size(file) / 1024 / 1024 + " MB，加载 "
+            + loadNanos / 1_000_000 + " ms");
+        System.out.printf("按编号 %.2f µs，按知识点 %.2f µs，组合查询 %.2f µs%n",
+            byId / 1000.0, byKp / 1000.0, composite / 1000.0);
+        assertTrue(byId < 20_000 && byKp < 20_000 && composite < 20_000, byId + "/" + byKp + "/" + composite);
+    }
+
+    /**
+     * 预热后取多轮中最快一轮的平均单次耗时（纳秒）
+     */
+    private static long measure(int queries, IntFunction<Integer> query) {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                sink += query.apply(i);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / queries);
+        }
+        assertTrue(sink > 0);
+        return best;
+    }
+
+    private static void parse(ProblemJsonLoader loader, String json) throws IOException {
+        loader.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "test", problem -> { });
+    }
+
+    /**
+     * 写入批量题目文件（顶层为数组），每题两道小题、三个步骤
+     */
+    private static void writeProblems(Path file, int size, IntFunction<String> title) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            for (int i = 0; i < size; i++) {
+                json.writeStartObject();
+                json.writeObjectFieldStart("problem_metadata");
+                json.writeStringField("problem_id", "P" + i);
+                json.writeStringField("title", title.apply(i));
+                json.writeStringField("module_id", "M" + (i % 4));
+                json.writeStringField("topic_id", "T" + (i % 6));
+                json.writeStringField("difficulty", List.of("Easy", "Medium", "Hard").get(i % 3));
+                json.writeEndObject();
+                json.writeArrayFieldStart("questions");
+                List<String> kps = new ArrayList<>(List.of("KP" + (i % 500), "KP_COMMON", "KP_COMMON"));
+                for (int q = 1; q <= 2; q++) {
+                    json.writeStartObject();
+                    json.writeNumberField("question_index", q);
+                    json.writeStringField("question_text", "第" + i + "题第" + q + "问");
+                    json.writeArrayFieldStart("logic_steps");
+                    for (int s = q; s <= q + (q - 1); s++) {
+                        json.writeStartObject();
+                        json.writeStringField("step_id", q + "." + s);
+                        json.writeStringField("target_kp_id", kps.get(s - 1));
+                        json.writeStringField("goal", "求出 x=" + i);
+                        json.writeArrayFieldStart("check_points");
+                        json.writeString("x=" + i);
+                        json.writeString(String.valueOf(i));
+                        json.writeEndArray();
+                        json.writeObjectFieldStart("scaffolding");
+                        json.writeStringField("level_1", "观察条件");
+                        json.writeStringField("level_2", "列出方程");
+                        json.writeStringField("level_3", "解得 x=" + i);
+                        json.writeEndObject();
+                        json.writeEndObject();
+                    }
+                    json.writeEndArray();
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+    }
+}
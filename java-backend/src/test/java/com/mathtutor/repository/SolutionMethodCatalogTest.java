@@ -0,0 +1,133 @@
+package com.mathtutor.repository;
+
+import com.mathtutor.init.SolutionMethodInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import com.mathtutor.model.SolutionMethodCategory;
+import com.mathtutor.model.SolutionMethodDomain;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionMethodCatalogTest {
+
+    @Test
+    void testCandidatesMatchLinearScan() {
+        List<SolutionMethodDomain> methods = new ArrayList<>(SolutionMethodInitializer.initializeSolutionMethods());
+        methods.addAll(syntheticMethods(200));
+        SolutionMethodCatalog catalog = new SolutionMethodCatalog(methods);
+
+        List<GradeEnum> grades = new ArrayList<>(EnumSet.allOf(GradeEnum.class));
+        grades.add(null);
+        List<KnowledgeSystemEnum> systems = new ArrayList<>(EnumSet.allOf(KnowledgeSystemEnum.class));
+        systems.add(null);
+        List<SolutionMethodCategory> categories = new ArrayList<>(EnumSet.allOf(SolutionMethodCategory.class));
+        categories.add(null);
+
+        for (GradeEnum grade : grades) {
+            for (KnowledgeSystemEnum system : systems) {
+                for (SolutionMethodCategory category : categories) {
+                    List<SolutionMethodDomain> expected = methods.stream()
+                        .filter(m -> grade == null || m.isApplicableToGrade(grade))
+                        .filter(m -> system == null || m.isApplicableToKnowledgeSystem(system))
+                        .filter(m -> category == null || m.getMethodCategory() == category)
+                        .collect(Collectors.toList());
+                    List<SolutionMethodDomain> actual = catalog.findCandidates(grade, system, category);
+                    assertEquals(codes(expected).stream().sorted().collect(Collectors.toList()),
+                        codes(actual).stream().sorted().collect(Collectors.toList()), grade + "/" + system + "/" + category);
+                    for (int i = 1; i < actual.size(); i++) {
+                        assertTrue(actual.get(i - 1).getDifficultyLevel() <= actual.get(i).getDifficultyLevel());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMultipleSystemsAndApplicability() {
+        SolutionMethodCatalog catalog = new SolutionMethodCatalog();
+
+        assertEquals(8, catalog.size());
+        assertEquals("零点分段法", catalog.findByCode("SM001").getName());
+        assertNull(catalog.findByCode("SM999"));
+        assertEquals(EnumSet.of(GradeEnum.SEVENTH_GRADE, GradeEnum.EIGHTH_GRADE), catalog.getApplicableGrades("SM003"));
+        assertTrue(catalog.findCandidates(GradeEnum.NINTH_GRADE, null, null).stream()
+            .noneMatch(m -> m.getCode().equals("SM003")));
+
+        List<SolutionMethodDomain> geometry = catalog.findCandidates(GradeEnum.SEVENTH_GRADE,
+            EnumSet.of(KnowledgeSystemEnum.GEOMETRY));
+        assertFalse(geometry.isEmpty());
+        for (SolutionMethodDomain method : geometry) {
+            assertTrue(method.isApplicableToKnowledgeSystem(KnowledgeSystemEnum.GEOMETRY));
+        }
+        assertEquals(catalog.findCandidates(GradeEnum.SEVENTH_GRADE, null, null),
+            catalog.findCandidates(GradeEnum.SEVENTH_GRADE, EnumSet.noneOf(KnowledgeSystemEnum.class)));
+    }
+
+    @Test
+    void testRelatedClosureHandlesCycles() {
+        SolutionMethodDomain a = method("A", 1);
+        SolutionMethodDomain b = method("B", 2);
+        SolutionMethodDomain c = method("C", 3);
+        SolutionMethodDomain d = method("D", 1);
+        a.addRelatedMethod(b);
+        b.addRelatedMethod(a);
+        b.addRelatedMethod(c);
+        c.addRelatedMethod(c);
+        c.addRelatedMethod(a);
+        // 目录外的同编号对象按编号关联
+        d.addRelatedMethod(method("A", 1));
+
+        SolutionMethodCatalog catalog = new SolutionMethodCatalog(List.of(a, b, c, d));
+
+        assertEquals(List.of("B", "C"), codes(catalog.getRelatedClosure("A")));
+        assertEquals(List.of("A", "C"), codes(catalog.getRelatedClosure("B")));
+        assertEquals(List.of("A", "B"), codes(catalog.getRelatedClosure("C")));
+        assertEquals(List.of("A", "B", "C"), codes(catalog.getRelatedClosure("D")));
+        assertTrue(catalog.isRelated("C", "B"));
+        assertFalse(catalog.isRelated("A", "D"));
+        assertFalse(catalog.isRelated("A", "A"));
+        assertTrue(catalog.getRelatedClosure("NONE").isEmpty());
+        assertEquals(List.of("A", "D", "B", "C"), codes(catalog.findAll()));
+    }
+
+    private static SolutionMethodDomain method(String code, int difficulty) {
+        SolutionMethodDomain method = new SolutionMethodDomain(code, code, code, SolutionMethodCategory.ALGEBRA_METHOD);
+        method.setDifficultyLevel(difficulty);
+        return method;
+    }
+
+    private static List<SolutionMethodDomain> syntheticMethods(int count) {
+        Random random = new Random(34);
+        GradeEnum[] grades = GradeEnum.values();
+        KnowledgeSystemEnum[] systems = KnowledgeSystemEnum.values();
+        SolutionMethodCategory[] categories = SolutionMethodCategory.values();
+        List<SolutionMethodDomain> methods = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(grades.length);
+            int to = from + random.nextInt(grades.length - from);
+            SolutionMethodDomain method = new SolutionMethodDomain("X" + i, "方法" + i, "说明" + i,
+                categories[random.nextInt(categories.length)], grades[from], grades[to]);
+            if (i % 7 == 0) {
+                method.setApplicableGradeFrom(null);
+            }
+            int systemCount = random.nextInt(3);
+            for (int s = 0; s < systemCount; s++) {
+                method.addApplicableKnowledgeSystem(systems[random.nextInt(systems.length)]);
+            }
+            method.setDifficultyLevel(1 + random.nextInt(3));
+            methods.add(method);
+        }
+        return methods;
+    }
+
+    private static List<String> codes(List<SolutionMethodDomain> methods) {
+        return methods.stream().map(SolutionMethodDomain::getCode).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,141 @@
+package com.mathtutor.search;
+
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.KnowledgeDomain;
+import com.mathtutor.model.KnowledgeSystemEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeSearchIndexTest {
+
+    private static final String QUESTION = "如图,数轴上点A表示的数为a,点B表示的数为b.满足 |a+5|+(b-8)^2=0 ,机器人M从点A出发,"
+        + "以每秒4个单位长度的速度向右运动,1秒后,机器人N从点B出发,以每秒2个单位长度的速度向左运动.机器人M遇到机器人N后立即降速,"
+        + "以原速的一半返回,与此同时,机器人N以原速折返.设机器人M运动时间为t秒.求两个机器人相遇的时间t及相遇点P所表示的数";
+
+    private KnowledgeSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new KnowledgeSearchIndex(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge());
+    }
+
+    @Test
+    void testTokenizer() {
+        List<String> tokens = KnowledgeTokenizer.tokenize("数轴动点 $\\angle AOB$ 与 ∠BOC，ｔ＝2.5");
+        assertTrue(tokens.contains("数轴"));
+        assertTrue(tokens.contains("轴动"));
+        assertTrue(tokens.contains("动点"));
+        assertEquals(2, tokens.stream().filter("∠"::equals).count(), "LaTeX 与 Unicode 角符号应归一");
+        assertTrue(tokens.contains("aob"));
+        assertTrue(tokens.contains("t"), "全角字母应转换为半角");
+        assertTrue(tokens.contains("2.5"));
+        assertTrue(tokens.contains("与"), "单字片段保留单字");
+        assertTrue(KnowledgeTokenizer.tokenize("\\frac{1}{2}").contains("\\frac"));
+    }
+
+    @Test
+    void testSearchRanksDynamicPointOnTop() {
+        List<KnowledgeSearchIndex.SearchHit> hits = index.search(QUESTION, 3);
+        assertEquals(3, hits.size());
+        assertTrue(hits.subList(0, 2).stream().anyMatch(hit -> hit.getKnowledge().getCode().equals("M3T008")));
+        assertTrue(hits.get(0).getScore() >= hits.get(1).getScore());
+        assertTrue(hits.get(1).getScore() >= hits.get(2).getScore());
+    }
+
+    @Test
+    void testSearchEdgeCases() {
+        assertTrue(index.search("", 5).isEmpty());
+        assertTrue(index.search("完全无关的英文 xyzzy", 0).isEmpty());
+        assertTrue(index.search("xyzzy", 5).isEmpty());
+    }
+
+    @Test
+    void testIncrementalUpdateAndRemove() {
+        KnowledgeDomain fresh = new KnowledgeDomain(
+            "M9T999", "勾股定理逆定理", GradeEnum.EIGHTH_GRADE,
+            "判断三角形是否为直角三角形", KnowledgeSystemEnum.GEOMETRY,
+            "勾股定理", "勾股定理逆定理_(专题99)", "三边关系判定直角");
+        index.index(fresh);
+        assertEquals(11, index.size());
+        assertEquals("M9T999", index.search("勾股定理逆定理的应用", 1).get(0).getKnowledge().getCode());
+
+        fresh.setName("弦图面积");
+        fresh.setDescription("利用赵爽弦图计算面积");
+        fresh.setAssessmentCore("面积割补");
+        index.index(fresh);
+        assertEquals(11, index.size());
+        assertTrue(index.search("勾股定理逆定理", 5).stream()
+            .noneMatch(hit -> hit.getKnowledge().getCode().equals("M9T999")));
+        assertEquals("M9T999", index.search("赵爽弦图", 1).get(0).getKnowledge().getCode());
+
+        index.remove("M9T999");
+        assertEquals(10, index.size());
+        assertTrue(index.search("赵爽弦图", 5).isEmpty());
+    }
+
+    @Test
+    void testSyncOnlyTouchesChangedKnowledge() {
+        List<KnowledgeDomain> knowledge = GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+        knowledge.remove(0);
+        knowledge.get(0).addDetailedPoint("进制转换中的补码概念");
+        index.sync(knowledge);
+
+        assertEquals(9, index.size());
+        assertEquals("M1T010", index.search("补码", 1).get(0).getKnowledge().getCode());
+        assertTrue(index.search("零点分段法", 10).stream()
+            .noneMatch(hit -> hit.getKnowledge().getCode().equals("M1T001")));
+    }
+
+    @Test
+    void testSearchBenchmark() {
+        // 模拟数万个互不相同的知识点：少量真实知识点 + 按近似 Zipf 分布抽取汉字生成的文本
+        List<KnowledgeDomain> base = GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge();
+        List<KnowledgeDomain> corpus = new ArrayList<>(base);
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            KnowledgeDomain k = new KnowledgeDomain(
+                "GEN" + i, randomHan(random, 6), GradeEnum.SEVENTH_GRADE,
+                randomHan(random, 40), KnowledgeSystemEnum.values()[i % KnowledgeSystemEnum.values().length],
+                "模块" + i % 30, "专题" + i % 300, randomHan(random, 20));
+            for (int j = 0; j < 3; j++) {
+                k.addDetailedPoint(randomHan(random, 30));
+            }
+            corpus.add(k);
+        }
+
+        long buildStart = System.nanoTime();
+        KnowledgeSearchIndex large = new KnowledgeSearchIndex(corpus);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        int iterations = 2_000;
+        for (int i = 0; i < iterations; i++) {
+            large.search(QUESTION, 10);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            large.search(QUESTION, 10);
+        }
+        long micros = (System.nanoTime() - start) / 1_000 / iterations;
+
+        System.out.println("全文索引基准：文档 " + large.size() + " 个，词项 " + large.termCount()
+            + " 个，倒排列表 " + large.postingsBytes() / 1024 + " KB，构建 " + buildMillis + " ms");
+        System.out.println("题目长度 " + QUESTION.length() + " 字，Top-10 检索平均 " + micros + " µs/次");
+        assertEquals(10, large.search(QUESTION, 10).size());
+    }
+
+    private static String randomHan(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            double r = random.nextDouble();
+            text.append((char) (0x4E00 + (int) (800 * r * r * r)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.mathtutor.search.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateIndexTest {
+
+    private static final String ORIGINAL = "如图，数轴上点A表示的数为a，点B表示的数为b，满足|a+5|+(b-8)²=0。"
+        + "机器人M从点A出发，以每秒4个单位长度的速度向右运动，求点A与点B之间的距离。（ ）";
+
+    @Test
+    void testFingerprintNormalizesFormattingButKeepsNumbers() {
+        QuestionFingerprint plain = QuestionFingerprint.of("已知|a+5|+(b-8)^2=0，求a的值（  ）");
+        QuestionFingerprint styled = QuestionFingerprint.of(
+            "2024年某市七年级期中考试\n3. 已知 ｜ａ＋５｜＋（ｂ－08）²＝0.0 ，求 a 的值____（5分）");
+
+        assertEquals(List.of("5", "8", "2", "0"), plain.getNumbers());
+        assertEquals(plain.getNumbers(), styled.getNumbers());
+        assertEquals(plain.getFormula(), styled.getFormula());
+        assertEquals(plain.getMaskedText(), styled.getMaskedText());
+        assertEquals("|a+#|+(b-#)^#=#a", plain.getFormula());
+        assertEquals(plain.getKey(), styled.getKey());
+
+        assertEquals(List.of("3.5", "12"), QuestionFingerprint.of("单价3.50元，买12个").getNumbers());
+        assertEquals(List.of("1", "2", "3"), QuestionFingerprint.of("在一次数学考试中，2名同学得了3分").getNumbers(),
+            "正文中的考试字样不是抬头");
+        assertEquals(List.of("3", "12", "105", "20000", "2024"),
+            QuestionFingerprint.of("三个点，十二条线，一百零五人，两万元，二〇二四年").getNumbers());
+        assertEquals("#≤x≤#", QuestionFingerprint.of("0≤x≤5").getFormula());
+    }
+
+    @Test
+    void testFindsPastedVariants() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("P1", ORIGINAL);
+        index.put("P2", "已知多项式3x^2-2x+1，求当x=2时多项式的值。");
+        index.put("P3", "甲乙两人从相距20千米的两地同时出发相向而行，甲每小时走4千米，乙每小时走6千米，几小时后相遇？");
+
+        String[] variants = {
+            "【2023·北京期末】25.（10分）如图, 数轴上点A表示的数为a, 点B表示的数为b, 满足 |a+5|+(b-8)^2=0. "
+                + "机器人M从点A出发, 以每秒4个单位长度的速度向右运动, 求点A与点B之间的距离.____",
+            "如图，数轴上点Ａ表示的数为ａ，点Ｂ表示的数为ｂ，满足｜ａ＋５｜＋（ｂ－８）²＝０．\n"
+                + "机器人Ｍ从点Ａ出发，以每秒４个单位长度的速度向右运动，求点Ａ与点Ｂ之间的距离（　　）",
+            "2024-2025学年七年级上学期期中考试\n如图，数轴上点A表示的数为a，点B表示的数为b，满足|a+5.0|+(b-8)²=0。"
+                + "机器人M从点A出发，以每秒4.0个单位长度的速度向右运动，请求出点A与点B之间的距离。",
+        };
+        for (String variant : variants) {
+            assertEquals("P1", index.find(variant), variant);
+        }
+    }
+
+    @Test
+    void testChangedNumbersOrSignsAreNeverDuplicates() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("P1", ORIGINAL);
+
+        assertNull(index.find(ORIGINAL.replace("a+5", "a+6")));
+        assertNull(index.find(ORIGINAL.replace("每秒4个", "每秒4.5个")));
+        assertNull(index.find(ORIGINAL.replace("a+5", "a-5")));
+        assertNull(index.find(ORIGINAL.replace("(b-8)", "(c-8)")));
+
+        // 数字不同的题目各自收录，互不影响
+        index.put("P1-6", ORIGINAL.replace("a+5", "a+6"));
+        assertEquals("P1-6", index.find(ORIGINAL.replace("a+5", "a+6").replace("求", "请求出")));
+        assertEquals("P1", index.find(ORIGINAL));
+    }
+
+    @Test
+    void testOneCharacterChangesAreNeverDuplicates() {
+        String[][] pairs = {
+            {"已知0≤x≤5，求x的取值范围内整数的个数", "已知0≥x≥5，求x的取值范围内整数的个数"},
+            {"已知a≠3，化简分式", "已知a=3，化简分式"},
+            {"平面上有三个点，过每两点画一条直线，最多可以画几条直线", "平面上有四个点，过每两点画一条直线，最多可以画几条直线"},
+            {"已知二次函数y=x^2-4x+3，当0≤x≤3时，求函数的最大值", "已知二次函数y=x^2-4x+3，当0≤x≤3时，求函数的最小值"},
+            {"点P从原点出发，先向左移动3个单位，再移动2个单位，求点P表示的数",
+                "点P从原点出发，先向右移动3个单位，再移动2个单位，求点P表示的数"},
+            {"线段AB长12cm，点C是线段AB的中点，求线段AC的长", "线段AB长12cm，点C是线段AB的三等分点，求线段AC的长"},
+        };
+        for (String[] pair : pairs) {
+            NearDuplicateIndex index = new NearDuplicateIndex();
+            index.put("P1", pair[0]);
+            assertNull(index.find(pair[1]), pair[1]);
+        }
+    }
+
+    @Test
+    void testUnrelatedQuestionIsNotMatched() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("P1", ORIGINAL);
+        assertNull(index.find("解方程：3(x-2)=2x+1"));
+    }
+
+    @Test
+    void testReplaceAndRemove() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("P1", ORIGINAL);
+        index.put("P1", "解方程：3(x-2)=2x+1");
+        for (int i = 0; i < 40; i++) {
+            index.put("X" + i, "计算：" + i + "+" + (i + 1) + "×" + (i + 2));
+        }
+        assertEquals(41, index.size());
+        assertNull(index.find(ORIGINAL));
+        assertEquals("P1", index.find("解方程: 3(x - 2) = 2x + 1"));
+        assertEquals("X17", index.find("计算：17+18×19"));
+
+        assertTrue(index.remove("P1"));
+        assertFalse(index.remove("P1"));
+        assertNull(index.find("解方程：3(x-2)=2x+1"));
+        assertEquals(40, index.size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.mathtutor.search.vector;
+
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.init.SolutionMethodInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticIndexTest {
+
+    private SemanticIndex semanticIndex;
+
+    @BeforeEach
+    void setUp() {
+        semanticIndex = new SemanticIndex(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge(),
+            SolutionMethodInitializer.initializeSolutionMethods(), SemanticIndex.DEFAULT_DIMENSION);
+    }
+
+    @Test
+    void testSimdMatchesScalar() {
+        Random random = new Random(7);
+        float[] a = new float[301];
+        float[] b = new float[301];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextFloat() - 0.5f;
+            b[i] = random.nextFloat() - 0.5f;
+        }
+        float scalar = VectorOps.scalar().dot(a, 3, b, 1, 297);
+        float best = VectorOps.instance().dot(a, 3, b, 1, 297);
+        assertEquals(scalar, best, 1e-4f, "实现: " + VectorOps.instance().name());
+    }
+
+    @Test
+    void testEmbeddingIsNormalized() {
+        NgramEmbedder embedder = new NgramEmbedder(64);
+        float[] v = embedder.embed("机器人在数轴上相遇");
+        assertEquals(1f, VectorOps.scalar().dot(v, 0, v, 0, 64), 1e-4f);
+        assertEquals(0f, VectorOps.scalar().dot(embedder.embed(""), 0, v, 0, 64), 0f);
+    }
+
+    @Test
+    void testParaphraseFindsKnowledge() {
+        List<VectorIndex.Hit> hits = semanticIndex.similarKnowledge("两只小虫在数轴上爬，一个向左一个向右，多少秒后碰面？", 3);
+        assertEquals(3, hits.size());
+        assertTrue(hits.stream().anyMatch(hit -> hit.getId().equals("M3T008")));
+        assertTrue(hits.stream().allMatch(hit -> hit.getType().equals(SemanticIndex.TYPE_KNOWLEDGE)));
+
+        List<VectorIndex.Hit> methods = semanticIndex.similarMethods("含有多个绝对值的式子怎么去掉绝对值符号", 2);
+        assertEquals("SM001", methods.get(0).getId());
+    }
+
+    @Test
+    void testSimilarProblems() {
+        semanticIndex.addProblem("P1", "数轴上点A表示-5，点B表示8，机器人M从A出发向右运动，机器人N从B出发向左运动，求相遇时间");
+        semanticIndex.addProblem("P2", "已知x²=x+1，求x³-2x+3的值");
+        semanticIndex.addProblem("P3", "角AOB=120°，射线OC绕点O旋转，OM平分角AOC，求角MON");
+
+        List<VectorIndex.Hit> hits = semanticIndex.similarProblems("数轴上A点是-4，B点是10，甲从A向右走，乙从B向左走，何时相遇", 1);
+        assertEquals("P1", hits.get(0).getId());
+        assertTrue(semanticIndex.similarKnowledge("相遇", 20).stream()
+            .noneMatch(hit -> hit.getType().equals(SemanticIndex.TYPE_PROBLEM)));
+    }
+
+    @Test
+    void testTopKBenchmark() {
+        int size = Integer.getInteger("vector.bench.size", 100_000);
+        int dimension = 128;
+        Random random = new Random(42);
+        VectorIndex simd = new VectorIndex(dimension, VectorOps.instance(), size);
+        VectorIndex scalar = new VectorIndex(dimension, VectorOps.scalar(), size);
+        float[] vector = new float[dimension];
+        for (int i = 0; i < size; i++) {
+            for (int d = 0; d < dimension; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            simd.add("V" + i, "problem", vector);
+            scalar.add("V" + i, "problem", vector);
+        }
+        float[] query = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            query[d] = (float) random.nextGaussian();
+        }
+
+        long simdMicros = timeSearch(simd, query);
+        long scalarMicros = timeSearch(scalar, query);
+
+        System.out.println("向量检索基准：" + size + " 个 " + dimension + " 维向量，数据 "
+            + simd.dataBytes() / (1024 * 1024) + " MB");
+        System.out.println(VectorOps.instance().name() + ": " + simdMicros + " µs/次 Top-10");
+        System.out.println("scalar: " + scalarMicros + " µs/次 Top-10");
+        assertEquals(simd.search(query, 10, null).get(0).getId(), scalar.search(query, 10, null).get(0).getId());
+    }
+
+    private static long timeSearch(VectorIndex index, float[] query) {
+        for (int i = 0; i < 20; i++) {
+            index.search(query, 10, null);
+        }
+        int iterations = 30;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            index.search(query, 10, null);
+        }
+        return (System.nanoTime() - start) / 1_000 / iterations;
+    }
+}
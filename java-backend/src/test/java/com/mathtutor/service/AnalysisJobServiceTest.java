@@ -0,0 +1,232 @@
+package com.mathtutor.service;
+
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.job.JobPriority;
+import com.mathtutor.job.JobRejectedException;
+import com.mathtutor.job.JobStatus;
+import com.mathtutor.llm.Deadline;
+import com.mathtutor.llm.TokenUsageStats;
+import com.mathtutor.llm.Workload;
+import com.mathtutor.model.AnalysisJobStats;
+import com.mathtutor.model.AnalysisJobView;
+import com.mathtutor.model.GroundingUsage;
+import com.mathtutor.model.ProblemAnalysisDomain;
+import com.mathtutor.service.impl.AnalysisJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisJobServiceTest {
+
+    private final GatedAgent agent = new GatedAgent();
+    private AnalysisJobServiceImpl service;
+
+    @AfterEach
+    void tearDown() {
+        agent.gate.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testRunsJobsByPriorityThenSubmissionOrder() throws Exception {
+        service = new AnalysisJobServiceImpl(agent, properties(1, 10, Duration.ofSeconds(10)));
+        String blocker = service.submit("blocker", null, JobPriority.NORMAL, null).getId();
+        awaitStatus(blocker, JobStatus.RUNNING);
+
+        String low = service.submit("low", null, JobPriority.LOW, null).getId();
+        service.submit("normal-1", null, JobPriority.NORMAL, null);
+        service.submit("high", null, JobPriority.HIGH, null);
+        service.submit("normal-2", null, JobPriority.NORMAL, null);
+        assertEquals(3, service.find(low).get().getQueuePosition());
+
+        agent.gate.countDown();
+        awaitStatus(low, JobStatus.SUCCEEDED);
+        assertEquals(List.of("blocker", "high", "normal-1", "normal-2", "low"), agent.started);
+
+        AnalysisJobView done = service.find(low).get();
+        assertEquals("analysis of low", done.getResult().getProblemAnalysis());
+        assertNull(done.getPartialAnalysis());
+        assertNotNull(done.getQueueMillis());
+        assertNotNull(done.getRunMillis());
+        AnalysisJobStats stats = service.getStats();
+        assertEquals(5, stats.getSubmitted());
+        assertEquals(5L, stats.getFinished().get("succeeded"));
+        assertTrue(stats.getQueueP95Millis() > 0);
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        service = new AnalysisJobServiceImpl(agent, properties(1, 2, Duration.ofSeconds(10)));
+        String blocker = service.submit("blocker", null, JobPriority.NORMAL, null).getId();
+        awaitStatus(blocker, JobStatus.RUNNING);
+        service.submit("a", null, JobPriority.NORMAL, null);
+        service.submit("b", null, JobPriority.NORMAL, null);
+
+        JobRejectedException rejected = assertThrows(JobRejectedException.class,
+            () -> service.submit("c", null, JobPriority.HIGH, null));
+        assertTrue(rejected.getRetryAfter().toSeconds() >= 1);
+        assertEquals(1, service.getStats().getRejected());
+        assertEquals(2, service.getStats().getQueued());
+    }
+
+    @Test
+    void testTimesOutAndInterruptsOnlyThatJob() throws Exception {
+        service = new AnalysisJobServiceImpl(agent, properties(1, 10, Duration.ofMillis(200)));
+        String slow = service.submit("blocker", null, JobPriority.NORMAL, null).getId();
+        String next = service.submit("quick", null, JobPriority.NORMAL, null).getId();
+
+        awaitStatus(slow, JobStatus.TIMED_OUT);
+        awaitStatus(next, JobStatus.SUCCEEDED);
+        assertEquals(1L, service.getStats().getFinished().get("timed_out"));
+        assertTrue(agent.interrupted.contains("blocker"));
+        assertFalse(agent.interrupted.contains("quick"));
+    }
+
+    @Test
+    void testCancelsQueuedAndRunningJobs() throws Exception {
+        service = new AnalysisJobServiceImpl(agent, properties(1, 10, Duration.ofSeconds(10)));
+        String running = service.submit("blocker", null, JobPriority.NORMAL, null).getId();
+        awaitStatus(running, JobStatus.RUNNING);
+        String queued = service.submit("queued", null, JobPriority.NORMAL, null).getId();
+
+        assertTrue(service.cancel(queued));
+        assertEquals(JobStatus.CANCELLED, service.find(queued).get().getStatus());
+        assertTrue(service.cancel(running));
+        assertFalse(service.cancel(running));
+        assertFalse(service.cancel("missing"));
+
+        String after = service.submit("quick", null, JobPriority.NORMAL, null).getId();
+        awaitStatus(after, JobStatus.SUCCEEDED);
+        assertTrue(agent.interrupted.contains("blocker"));
+        assertFalse(agent.started.contains("queued"));
+        assertEquals(2L, service.getStats().getFinished().get("cancelled"));
+    }
+
+    @Test
+    void testPartialTextIsVisibleAndReplayedToLateSubscribers() throws Exception {
+        service = new AnalysisJobServiceImpl(agent, properties(1, 10, Duration.ofSeconds(10)));
+        String id = service.submit("blocker", null, JobPriority.NORMAL, null).getId();
+        awaitStatus(id, JobStatus.RUNNING);
+        waitUntil(() -> "first second ".equals(service.find(id).get().getPartialAnalysis()));
+
+        agent.gate.countDown();
+        awaitStatus(id, JobStatus.SUCCEEDED);
+        List<String> replayed = service.progress(id).collectList().block(Duration.ofSeconds(1));
+        assertEquals(List.of("first ", "second ", "analysis of blocker"), replayed);
+        assertNull(service.progress("missing"));
+    }
+
+    @Test
+    void testFinishedJobsExpire() throws Exception {
+        AnalysisProperties properties = properties(1, 10, Duration.ofSeconds(10));
+        properties.getJobs().setMaxRetained(1);
+        service = new AnalysisJobServiceImpl(agent, properties);
+        String first = service.submit("a", null, JobPriority.NORMAL, null).getId();
+        awaitStatus(first, JobStatus.SUCCEEDED);
+        String second = service.submit("b", null, JobPriority.NORMAL, null).getId();
+        awaitStatus(second, JobStatus.SUCCEEDED);
+
+        assertTrue(service.find(first).isEmpty());
+        assertTrue(service.find(second).isPresent());
+        assertEquals(1, service.getStats().getExpired());
+
+        properties.getJobs().setRetention(Duration.ZERO);
+        Thread.sleep(1100);
+        assertTrue(service.find(second).isEmpty());
+    }
+
+    private void awaitStatus(String id, JobStatus status) throws InterruptedException {
+        waitUntil(() -> service.find(id).map(view -> view.getStatus() == status).orElse(false));
+        assertEquals(status, service.find(id).get().getStatus());
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static AnalysisProperties properties(int workers, int capacity, Duration timeout) {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getJobs().setWorkers(workers);
+        properties.getJobs().setQueueCapacity(capacity);
+        properties.getJobs().setTimeout(timeout);
+        return properties;
+    }
+
+    /**
+     * 名为 blocker 的题目先回报两段文本再等待放行，其余题目立即完成；被中断时与真实实现一样返回错误结果
+     */
+    private static class GatedAgent implements MathAnalysisAgent {
+
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<String> started = new CopyOnWriteArrayList<>();
+        final List<String> interrupted = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ProblemAnalysisDomain analyzeMathProblemWithProgress(String question, String context, Workload workload,
+                                                                    Deadline deadline, Consumer<String> onDelta) {
+            started.add(question);
+            ProblemAnalysisDomain domain = new ProblemAnalysisDomain();
+            if ("blocker".equals(question)) {
+                onDelta.accept("first ");
+                onDelta.accept("second ");
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    interrupted.add(question);
+                    domain.setErrorMessage("interrupted");
+                    return domain;
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                interrupted.add(question);
+            }
+            onDelta.accept("analysis of " + question);
+            domain.setProblemAnalysis("analysis of " + question);
+            return domain;
+        }
+
+        @Override
+        public ProblemAnalysisDomain analyzeMathProblem(String question) {
+            return analyzeMathProblemWithContext(question, "");
+        }
+
+        @Override
+        public ProblemAnalysisDomain analyzeMathProblem(String question, Workload workload) {
+            return analyzeMathProblemWithContext(question, "");
+        }
+
+        @Override
+        public ProblemAnalysisDomain analyzeMathProblemWithContext(String question, String context) {
+            return analyzeMathProblemWithProgress(question, context, null, Deadline.after(Duration.ofMinutes(1)),
+                delta -> { });
+        }
+
+        @Override
+        public String getPromptVersion() {
+            return "test";
+        }
+
+        @Override
+        public GroundingUsage getGroundingUsage() {
+            return new GroundingUsage(new TokenUsageStats().getUsage(), new TokenUsageStats().getUsage());
+        }
+
+        @Override
+        public String generateSessionId() {
+            return "session";
+        }
+    }
+}
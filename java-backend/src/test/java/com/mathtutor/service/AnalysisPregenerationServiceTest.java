@@ -0,0 +1,400 @@
+package com.mathtutor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.config.PregenerationProperties;
+import com.mathtutor.llm.LlmClient;
+import com.mathtutor.llm.Workload;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.PregenerationProgress;
+import com.mathtutor.model.ProblemAnalysisDomain;
+import com.mathtutor.model.ProblemDomain;
+import com.mathtutor.model.StoredAnalysis;
+import com.mathtutor.pregeneration.AdaptiveConcurrencyLimiter;
+import com.mathtutor.pregeneration.PregenerationCheckpoint;
+import com.mathtutor.pregeneration.PregenerationStatus;
+import com.mathtutor.repository.AnalysisStore;
+import com.mathtutor.repository.ProblemBank;
+import com.mathtutor.service.impl.AnalysisPregenerationServiceImpl;
+import com.mathtutor.service.impl.MathAnalysisAgentImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AnalysisPregenerationServiceTest {
+
+    private static final String VERSION = "test-version";
+
+    @TempDir
+    Path tempDir;
+
+    private AnalysisStore store;
+    private PregenerationProperties properties;
+    private MathAnalysisAgent agent;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        store = new AnalysisStore(tempDir.resolve("analyses"));
+        properties = new PregenerationProperties();
+        properties.setWindowStart("00:00");
+        properties.setWindowEnd("00:00");
+        properties.setInitialConcurrency(2);
+        properties.setMaxConcurrency(4);
+        properties.setRateLimitBackoff(Duration.ofMillis(20));
+        properties.setMaxBackoff(Duration.ofMillis(100));
+        properties.setCheckpoint(tempDir.resolve("checkpoint.json").toString());
+        agent = mock(MathAnalysisAgent.class);
+        when(agent.getPromptVersion()).thenReturn(VERSION);
+    }
+
+    @Test
+    void testSkipsStoredAnalysesAndGeneratesTheRest() throws Exception {
+        List<ProblemDomain> problems = problems(6);
+        StoredAnalysis existing = stored(problems.get(0), 0);
+        store.save(existing);
+        StoredAnalysis stale = stored(problems.get(1), 0);
+        stale.setQuestionKey(AnalysisStore.questionKey("题目已修改"));
+        store.save(stale);
+        answerWith(question -> success(1000, 500));
+
+        PregenerationProgress progress = runToEnd(service(problems), true);
+
+        assertEquals(PregenerationStatus.COMPLETED, progress.getStatus());
+        assertEquals(6, progress.getTotal());
+        assertEquals(1, progress.getSkipped());
+        assertEquals(5, progress.getCompleted());
+        assertEquals(0, progress.getRemaining());
+        assertNull(calls.get(problems.get(0).getSearchText()));
+        assertEquals(1, calls.get(problems.get(1).getSearchText()).get());
+        for (ProblemDomain problem : problems) {
+            StoredAnalysis stored = store.find(problem.getProblemId(), VERSION);
+            assertNotNull(stored);
+            assertEquals(AnalysisStore.questionKey(problem.getSearchText()), stored.getQuestionKey());
+        }
+        assertEquals(5000, progress.getPromptTokens());
+        assertEquals(2500, progress.getCompletionTokens());
+        // 5000 * 2 / 1e6 + 2500 * 8 / 1e6
+        assertEquals(new BigDecimal("0.0300"), progress.getSpend());
+        assertTrue(progress.getThroughputPerMinute() > 0);
+
+        // 第二次运行全部跳过，不再调用分析
+        calls.clear();
+        progress = runToEnd(service(problems), true);
+        assertEquals(6, progress.getSkipped());
+        assertEquals(0, progress.getCompleted());
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void testRateLimitedProblemsAreRetriedWithReducedConcurrency() throws Exception {
+        List<ProblemDomain> problems = problems(8);
+        properties.setInitialConcurrency(4);
+        AtomicInteger limited = new AtomicInteger();
+        answerWith(question -> {
+            if (calls.get(question).get() == 1 && limited.incrementAndGet() <= 3) {
+                return failure("API调用异常: 同步API调用失败 - HTTP 429: Too Many Requests");
+            }
+            return success(100, 100);
+        });
+
+        PregenerationProgress progress = runToEnd(service(problems), true);
+
+        assertEquals(PregenerationStatus.COMPLETED, progress.getStatus());
+        assertEquals(8, progress.getCompleted());
+        assertEquals(3, progress.getRateLimited());
+        assertEquals(0, progress.getFailed());
+        assertEquals(3, calls.values().stream().filter(count -> count.get() == 2).count());
+    }
+
+    @Test
+    void testPersistentFailuresAreAbandonedAfterMaxAttempts() throws Exception {
+        List<ProblemDomain> problems = problems(3);
+        properties.setMaxAttempts(2);
+        answerWith(question -> question.equals(problems.get(1).getSearchText())
+            ? failure("分析过程中发生了错误: 返回内容无法解析") : success(10, 10));
+
+        PregenerationProgress progress = runToEnd(service(problems), true);
+
+        assertEquals(PregenerationStatus.COMPLETED, progress.getStatus());
+        assertEquals(2, progress.getCompleted());
+        assertEquals(1, progress.getFailed());
+        assertEquals(2, calls.get(problems.get(1).getSearchText()).get());
+        assertNull(store.find(problems.get(1).getProblemId(), VERSION));
+    }
+
+    @Test
+    void testResumesFromCheckpointAfterCrash() throws Exception {
+        List<ProblemDomain> problems = problems(4);
+        // 上次运行在 startedAt=1000 开始，生成了 P0 后崩溃；P1 是更早一轮的结果，P3 已放弃
+        PregenerationCheckpoint checkpoint = new PregenerationCheckpoint("run1", VERSION, 1000);
+        checkpoint.setPromptTokens(700);
+        checkpoint.setCompletionTokens(300);
+        checkpoint.setActiveMillis(60_000);
+        checkpoint.getFailedProblemIds().add(problems.get(3).getProblemId());
+        new ObjectMapper().writeValue(tempDir.resolve("checkpoint.json").toFile(), checkpoint);
+        store.save(stored(problems.get(0), 2000));
+        store.save(stored(problems.get(1), 500));
+        answerWith(question -> success(100, 50));
+
+        AnalysisPregenerationServiceImpl service = service(problems);
+        service.resumeAfterRestart();
+        assertTrue(calls.isEmpty(), "未启用时不应自动继续");
+
+        properties.setEnabled(true);
+        service.resumeAfterRestart();
+        PregenerationProgress progress = awaitEnd(service);
+
+        assertEquals(PregenerationStatus.COMPLETED, progress.getStatus());
+        assertEquals("run1", progress.getRunId());
+        assertEquals(1, progress.getSkipped());
+        assertEquals(2, progress.getCompleted());
+        assertEquals(1, progress.getFailed());
+        assertEquals(800, progress.getPromptTokens());
+        assertEquals(350, progress.getCompletionTokens());
+        assertEquals(1, calls.size());
+        assertEquals(1, calls.get(problems.get(2).getSearchText()).get());
+
+        // 已完成的断点不再自动继续
+        calls.clear();
+        service.resumeAfterRestart();
+        Thread.sleep(100);
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void testOnlyStartsInsideWindow() throws Exception {
+        properties.setWindowStart("23:00");
+        properties.setWindowEnd("06:00");
+        answerWith(question -> success(1, 1));
+        List<ProblemDomain> problems = problems(2);
+
+        assertFalse(service(problems, at(12, 0)).start(false));
+        assertEquals(PregenerationStatus.IDLE, service(problems, at(12, 0)).getProgress().getStatus());
+        assertTrue(calls.isEmpty());
+
+        AnalysisPregenerationServiceImpl midnight = service(problems, at(2, 30));
+        assertTrue(midnight.start(false));
+        assertEquals(PregenerationStatus.COMPLETED, awaitEnd(midnight).getStatus());
+
+        AnalysisPregenerationServiceImpl manual = service(problems, at(12, 0));
+        assertTrue(manual.start(true));
+        assertEquals(2, awaitEnd(manual).getSkipped());
+    }
+
+    @Test
+    void testStopsWhenBudgetIsExhausted() throws Exception {
+        List<ProblemDomain> problems = problems(6);
+        properties.setInitialConcurrency(1);
+        properties.setMaxConcurrency(1);
+        properties.setBudget(new BigDecimal("1"));
+        answerWith(question -> success(1_000_000, 0));
+
+        PregenerationProgress progress = runToEnd(service(problems), true);
+
+        assertEquals(PregenerationStatus.BUDGET_EXHAUSTED, progress.getStatus());
+        assertTrue(progress.getCompleted() >= 1 && progress.getCompleted() < 6, "completed=" + progress.getCompleted());
+        assertEquals(6 - progress.getCompleted(), progress.getRemaining());
+    }
+
+    @Test
+    void testBudgetCoversSpendBeforeResume() throws Exception {
+        List<ProblemDomain> problems = problems(4);
+        properties.setInitialConcurrency(1);
+        properties.setMaxConcurrency(1);
+        properties.setBudget(new BigDecimal("1"));
+        // 中断前已花费 0.9，每份花费 0.2：续跑只够再发出一份（加上至多一份在途），而不是再花满 1
+        PregenerationCheckpoint checkpoint = new PregenerationCheckpoint("run1", VERSION, 1000);
+        checkpoint.setPromptTokens(450_000);
+        new ObjectMapper().writeValue(tempDir.resolve("checkpoint.json").toFile(), checkpoint);
+        answerWith(question -> success(100_000, 0));
+
+        AnalysisPregenerationServiceImpl service = service(problems);
+        PregenerationProgress progress = runToEnd(service, true);
+
+        assertEquals(PregenerationStatus.BUDGET_EXHAUSTED, progress.getStatus());
+        assertEquals("run1", progress.getRunId());
+        assertTrue(calls.size() <= 2, "calls=" + calls.size());
+        assertEquals(4 - calls.size(), progress.getRemaining());
+
+        // 花光预算的一轮不再续跑，新一轮跳过已生成的分析
+        progress = runToEnd(service, true);
+
+        assertEquals(PregenerationStatus.COMPLETED, progress.getStatus());
+        assertNotEquals("run1", progress.getRunId());
+        assertEquals(4, calls.size());
+        calls.values().forEach(count -> assertEquals(1, count.get()));
+    }
+
+    @Test
+    void testLimiterHalvesOncePerBackoffAndGrowsAdditively() throws Exception {
+        AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter(8, 8, Duration.ofMillis(50), Duration.ofSeconds(1));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(Duration.ZERO));
+        }
+        limiter.onRateLimited();
+        limiter.onRateLimited();
+        assertEquals(4, limiter.getLimit());
+        assertTrue(limiter.isBackingOff());
+        assertFalse(limiter.tryAcquire(Duration.ofMillis(5)));
+        assertTrue(limiter.tryAcquire(Duration.ofMillis(500)));
+        assertEquals(3, limiter.getInFlight());
+
+        limiter.onSuccess();
+        limiter.onSuccess();
+        limiter.onSuccess();
+        assertEquals(4, limiter.getLimit());
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire(Duration.ZERO);
+            limiter.onSuccess();
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void testAgentServesPregeneratedAnalysisWithoutLlmCall() throws Exception {
+        LlmClient llmClient = mock(LlmClient.class);
+        MathAnalysisAgentImpl analysisAgent = new MathAnalysisAgentImpl(llmClient, null, new AnalysisProperties(), store);
+        String question = "已知|a+5|+(b-8)²=0，求a、b的值";
+        ProblemAnalysisDomain analysis = success(10, 10);
+        analysis.setBackgrounds(List.of("绝对值的非负性"));
+        store.save(new StoredAnalysis("P1", analysisAgent.getPromptVersion(), AnalysisStore.questionKey(question),
+            analysis));
+
+        AnalysisStore reloaded = new AnalysisStore(tempDir.resolve("analyses"));
+        assertEquals(1, reloaded.size());
+        MathAnalysisAgentImpl restarted = new MathAnalysisAgentImpl(llmClient, null, new AnalysisProperties(), reloaded);
+        ProblemAnalysisDomain served = restarted.analyzeMathProblem("  已知|a+5|+(b-8)²=0，求a、b的值\n");
+
+        assertEquals(List.of("绝对值的非负性"), served.getBackgrounds());
+        assertNotNull(served.getSessionId());
+        verifyNoInteractions(llmClient);
+        assertNull(reloaded.findByQuestion(AnalysisStore.questionKey(question), "other-version"));
+    }
+
+    @Test
+    void testAgentReusesNearDuplicatesButNotChangedNumbers() throws Exception {
+        LlmClient llmClient = mock(LlmClient.class);
+        when(llmClient.chat(any())).thenReturn(ChatResponse.success("新的分析", "s1"));
+        MathAnalysisAgentImpl analysisAgent = new MathAnalysisAgentImpl(llmClient, null, new AnalysisProperties(), store);
+        String question = "数轴上点A表示的数为a，点B表示的数为b，满足|a+5|+(b-8)²=0，求点A与点B之间的距离。（ ）";
+        ProblemAnalysisDomain analysis = success(10, 10);
+        analysis.setProblemAnalysis("预生成的分析");
+        StoredAnalysis stored = new StoredAnalysis("P1", analysisAgent.getPromptVersion(),
+            AnalysisStore.questionKey(question), analysis);
+        stored.setQuestionText(question);
+        store.save(stored);
+
+        ProblemAnalysisDomain pasted = analysisAgent.analyzeMathProblem(
+            "【2024·期中】3.（4分）数轴上点A表示的数为a, 点B表示的数为b, 满足 |a + 5| + (b - 8)^2 = 0, 求点A与点B之间的距离____");
+        assertEquals("预生成的分析", pasted.getProblemAnalysis());
+        assertEquals(1.0, pasted.getMatchConfidence());
+        verifyNoInteractions(llmClient);
+
+        String changed = question.replace("b-8", "b-9");
+        ProblemAnalysisDomain fresh = analysisAgent.analyzeMathProblem(changed);
+        assertEquals("新的分析", fresh.getProblemAnalysis());
+        assertNull(fresh.getMatchConfidence());
+        verify(llmClient, times(1)).chat(any());
+
+        // 在线生成的分析已存入，再次提问直接复用
+        ProblemAnalysisDomain again = analysisAgent.analyzeMathProblem(changed);
+        assertEquals("新的分析", again.getProblemAnalysis());
+        assertEquals(1.0, again.getMatchConfidence());
+        verify(llmClient, times(1)).chat(any());
+        assertEquals(2, new AnalysisStore(tempDir.resolve("analyses")).size());
+    }
+
+    private interface Responder {
+        ProblemAnalysisDomain respond(String question);
+    }
+
+    private void answerWith(Responder responder) {
+        when(agent.analyzeMathProblem(anyString(), any(Workload.class))).thenAnswer(invocation -> {
+            String question = invocation.getArgument(0);
+            calls.computeIfAbsent(question, q -> new AtomicInteger()).incrementAndGet();
+            return responder.respond(question);
+        });
+    }
+
+    private AnalysisPregenerationServiceImpl service(List<ProblemDomain> problems) {
+        return service(problems, Clock.systemDefaultZone());
+    }
+
+    private AnalysisPregenerationServiceImpl service(List<ProblemDomain> problems, Clock clock) {
+        return new AnalysisPregenerationServiceImpl(new ProblemBank(problems), agent, store, properties, clock);
+    }
+
+    private static PregenerationProgress runToEnd(AnalysisPregenerationServiceImpl service, boolean ignoreWindow)
+        throws InterruptedException {
+        assertTrue(service.start(ignoreWindow));
+        return awaitEnd(service);
+    }
+
+    private static PregenerationProgress awaitEnd(AnalysisPregenerationServiceImpl service)
+        throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        PregenerationProgress progress = service.getProgress();
+        while (progress.getStatus() == PregenerationStatus.RUNNING
+            || progress.getStatus() == PregenerationStatus.STOPPING) {
+            assertTrue(System.currentTimeMillis() < deadline, "预生成未在限定时间内结束");
+            Thread.sleep(10);
+            progress = service.getProgress();
+        }
+        return progress;
+    }
+
+    private static Clock at(int hour, int minute) {
+        ZoneId zone = ZoneId.systemDefault();
+        Instant instant = LocalDateTime.of(2025, 3, 1, hour, minute).atZone(zone).toInstant();
+        return Clock.fixed(instant, zone);
+    }
+
+    private static List<ProblemDomain> problems(int count) {
+        List<ProblemDomain> problems = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            problems.add(new ProblemDomain("P" + i, "第" + i + "题：解方程 " + (i + 2) + "x+1=" + (i + 7),
+                "M01", "T01", null, List.of()));
+        }
+        return problems;
+    }
+
+    private static StoredAnalysis stored(ProblemDomain problem, long generatedAt) {
+        StoredAnalysis stored = new StoredAnalysis(problem.getProblemId(), VERSION,
+            AnalysisStore.questionKey(problem.getSearchText()), success(10, 10));
+        stored.setGeneratedAt(generatedAt);
+        return stored;
+    }
+
+    private static ProblemAnalysisDomain success(int promptTokens, int completionTokens) {
+        ProblemAnalysisDomain analysis = new ProblemAnalysisDomain();
+        analysis.setPromptTokens(promptTokens);
+        analysis.setCompletionTokens(completionTokens);
+        return analysis;
+    }
+
+    private static ProblemAnalysisDomain failure(String message) {
+        ProblemAnalysisDomain analysis = new ProblemAnalysisDomain();
+        analysis.setErrorMessage(message);
+        return analysis;
+    }
+}
@@ -11,6 +11,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -80,4 +86,26 @@ class ChatServiceTest {
         assertTrue(actualResponse.getResponse().contains("unavailable"),
                   "Error message should indicate service unavailability");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTruncatedStreamIsReportedAsError() {
+        ChatRequest request = new ChatRequest();
+        request.setMessage("What is 2+2?");
+        request.setSessionId("test-session");
+        when(llmClient.chatStream(any(ChatRequest.class), any())).thenAnswer(invocation -> {
+            LlmClient.StreamHandler handler = invocation.getArgument(1);
+            handler.onContent("2+2", null);
+            handler.onError(new IOException("流在 [DONE] 之前结束"));
+            return LlmClient.StreamHandle.NONE;
+        });
+        List<String> deltas = new ArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        chatService.chatStream(request, deltas::add, () -> completed.set(true), error::set);
+
+        assertEquals(List.of("2+2"), deltas);
+        assertFalse(completed.get(), "截断的回答不能按正常结束处理");
+        assertInstanceOf(IOException.class, error.get());
+    }
+}
@@ -0,0 +1,143 @@
+package com.mathtutor.service;
+
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.init.GradeSevenKnowledgeInitializer;
+import com.mathtutor.llm.Deadline;
+import com.mathtutor.llm.LlmClient;
+import com.mathtutor.llm.TokenEstimator;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.GradeEnum;
+import com.mathtutor.model.GroundingContext;
+import com.mathtutor.model.ProblemAnalysisDomain;
+import com.mathtutor.model.TokenUsage;
+import com.mathtutor.search.KnowledgeSearchIndex;
+import com.mathtutor.service.impl.KnowledgeRetrievalServiceImpl;
+import com.mathtutor.service.impl.MathAnalysisAgentImpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KnowledgeRetrievalServiceTest {
+
+    private static final String QUESTION = "数轴上点A表示的数为a,点B表示的数为b.满足 |a+5|+(b-8)^2=0 ,机器人M从点A出发,"
+        + "以每秒4个单位长度的速度向右运动,1秒后,机器人N从点B出发,以每秒2个单位长度的速度向左运动,"
+        + "机器人M遇到机器人N后立即降速,以原速的一半返回,求两个机器人相遇的时间t及相遇点P所表示的数";
+
+    private AnalysisProperties properties;
+    private KnowledgeRetrievalServiceImpl retrievalService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AnalysisProperties();
+        KnowledgeSearchIndex index = new KnowledgeSearchIndex(GradeSevenKnowledgeInitializer.initializeGradeSevenKnowledge());
+        retrievalService = new KnowledgeRetrievalServiceImpl(index, properties);
+    }
+
+    @Test
+    void testRetrieveDynamicPointProblem() {
+        GroundingContext context = retrievalService.retrieve(QUESTION, GradeEnum.SEVENTH_GRADE);
+
+        assertFalse(context.isEmpty());
+        assertTrue(context.getKnowledgeCodes().contains("M3T008"));
+        assertTrue(context.getMethodCodes().contains("SM005"));
+        assertTrue(context.getPrompt().contains("数轴动点问题"));
+        assertTrue(context.getEstimatedTokens() <= properties.getGrounding().getMaxTokens());
+    }
+
+    @Test
+    void testTokenBudgetIsStrict() {
+        properties.getGrounding().setMaxTokens(120);
+        GroundingContext context = retrievalService.retrieve(QUESTION, GradeEnum.SEVENTH_GRADE);
+
+        assertTrue(TokenEstimator.estimate(context.getPrompt()) <= 120);
+        assertTrue(context.getKnowledgeCodes().size() + context.getMethodCodes().size() < 6);
+
+        properties.getGrounding().setMaxTokens(10);
+        assertTrue(retrievalService.retrieve(QUESTION, GradeEnum.SEVENTH_GRADE).isEmpty());
+    }
+
+    @Test
+    void testGradeFiltering() {
+        GroundingContext context = retrievalService.retrieve(QUESTION, GradeEnum.SIXTH_GRADE);
+
+        assertTrue(context.getKnowledgeCodes().isEmpty(), "七年级知识点不应推荐给六年级");
+        assertFalse(context.getMethodCodes().contains("SM005"), "SM005 适用范围从七年级开始");
+    }
+
+    @Test
+    void testAgentInjectsGroundingAndRecordsUsage() {
+        LlmClient llmClient = mock(LlmClient.class);
+        ChatResponse response = ChatResponse.success("## 题目分析", "s1");
+        response.setPromptTokens(1200);
+        response.setCompletionTokens(900);
+        when(llmClient.chat(any())).thenReturn(response);
+
+        MathAnalysisAgentImpl agent = new MathAnalysisAgentImpl(llmClient, retrievalService, properties);
+        ProblemAnalysisDomain domain = agent.analyzeMathProblem(QUESTION);
+
+        ArgumentCaptor<ChatRequest> captor = ArgumentCaptor.forClass(ChatRequest.class);
+        verify(llmClient).chat(captor.capture());
+        assertTrue(captor.getValue().getMessage().contains("参考知识库"));
+        assertTrue(captor.getValue().getMessage().endsWith("请开始你的分析。"));
+
+        assertTrue(domain.getGroundingKnowledgeCodes().contains("M3T008"));
+        assertEquals(1200, domain.getPromptTokens());
+        assertEquals(1, agent.getGroundedUsage().getCalls());
+        assertEquals(900.0, agent.getGroundedUsage().getAverageCompletionTokens());
+        assertEquals(0, agent.getPlainUsage().getCalls());
+    }
+
+    @Test
+    void testAgentWithoutGrounding() {
+        properties.getGrounding().setEnabled(false);
+        LlmClient llmClient = mock(LlmClient.class);
+        when(llmClient.chat(any())).thenReturn(ChatResponse.success("ok", "s2"));
+
+        MathAnalysisAgentImpl agent = new MathAnalysisAgentImpl(llmClient, retrievalService, properties);
+        ProblemAnalysisDomain domain = agent.analyzeMathProblem(QUESTION);
+
+        ArgumentCaptor<ChatRequest> captor = ArgumentCaptor.forClass(ChatRequest.class);
+        verify(llmClient).chat(captor.capture());
+        assertFalse(captor.getValue().getMessage().contains("参考知识库"));
+        assertTrue(domain.getGroundingKnowledgeCodes().isEmpty());
+        // 上游没有返回用量，按文本长度估算
+        assertEquals(1, agent.getGroundingUsage().getPlain().getCalls());
+        assertEquals(1, agent.getGroundingUsage().getPlain().getEstimatedCalls());
+    }
+
+    @Test
+    void testStreamedAnalysisUsageIsEstimated() {
+        LlmClient llmClient = mock(LlmClient.class);
+        when(llmClient.chatStream(any(), any())).thenAnswer(invocation -> {
+            LlmClient.StreamHandler handler = invocation.getArgument(1);
+            handler.onContent("## 题目分析", null);
+            handler.onContent("", null);
+            return LlmClient.StreamHandle.NONE;
+        });
+
+        MathAnalysisAgentImpl agent = new MathAnalysisAgentImpl(llmClient, retrievalService, properties);
+        ProblemAnalysisDomain domain = agent.analyzeMathProblemWithProgress(QUESTION, "", null,
+            Deadline.after(Duration.ofMinutes(1)), delta -> { });
+
+        assertNull(domain.getErrorMessage());
+        assertNull(domain.getPromptTokens(), "流式响应没有上游用量");
+        ArgumentCaptor<ChatRequest> captor = ArgumentCaptor.forClass(ChatRequest.class);
+        verify(llmClient).chatStream(captor.capture(), any());
+        TokenUsage grounded = agent.getGroundingUsage().getGrounded();
+        assertEquals(1, grounded.getCalls());
+        assertEquals(1, grounded.getEstimatedCalls());
+        assertEquals(TokenEstimator.estimate(captor.getValue().getMessage()), grounded.getAveragePromptTokens());
+        assertEquals(TokenEstimator.estimate("## 题目分析"), grounded.getAverageCompletionTokens());
+        assertEquals(0, agent.getGroundingUsage().getPlain().getCalls());
+    }
+}
@@ -1,16 +1,26 @@
 package com.mathtutor.service;
 
+import com.mathtutor.config.AnalysisProperties;
+import com.mathtutor.llm.Deadline;
 import com.mathtutor.llm.LlmClient;
+import com.mathtutor.llm.Workload;
+import com.mathtutor.llm.WorkloadClass;
 import com.mathtutor.model.ProblemAnalysisDomain;
 import com.mathtutor.model.SubQuestionAnalysis;
+import com.mathtutor.repository.AnalysisStore;
 import com.mathtutor.service.impl.MathAnalysisAgentImpl;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -189,4 +199,25 @@ class MathAnalysisAgentTest {
         assertEquals(1, response.getSubQuestionCount());
         assertEquals(suggestions, response.getSuggestions());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTruncatedStreamFailsAndIsNotStored(@TempDir Path tempDir) {
+        AnalysisStore store = new AnalysisStore(tempDir.resolve("analyses"));
+        MathAnalysisAgent agent = new MathAnalysisAgentImpl(llmClient, null, new AnalysisProperties(), store);
+        when(llmClient.chatStream(any(), any())).thenAnswer(invocation -> {
+            LlmClient.StreamHandler handler = invocation.getArgument(1);
+            handler.onContent("## 题目分析\n前半部分", null);
+            handler.onError(new IOException("流式响应在 [DONE] 之前结束"));
+            return LlmClient.StreamHandle.NONE;
+        });
+
+        List<String> deltas = new ArrayList<>();
+        ProblemAnalysisDomain result = agent.analyzeMathProblemWithProgress("解方程 2x=4", "",
+            Workload.of(WorkloadClass.STREAMED_ANALYSIS, "t1"), Deadline.after(Duration.ofSeconds(5)), deltas::add);
+
+        assertEquals(List.of("## 题目分析\n前半部分"), deltas);
+        assertNotNull(result.getErrorMessage());
+        assertTrue(result.getErrorMessage().contains("[DONE]"), result.getErrorMessage());
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,172 @@
+package com.mathtutor.service;
+
+import com.mathtutor.config.GradingProperties;
+import com.mathtutor.config.ProblemProperties;
+import com.mathtutor.config.TutoringProperties;
+import com.mathtutor.llm.LlmClient;
+import com.mathtutor.model.ChatRequest;
+import com.mathtutor.model.ChatResponse;
+import com.mathtutor.model.TutoringStats;
+import com.mathtutor.repository.ProblemBank;
+import com.mathtutor.service.impl.ChatServiceImpl;
+import com.mathtutor.service.impl.StepGradingServiceImpl;
+import com.mathtutor.service.impl.TutoringServiceImpl;
+import com.mathtutor.tutoring.IntentClassifier;
+import com.mathtutor.tutoring.TutorIntent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TutoringServiceTest {
+
+    private static final ProblemBank BANK = new ProblemBank(new ProblemProperties());
+    private static final String CONTEXT = TutoringService.PROBLEM_CONTEXT_PREFIX + "P_MATH_2025_025";
+
+    @Mock
+    private LlmClient llmClient;
+
+    private TutoringService tutoringService;
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        StepGradingService gradingService = new StepGradingServiceImpl(BANK, llmClient, new GradingProperties());
+        tutoringService = new TutoringServiceImpl(BANK, gradingService, llmClient, new TutoringProperties());
+        chatService = new ChatServiceImpl(llmClient, tutoringService);
+    }
+
+    @Test
+    void testScriptedPathIsServedLocally() {
+        String intro = say("s1", "开始", CONTEXT);
+        assertTrue(intro.contains("根据非负性求出 a=-5, b=8"), intro);
+
+        assertTrue(say("s1", "我不会").startsWith("提示1：观察题目给出的等式"));
+        assertTrue(say("s1", "还是没思路").startsWith("提示2："));
+        assertTrue(say("s1", "再给个提示").startsWith("提示3："));
+        assertTrue(say("s1", "hint").startsWith("这已经是最详细的提示了"));
+
+        assertTrue(say("s1", "a = －5，b = 8").contains("下一步：计算两点间距离"));
+        // 作答后面带着"下一步"也要先批改，不能当作跳过
+        String wrong = say("s1", "14，下一步呢");
+        assertTrue(wrong.startsWith("还不对") && wrong.contains("距离公式"), wrong);
+        String next = say("s1", "13");
+        assertTrue(next.contains("接下来看第2问"), next);
+
+        assertTrue(say("s1", "跳过").contains("下一步"));
+        verifyNoInteractions(llmClient);
+
+        TutoringStats stats = tutoringService.getStats();
+        assertEquals(9, stats.getLocalTurns());
+        assertEquals(1.0, stats.getLocalFraction());
+        assertTrue(stats.getLocalP50Micros() > 0 && stats.getLocalP99Micros() >= stats.getLocalP50Micros());
+        assertEquals(1, stats.getActiveSessions());
+    }
+
+    @Test
+    void testOffScriptInputGoesToLlmWithStepContext() {
+        when(llmClient.chat(any())).thenReturn(ChatResponse.success("想想路程和时间的关系", "s2"));
+        say("s2", "开始", CONTEXT);
+        say("s2", "跳过");
+        say("s2", "跳过");
+
+        assertEquals("想想路程和时间的关系", say("s2", "为什么 N 要减 1 秒"));
+        assertEquals("想想路程和时间的关系", say("s2", "一共走了十三个单位"));
+
+        ArgumentCaptor<ChatRequest> request = ArgumentCaptor.forClass(ChatRequest.class);
+        verify(llmClient, times(2)).chat(request.capture());
+        String prompt = request.getAllValues().get(0).getMessage();
+        assertTrue(prompt.contains("建立相遇方程") && prompt.contains("为什么 N 要减 1 秒"), prompt);
+        assertEquals("s2", request.getValue().getSessionId());
+
+        TutoringStats stats = tutoringService.getStats();
+        assertEquals(2, stats.getLlmTurns());
+        assertEquals(3.0 / 5, stats.getLocalFraction(), 1e-9);
+    }
+
+    @Test
+    void testSessionLifecycle() {
+        when(llmClient.chat(any())).thenReturn(ChatResponse.success("普通回答", "s3"));
+        // 没有题目上下文的会话仍走大模型
+        assertEquals("普通回答", say("s3", "你好"));
+
+        say("s3", "开始", CONTEXT);
+        String last = "";
+        for (int i = 0; i < 7; i++) {
+            last = say("s3", "下一步");
+        }
+        assertTrue(last.contains("全部步骤已完成"), last);
+        assertFalse(tutoringService.accepts(request("s3", "继续", null)));
+        assertEquals(0, tutoringService.getStats().getActiveSessions());
+
+        ChatResponse missing = chatService.chat(request("s4", "开始", "problem:P_NONE"));
+        assertEquals("error", missing.getStatus());
+    }
+
+    @Test
+    void testIntentClassifier() {
+        IntentClassifier classifier = new IntentClassifier();
+        assertEquals(TutorIntent.HINT, classifier.classify("下一步怎么做"));
+        assertEquals(TutorIntent.QUESTION, classifier.classify("为什么不会是负数"));
+        assertEquals(TutorIntent.SKIP, classifier.classify("ＮＥＸＴ"));
+        assertEquals(TutorIntent.ANSWER, classifier.classify("t=2.5"));
+        // 带算式的输入先按作答批改，关键词只对简短的整句生效
+        assertEquals(TutorIntent.ANSWER, classifier.classify("t=2.5，下一步呢"));
+        assertEquals(TutorIntent.ANSWER, classifier.classify("6t=15，为什么"));
+        assertEquals(TutorIntent.QUESTION, classifier.classify("为什么是2.5"));
+        assertEquals(TutorIntent.ANSWER,
+            classifier.classify("先列方程4t+2(t-1)=13，再化简得到6t=15，所以是这样的吗为什么"));
+        assertEquals(TutorIntent.ANSWER, classifier.classify("我算出来相遇时间是二点五秒但不知道对不对还要检查一下"));
+    }
+
+    @Test
+    void testSimulatedClassroomReport() {
+        when(llmClient.chat(any())).thenAnswer(invocation -> {
+            Thread.sleep(2);
+            return ChatResponse.success("（大模型回答）", "x");
+        });
+        List<String> script = List.of("提示", "a=-5,b=8", "14", "提示", "13", "6t=15", "为什么是 t-1",
+            "t=2.5", "P=5", "不会", "xM=10-2t", "跳过", "t=13/4", "t=3.25");
+        for (int student = 0; student < 200; student++) {
+            String session = "class-" + student;
+            say(session, "开始", CONTEXT);
+            for (String message : script) {
+                say(session, message);
+            }
+        }
+
+        TutoringStats stats = tutoringService.getStats();
+        System.out.printf("辅导对话：%d 轮，本地应答 %.1f%%；本地 p50/p95/p99 = %.1f/%.1f/%.1f µs，"
+                + "大模型 p50/p95/p99 = %.1f/%.1f/%.1f ms%n",
+            stats.getTurns(), stats.getLocalFraction() * 100,
+            stats.getLocalP50Micros(), stats.getLocalP95Micros(), stats.getLocalP99Micros(),
+            stats.getLlmP50Millis(), stats.getLlmP95Millis(), stats.getLlmP99Millis());
+        assertTrue(stats.getLocalFraction() >= 0.75, String.valueOf(stats.getLocalFraction()));
+        assertTrue(stats.getLocalP50Micros() * 1000 < stats.getLlmP50Millis() * 1_000_000);
+    }
+
+    private String say(String sessionId, String message) {
+        return say(sessionId, message, null);
+    }
+
+    private String say(String sessionId, String message, String context) {
+        return chatService.chat(request(sessionId, message, context)).getResponse();
+    }
+
+    private static ChatRequest request(String sessionId, String message, String context) {
+        ChatRequest request = new ChatRequest();
+        request.setSessionId(sessionId);
+        request.setMessage(message);
+        request.setContext(context);
+        return request;
+    }
+}